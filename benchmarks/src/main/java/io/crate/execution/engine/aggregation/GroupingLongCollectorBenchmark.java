@@ -56,6 +56,7 @@ import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
@@ -71,6 +72,8 @@ import io.crate.execution.engine.collect.RowCollectExpression;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
+import io.crate.memory.OffHeapMemoryManager;
+import io.crate.memory.OffHeapMemoryPool;
 import io.crate.memory.OnHeapMemoryManager;
 import io.crate.metadata.Functions;
 import io.crate.metadata.functions.Signature;
@@ -86,6 +89,8 @@ import io.netty.util.collection.LongObjectHashMap;
 public class GroupingLongCollectorBenchmark {
 
     private GroupingCollector groupBySumCollector;
+    private LongKeyedGroupingCollector fixedWidthGroupBySumCollector;
+    private OffHeapMemoryManager offHeapMemoryManager;
     private List<Row> rows;
     private long[] numbers;
     private IndexSearcher searcher;
@@ -108,6 +113,8 @@ public class GroupingLongCollectorBenchmark {
         );
         var memoryManager = new OnHeapMemoryManager(bytes -> {});
         groupBySumCollector = createGroupBySumCollector(sumAgg, memoryManager);
+        offHeapMemoryManager = new OffHeapMemoryManager(new OffHeapMemoryPool(), bytes -> {});
+        fixedWidthGroupBySumCollector = createFixedWidthGroupBySumCollector(sumAgg, offHeapMemoryManager);
 
         int size = 20_000_000;
         rows = new ArrayList<>(size);
@@ -142,16 +149,46 @@ public class GroupingLongCollectorBenchmark {
             Version.CURRENT,
             keyInputs.get(0),
             DataTypes.LONG,
-            Version.CURRENT
+            Version.CURRENT,
+            GroupingCollector.NO_SPILLING
+        );
+    }
+
+    private static LongKeyedGroupingCollector createFixedWidthGroupBySumCollector(AggregationFunction sumAgg,
+                                                                                  MemoryManager memoryManager) {
+        RowCollectExpression keyInput = new RowCollectExpression(0);
+        AggregationFunction[] aggregations = new AggregationFunction[] { sumAgg };
+        return new LongKeyedGroupingCollector(
+            new CollectExpression[] { keyInput },
+            AggregateMode.ITER_FINAL,
+            aggregations,
+            LongKeyedGroupingCollector.getFixedWidthAggregators(AggregateMode.ITER_FINAL, DataTypes.LONG, aggregations),
+            new Input[][] { new Input[] { keyInput }},
+            new Input[] { Literal.BOOLEAN_TRUE },
+            RamAccounting.NO_ACCOUNTING,
+            memoryManager,
+            keyInput,
+            DataTypes.LONG
         );
     }
 
+    @TearDown
+    public void releaseMemory() {
+        offHeapMemoryManager.close();
+    }
+
     @Benchmark
     public void measureGroupBySumLong(Blackhole blackhole) throws Exception {
         var rowsIterator = InMemoryBatchIterator.of(rows, SENTINEL, true);
         blackhole.consume(rowsIterator.collect(groupBySumCollector).get());
     }
 
+    @Benchmark
+    public void measureGroupBySumLongFixedWidthStates(Blackhole blackhole) throws Exception {
+        var rowsIterator = InMemoryBatchIterator.of(rows, SENTINEL, true);
+        blackhole.consume(rowsIterator.collect(fixedWidthGroupBySumCollector).get());
+    }
+
     @Benchmark
     public LongObjectHashMap<Long> measureGroupingOnNumericDocValues() throws Exception {
         Weight weight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES, 1.0f);
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.crate.data.Input;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.impl.AggregationImplModule;
+import io.crate.execution.engine.aggregation.impl.MaximumAggregation;
+import io.crate.execution.engine.collect.RowCollectExpression;
+import io.crate.expression.ExpressionsInput;
+import io.crate.expression.symbol.Literal;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.Functions;
+import io.crate.metadata.functions.Signature;
+import io.crate.types.DataTypes;
+
+/**
+ * Measures {@code max(x) OVER (ROWS BETWEEN <frameSize> PRECEDING AND CURRENT ROW)} over a single partition.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SlidingFrameAggregationBenchmark {
+
+    private final List<Object[]> rows = IntStream.range(0, 10_000)
+        .mapToObj(i -> new Object[] { (long) (i * 7919 % 10_000) })
+        .collect(Collectors.toList());
+
+    @Param({"10", "1000"})
+    public int frameSize;
+
+    private AggregationFunction<?, ?> maxAggregation;
+    private RowCollectExpression inExpr0;
+
+    @Setup
+    public void setup() {
+        inExpr0 = new RowCollectExpression(0);
+        Functions functions = new ModulesBuilder()
+            .add(new AggregationImplModule())
+            .createInjector()
+            .getInstance(Functions.class);
+        maxAggregation = (AggregationFunction<?, ?>) functions.getQualified(
+            Signature.aggregate(
+                MaximumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            List.of(DataTypes.LONG),
+            DataTypes.LONG
+        );
+    }
+
+    @Benchmark
+    public void measureMaxOverSlidingFrame(Blackhole blackhole) {
+        var windowFunction = new AggregateToWindowFunctionAdapter(
+            maxAggregation,
+            new ExpressionsInput<>(Literal.BOOLEAN_TRUE, List.of()),
+            Version.CURRENT,
+            RamAccounting.NO_ACCOUNTING,
+            new OnHeapMemoryManager(bytes -> {}),
+            Version.CURRENT
+        );
+        WindowFrameState frame = new WindowFrameState(0, 0, rows);
+        List<RowCollectExpression> expressions = List.of(inExpr0);
+        Input<?>[] args = new Input[] { inExpr0 };
+        for (int i = 0; i < rows.size(); i++) {
+            frame.updateBounds(0, rows.size(), Math.max(0, i - frameSize), i + 1);
+            blackhole.consume(windowFunction.execute(i, frame, expressions, null, args));
+        }
+    }
+}
@@ -46,6 +46,7 @@ import io.crate.beans.CircuitBreakers;
 import io.crate.beans.Connections;
 import io.crate.beans.NodeInfo;
 import io.crate.beans.NodeStatus;
+import io.crate.beans.PlanCacheStats;
 import io.crate.beans.QueryStats;
 import io.crate.beans.ThreadPools;
 import io.crate.execution.engine.collect.stats.JobsLogs;
@@ -78,6 +79,7 @@ public class CrateMonitor {
         ));
         registerMBean(ThreadPools.NAME, new ThreadPools(threadPool));
         registerMBean(CircuitBreakers.NAME, new CircuitBreakers(breakerService));
+        registerMBean(PlanCacheStats.NAME, new PlanCacheStats(sqlOperations.planCache()));
     }
 
     private void registerMBean(String name, Object bean) {
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data;
+
+/**
+ * A batch of rows stored column-wise in primitive arrays.
+ *
+ * <pre>
+ *  column[0]:  long[] | nulls[0]
+ *  column[1]:  long[] | nulls[1]
+ *  ...
+ * </pre>
+ *
+ * Producers fill positions {@code 0 .. size - 1} of all columns and then set {@link #size(int)}.
+ * Consumers iterate over the arrays directly instead of boxing each value behind an {@link Input},
+ * which allows tight loops the JIT can optimize.
+ * <p>
+ * The values are stored as they are encoded in the source, e.g. as sortable longs for doubles.
+ * Decoding them is up to the consumer.
+ * A batch is re-used, it's only valid until the producer fills it again.
+ * </p>
+ */
+public final class ColumnBatch {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long[][] values;
+    private final boolean[][] nulls;
+    private final int capacity;
+    private int size = 0;
+
+    public ColumnBatch(int numColumns, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0, got: " + capacity);
+        }
+        this.values = new long[numColumns][capacity];
+        this.nulls = new boolean[numColumns][capacity];
+        this.capacity = capacity;
+    }
+
+    public int numColumns() {
+        return values.length;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of rows in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    public void size(int size) {
+        assert size >= 0 && size <= capacity : "size must be between 0 and the capacity of the batch";
+        this.size = size;
+    }
+
+    /**
+     * @return the values of the column. Values at positions marked as null in {@link #nulls(int)} are undefined.
+     */
+    public long[] values(int column) {
+        return values[column];
+    }
+
+    public boolean[] nulls(int column) {
+        return nulls[column];
+    }
+}
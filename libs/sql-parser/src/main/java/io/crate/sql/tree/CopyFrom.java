@@ -31,17 +31,32 @@ public class CopyFrom<T> extends Statement {
     private final T path;
     private final GenericProperties<T> properties;
     private final boolean returnSummary;
+    private final boolean clientStream;
 
     public CopyFrom(Table<T> table,
                     List<String> columns,
                     T path,
                     GenericProperties<T> properties,
                     boolean returnSummary) {
+        this(table, columns, path, properties, returnSummary, false);
+    }
+
+    /**
+     * @param clientStream true if the path is the URI of the stream registered for the client of a
+     *                     {@code COPY ... FROM STDIN}. Such URIs are rejected otherwise.
+     */
+    public CopyFrom(Table<T> table,
+                    List<String> columns,
+                    T path,
+                    GenericProperties<T> properties,
+                    boolean returnSummary,
+                    boolean clientStream) {
         this.table = table;
         this.columns = columns;
         this.path = path;
         this.properties = properties;
         this.returnSummary = returnSummary;
+        this.clientStream = clientStream;
     }
 
     public Table<T> table() {
@@ -64,6 +79,17 @@ public class CopyFrom<T> extends Statement {
         return returnSummary;
     }
 
+    public boolean isClientStream() {
+        return clientStream;
+    }
+
+    /**
+     * @return true for {@code COPY ... FROM STDIN}, where the data is sent by the client.
+     */
+    public boolean isFromStdin() {
+        return path instanceof QualifiedNameReference ref && ref.getName().getParts().equals(List.of("stdin"));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -74,6 +100,7 @@ public class CopyFrom<T> extends Statement {
         }
         CopyFrom<?> copyFrom = (CopyFrom<?>) o;
         return returnSummary == copyFrom.returnSummary &&
+               clientStream == copyFrom.clientStream &&
                Objects.equals(table, copyFrom.table) &&
                Objects.equals(columns, copyFrom.columns) &&
                Objects.equals(path, copyFrom.path) &&
@@ -82,7 +109,7 @@ public class CopyFrom<T> extends Statement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(table, columns, path, properties, returnSummary);
+        return Objects.hash(table, columns, path, properties, returnSummary, clientStream);
     }
 
     @Override
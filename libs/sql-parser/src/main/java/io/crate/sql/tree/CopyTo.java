@@ -33,6 +33,7 @@ public class CopyTo<T> extends Statement {
     private final boolean directoryUri;
     private final T targetUri;
     private final GenericProperties<T> properties;
+    private final boolean clientStream;
 
     public CopyTo(Table<T> table,
                   List<T> columns,
@@ -40,6 +41,21 @@ public class CopyTo<T> extends Statement {
                   boolean directoryUri,
                   T targetUri,
                   GenericProperties<T> properties) {
+        this(table, columns, whereClause, directoryUri, targetUri, properties, false);
+    }
+
+    /**
+     * @param clientStream true if the targetUri is the URI of the stream registered for the client of a
+     *                     {@code COPY ... TO STDOUT}. Such URIs are rejected otherwise.
+     */
+    public CopyTo(Table<T> table,
+                  List<T> columns,
+                  Optional<T> whereClause,
+                  boolean directoryUri,
+                  T targetUri,
+                  GenericProperties<T> properties,
+                  boolean clientStream) {
+        this.clientStream = clientStream;
 
         this.table = table;
         this.directoryUri = directoryUri;
@@ -73,6 +89,19 @@ public class CopyTo<T> extends Statement {
         return whereClause;
     }
 
+    public boolean isClientStream() {
+        return clientStream;
+    }
+
+    /**
+     * @return true for {@code COPY ... TO STDOUT}, where the data is sent to the client.
+     */
+    public boolean isToStdout() {
+        return !directoryUri
+            && targetUri instanceof QualifiedNameReference ref
+            && ref.getName().getParts().equals(List.of("stdout"));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -83,6 +112,7 @@ public class CopyTo<T> extends Statement {
         }
         CopyTo<?> copyTo = (CopyTo<?>) o;
         return directoryUri == copyTo.directoryUri &&
+               clientStream == copyTo.clientStream &&
                Objects.equals(table, copyTo.table) &&
                Objects.equals(targetUri, copyTo.targetUri) &&
                Objects.equals(properties, copyTo.properties) &&
@@ -92,7 +122,7 @@ public class CopyTo<T> extends Statement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(table, directoryUri, targetUri, properties, columns, whereClause);
+        return Objects.hash(table, directoryUri, targetUri, properties, columns, whereClause, clientStream);
     }
 
     @Override
@@ -47,6 +47,7 @@ import io.crate.sql.tree.Close;
 import io.crate.sql.tree.CommitStatement;
 import io.crate.sql.tree.ComparisonExpression;
 import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyTo;
 import io.crate.sql.tree.CreateFunction;
 import io.crate.sql.tree.CreatePublication;
 import io.crate.sql.tree.CreateSubscription;
@@ -1238,6 +1239,19 @@ public class TestStatementBuilder {
         printStatement("copy foo where a = 'x' to DIRECTORY '/folder'");
     }
 
+    @Test
+    public void test_copy_from_stdin_and_to_stdout() {
+        printStatement("copy foo from stdin");
+        printStatement("copy foo (a, b) from stdin with (format='csv')");
+        printStatement("copy foo to stdout");
+        printStatement("copy foo (a) where a = 'x' to stdout with (format='csv')");
+
+        assertThat(((CopyFrom<?>) SqlParser.createStatement("copy foo from STDIN")).isFromStdin()).isTrue();
+        assertThat(((CopyFrom<?>) SqlParser.createStatement("copy foo from 'stdin'")).isFromStdin()).isFalse();
+        assertThat(((CopyTo<?>) SqlParser.createStatement("copy foo to STDOUT")).isToStdout()).isTrue();
+        assertThat(((CopyTo<?>) SqlParser.createStatement("copy foo to DIRECTORY stdout")).isToStdout()).isFalse();
+    }
+
     @Test
     public void testInsertStmtBuilder() {
         // insert from values
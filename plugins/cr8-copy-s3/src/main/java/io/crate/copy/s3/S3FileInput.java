@@ -22,6 +22,7 @@
 package io.crate.copy.s3;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
@@ -94,9 +95,7 @@ public class S3FileInput implements FileInput {
         if (isGlobbed() == false) {
             return List.of(normalizedS3URI.uri());
         }
-        if (client == null) {
-            client = clientBuilder.client(preGlobUri, protocolSetting);
-        }
+        AmazonS3 client = client(preGlobUri);
         List<URI> uris = new ArrayList<>();
         ObjectListing list = client.listObjects(preGlobUri.bucket(), preGlobUri.key());
         addKeyUris(uris, list);
@@ -127,9 +126,7 @@ public class S3FileInput implements FileInput {
     @Override
     public InputStream getStream(URI uri) throws IOException {
         S3URI s3URI = S3URI.toS3URI(uri);
-        if (client == null) {
-            client = clientBuilder.client(s3URI, protocolSetting);
-        }
+        AmazonS3 client = client(s3URI);
         S3Object object = client.getObject(s3URI.bucket(), s3URI.key());
         if (object != null) {
             return object.getObjectContent();
@@ -137,6 +134,36 @@ public class S3FileInput implements FileInput {
         throw new IOException("Failed to load S3 URI: " + uri.toString());
     }
 
+    @Override
+    public InputStream getStream(URI uri, long offset, long length) throws IOException {
+        S3URI s3URI = S3URI.toS3URI(uri);
+        AmazonS3 client = client(s3URI);
+        GetObjectRequest request = new GetObjectRequest(s3URI.bucket(), s3URI.key())
+            .withRange(offset, offset + length - 1);
+        S3Object object = client.getObject(request);
+        if (object != null) {
+            return object.getObjectContent();
+        }
+        throw new IOException("Failed to load S3 URI: " + uri.toString());
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        S3URI s3URI = S3URI.toS3URI(uri);
+        AmazonS3 client = client(s3URI);
+        return client.getObjectMetadata(s3URI.bucket(), s3URI.key()).getContentLength();
+    }
+
+    /**
+     * Chunks of a file may be read concurrently, the client must only be created once.
+     */
+    private synchronized AmazonS3 client(S3URI uri) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri, protocolSetting);
+        }
+        return client;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return true;
@@ -0,0 +1,174 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterState;
+import org.jetbrains.annotations.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.crate.analyze.AnalyzedInsertStatement;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.common.unit.TimeValue;
+import io.crate.metadata.SearchPath;
+import io.crate.metadata.settings.CoordinatorSessionSettings;
+import io.crate.planner.Plan;
+import io.crate.planner.optimizer.Rule;
+import io.crate.statistics.TableStats;
+import io.crate.types.DataType;
+
+/**
+ * Node wide cache for the plans of SELECT and INSERT statements.
+ * <p>
+ * These plans are logical plans which are bound to the parameters and turned into execution plans on each execution,
+ * so a plan can be re-used for different parameters and also by different sessions.
+ * </p>
+ * <p>
+ * Entries are keyed by the statement, the parameter types and a snapshot of all session settings.
+ * The analysis can depend on any of them, e.g. {@code current_setting('application_name')} is evaluated
+ * and casts read the {@code datestyle}, so a plan can only be shared between sessions with the same settings.
+ * An entry is only used if the cluster metadata, the minimum node version and the table statistics didn't change
+ * since it has been planned. Otherwise the lookup counts as miss and the entry is replaced with a new plan.
+ * </p>
+ */
+public final class PlanCache {
+
+    record Key(String statement,
+               List<DataType<?>> parameterTypes,
+               String authenticatedUserName,
+               String userName,
+               SearchPath searchPath,
+               boolean hashJoinsEnabled,
+               boolean errorOnUnknownObjectKey,
+               boolean skewAwareDistribution,
+               Set<Class<? extends Rule<?>>> excludedOptimizerRules,
+               @Nullable String applicationName,
+               String dateStyle,
+               TimeValue statementTimeout,
+               int memoryLimit) {
+    }
+
+    private record Entry(Plan plan, long metadataVersion, Version minNodeVersion, long statsVersion) {
+
+        boolean isValid(ClusterState clusterState, TableStats tableStats) {
+            return metadataVersion == clusterState.metadata().version()
+                && minNodeVersion.equals(clusterState.nodes().getMinNodeVersion())
+                && statsVersion == tableStats.version();
+        }
+    }
+
+    @Nullable
+    private final Cache<Key, Entry> cache;
+    private final TableStats tableStats;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize the maximum number of plans to keep, 0 disables the cache.
+     */
+    public PlanCache(int maxSize, TableStats tableStats) {
+        this.tableStats = tableStats;
+        this.cache = maxSize == 0
+            ? null
+            : Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Returns the cached plan for the statement or creates a new one using {@code createPlan}.
+     * Statements which aren't cacheable are always planned using {@code createPlan}.
+     */
+    public Plan getOrCreate(@Nullable String rawStatement,
+                            DataType<?>[] parameterTypes,
+                            AnalyzedStatement analyzedStatement,
+                            CoordinatorSessionSettings sessionSettings,
+                            ClusterState clusterState,
+                            Supplier<Plan> createPlan) {
+        if (cache == null || rawStatement == null || !isCacheable(analyzedStatement)) {
+            return createPlan.get();
+        }
+        Key key = new Key(
+            rawStatement,
+            Arrays.asList(parameterTypes),
+            sessionSettings.authenticatedUser().name(),
+            sessionSettings.sessionUser().name(),
+            sessionSettings.searchPath(),
+            sessionSettings.hashJoinsEnabled(),
+            sessionSettings.errorOnUnknownObjectKey(),
+            sessionSettings.skewAwareDistribution(),
+            Set.copyOf(sessionSettings.excludedOptimizerRules()),
+            sessionSettings.applicationName(),
+            sessionSettings.dateStyle(),
+            sessionSettings.statementTimeout(),
+            sessionSettings.memoryLimitInBytes()
+        );
+        // Read the versions before planning, a concurrent change must invalidate the new entry
+        long statsVersion = tableStats.version();
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.isValid(clusterState, tableStats)) {
+            hits.increment();
+            return entry.plan;
+        }
+        misses.increment();
+        Plan plan = createPlan.get();
+        cache.put(key, new Entry(
+            plan,
+            clusterState.metadata().version(),
+            clusterState.nodes().getMinNodeVersion(),
+            statsVersion
+        ));
+        return plan;
+    }
+
+    /**
+     * Only statements which result in a logical plan can be cached.
+     * Other plans (e.g. DDL) may hold on to state of the analysis and are cheap to create.
+     */
+    private static boolean isCacheable(AnalyzedStatement analyzedStatement) {
+        return analyzedStatement instanceof AnalyzedRelation
+            || analyzedStatement instanceof AnalyzedInsertStatement;
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+}
@@ -21,6 +21,10 @@
 
 package io.crate.action.sql;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.jetbrains.annotations.Nullable;
+
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.Row;
 
@@ -31,6 +35,17 @@ public interface ResultReceiver<T> extends CompletionListenable<T> {
 
     void setNextRow(Row row);
 
+    /**
+     * Allows the receiver to push back if it can't keep up with the rows, e.g. because a client reads slowly.
+     *
+     * @return null if more rows can be sent right away. Otherwise a future which completes once
+     *         the receiver is ready to receive more rows.
+     */
+    @Nullable
+    default CompletableFuture<?> waitUntilReady() {
+        return null;
+    }
+
     void batchFinished();
 
     /**
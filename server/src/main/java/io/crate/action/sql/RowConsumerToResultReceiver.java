@@ -22,6 +22,8 @@
 package io.crate.action.sql;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
 import org.jetbrains.annotations.Nullable;
@@ -34,6 +36,7 @@ import io.crate.exceptions.SQLExceptions;
 public class RowConsumerToResultReceiver implements RowConsumer {
 
     private final CompletableFuture<?> completionFuture = new CompletableFuture<>();
+    private final Executor executor;
     private ResultReceiver<?> resultReceiver;
     private int maxRows;
 
@@ -44,8 +47,21 @@ public class RowConsumerToResultReceiver implements RowConsumer {
     private BatchIterator<Row> activeIt;
 
     public RowConsumerToResultReceiver(ResultReceiver<?> resultReceiver, int maxRows, Consumer<Throwable> onCompletion) {
+        this(resultReceiver, maxRows, Runnable::run, onCompletion);
+    }
+
+    /**
+     * @param executor used to resume the consumption once the result receiver is ready again
+     *                 (See {@link ResultReceiver#waitUntilReady()}). The readiness is usually
+     *                 signalled by a network thread, which must not be used to consume the rows.
+     */
+    public RowConsumerToResultReceiver(ResultReceiver<?> resultReceiver,
+                                       int maxRows,
+                                       Executor executor,
+                                       Consumer<Throwable> onCompletion) {
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
+        this.executor = executor;
         completionFuture.whenComplete((res, err) -> {
             onCompletion.accept(err);
         });
@@ -81,6 +97,11 @@ public class RowConsumerToResultReceiver implements RowConsumer {
                         resultReceiver.batchFinished();
                         return; // resumed via postgres protocol, close is done later
                     }
+                    CompletableFuture<?> ready = resultReceiver.waitUntilReady();
+                    if (ready != null && !ready.isDone()) {
+                        ready.whenComplete((r, f) -> resumeOnExecutor(iterator));
+                        return;
+                    }
                 }
                 if (iterator.allLoaded()) {
                     completionFuture.complete(null);
@@ -117,6 +138,14 @@ public class RowConsumerToResultReceiver implements RowConsumer {
         }
     }
 
+    private void resumeOnExecutor(BatchIterator<Row> iterator) {
+        try {
+            executor.execute(() -> consumeIt(iterator));
+        } catch (RejectedExecutionException e) {
+            consumeIt(iterator);
+        }
+    }
+
     /**
      * If this consumer suspended itself (due to {@code maxRows} being > 0, it will close the BatchIterator
      * and finish the ResultReceiver
@@ -38,6 +38,7 @@ import org.apache.logging.log4j.Logger;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.analyze.AnalyzedBegin;
@@ -159,6 +160,7 @@ public class Session implements AutoCloseable {
     private final boolean isReadOnly;
     private final Runnable onClose;
     private final TableStats tableStats;
+    private final PlanCache planCache;
 
     private TransactionState currentTransactionState = TransactionState.IDLE;
 
@@ -172,6 +174,7 @@ public class Session implements AutoCloseable {
                    DependencyCarrier executor,
                    CoordinatorSessionSettings sessionSettings,
                    TableStats tableStats,
+                   PlanCache planCache,
                    Runnable onClose) {
         this.id = sessionId;
         this.secret = ThreadLocalRandom.current().nextInt();
@@ -183,6 +186,7 @@ public class Session implements AutoCloseable {
         this.executor = executor;
         this.sessionSettings = sessionSettings;
         this.tableStats = tableStats;
+        this.planCache = planCache;
         this.onClose = onClose;
     }
 
@@ -227,7 +231,8 @@ public class Session implements AutoCloseable {
         );
         Plan plan;
         try {
-            plan = planner.plan(analyzedStatement, plannerContext);
+            DataType<?>[] parameterTypes = ParameterTypes.extract(analyzedStatement).toArray(new DataType[0]);
+            plan = plan(statement, parameterTypes, analyzedStatement, plannerContext);
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(mostRecentJobID, statement, SQLExceptions.messageOf(t), sessionSettings.sessionUser());
             throw t;
@@ -249,14 +254,16 @@ public class Session implements AutoCloseable {
                     newJobId,
                     analyzedStatement,
                     routingProvider,
-                    new RowConsumerToResultReceiver(retryResultReceiver, 0, jobsLogsUpdateListener),
+                    new RowConsumerToResultReceiver(
+                        retryResultReceiver, 0, this::resumeOnSearchThread, jobsLogsUpdateListener),
                     params,
                     txnCtx,
                     nodeCtx
                 )
             );
         }
-        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, jobsLogsUpdateListener);
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
+            resultReceiver, 0, this::resumeOnSearchThread, jobsLogsUpdateListener);
         plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
     }
 
@@ -283,6 +290,20 @@ public class Session implements AutoCloseable {
         plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
     }
 
+    private Plan plan(@Nullable String rawStatement,
+                      DataType<?>[] parameterTypes,
+                      AnalyzedStatement analyzedStatement,
+                      PlannerContext plannerContext) {
+        return planCache.getOrCreate(
+            rawStatement,
+            parameterTypes,
+            analyzedStatement,
+            sessionSettings,
+            plannerContext.clusterState(),
+            () -> planner.plan(analyzedStatement, plannerContext)
+        );
+    }
+
     private Portal getSafePortal(String portalName) {
         Portal portal = portals.get(portalName);
         if (portal == null) {
@@ -493,7 +514,8 @@ public class Session implements AutoCloseable {
             resultReceiver.allFinished();
         } else if (analyzedStmt instanceof AnalyzedDiscard) {
             AnalyzedDiscard discard = (AnalyzedDiscard) analyzedStmt;
-            // We don't cache plans, don't have sequences or temporary tables
+            // Cached plans are shared by all sessions and invalidated on schema changes.
+            // We don't have sequences or temporary tables
             // See https://www.postgresql.org/docs/current/sql-discard.html
             if (discard.target() == Target.ALL) {
                 close();
@@ -576,6 +598,14 @@ public class Session implements AutoCloseable {
         }
     }
 
+    /**
+     * Used to resume a row consumption which paused because the client didn't keep up reading the rows.
+     * The client channel signals that it's writable again on a network thread, which must not consume the rows.
+     */
+    private void resumeOnSearchThread(Runnable command) {
+        executor.threadPool().executor(ThreadPool.Names.SEARCH).execute(command);
+    }
+
     private void addStatementTimeout(CompletableFuture<?> result) {
         TimeValue timeout = sessionSettings.statementTimeout();
         final UUID jobId = mostRecentJobID;
@@ -663,7 +693,12 @@ public class Session implements AutoCloseable {
 
         Plan plan;
         try {
-            plan = planner.plan(analyzedStatement, plannerContext);
+            plan = plan(
+                firstPreparedStatement.rawStatement(),
+                firstPreparedStatement.parameterTypes(),
+                analyzedStatement,
+                plannerContext
+            );
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(
                 mostRecentJobID,
@@ -754,7 +789,7 @@ public class Session implements AutoCloseable {
         }
         Plan plan;
         try {
-            plan = planner.plan(analyzedStmt, plannerContext);
+            plan = plan(rawStatement, portal.preparedStmt().parameterTypes(), analyzedStmt, plannerContext);
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(mostRecentJobID, rawStatement, SQLExceptions.messageOf(t), sessionSettings.sessionUser());
             throw t;
@@ -773,6 +808,7 @@ public class Session implements AutoCloseable {
                     new RowConsumerToResultReceiver(
                         resultRec,
                         maxRows,
+                        this::resumeOnSearchThread,
                         new JobsLogsUpdateListener(newJobId, jobsLogs)),
                     params,
                     txnCtx,
@@ -783,7 +819,7 @@ public class Session implements AutoCloseable {
         jobsLogs.logExecutionStart(
             mostRecentJobID, rawStatement, sessionSettings.sessionUser(), StatementClassifier.classify(plan));
         RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
-            resultReceiver, maxRows, new JobsLogsUpdateListener(mostRecentJobID, jobsLogs));
+            resultReceiver, maxRows, this::resumeOnSearchThread, new JobsLogsUpdateListener(mostRecentJobID, jobsLogs));
         portal.setActiveConsumer(consumer);
         plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
         CompletableFuture<?> result = resultReceiver.completionFuture();
@@ -63,6 +63,12 @@ public class Sessions {
         false,
         Setting.Property.NodeScope);
 
+    public static final Setting<Integer> NODE_PLAN_CACHE_SIZE_SETTING = Setting.intSetting(
+        "node.sql.plan_cache.size",
+        1000,
+        0,
+        Setting.Property.NodeScope);
+
     public static final Setting<TimeValue> STATEMENT_TIMEOUT = Setting.timeSetting(
         "statement_timeout",
         TimeValue.timeValueMillis(0),
@@ -84,6 +90,7 @@ public class Sessions {
     private final JobsLogs jobsLogs;
     private final ClusterService clusterService;
     private final TableStats tableStats;
+    private final PlanCache planCache;
     private final boolean isReadOnly;
     private final AtomicInteger nextSessionId = new AtomicInteger();
     private final ConcurrentMap<Integer, Session> sessions = new ConcurrentHashMap<>();
@@ -109,6 +116,7 @@ public class Sessions {
         this.jobsLogs = jobsLogs;
         this.clusterService = clusterService;
         this.tableStats = tableStats;
+        this.planCache = new PlanCache(NODE_PLAN_CACHE_SIZE_SETTING.get(settings), tableStats);
         this.isReadOnly = NODE_READ_ONLY_SETTING.get(settings);
         this.defaultStatementTimeout = STATEMENT_TIMEOUT.get(settings);
         this.memoryLimit = MEMORY_LIMIT.get(settings);
@@ -136,6 +144,7 @@ public class Sessions {
             executorProvider.get(),
             sessionSettings,
             tableStats,
+            planCache,
             () -> sessions.remove(sessionId)
         );
         sessions.put(sessionId, session);
@@ -158,6 +167,10 @@ public class Sessions {
         return newSession(CoordinatorSessionSettings.systemDefaults());
     }
 
+    public PlanCache planCache() {
+        return planCache;
+    }
+
     /**
      * Disable processing of new sql statements.
      * {@link io.crate.cluster.gracefulstop.DecommissioningService} must call this while before starting to decommission.
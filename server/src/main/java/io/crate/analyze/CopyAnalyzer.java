@@ -28,7 +28,10 @@ import io.crate.analyze.relations.FieldProvider;
 import io.crate.analyze.relations.NameFieldProvider;
 import io.crate.analyze.relations.TableRelation;
 import io.crate.common.collections.Lists2;
+import io.crate.execution.engine.collect.files.StdinFileInputFactory;
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
+import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.NodeContext;
@@ -56,6 +59,10 @@ class CopyAnalyzer {
     AnalyzedCopyFrom analyzeCopyFrom(CopyFrom<Expression> node,
                                      ParamTypeHints paramTypeHints,
                                      CoordinatorTxnCtx txnCtx) {
+        if (node.isFromStdin()) {
+            throw new UnsupportedOperationException(
+                "COPY FROM STDIN is only supported using the simple query mode of the PostgreSQL wire protocol");
+        }
         DocTableInfo tableInfo = (DocTableInfo) schemas.resolveTableInfo(
             node.table().getName(),
             Operation.INSERT,
@@ -78,7 +85,13 @@ class CopyAnalyzer {
         Table<Symbol> table = node.table().map(t -> exprAnalyzerWithFieldsAsString.convert(t, exprCtx));
         GenericProperties<Symbol> properties = node.properties().map(t -> exprAnalyzerWithoutFields.convert(t,
                                                                                                             exprCtx));
-        Symbol uri = exprAnalyzerWithoutFields.convert(node.path(), exprCtx);
+        Symbol uri = normalizer.normalize(exprAnalyzerWithoutFields.convert(node.path(), exprCtx), txnCtx);
+        if (!node.isClientStream()
+            && uri instanceof Literal<?> literal
+            && StdinFileInputFactory.containsStdin(literal.value())) {
+            throw new IllegalArgumentException(
+                "The `stdin` URI scheme can't be used directly, use COPY FROM STDIN instead");
+        }
 
         if (node.isReturnSummary()) {
             return new AnalyzedCopyFromReturnSummary(
@@ -86,20 +99,24 @@ class CopyAnalyzer {
                 node.columns(),
                 table,
                 properties,
-                normalizer.normalize(uri, txnCtx));
+                uri);
         } else {
             return new AnalyzedCopyFrom(
                 tableInfo,
                 node.columns(),
                 table,
                 properties,
-                normalizer.normalize(uri, txnCtx));
+                uri);
         }
     }
 
     AnalyzedCopyTo analyzeCopyTo(CopyTo<Expression> node,
                                  ParamTypeHints paramTypeHints,
                                  CoordinatorTxnCtx txnCtx) {
+        if (node.isToStdout()) {
+            throw new UnsupportedOperationException(
+                "COPY TO STDOUT is only supported using the simple query mode of the PostgreSQL wire protocol");
+        }
         if (!node.directoryUri()) {
             throw new UnsupportedOperationException("Using COPY TO without specifying a DIRECTORY is not supported");
         }
@@ -132,7 +149,13 @@ class CopyAnalyzer {
             FieldProvider.TO_LITERAL_VALIDATE_NAME,
             null);
 
-        var uri = expressionAnalyzer.convert(node.targetUri(), exprCtx);
+        var uri = normalizer.normalize(expressionAnalyzer.convert(node.targetUri(), exprCtx), txnCtx);
+        if (!node.isClientStream()
+            && uri instanceof Literal<?> literal
+            && StdoutFileOutputFactory.containsStdout(literal.value())) {
+            throw new IllegalArgumentException(
+                "The `stdout` URI scheme can't be used directly, use COPY TO STDOUT instead");
+        }
         var table = node.table().map(x -> exprAnalyzerWithFieldsAsString.convert(x, exprCtx));
         var properties = node.properties().map(x -> expressionAnalyzer.convert(x, exprCtx));
         var columns = Lists2.map(
@@ -144,7 +167,7 @@ class CopyAnalyzer {
         return new AnalyzedCopyTo(
             tableInfo,
             table,
-            normalizer.normalize(uri, txnCtx),
+            uri,
             properties,
             columns,
             whereClause);
@@ -24,6 +24,8 @@ package io.crate.analyze;
 import java.util.Locale;
 
 import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 
@@ -42,14 +44,25 @@ public final class CopyStatementSettings {
 
     public static final Setting<String> OUTPUT_FORMAT_SETTING = Setting.simpleString(
         "format",
-        Validators.stringValidator("format", "json_object", "json_array"),
+        Validators.stringValidator("format", "json_object", "json_array", "parquet"),
+        Setting.Property.Dynamic);
+
+    /**
+     * Amount of (encoded) data which is buffered in memory before a row group is written to a Parquet file.
+     * Capped as the whole row group is held on the heap.
+     */
+    public static final Setting<ByteSizeValue> ROW_GROUP_SIZE_SETTING = Setting.byteSizeSetting(
+        "row_group_size",
+        new ByteSizeValue(64, ByteSizeUnit.MB),
+        new ByteSizeValue(1, ByteSizeUnit.KB),
+        new ByteSizeValue(512, ByteSizeUnit.MB),
         Setting.Property.Dynamic);
 
     public static final Setting<String> INPUT_FORMAT_SETTING = new Setting<>(
         "format",
         "json",
         (s) -> s,
-        Validators.stringValidator("format", "json", "csv"),
+        Validators.stringValidator("format", "json", "csv", "parquet"),
         DataTypes.STRING,
         Setting.Property.Dynamic);
 
@@ -80,7 +80,8 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
 
     public enum InputFormat {
         JSON,
-        CSV
+        CSV,
+        PARQUET
     }
 
     public Symbol targetUri() {
@@ -167,6 +168,10 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
             out.writeStringCollection(targetColumns);
         }
         Symbols.toStream(toCollect, out);
+        if (inputFormat == InputFormat.PARQUET && out.getVersion().before(Version.V_5_5_0)) {
+            throw new UnsupportedOperationException(
+                "COPY FROM with format 'parquet' requires all nodes to be on version 5.5.0 or later");
+        }
         out.writeVInt(inputFormat.ordinal());
         if (out.getVersion().onOrAfter(Version.V_4_4_0)) {
             parserProperties.writeTo(out);
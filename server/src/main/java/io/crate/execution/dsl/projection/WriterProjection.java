@@ -21,6 +21,7 @@
 
 package io.crate.execution.dsl.projection;
 
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.scalar.FormatFunction;
 import io.crate.expression.symbol.Function;
@@ -84,6 +85,12 @@ public class WriterProjection extends Projection {
         DataTypes.STRING
     );
 
+    public static final Symbol DIRECTORY_TO_PARQUET_FILENAME = new Function(
+        FormatFunction.SIGNATURE,
+        List.of(Literal.of("%s_%s_%s.parquet"), TABLE_NAME_REF, SHARD_ID_REF, PARTITION_IDENT_REF),
+        DataTypes.STRING
+    );
+
     private final Symbol uri;
     private final List<Symbol> inputs;
 
@@ -102,7 +109,8 @@ public class WriterProjection extends Projection {
 
     public enum OutputFormat {
         JSON_OBJECT,
-        JSON_ARRAY
+        JSON_ARRAY,
+        PARQUET
     }
 
     private final CompressionType compressionType;
@@ -156,7 +164,17 @@ public class WriterProjection extends Projection {
 
     @Override
     public RowGranularity requiredGranularity() {
-        return RowGranularity.SHARD;
+        // COPY TO STDOUT must use a single writer on the node the client is connected to
+        return writesToStdout() ? RowGranularity.CLUSTER : RowGranularity.SHARD;
+    }
+
+    /**
+     * @return true if the rows are sent to the client of a {@code COPY ... TO STDOUT} statement
+     */
+    public boolean writesToStdout() {
+        return uri instanceof Literal<?> literal
+            && literal.value() instanceof String str
+            && StdoutFileOutputFactory.isStdout(str);
     }
 
     public Symbol uri() {
@@ -221,6 +239,10 @@ public class WriterProjection extends Projection {
             Symbols.toStream(entry.getValue(), out);
         }
         out.writeInt(compressionType != null ? compressionType.ordinal() : -1);
+        if (outputFormat == OutputFormat.PARQUET && out.getVersion().before(Version.V_5_5_0)) {
+            throw new UnsupportedOperationException(
+                "COPY TO with format 'parquet' requires all nodes to be on version 5.5.0 or later");
+        }
         out.writeInt(outputFormat.ordinal());
         if (out.getVersion().onOrAfter(Version.V_4_8_0)) {
             Settings.writeSettingsToStream(withClauseOptions, out);
@@ -110,6 +110,16 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
         return false;
     }
 
+    /**
+     * Indicates if {@link #iterate} and {@link #reduce} never modify the states passed to them, so that a state can
+     * be reduced with several other states.
+     * This allows window functions to compute aggregations over sliding frames using a segment tree of states
+     * if the aggregation isn't {@link #isRemovableCumulative()}.
+     */
+    public boolean hasImmutableStates() {
+        return false;
+    }
+
     public TPartial removeFromAggregatedState(RamAccounting ramAccounting,
                                               TPartial previousAggState,
                                               Input<?>[] stateToRemove) {
@@ -124,4 +134,13 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
                                                        List<Literal<?>> optionalParams) {
         return null;
     }
+
+    /**
+     * @return an aggregator that operates on a fixed-width state stored in a {@link io.netty.buffer.ByteBuf}
+     *         or null if the state of this aggregation can't be represented using a fixed number of bytes.
+     */
+    @Nullable
+    public FixedWidthAggregator<TPartial> getFixedWidthAggregator() {
+        return null;
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.data.ColumnBatch;
+import io.crate.data.breaker.RamAccounting;
+
+/**
+ * A {@link DocValueAggregator} for a single numeric column which can aggregate
+ * the values of a whole {@link ColumnBatch} at once.
+ * <p>
+ * The values are read by the collector, so {@link #loadDocValues} and
+ * {@link #apply(RamAccounting, int, Object)} aren't called if the batch variant is used.
+ * </p>
+ */
+public interface ColumnarDocValueAggregator<T> extends DocValueAggregator<T> {
+
+    /**
+     * @return the name of the sorted numeric doc values field which is aggregated.
+     */
+    public String column();
+
+    /**
+     * Aggregates all values of the batch.
+     * The values are as stored in the doc values, e.g. doubles are encoded as sortable longs.
+     * Documents without a value or with more than one value are marked as null.
+     *
+     * @param column the position of {@link #column()} within the batch
+     */
+    public void apply(RamAccounting ramAccounting, ColumnBatch batch, int column, T state);
+}
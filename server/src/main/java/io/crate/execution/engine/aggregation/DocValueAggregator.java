@@ -38,6 +38,16 @@ public interface DocValueAggregator<T> {
 
     public void apply(RamAccounting ramAccounting, int doc, T state) throws IOException;
 
+    /**
+     * @return true if none of the values of the segment can change the state.
+     *         E.g. a max aggregation can skip a segment if the maximum value
+     *         of the segment isn't greater than the current maximum.
+     *         Skipped segments are not loaded and their documents are not iterated.
+     */
+    public default boolean canSkip(LeafReaderContext leafReaderContext, T state) throws IOException {
+        return false;
+    }
+
     // Aggregations are executed on shard level,
     // that means there is always a final reduce step necessary
     // → never return final value, but always partial result
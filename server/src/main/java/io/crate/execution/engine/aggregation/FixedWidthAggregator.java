@@ -0,0 +1,53 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.Input;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Aggregates into a state of a fixed number of bytes which is stored at an offset within a {@link ByteBuf}.
+ * This allows to store the states of many groups in a few large buffers instead of using
+ * individual heap objects per group (See {@link LongKeyedStateTable}).
+ *
+ * @param <TPartial> type of the partial state as it is used by the {@link AggregationFunction}
+ */
+public interface FixedWidthAggregator<TPartial> {
+
+    /**
+     * @return number of bytes required for the state
+     */
+    int size();
+
+    void initialState(ByteBuf buffer, int offset);
+
+    void iterate(ByteBuf buffer, int offset, Input<?>[] args);
+
+    /**
+     * Materializes the state as it would have been created by
+     * {@link AggregationFunction#iterate(io.crate.data.breaker.RamAccounting, io.crate.memory.MemoryManager, Object, Input[])}
+     */
+    @Nullable
+    TPartial partialState(ByteBuf buffer, int offset);
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import io.crate.Streamer;
+
+/**
+ * Writes grouped aggregation states to node-local temporary files.
+ * <p>
+ * The entries are hash-partitioned by their key, so that each partition
+ * contains all spilled states of a key and can be merged independently of the others.
+ * </p>
+ *
+ * <pre>
+ *  entry:  keyCell[0] .. keyCell[numKeys - 1] | state[0] .. state[numStates - 1]
+ * </pre>
+ *
+ * Files are created with {@link StandardOpenOption#DELETE_ON_CLOSE} and removed on {@link #close()}.
+ */
+final class GroupStateSpiller<K> implements Closeable {
+
+    static final int NUM_PARTITIONS = 16;
+
+    private final Streamer<Object>[] keyStreamers;
+    private final Streamer<Object>[] stateStreamers;
+    private final BiConsumer<K, Object[]> applyKeyToCells;
+    private final FileChannel[] channels = new FileChannel[NUM_PARTITIONS];
+    private final StreamOutput[] outputs = new StreamOutput[NUM_PARTITIONS];
+    private final int[] numEntries = new int[NUM_PARTITIONS];
+    private final Object[] keyCells;
+
+    private int numSpills = 0;
+
+    GroupStateSpiller(Streamer<Object>[] keyStreamers,
+                      Streamer<Object>[] stateStreamers,
+                      BiConsumer<K, Object[]> applyKeyToCells) {
+        this.keyStreamers = keyStreamers;
+        this.stateStreamers = stateStreamers;
+        this.applyKeyToCells = applyKeyToCells;
+        this.keyCells = new Object[keyStreamers.length];
+    }
+
+    static int partition(Object key) {
+        return Math.floorMod(BitMixer.mix(Objects.hashCode(key)), NUM_PARTITIONS);
+    }
+
+    /**
+     * Appends all entries of {@code statesByKey} to the partition files.
+     */
+    void spill(Map<K, Object[]> statesByKey) throws IOException {
+        for (Map.Entry<K, Object[]> entry : statesByKey.entrySet()) {
+            K key = entry.getKey();
+            int partition = partition(key);
+            StreamOutput out = output(partition);
+            applyKeyToCells.accept(key, keyCells);
+            for (int i = 0; i < keyStreamers.length; i++) {
+                keyStreamers[i].writeValueTo(out, keyCells[i]);
+            }
+            Object[] states = entry.getValue();
+            for (int i = 0; i < stateStreamers.length; i++) {
+                stateStreamers[i].writeValueTo(out, states[i]);
+            }
+            numEntries[partition]++;
+        }
+        for (StreamOutput out : outputs) {
+            if (out != null) {
+                out.flush();
+            }
+        }
+        numSpills++;
+    }
+
+    int numSpills() {
+        return numSpills;
+    }
+
+    /**
+     * Reads all entries of a partition.
+     * Must only be called after the last {@link #spill(Map)} and only once per partition.
+     *
+     * @param consumer receives the key cells and the states of each entry.
+     *                 Both arrays are newly allocated per entry.
+     */
+    void readPartition(int partition, BiConsumer<Object[], Object[]> consumer) throws IOException {
+        FileChannel channel = channels[partition];
+        if (channel == null) {
+            return;
+        }
+        channel.position(0);
+        StreamInput in = new InputStreamStreamInput(new BufferedInputStream(Channels.newInputStream(channel)));
+        for (int n = 0; n < numEntries[partition]; n++) {
+            Object[] cells = new Object[keyStreamers.length];
+            for (int i = 0; i < keyStreamers.length; i++) {
+                cells[i] = keyStreamers[i].readValueFrom(in);
+            }
+            Object[] states = new Object[stateStreamers.length];
+            for (int i = 0; i < stateStreamers.length; i++) {
+                states[i] = stateStreamers[i].readValueFrom(in);
+            }
+            consumer.accept(cells, states);
+        }
+        closePartition(partition);
+    }
+
+    private StreamOutput output(int partition) throws IOException {
+        StreamOutput out = outputs[partition];
+        if (out == null) {
+            Path file = Files.createTempFile("crate-groupby-", ".spill");
+            FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE
+            );
+            channels[partition] = channel;
+            out = new OutputStreamStreamOutput(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            outputs[partition] = out;
+        }
+        return out;
+    }
+
+    private void closePartition(int partition) throws IOException {
+        final FileChannel channel = channels[partition];
+        channels[partition] = null;
+        outputs[partition] = null;
+        numEntries[partition] = 0;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            try {
+                closePartition(i);
+            } catch (IOException e) {
+                exception = ExceptionsHelper.useOrSuppress(exception, e);
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
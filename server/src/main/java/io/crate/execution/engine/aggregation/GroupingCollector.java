@@ -21,6 +21,7 @@
 
 package io.crate.execution.engine.aggregation;
 
+import io.crate.Streamer;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.data.RowN;
@@ -31,12 +32,18 @@ import io.crate.expression.symbol.AggregateMode;
 import io.crate.memory.MemoryManager;
 import io.crate.types.DataType;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Iterator;
 import java.util.function.BiConsumer;
@@ -49,9 +56,27 @@ import java.util.stream.Collector;
  * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
  * to group rows by key and aggregate the grouped values.
  *
+ * <p>
+ * If a {@code spillThreshold} is set and the memory accounted for the groups exceeds it,
+ * the groups are written to hash-partitioned temporary files (See {@link GroupStateSpiller})
+ * and the in-memory map starts over empty. Once the source is exhausted the partitions are
+ * merged one at a time using {@link AggregationFunction#reduce(RamAccounting, Object, Object)},
+ * so that only the groups of a single partition need to be held in memory.
+ * </p>
+ *
  * @param <K> type of the key
  */
-public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>> {
+public class GroupingCollector<K> implements Collector<Row, GroupingCollector.Groups<K>, Iterable<Row>> {
+
+    /**
+     * Disables spilling, all groups are kept in memory.
+     */
+    public static final long NO_SPILLING = -1L;
+
+    // Several group by operations can run concurrently on a node (e.g. one per shard),
+    // so each one may only use a fraction of the free memory before it starts spilling.
+    private static final double BREAKER_LIMIT_PERCENTAGE = 0.25d;
+    private static final long MIN_SPILL_THRESHOLD = 1024 * 1024;
 
     private final CollectExpression<Row, ?>[] expressions;
     private final AggregationFunction[] aggregations;
@@ -61,14 +86,25 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
     private final RamAccounting ramAccounting;
     private final MemoryManager memoryManager;
     private final BiConsumer<K, Object[]> applyKeyToCells;
+    private final Function<Object[], K> keyFromCells;
+    private final Streamer<Object>[] keyStreamers;
     private final int numKeyColumns;
-    private final BiConsumer<Map<K, Object[]>, K> accountForNewEntry;
+    private final Function<RamAccounting, BiConsumer<Map<K, Object[]>, K>> accountForNewEntry;
     private final Function<Row, K> keyExtractor;
     private final Version indexVersionCreated;
-    private final BiConsumer<Map<K, Object[]>, Row> accumulator;
-    private final Supplier<Map<K, Object[]>> supplier;
+    private final BiConsumer<Groups<K>, Row> accumulator;
+    private final Supplier<Map<K, Object[]>> mapSupplier;
     private final Version minNodeVersion;
+    private final long spillThreshold;
+
+    public static long computeSpillThreshold(CircuitBreaker circuitBreaker) {
+        return Math.max(
+            (long) (circuitBreaker.getFree() * BREAKER_LIMIT_PERCENTAGE),
+            MIN_SPILL_THRESHOLD
+        );
+    }
 
+    @SuppressWarnings("unchecked")
     static GroupingCollector<Object> singleKey(CollectExpression<Row, ?>[] expressions,
                                                AggregateMode mode,
                                                AggregationFunction[] aggregations,
@@ -79,7 +115,8 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                Version minNodeVersion,
                                                Input<?> keyInput,
                                                DataType keyType,
-                                               Version indexVersionCreated) {
+                                               Version indexVersionCreated,
+                                               long spillThreshold) {
         return new GroupingCollector<>(
             expressions,
             aggregations,
@@ -90,11 +127,14 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
             memoryManager,
             minNodeVersion,
             (key, cells) -> cells[0] = key,
+            cells -> cells[0],
+            new Streamer[] { keyType.streamer() },
             1,
-            GroupByMaps.accountForNewEntry(ramAccounting, keyType),
+            accounting -> GroupByMaps.accountForNewEntry(accounting, keyType),
             row -> keyInput.value(),
             indexVersionCreated,
-            GroupByMaps.mapForType(keyType)
+            GroupByMaps.mapForType(keyType),
+            spillThreshold
         );
     }
 
@@ -108,7 +148,13 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                     Version minNodeVersion,
                                                     List<Input<?>> keyInputs,
                                                     List<? extends DataType> keyTypes,
-                                                    Version indexVersionCreated) {
+                                                    Version indexVersionCreated,
+                                                    long spillThreshold) {
+        Streamer[] keyStreamers = new Streamer[keyTypes.size()];
+        for (int i = 0; i < keyStreamers.length; i++) {
+            keyStreamers[i] = keyTypes.get(i).streamer();
+        }
+        //noinspection unchecked
         return new GroupingCollector<>(
             expressions,
             aggregations,
@@ -119,11 +165,14 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
             memoryManager,
             minNodeVersion,
             GroupingCollector::applyKeysToCells,
+            Arrays::asList,
+            keyStreamers,
             keyInputs.size(),
-            GroupByMaps.accountForNewEntry(ramAccountingContext, keyTypes),
+            accounting -> GroupByMaps.accountForNewEntry(accounting, keyTypes),
             row -> evalKeyInputs(keyInputs),
             indexVersionCreated,
-            HashMap::new
+            HashMap::new,
+            spillThreshold
         );
     }
 
@@ -150,11 +199,14 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                               MemoryManager memoryManager,
                               Version minNodeVersion,
                               BiConsumer<K, Object[]> applyKeyToCells,
+                              Function<Object[], K> keyFromCells,
+                              Streamer<Object>[] keyStreamers,
                               int numKeyColumns,
-                              BiConsumer<Map<K, Object[]>, K> accountForNewEntry,
+                              Function<RamAccounting, BiConsumer<Map<K, Object[]>, K>> accountForNewEntry,
                               Function<Row, K> keyExtractor,
                               Version indexVersionCreated,
-                              Supplier<Map<K, Object[]>> supplier) {
+                              Supplier<Map<K, Object[]>> mapSupplier,
+                              long spillThreshold) {
         this.expressions = expressions;
         this.aggregations = aggregations;
         this.mode = mode;
@@ -163,34 +215,44 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         this.ramAccounting = ramAccounting;
         this.memoryManager = memoryManager;
         this.applyKeyToCells = applyKeyToCells;
+        this.keyFromCells = keyFromCells;
+        this.keyStreamers = keyStreamers;
         this.numKeyColumns = numKeyColumns;
         this.accountForNewEntry = accountForNewEntry;
         this.keyExtractor = keyExtractor;
         this.indexVersionCreated = indexVersionCreated;
         this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
-        this.supplier = supplier;
+        this.mapSupplier = mapSupplier;
         this.minNodeVersion = minNodeVersion;
+        this.spillThreshold = spillThreshold;
     }
 
     @Override
-    public Supplier<Map<K, Object[]>> supplier() {
-        return supplier;
+    public Supplier<Groups<K>> supplier() {
+        return () -> {
+            GroupsRamAccounting groupsRamAccounting = new GroupsRamAccounting(ramAccounting);
+            return new Groups<>(
+                mapSupplier.get(),
+                groupsRamAccounting,
+                accountForNewEntry.apply(groupsRamAccounting)
+            );
+        };
     }
 
     @Override
-    public BiConsumer<Map<K, Object[]>, Row> accumulator() {
+    public BiConsumer<Groups<K>, Row> accumulator() {
         return accumulator;
     }
 
     @Override
-    public BinaryOperator<Map<K, Object[]>> combiner() {
+    public BinaryOperator<Groups<K>> combiner() {
         return (state1, state2) -> {
             throw new UnsupportedOperationException("combine not supported");
         };
     }
 
     @Override
-    public Function<Map<K, Object[]>, Iterable<Row>> finisher() {
+    public Function<Groups<K>, Iterable<Row>> finisher() {
         return this::mapToRows;
     }
 
@@ -199,67 +261,114 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         return Collections.emptySet();
     }
 
-    private void reduce(Map<K, Object[]> statesByKey, Row row) {
+    private void reduce(Groups<K> groups, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
         }
         K key = keyExtractor.apply(row);
+        Map<K, Object[]> statesByKey = groups.statesByKey;
         Object[] states = statesByKey.get(key);
         if (states == null) {
             states = new Object[aggregations.length];
             for (int i = 0; i < aggregations.length; i++) {
                 states[i] = inputs[i][0].value();
             }
-            addWithAccounting(statesByKey, key, states);
+            addWithAccounting(groups, key, states);
         } else {
             for (int i = 0; i < aggregations.length; i++) {
-                states[i] = aggregations[i].reduce(ramAccounting, states[i], inputs[i][0].value());
+                states[i] = aggregations[i].reduce(groups.ramAccounting, states[i], inputs[i][0].value());
             }
         }
+        maybeSpill(groups);
     }
 
-    private void addWithAccounting(Map<K, Object[]> statesByKey, K key, Object[] states) {
-        accountForNewEntry.accept(statesByKey, key);
-        statesByKey.put(key, states);
+    private void addWithAccounting(Groups<K> groups, K key, Object[] states) {
+        groups.accountForNewEntry.accept(groups.statesByKey, key);
+        groups.statesByKey.put(key, states);
     }
 
-    private void iter(Map<K, Object[]> statesByKey, Row row) {
+    private void iter(Groups<K> groups, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
         }
         K key = keyExtractor.apply(row);
-        Object[] states = statesByKey.get(key);
+        Object[] states = groups.statesByKey.get(key);
         if (states == null) {
-            addNewEntry(statesByKey, key);
+            addNewEntry(groups, key);
         } else {
             for (int i = 0; i < aggregations.length; i++) {
                 if (InputCondition.matches(filters[i])) {
                     //noinspection unchecked
-                    states[i] = aggregations[i].iterate(ramAccounting, memoryManager, states[i], inputs[i]);
+                    states[i] = aggregations[i].iterate(groups.ramAccounting, memoryManager, states[i], inputs[i]);
                 }
             }
         }
+        maybeSpill(groups);
     }
 
-    private void addNewEntry(Map<K, Object[]> statesByKey, K key) {
+    private void addNewEntry(Groups<K> groups, K key) {
         Object[] states;
         states = new Object[aggregations.length];
+        RamAccounting groupsRamAccounting = groups.ramAccounting;
         for (int i = 0; i < aggregations.length; i++) {
             AggregationFunction aggregation = aggregations[i];
 
-            var newState = aggregation.newState(ramAccounting, indexVersionCreated, minNodeVersion, memoryManager);
+            var newState = aggregation.newState(groupsRamAccounting, indexVersionCreated, minNodeVersion, memoryManager);
             if (InputCondition.matches(filters[i])) {
                 //noinspection unchecked
-                states[i] = aggregation.iterate(ramAccounting, memoryManager, newState, inputs[i]);
+                states[i] = aggregation.iterate(groupsRamAccounting, memoryManager, newState, inputs[i]);
             } else {
                 states[i] = newState;
             }
         }
-        addWithAccounting(statesByKey, key, states);
+        addWithAccounting(groups, key, states);
     }
 
-    private Iterable<Row> mapToRows(Map<K, Object[]> statesByKey) {
+    private void maybeSpill(Groups<K> groups) {
+        if (spillThreshold < 0 || groups.ramAccounting.totalBytes() < spillThreshold) {
+            return;
+        }
+        spill(groups);
+    }
 
+    @SuppressWarnings("unchecked")
+    private void spill(Groups<K> groups) {
+        if (groups.spiller == null) {
+            Streamer<Object>[] stateStreamers = new Streamer[aggregations.length];
+            for (int i = 0; i < aggregations.length; i++) {
+                stateStreamers[i] = (Streamer<Object>) aggregations[i].partialType().streamer();
+            }
+            groups.spiller = new GroupStateSpiller<>(keyStreamers, stateStreamers, applyKeyToCells);
+        }
+        try {
+            groups.spiller.spill(groups.statesByKey);
+        } catch (IOException e) {
+            closeSpiller(groups, e);
+            throw new UncheckedIOException(e);
+        }
+        groups.statesByKey = mapSupplier.get();
+        groups.ramAccounting.release();
+    }
+
+    private static void closeSpiller(Groups<?> groups, @Nullable IOException cause) {
+        try {
+            groups.spiller.close();
+        } catch (IOException e) {
+            if (cause == null) {
+                throw new UncheckedIOException(e);
+            }
+            cause.addSuppressed(e);
+        }
+    }
+
+    private Iterable<Row> mapToRows(Groups<K> groups) {
+        if (groups.spiller != null) {
+            if (!groups.statesByKey.isEmpty()) {
+                spill(groups);
+            }
+            return () -> new SpilledGroupsIterator(groups);
+        }
+        Map<K, Object[]> statesByKey = groups.statesByKey;
         return () -> new Iterator<>() {
             final Iterator<Map.Entry<K, Object[]>> iterator = statesByKey.entrySet().iterator();
             final RowN row = new RowN(numKeyColumns + aggregations.length);
@@ -289,4 +398,138 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
             }
         };
     }
+
+    /**
+     * Loads one spilled partition at a time, merges the states of equal keys and emits them.
+     * The partition files are deleted once consumed.
+     */
+    private class SpilledGroupsIterator implements Iterator<Row> {
+
+        private final Groups<K> groups;
+        private final RowN row = new RowN(numKeyColumns + aggregations.length);
+        private final Object[] cells = new Object[row.numColumns()];
+
+        private int partition = 0;
+        private Iterator<Map.Entry<K, Object[]>> iterator = Collections.emptyIterator();
+
+        SpilledGroupsIterator(Groups<K> groups) {
+            this.groups = groups;
+            row.cells(cells);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!iterator.hasNext()) {
+                groups.statesByKey = mapSupplier.get();
+                groups.ramAccounting.release();
+                if (partition == GroupStateSpiller.NUM_PARTITIONS) {
+                    closeSpiller(groups, null);
+                    return false;
+                }
+                loadPartition(partition);
+                partition++;
+                iterator = groups.statesByKey.entrySet().iterator();
+            }
+            return true;
+        }
+
+        private void loadPartition(int partition) {
+            Map<K, Object[]> statesByKey = groups.statesByKey;
+            RamAccounting groupsRamAccounting = groups.ramAccounting;
+            try {
+                groups.spiller.readPartition(partition, (keyCells, states) -> {
+                    K key = keyFromCells.apply(keyCells);
+                    Object[] existingStates = statesByKey.get(key);
+                    if (existingStates == null) {
+                        addWithAccounting(groups, key, states);
+                    } else {
+                        for (int i = 0; i < aggregations.length; i++) {
+                            //noinspection unchecked
+                            existingStates[i] = aggregations[i].reduce(groupsRamAccounting, existingStates[i], states[i]);
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                closeSpiller(groups, e);
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator is exhausted");
+            }
+            Map.Entry<K, Object[]> input = iterator.next();
+            applyKeyToCells.accept(input.getKey(), cells);
+            int c = numKeyColumns;
+            Object[] states = input.getValue();
+            for (int i = 0; i < states.length; i++) {
+                cells[c] = mode.finishCollect(ramAccounting, aggregations[i], states[i]);
+                c++;
+            }
+            return row;
+        }
+    }
+
+    /**
+     * Mutable container for the states of a single grouping operation.
+     */
+    static final class Groups<K> {
+
+        private final GroupsRamAccounting ramAccounting;
+        private final BiConsumer<Map<K, Object[]>, K> accountForNewEntry;
+        private Map<K, Object[]> statesByKey;
+
+        @Nullable
+        private GroupStateSpiller<K> spiller;
+
+        private Groups(Map<K, Object[]> statesByKey,
+                       GroupsRamAccounting ramAccounting,
+                       BiConsumer<Map<K, Object[]>, K> accountForNewEntry) {
+            this.statesByKey = statesByKey;
+            this.ramAccounting = ramAccounting;
+            this.accountForNewEntry = accountForNewEntry;
+        }
+
+        int numSpills() {
+            return spiller == null ? 0 : spiller.numSpills();
+        }
+    }
+
+    /**
+     * Tracks the bytes accounted for the groups that are currently held in memory,
+     * so that they can be released once the groups are spilled.
+     */
+    private static final class GroupsRamAccounting implements RamAccounting {
+
+        private final RamAccounting delegate;
+        private long usedBytes = 0;
+
+        GroupsRamAccounting(RamAccounting delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+            delegate.addBytes(bytes);
+            usedBytes += bytes;
+        }
+
+        @Override
+        public long totalBytes() {
+            return usedBytes;
+        }
+
+        @Override
+        public void release() {
+            delegate.addBytes(- usedBytes);
+            usedBytes = 0;
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
 }
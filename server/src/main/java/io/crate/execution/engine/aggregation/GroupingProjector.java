@@ -31,6 +31,7 @@ import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Symbol;
 import io.crate.memory.MemoryManager;
+import io.crate.memory.OffHeapMemoryManager;
 import org.elasticsearch.Version;
 
 import java.util.List;
@@ -51,7 +52,8 @@ public class GroupingProjector implements Projector {
                              RamAccounting ramAccounting,
                              MemoryManager memoryManager,
                              Version minNodeVersion,
-                             Version indexVersionCreated) {
+                             Version indexVersionCreated,
+                             long spillThreshold) {
         assert keys.size() == keyInputs.size() : "number of key types must match with number of key inputs";
 
         AggregationFunction[] functions = new AggregationFunction[aggregations.length];
@@ -63,7 +65,24 @@ public class GroupingProjector implements Projector {
             inputs[i] = aggregation.inputs();
             filters[i] = aggregation.filter();
         }
-        if (keys.size() == 1) {
+        FixedWidthAggregator<?>[] fixedWidthAggregators = keys.size() == 1 && memoryManager instanceof OffHeapMemoryManager
+            ? LongKeyedGroupingCollector.getFixedWidthAggregators(mode, keys.get(0).valueType(), functions)
+            : null;
+        if (fixedWidthAggregators != null) {
+            // Off-heap memory is not limited by the heap, so the states are kept in memory instead of spilling them
+            collector = new LongKeyedGroupingCollector(
+                collectExpressions,
+                mode,
+                functions,
+                fixedWidthAggregators,
+                inputs,
+                filters,
+                ramAccounting,
+                memoryManager,
+                keyInputs.get(0),
+                keys.get(0).valueType()
+            );
+        } else if (keys.size() == 1) {
             Symbol key = keys.get(0);
             collector = GroupingCollector.singleKey(
                 collectExpressions,
@@ -76,7 +95,8 @@ public class GroupingProjector implements Projector {
                 minNodeVersion,
                 keyInputs.get(0),
                 key.valueType(),
-                indexVersionCreated
+                indexVersionCreated,
+                spillThreshold
             );
         } else {
             //noinspection unchecked
@@ -91,7 +111,8 @@ public class GroupingProjector implements Projector {
                 minNodeVersion,
                 keyInputs,
                 typeView(keys),
-                indexVersionCreated
+                indexVersionCreated,
+                spillThreshold
             );
         }
     }
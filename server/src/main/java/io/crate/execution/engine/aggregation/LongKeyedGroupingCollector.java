@@ -0,0 +1,199 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.InputCondition;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.memory.MemoryManager;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Collector for a GROUP BY on a single integral key where all aggregations support a fixed-width state.
+ * Instead of a map with an {@code Object[]} of states per group it uses a {@link LongKeyedStateTable}.
+ */
+public final class LongKeyedGroupingCollector implements Collector<Row, LongKeyedStateTable, Iterable<Row>> {
+
+    private final CollectExpression<Row, ?>[] expressions;
+    private final AggregateMode mode;
+    private final AggregationFunction[] aggregations;
+    private final FixedWidthAggregator<?>[] aggregators;
+    private final Input[][] inputs;
+    private final Input<Boolean>[] filters;
+    private final RamAccounting ramAccounting;
+    private final MemoryManager memoryManager;
+    private final Input<?> keyInput;
+    private final DataType<?> keyType;
+
+    /**
+     * @return the fixed-width aggregators or null if the grouping can't be executed using a {@link LongKeyedStateTable}
+     */
+    @Nullable
+    static FixedWidthAggregator<?>[] getFixedWidthAggregators(AggregateMode mode,
+                                                              DataType<?> keyType,
+                                                              AggregationFunction<?, ?>[] aggregations) {
+        if (mode == AggregateMode.PARTIAL_FINAL) {
+            return null;
+        }
+        switch (keyType.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                break;
+
+            default:
+                return null;
+        }
+        FixedWidthAggregator<?>[] aggregators = new FixedWidthAggregator[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            FixedWidthAggregator<?> aggregator = aggregations[i].getFixedWidthAggregator();
+            if (aggregator == null) {
+                return null;
+            }
+            aggregators[i] = aggregator;
+        }
+        return aggregators;
+    }
+
+    LongKeyedGroupingCollector(CollectExpression<Row, ?>[] expressions,
+                               AggregateMode mode,
+                               AggregationFunction[] aggregations,
+                               FixedWidthAggregator<?>[] aggregators,
+                               Input[][] inputs,
+                               Input<Boolean>[] filters,
+                               RamAccounting ramAccounting,
+                               MemoryManager memoryManager,
+                               Input<?> keyInput,
+                               DataType<?> keyType) {
+        assert mode != AggregateMode.PARTIAL_FINAL : "Partial states can't be reduced into fixed-width states";
+        this.expressions = expressions;
+        this.mode = mode;
+        this.aggregations = aggregations;
+        this.aggregators = aggregators;
+        this.inputs = inputs;
+        this.filters = filters;
+        this.ramAccounting = ramAccounting;
+        this.memoryManager = memoryManager;
+        this.keyInput = keyInput;
+        this.keyType = keyType;
+    }
+
+    @Override
+    public Supplier<LongKeyedStateTable> supplier() {
+        return () -> new LongKeyedStateTable(aggregators, memoryManager, ramAccounting);
+    }
+
+    @Override
+    public BiConsumer<LongKeyedStateTable, Row> accumulator() {
+        return this::iter;
+    }
+
+    @Override
+    public BinaryOperator<LongKeyedStateTable> combiner() {
+        return (state1, state2) -> {
+            throw new UnsupportedOperationException("combine not supported");
+        };
+    }
+
+    @Override
+    public Function<LongKeyedStateTable, Iterable<Row>> finisher() {
+        return table -> () -> new TableIterator(table);
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+
+    private void iter(LongKeyedStateTable table, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        Number key = (Number) keyInput.value();
+        int entry = key == null ? table.getOrAddNullKey() : table.getOrAdd(key.longValue());
+        ByteBuf page = table.page(entry);
+        for (int i = 0; i < aggregators.length; i++) {
+            if (InputCondition.matches(filters[i])) {
+                aggregators[i].iterate(page, table.stateOffset(entry, i), inputs[i]);
+            }
+        }
+    }
+
+    private class TableIterator implements Iterator<Row> {
+
+        private final LongKeyedStateTable table;
+        private final RowN row = new RowN(1 + aggregations.length);
+        private final Object[] cells = new Object[row.numColumns()];
+        private int entry = 0;
+
+        TableIterator(LongKeyedStateTable table) {
+            this.table = table;
+            row.cells(cells);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entry < table.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator is exhausted");
+            }
+            cells[0] = table.isNullKey(entry) ? null : keyType.sanitizeValue(table.key(entry));
+            ByteBuf page = table.page(entry);
+            for (int i = 0; i < aggregations.length; i++) {
+                Object state = aggregators[i].partialState(page, table.stateOffset(entry, i));
+                cells[i + 1] = mode.finishCollect(ramAccounting, aggregations[i], state);
+            }
+            entry++;
+            return row;
+        }
+    }
+}
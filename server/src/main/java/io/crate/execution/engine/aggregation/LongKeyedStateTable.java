@@ -0,0 +1,180 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.util.ArrayList;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import io.crate.data.breaker.RamAccounting;
+import io.crate.memory.MemoryManager;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Open addressing hash table which maps a long key to fixed-width aggregation states.
+ *
+ * <p>
+ * Keys and states are appended to pages which are allocated using a {@link MemoryManager},
+ * so that they're not subject to garbage collection if the memory manager allocates off-heap.
+ * </p>
+ *
+ * <pre>
+ *  entry: key (8 bytes) | state[0] .. state[numStates - 1]
+ * </pre>
+ *
+ * The hash index only contains the ids of the entries and uses linear probing.
+ * Entries never move, on resize only the index is re-built.
+ * A {@code null} key is stored as a regular entry which is not part of the index.
+ */
+final class LongKeyedStateTable {
+
+    private static final int PAGE_SIZE_IN_BYTES = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final MemoryManager memoryManager;
+    private final RamAccounting ramAccounting;
+    private final FixedWidthAggregator<?>[] aggregators;
+    private final int[] stateOffsets;
+    private final int entrySize;
+    private final int entriesPerPage;
+    private final ArrayList<ByteBuf> pages = new ArrayList<>();
+
+    /**
+     * entry id + 1, 0 marks an empty slot
+     */
+    private int[] slots;
+    private int mask;
+    private int resizeAt;
+    private int size = 0;
+    private int nullKeyEntry = -1;
+
+    LongKeyedStateTable(FixedWidthAggregator<?>[] aggregators,
+                        MemoryManager memoryManager,
+                        RamAccounting ramAccounting) {
+        this.aggregators = aggregators;
+        this.memoryManager = memoryManager;
+        this.ramAccounting = ramAccounting;
+        this.stateOffsets = new int[aggregators.length];
+        int offset = Long.BYTES;
+        for (int i = 0; i < aggregators.length; i++) {
+            stateOffsets[i] = offset;
+            offset += aggregators[i].size();
+        }
+        this.entrySize = offset;
+        this.entriesPerPage = Math.max(1, PAGE_SIZE_IN_BYTES / entrySize);
+        allocateSlots(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the id of the entry for the key. A new entry with initial states is added if the key is not present yet.
+     */
+    int getOrAdd(long key) {
+        int slot = BitMixer.mix(key) & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                entry = addEntry(key);
+                slots[slot] = entry + 1;
+                if (size > resizeAt) {
+                    allocateSlots(slots.length << 1);
+                }
+                return entry;
+            }
+            if (key(entry) == key) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int getOrAddNullKey() {
+        if (nullKeyEntry < 0) {
+            nullKeyEntry = addEntry(0L);
+        }
+        return nullKeyEntry;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isNullKey(int entry) {
+        return entry == nullKeyEntry;
+    }
+
+    long key(int entry) {
+        return page(entry).getLong(offset(entry));
+    }
+
+    ByteBuf page(int entry) {
+        return pages.get(entry / entriesPerPage);
+    }
+
+    /**
+     * @return the offset of the state of the aggregation {@code idx} within the {@link #page(int)} of the entry.
+     */
+    int stateOffset(int entry, int idx) {
+        return offset(entry) + stateOffsets[idx];
+    }
+
+    private int offset(int entry) {
+        return (entry % entriesPerPage) * entrySize;
+    }
+
+    private int addEntry(long key) {
+        int entry = size;
+        if (entry / entriesPerPage == pages.size()) {
+            pages.add(memoryManager.allocate(entriesPerPage * entrySize));
+        }
+        ByteBuf page = page(entry);
+        int offset = offset(entry);
+        page.setLong(offset, key);
+        for (int i = 0; i < aggregators.length; i++) {
+            aggregators[i].initialState(page, offset + stateOffsets[i]);
+        }
+        size++;
+        return entry;
+    }
+
+    private void allocateSlots(int capacity) {
+        ramAccounting.addBytes((long) capacity * Integer.BYTES);
+        int[] newSlots = new int[capacity];
+        int newMask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            if (entry == nullKeyEntry) {
+                continue;
+            }
+            int slot = BitMixer.mix(key(entry)) & newMask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newSlots[slot] = entry + 1;
+        }
+        if (slots != null) {
+            ramAccounting.addBytes(- (long) slots.length * Integer.BYTES);
+        }
+        slots = newSlots;
+        mask = newMask;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -37,6 +37,7 @@ import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.FixedWidthAggregator;
 import io.crate.execution.engine.aggregation.impl.templates.BinaryDocValueAggregator;
 import io.crate.execution.engine.aggregation.impl.templates.SortedNumericDocValueAggregator;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
@@ -66,6 +67,7 @@ import io.crate.types.ShortType;
 import io.crate.types.StringType;
 import io.crate.types.TimestampType;
 import io.crate.types.TypeSignature;
+import io.netty.buffer.ByteBuf;
 
 public class CountAggregation extends AggregationFunction<MutableLong, Long> {
 
@@ -248,6 +250,34 @@ public class CountAggregation extends AggregationFunction<MutableLong, Long> {
         return previousAggState;
     }
 
+    @Override
+    public FixedWidthAggregator<MutableLong> getFixedWidthAggregator() {
+        return new FixedWidthAggregator<>() {
+
+            @Override
+            public int size() {
+                return LongStateType.INSTANCE.fixedSize();
+            }
+
+            @Override
+            public void initialState(ByteBuf buffer, int offset) {
+                buffer.setLong(offset, 0L);
+            }
+
+            @Override
+            public void iterate(ByteBuf buffer, int offset, Input<?>[] args) {
+                if (!hasArgs || args[0].value() != null) {
+                    buffer.setLong(offset, buffer.getLong(offset) + 1L);
+                }
+            }
+
+            @Override
+            public MutableLong partialState(ByteBuf buffer, int offset) {
+                return new MutableLong(buffer.getLong(offset));
+            }
+        };
+    }
+
     private DocValueAggregator<?> getDocValueAggregator(Reference ref) {
         if (!ref.hasDocValues()) {
             return null;
@@ -0,0 +1,156 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation.impl;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.Input;
+import io.crate.execution.engine.aggregation.FixedWidthAggregator;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Fixed-width states for {@link MinimumAggregation} and {@link MaximumAggregation}
+ *
+ * <pre>
+ *  hasValue (1 byte) | value (8 bytes)
+ * </pre>
+ */
+final class ExtremumStates {
+
+    private static final int SIZE = 1 + Long.BYTES;
+
+    private ExtremumStates() {
+    }
+
+    /**
+     * @param sign 1 to keep the maximum, -1 to keep the minimum
+     */
+    @Nullable
+    static FixedWidthAggregator<Object> forType(DataType<Object> type, int sign) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return new LongExtremum(type, sign);
+
+            case FloatType.ID:
+            case DoubleType.ID:
+                return new DoubleExtremum(type, sign);
+
+            default:
+                return null;
+        }
+    }
+
+    private static class LongExtremum implements FixedWidthAggregator<Object> {
+
+        private final DataType<Object> type;
+        private final int sign;
+
+        LongExtremum(DataType<Object> type, int sign) {
+            this.type = type;
+            this.sign = sign;
+        }
+
+        @Override
+        public int size() {
+            return SIZE;
+        }
+
+        @Override
+        public void initialState(ByteBuf buffer, int offset) {
+            buffer.setBoolean(offset, false);
+            buffer.setLong(offset + 1, 0L);
+        }
+
+        @Override
+        public void iterate(ByteBuf buffer, int offset, Input<?>[] args) {
+            Object value = args[0].value();
+            if (value == null) {
+                return;
+            }
+            long newValue = ((Number) value).longValue();
+            if (!buffer.getBoolean(offset) || Long.compare(newValue, buffer.getLong(offset + 1)) * sign > 0) {
+                buffer.setBoolean(offset, true);
+                buffer.setLong(offset + 1, newValue);
+            }
+        }
+
+        @Nullable
+        @Override
+        public Object partialState(ByteBuf buffer, int offset) {
+            return buffer.getBoolean(offset) ? type.sanitizeValue(buffer.getLong(offset + 1)) : null;
+        }
+    }
+
+    private static class DoubleExtremum implements FixedWidthAggregator<Object> {
+
+        private final DataType<Object> type;
+        private final int sign;
+
+        DoubleExtremum(DataType<Object> type, int sign) {
+            this.type = type;
+            this.sign = sign;
+        }
+
+        @Override
+        public int size() {
+            return SIZE;
+        }
+
+        @Override
+        public void initialState(ByteBuf buffer, int offset) {
+            buffer.setBoolean(offset, false);
+            buffer.setDouble(offset + 1, 0d);
+        }
+
+        @Override
+        public void iterate(ByteBuf buffer, int offset, Input<?>[] args) {
+            Object value = args[0].value();
+            if (value == null) {
+                return;
+            }
+            double newValue = ((Number) value).doubleValue();
+            if (!buffer.getBoolean(offset) || Double.compare(newValue, buffer.getDouble(offset + 1)) * sign > 0) {
+                buffer.setBoolean(offset, true);
+                buffer.setDouble(offset + 1, newValue);
+            }
+        }
+
+        @Nullable
+        @Override
+        public Object partialState(ByteBuf buffer, int offset) {
+            return buffer.getBoolean(offset) ? type.sanitizeValue(buffer.getDouble(offset + 1)) : null;
+        }
+    }
+}
@@ -36,10 +36,13 @@ import org.elasticsearch.common.breaker.CircuitBreakingException;
 import io.crate.common.MutableDouble;
 import io.crate.common.MutableFloat;
 import io.crate.common.MutableLong;
+import io.crate.data.ColumnBatch;
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.ColumnarDocValueAggregator;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.FixedWidthAggregator;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
@@ -79,7 +82,7 @@ public abstract class MaximumAggregation extends AggregationFunction<Object, Obj
     }
 
 
-    private static class LongMax implements DocValueAggregator<MutableLong> {
+    private static class LongMax implements ColumnarDocValueAggregator<MutableLong> {
 
         private final String columnName;
         private final DataType<?> partialType;
@@ -111,6 +114,37 @@ public abstract class MaximumAggregation extends AggregationFunction<Object, Obj
             }
         }
 
+        @Override
+        public String column() {
+            return columnName;
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, ColumnBatch batch, int column, MutableLong state) {
+            long[] values = batch.values(column);
+            boolean[] nulls = batch.nulls(column);
+            boolean hasValue = false;
+            long max = state.value();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!nulls[i]) {
+                    hasValue = true;
+                    max = Math.max(max, values[i]);
+                }
+            }
+            if (hasValue) {
+                state.setValue(max);
+            }
+        }
+
+        @Override
+        public boolean canSkip(LeafReaderContext reader, MutableLong state) throws IOException {
+            if (!state.hasValue()) {
+                return false;
+            }
+            Long max = PointBounds.max(reader.reader(), columnName);
+            return max != null && max <= state.value();
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableLong state) {
             if (state.hasValue()) {
@@ -122,7 +156,7 @@ public abstract class MaximumAggregation extends AggregationFunction<Object, Obj
     }
 
 
-    private static class DoubleMax implements DocValueAggregator<MutableDouble> {
+    private static class DoubleMax implements ColumnarDocValueAggregator<MutableDouble> {
 
         private final String columnName;
         private SortedNumericDocValues values;
@@ -152,6 +186,25 @@ public abstract class MaximumAggregation extends AggregationFunction<Object, Obj
             }
         }
 
+        @Override
+        public String column() {
+            return columnName;
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, ColumnBatch batch, int column, MutableDouble state) {
+            long[] values = batch.values(column);
+            boolean[] nulls = batch.nulls(column);
+            for (int i = 0; i < batch.size(); i++) {
+                if (!nulls[i]) {
+                    double value = NumericUtils.sortableLongToDouble(values[i]);
+                    if (value >= state.value()) {
+                        state.setValue(value);
+                    }
+                }
+            }
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableDouble state) {
             if (state.hasValue()) {
@@ -242,6 +295,12 @@ public abstract class MaximumAggregation extends AggregationFunction<Object, Obj
             }
         }
 
+        @Nullable
+        @Override
+        public FixedWidthAggregator<Object> getFixedWidthAggregator() {
+            return ExtremumStates.forType(type, 1);
+        }
+
         @Nullable
         @Override
         public Object newState(RamAccounting ramAccounting,
@@ -343,4 +402,9 @@ public abstract class MaximumAggregation extends AggregationFunction<Object, Obj
     public Object terminatePartial(RamAccounting ramAccounting, Object state) {
         return state;
     }
+
+    @Override
+    public boolean hasImmutableStates() {
+        return true;
+    }
 }
@@ -36,10 +36,13 @@ import org.elasticsearch.common.breaker.CircuitBreakingException;
 import io.crate.common.MutableDouble;
 import io.crate.common.MutableFloat;
 import io.crate.common.MutableLong;
+import io.crate.data.ColumnBatch;
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.ColumnarDocValueAggregator;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.FixedWidthAggregator;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
@@ -78,7 +81,7 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
         }
     }
 
-    private static class LongMin implements DocValueAggregator<MutableLong> {
+    private static class LongMin implements ColumnarDocValueAggregator<MutableLong> {
 
         private final String columnName;
         private final DataType<?> partialType;
@@ -110,6 +113,37 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
             }
         }
 
+        @Override
+        public String column() {
+            return columnName;
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, ColumnBatch batch, int column, MutableLong state) {
+            long[] values = batch.values(column);
+            boolean[] nulls = batch.nulls(column);
+            boolean hasValue = false;
+            long min = state.value();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!nulls[i]) {
+                    hasValue = true;
+                    min = Math.min(min, values[i]);
+                }
+            }
+            if (hasValue) {
+                state.setValue(min);
+            }
+        }
+
+        @Override
+        public boolean canSkip(LeafReaderContext reader, MutableLong state) throws IOException {
+            if (!state.hasValue()) {
+                return false;
+            }
+            Long min = PointBounds.min(reader.reader(), columnName);
+            return min != null && min >= state.value();
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableLong state) {
             if (state.hasValue()) {
@@ -121,7 +155,7 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
     }
 
 
-    private static class DoubleMin implements DocValueAggregator<MutableDouble> {
+    private static class DoubleMin implements ColumnarDocValueAggregator<MutableDouble> {
 
         private final String columnName;
         private SortedNumericDocValues values;
@@ -151,6 +185,25 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
             }
         }
 
+        @Override
+        public String column() {
+            return columnName;
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, ColumnBatch batch, int column, MutableDouble state) {
+            long[] values = batch.values(column);
+            boolean[] nulls = batch.nulls(column);
+            for (int i = 0; i < batch.size(); i++) {
+                if (!nulls[i]) {
+                    double value = NumericUtils.sortableLongToDouble(values[i]);
+                    if (value < state.value()) {
+                        state.setValue(value);
+                    }
+                }
+            }
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableDouble state) {
             if (state.hasValue()) {
@@ -276,6 +329,12 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
             }
         }
 
+        @Nullable
+        @Override
+        public FixedWidthAggregator<Object> getFixedWidthAggregator() {
+            return ExtremumStates.forType(type, -1);
+        }
+
         @Nullable
         @Override
         public Object newState(RamAccounting ramAccounting,
@@ -332,6 +391,11 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
         return state;
     }
 
+    @Override
+    public boolean hasImmutableStates() {
+        return true;
+    }
+
     @Override
     public Object iterate(RamAccounting ramAccounting,
                           MemoryManager memoryManager,
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation.impl;
+
+import java.io.IOException;
+
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Minimum and maximum values of integral columns within a segment,
+ * read from the points index which keeps them per segment.
+ * <p>
+ * The bounds include the values of deleted documents,
+ * so they can be used to skip segments but not as aggregation results.
+ * </p>
+ */
+final class PointBounds {
+
+    private PointBounds() {
+    }
+
+    /**
+     * @return the minimum value of the column within the segment
+     *         or null if the column isn't indexed as long or int point.
+     */
+    @Nullable
+    static Long min(LeafReader reader, String column) throws IOException {
+        PointValues values = reader.getPointValues(column);
+        if (values == null) {
+            return null;
+        }
+        return decode(values, values.getMinPackedValue());
+    }
+
+    /**
+     * @return the maximum value of the column within the segment
+     *         or null if the column isn't indexed as long or int point.
+     */
+    @Nullable
+    static Long max(LeafReader reader, String column) throws IOException {
+        PointValues values = reader.getPointValues(column);
+        if (values == null) {
+            return null;
+        }
+        return decode(values, values.getMaxPackedValue());
+    }
+
+    @Nullable
+    private static Long decode(PointValues values, byte[] packedValue) throws IOException {
+        if (values.getNumIndexDimensions() != 1) {
+            return null;
+        }
+        return switch (values.getBytesPerDimension()) {
+            case Long.BYTES -> LongPoint.decodeDimension(packedValue, 0);
+            case Integer.BYTES -> (long) IntPoint.decodeDimension(packedValue, 0);
+            default -> null;
+        };
+    }
+}
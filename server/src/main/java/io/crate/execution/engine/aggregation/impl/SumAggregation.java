@@ -38,10 +38,13 @@ import io.crate.common.MutableDouble;
 import io.crate.common.MutableFloat;
 import io.crate.common.MutableLong;
 import io.crate.common.annotations.VisibleForTesting;
+import io.crate.data.ColumnBatch;
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.ColumnarDocValueAggregator;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.FixedWidthAggregator;
 import io.crate.execution.engine.aggregation.impl.util.KahanSummationForDouble;
 import io.crate.execution.engine.aggregation.impl.util.KahanSummationForFloat;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
@@ -60,6 +63,7 @@ import io.crate.types.FloatType;
 import io.crate.types.IntegerType;
 import io.crate.types.LongType;
 import io.crate.types.ShortType;
+import io.netty.buffer.ByteBuf;
 
 public class SumAggregation<T extends Number> extends AggregationFunction<T, T> {
 
@@ -213,6 +217,17 @@ public class SumAggregation<T extends Number> extends AggregationFunction<T, T>
         }
     }
 
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public FixedWidthAggregator<T> getFixedWidthAggregator() {
+        // Floating point sums use a kahan summation with additional state
+        if (returnType == DataTypes.LONG) {
+            return (FixedWidthAggregator<T>) new SumLongState();
+        }
+        return null;
+    }
+
     private static FunctionFactory getSumAggregationForDoubleFactory() {
         return (signature, boundSignature) -> {
             var kahanSummation = new KahanSummationForDouble();
@@ -240,7 +255,7 @@ public class SumAggregation<T extends Number> extends AggregationFunction<T, T>
     }
 
     @VisibleForTesting
-    public static class SumLong implements DocValueAggregator<MutableLong> {
+    public static class SumLong implements ColumnarDocValueAggregator<MutableLong> {
 
         private final String columnName;
         private SortedNumericDocValues values;
@@ -267,6 +282,28 @@ public class SumAggregation<T extends Number> extends AggregationFunction<T, T>
             }
         }
 
+        @Override
+        public String column() {
+            return columnName;
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, ColumnBatch batch, int column, MutableLong state) {
+            long[] values = batch.values(column);
+            boolean[] nulls = batch.nulls(column);
+            boolean hasValue = false;
+            long sum = state.value();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!nulls[i]) {
+                    hasValue = true;
+                    sum = Math.addExact(sum, values[i]);
+                }
+            }
+            if (hasValue) {
+                state.setValue(sum);
+            }
+        }
+
         @Override
         public Long partialResult(RamAccounting ramAccounting, MutableLong state) {
             return state.hasValue() ? state.value() : null;
@@ -348,4 +385,39 @@ public class SumAggregation<T extends Number> extends AggregationFunction<T, T>
             return state.hasValue() ? state.value() : null;
         }
     }
+
+    /**
+     * <pre>
+     *  hasValue (1 byte) | sum (8 bytes)
+     * </pre>
+     */
+    private static class SumLongState implements FixedWidthAggregator<Long> {
+
+        @Override
+        public int size() {
+            return 1 + DataTypes.LONG.fixedSize();
+        }
+
+        @Override
+        public void initialState(ByteBuf buffer, int offset) {
+            buffer.setBoolean(offset, false);
+            buffer.setLong(offset + 1, 0L);
+        }
+
+        @Override
+        public void iterate(ByteBuf buffer, int offset, Input<?>[] args) {
+            Object value = args[0].value();
+            if (value != null) {
+                long sum = buffer.getLong(offset + 1);
+                buffer.setLong(offset + 1, Math.addExact(sum, ((Number) value).longValue()));
+                buffer.setBoolean(offset, true);
+            }
+        }
+
+        @Nullable
+        @Override
+        public Long partialState(ByteBuf buffer, int offset) {
+            return buffer.getBoolean(offset) ? buffer.getLong(offset + 1) : null;
+        }
+    }
 }
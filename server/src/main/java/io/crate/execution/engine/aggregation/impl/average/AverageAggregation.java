@@ -40,6 +40,7 @@ import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.FixedWidthAggregator;
 import io.crate.execution.engine.aggregation.impl.AggregationImplModule;
 import io.crate.execution.engine.aggregation.impl.templates.SortedNumericDocValueAggregator;
 import io.crate.execution.engine.aggregation.impl.util.KahanSummationForDouble;
@@ -59,6 +60,7 @@ import io.crate.types.FloatType;
 import io.crate.types.IntegerType;
 import io.crate.types.LongType;
 import io.crate.types.ShortType;
+import io.netty.buffer.ByteBuf;
 
 public class AverageAggregation extends AggregationFunction<AverageAggregation.AverageState, Double> {
 
@@ -303,6 +305,51 @@ public class AverageAggregation extends AggregationFunction<AverageAggregation.A
         return boundSignature;
     }
 
+    /**
+     * <pre>
+     *  sum (8 bytes) | count (8 bytes)
+     * </pre>
+     */
+    @Nullable
+    @Override
+    public FixedWidthAggregator<AverageState> getFixedWidthAggregator() {
+        // Floating point values use a kahan summation with additional state
+        if (!isIntegral) {
+            return null;
+        }
+        return new FixedWidthAggregator<>() {
+
+            @Override
+            public int size() {
+                return Double.BYTES + Long.BYTES;
+            }
+
+            @Override
+            public void initialState(ByteBuf buffer, int offset) {
+                buffer.setDouble(offset, 0d);
+                buffer.setLong(offset + Double.BYTES, 0L);
+            }
+
+            @Override
+            public void iterate(ByteBuf buffer, int offset, Input<?>[] args) {
+                Number value = (Number) args[0].value();
+                if (value != null) {
+                    buffer.setDouble(offset, buffer.getDouble(offset) + value.doubleValue());
+                    int countOffset = offset + Double.BYTES;
+                    buffer.setLong(countOffset, buffer.getLong(countOffset) + 1L);
+                }
+            }
+
+            @Override
+            public AverageState partialState(ByteBuf buffer, int offset) {
+                AverageState state = new AverageState();
+                state.sum = buffer.getDouble(offset);
+                state.count = buffer.getLong(offset + Double.BYTES);
+                return state;
+            }
+        };
+    }
+
     @Nullable
     @Override
     public DocValueAggregator<?> getDocValueAggregator(LuceneReferenceResolver referenceResolver,
@@ -0,0 +1,77 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+
+import io.crate.data.ColumnBatch;
+
+/**
+ * Reads the sorted numeric doc values of a set of columns for batches of documents into a {@link ColumnBatch}.
+ * Each column is read once per document, even if it's used by several aggregations.
+ */
+final class ColumnBatchReader {
+
+    private final List<String> columns;
+    private final SortedNumericDocValues[] docValues;
+    private final ColumnBatch batch;
+
+    ColumnBatchReader(List<String> columns, int capacity) {
+        this.columns = columns;
+        this.docValues = new SortedNumericDocValues[columns.size()];
+        this.batch = new ColumnBatch(columns.size(), capacity);
+    }
+
+    void loadDocValues(LeafReaderContext leaf) throws IOException {
+        for (int i = 0; i < docValues.length; i++) {
+            docValues[i] = DocValues.getSortedNumeric(leaf.reader(), columns.get(i));
+        }
+    }
+
+    /**
+     * @param docs ids of the documents to read, in ascending order and from the leaf of the last
+     *             {@link #loadDocValues(LeafReaderContext)} call.
+     * @return the batch with one row per document. It's re-used by the next {@code read} call.
+     */
+    ColumnBatch read(int[] docs, int numDocs) throws IOException {
+        for (int column = 0; column < docValues.length; column++) {
+            SortedNumericDocValues columnDocValues = docValues[column];
+            long[] values = batch.values(column);
+            boolean[] nulls = batch.nulls(column);
+            for (int i = 0; i < numDocs; i++) {
+                if (columnDocValues.advanceExact(docs[i]) && columnDocValues.docValueCount() == 1) {
+                    values[i] = columnDocValues.nextValue();
+                    nulls[i] = false;
+                } else {
+                    nulls[i] = true;
+                }
+            }
+        }
+        batch.size(numDocs);
+        return batch;
+    }
+}
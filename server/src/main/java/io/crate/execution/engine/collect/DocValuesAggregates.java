@@ -22,16 +22,21 @@
 package io.crate.execution.engine.collect;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.Query;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
@@ -42,9 +47,11 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.jetbrains.annotations.Nullable;
 
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.exceptions.Exceptions;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
+import io.crate.data.ColumnBatch;
 import io.crate.data.Row;
 import io.crate.data.RowN;
 import io.crate.data.breaker.RamAccounting;
@@ -53,8 +60,11 @@ import io.crate.execution.dsl.projection.AggregationProjection;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.ColumnarDocValueAggregator;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.collect.collectors.LeafRangePruner;
 import io.crate.execution.jobs.SharedShardContext;
+import io.crate.execution.support.ThreadPools;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.scalar.cast.ExplicitCastFunction;
 import io.crate.expression.symbol.Aggregation;
@@ -82,7 +92,9 @@ public final class DocValuesAggregates {
                                                  DocTableInfo table,
                                                  LuceneQueryBuilder luceneQueryBuilder,
                                                  RoutedCollectPhase phase,
-                                                 CollectTask collectTask) {
+                                                 CollectTask collectTask,
+                                                 Executor executor,
+                                                 IntSupplier availableThreads) {
         var shardProjections = Projections.shardProjections(phase.projections());
         AggregationProjection aggregateProjection = aggregateProjection(shardProjections);
         if (aggregateProjection == null) {
@@ -113,21 +125,61 @@ public final class DocValuesAggregates {
             shardContext.indexService().cache()
         );
 
+        LeafRangePruner leafRangePruner = LeafRangePruner.of(queryContext.query());
         AtomicReference<Throwable> killed = new AtomicReference<>();
         return CollectingBatchIterator.newInstance(
             () -> killed.set(BatchIterator.CLOSED),
             killed::set,
             () -> {
                 try {
-                    return CompletableFuture.completedFuture(getRow(
-                        collectTask.getRamAccounting(),
-                        collectTask.memoryManager(),
-                        collectTask.minNodeVersion(),
-                        killed,
-                        searcher.item(),
-                        queryContext.query(),
-                        aggregators
-                    ));
+                    IndexSearcher indexSearcher = searcher.item();
+                    Weight weight = indexSearcher.createWeight(
+                        indexSearcher.rewrite(queryContext.query()),
+                        ScoreMode.COMPLETE_NO_SCORES,
+                        1f
+                    );
+                    LeafSlice[] slices = LuceneShardCollectorProvider.slices(indexSearcher);
+                    if (slices.length <= 1) {
+                        return CompletableFuture.completedFuture(List.of(getRow(
+                            collectTask.getRamAccounting(),
+                            collectTask.memoryManager(),
+                            collectTask.minNodeVersion(),
+                            killed,
+                            weight,
+                            leafRangePruner,
+                            indexSearcher.getTopReaderContext().leaves(),
+                            aggregators
+                        )));
+                    }
+                    // Each slice is aggregated into its own partial result,
+                    // they're merged along with the results of the other shards.
+                    List<Supplier<Row>> sliceAggregations = new ArrayList<>(slices.length);
+                    for (LeafSlice slice : slices) {
+                        var sliceAggregators = createAggregators(
+                            functions,
+                            referenceResolver,
+                            aggregateProjection.aggregations(),
+                            phase.toCollect(),
+                            table
+                        );
+                        sliceAggregations.add(() -> {
+                            try {
+                                return getRow(
+                                    collectTask.getRamAccounting(),
+                                    collectTask.memoryManager(),
+                                    collectTask.minNodeVersion(),
+                                    killed,
+                                    weight,
+                                    leafRangePruner,
+                                    Arrays.asList(slice.leaves),
+                                    sliceAggregators
+                                );
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                    return ThreadPools.runWithAvailableThreads(executor, availableThreads, sliceAggregations);
                 } catch (Throwable t) {
                     return CompletableFuture.failedFuture(t);
                 }
@@ -224,47 +276,132 @@ public final class DocValuesAggregates {
         }
     }
 
+    /**
+     * Aggregates the documents matching the weight.
+     * <p>
+     * The documents are processed in batches of up to {@link ColumnBatch#DEFAULT_CAPACITY}.
+     * The values of the columns used by {@link ColumnarDocValueAggregator}s are read once
+     * per batch into a {@link ColumnBatch}, which is then aggregated column-wise.
+     * Other aggregators read their doc values per document.
+     * </p>
+     */
+    @VisibleForTesting
     @SuppressWarnings("rawtypes")
-    private static Iterable<Row> getRow(RamAccounting ramAccounting,
-                                        MemoryManager memoryManager,
-                                        Version minNodeVersion,
-                                        AtomicReference<Throwable> killed,
-                                        IndexSearcher searcher,
-                                        Query query,
-                                        List<DocValueAggregator> aggregators) throws IOException {
-        Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
-        List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+    static Row getRow(RamAccounting ramAccounting,
+                      MemoryManager memoryManager,
+                      Version minNodeVersion,
+                      AtomicReference<Throwable> killed,
+                      Weight weight,
+                      @Nullable LeafRangePruner leafRangePruner,
+                      List<LeafReaderContext> leaves,
+                      List<DocValueAggregator> aggregators) throws IOException {
         Object[] cells = new Object[aggregators.size()];
         for (int i = 0; i < aggregators.size(); i++) {
             cells[i] = aggregators.get(i).initialState(ramAccounting, memoryManager, minNodeVersion);
         }
+        // Position of the column of an aggregator within the ColumnBatch, -1 if it isn't columnar
+        int[] batchColumns = new int[aggregators.size()];
+        ArrayList<String> columns = new ArrayList<>();
+        for (int i = 0; i < aggregators.size(); i++) {
+            if (aggregators.get(i) instanceof ColumnarDocValueAggregator<?> columnarAggregator) {
+                int column = columns.indexOf(columnarAggregator.column());
+                if (column == -1) {
+                    column = columns.size();
+                    columns.add(columnarAggregator.column());
+                }
+                batchColumns[i] = column;
+            } else {
+                batchColumns[i] = -1;
+            }
+        }
+        ColumnBatchReader batchReader = new ColumnBatchReader(columns, ColumnBatch.DEFAULT_CAPACITY);
+        int[] batchDocs = new int[ColumnBatch.DEFAULT_CAPACITY];
         for (var leaf : leaves) {
+            if (leafRangePruner != null && !leafRangePruner.canMatch(leaf.reader())) {
+                continue;
+            }
+            if (canSkip(aggregators, leaf, cells)) {
+                continue;
+            }
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
             }
             for (int i = 0; i < aggregators.size(); i++) {
-                aggregators.get(i).loadDocValues(leaf);
+                if (batchColumns[i] == -1) {
+                    aggregators.get(i).loadDocValues(leaf);
+                }
             }
+            batchReader.loadDocValues(leaf);
             DocIdSetIterator docs = scorer.iterator();
             Bits liveDocs = leaf.reader().getLiveDocs();
+            int numDocs = 0;
             for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
                 if (liveDocs != null && !liveDocs.get(doc)) {
                     continue;
                 }
-                Throwable killCause = killed.get();
-                if (killCause != null) {
-                    Exceptions.rethrowUnchecked(killCause);
-                }
-                for (int i = 0; i < aggregators.size(); i++) {
-                    aggregators.get(i).apply(ramAccounting, doc, cells[i]);
+                batchDocs[numDocs++] = doc;
+                if (numDocs == batchDocs.length) {
+                    aggregateBatch(ramAccounting, killed, aggregators, batchColumns, cells, batchReader, batchDocs, numDocs);
+                    numDocs = 0;
                 }
             }
+            if (numDocs > 0) {
+                aggregateBatch(ramAccounting, killed, aggregators, batchColumns, cells, batchReader, batchDocs, numDocs);
+            }
         }
         for (int i = 0; i < aggregators.size(); i++) {
             cells[i] = aggregators.get(i).partialResult(ramAccounting, cells[i]);
         }
-        return List.of(new RowN(cells));
+        return new RowN(cells);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void aggregateBatch(RamAccounting ramAccounting,
+                                       AtomicReference<Throwable> killed,
+                                       List<DocValueAggregator> aggregators,
+                                       int[] batchColumns,
+                                       Object[] states,
+                                       ColumnBatchReader batchReader,
+                                       int[] docs,
+                                       int numDocs) throws IOException {
+        Throwable killCause = killed.get();
+        if (killCause != null) {
+            Exceptions.rethrowUnchecked(killCause);
+        }
+        ColumnBatch batch = batchReader.read(docs, numDocs);
+        for (int i = 0; i < aggregators.size(); i++) {
+            DocValueAggregator aggregator = aggregators.get(i);
+            int column = batchColumns[i];
+            if (column == -1) {
+                for (int d = 0; d < numDocs; d++) {
+                    aggregator.apply(ramAccounting, docs[d], states[i]);
+                }
+            } else {
+                ((ColumnarDocValueAggregator) aggregator).apply(ramAccounting, batch, column, states[i]);
+            }
+        }
+    }
+
+    /**
+     * Segments which can't change the result of any aggregation are skipped,
+     * without creating a scorer for the query or loading the doc values.
+     * <p>
+     * This also applies to aggregations without a query. E.g. for {@code max(ts)}
+     * all segments whose maximum {@code ts} isn't greater than the maximum of the
+     * segments aggregated so far are skipped.
+     * </p>
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static boolean canSkip(List<DocValueAggregator> aggregators,
+                                   LeafReaderContext leaf,
+                                   Object[] states) throws IOException {
+        for (int i = 0; i < aggregators.size(); i++) {
+            if (!aggregators.get(i).canSkip(leaf, states[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
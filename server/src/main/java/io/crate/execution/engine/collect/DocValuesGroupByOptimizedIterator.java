@@ -62,6 +62,7 @@ import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
 import io.crate.execution.engine.aggregation.GroupByMaps;
+import io.crate.execution.engine.collect.collectors.LeafRangePruner;
 import io.crate.execution.engine.fetch.ReaderContext;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
@@ -349,8 +350,12 @@ final class DocValuesGroupByOptimizedIterator {
                 1f
             );
             List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
+            LeafRangePruner leafRangePruner = LeafRangePruner.of(query);
             for (var leaf : leaves) {
                 raiseIfClosedOrKilled(killed);
+                if (leafRangePruner != null && !leafRangePruner.canMatch(leaf.reader())) {
+                    continue;
+                }
                 Scorer scorer = weight.scorer(leaf);
                 if (scorer == null) {
                     continue;
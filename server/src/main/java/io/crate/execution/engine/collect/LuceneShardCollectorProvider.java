@@ -21,15 +21,26 @@
 
 package io.crate.execution.engine.collect;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.elasticsearch.client.ElasticsearchClient;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
@@ -39,6 +50,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.data.BatchIterator;
+import io.crate.data.CompositeBatchIterator;
 import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.SentinelRow;
@@ -51,6 +63,7 @@ import io.crate.execution.engine.export.FileOutputFactory;
 import io.crate.execution.engine.sort.LuceneSortGenerator;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.jobs.SharedShardContext;
+import io.crate.execution.support.ThreadPools;
 import io.crate.expression.InputFactory;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
@@ -69,6 +82,9 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
 
     private static final Logger LOGGER = LogManager.getLogger(LuceneShardCollectorProvider.class);
 
+    private static final int MAX_DOCS_PER_SLICE = 250_000;
+    private static final int MAX_SEGMENTS_PER_SLICE = 5;
+
     private final Supplier<String> localNodeId;
     private final LuceneQueryBuilder luceneQueryBuilder;
     private final NodeContext nodeCtx;
@@ -78,6 +94,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     private final RelationName relationName;
 
     private final LuceneReferenceResolver referenceResolver;
+    private final Executor searchExecutor;
+    private final IntSupplier availableSearchThreads;
 
     public LuceneShardCollectorProvider(Schemas schemas,
                                         LuceneQueryBuilder luceneQueryBuilder,
@@ -122,22 +140,64 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         );
         this.docInputFactory = new DocInputFactory(nodeCtx, referenceResolver);
         this.bigArrays = bigArrays;
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
+        this.searchExecutor = executor;
+        this.availableSearchThreads = ThreadPools.numIdleThreads(executor, EsExecutors.numberOfProcessors(settings));
     }
 
     @Override
     protected BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                       boolean requiresScroll,
                                                       CollectTask collectTask) {
+        UnorderedCollect collect = prepareUnorderedCollect(collectPhase, collectTask, "unordered-iterator: ");
+        if (collect == null) {
+            return InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+        }
+        return collect.newIterator(collect.searcher.getTopReaderContext().leaves());
+    }
+
+    @Nullable
+    @Override
+    protected BatchIterator<Row> getSegmentParallelIterator(RoutedCollectPhase collectPhase,
+                                                            CollectTask collectTask,
+                                                            UnaryOperator<BatchIterator<Row>> applyShardProjections) {
+        UnorderedCollect collect = prepareUnorderedCollect(collectPhase, collectTask, "segment-parallel-iterator: ");
+        if (collect == null) {
+            return null;
+        }
+        LeafSlice[] slices = slices(collect.searcher);
+        if (slices.length <= 1) {
+            return applyShardProjections.apply(collect.newIterator(collect.searcher.getTopReaderContext().leaves()));
+        }
+        List<BatchIterator<Row>> iterators = new ArrayList<>(slices.length);
+        for (LeafSlice slice : slices) {
+            iterators.add(applyShardProjections.apply(collect.newIterator(Arrays.asList(slice.leaves))));
+        }
+        return CompositeBatchIterator.asyncComposite(searchExecutor, availableSearchThreads, iterators);
+    }
+
+    /**
+     * Groups the segments of a shard into slices which can be scanned concurrently.
+     * Uses the same limits as Lucene for concurrent searches.
+     */
+    static LeafSlice[] slices(IndexSearcher searcher) {
+        return IndexSearcher.slices(searcher.getTopReaderContext().leaves(), MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+    }
+
+    @Nullable
+    private UnorderedCollect prepareUnorderedCollect(RoutedCollectPhase collectPhase,
+                                                     CollectTask collectTask,
+                                                     String searcherSource) {
         ShardId shardId = indexShard.shardId();
         SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
-        var searcher = sharedShardContext.acquireSearcher("unordered-iterator: " + formatSource(collectPhase));
+        var searcher = sharedShardContext.acquireSearcher(searcherSource + formatSource(collectPhase));
         collectTask.addSearcher(sharedShardContext.readerId(), searcher);
         IndexShard sharedShardContextShard = sharedShardContext.indexShard();
         // A closed shard has no mapper service and cannot be queried with lucene,
         // therefore skip it
         boolean isClosed = sharedShardContextShard.mapperService() == null;
         if (isClosed) {
-            return InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+            return null;
         }
         QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
         DocTableInfo table = schemas.getTableInfo(relationName);
@@ -150,20 +210,54 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             table,
             sharedShardContext.indexService().cache()
         );
-        InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
-            docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
-
-        return new LuceneBatchIterator(
+        return new UnorderedCollect(
             searcher.item(),
-            queryContext.query(),
-            queryContext.minScore(),
-            Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-            new CollectorContext(sharedShardContext.readerId()),
-            docCtx.topLevelInputs(),
-            docCtx.expressions()
+            queryContext,
+            collectPhase,
+            collectTask,
+            sharedShardContext.readerId()
         );
     }
 
+    private final class UnorderedCollect {
+
+        private final IndexSearcher searcher;
+        private final LuceneQueryBuilder.Context queryContext;
+        private final RoutedCollectPhase collectPhase;
+        private final CollectTask collectTask;
+        private final int readerId;
+
+        private UnorderedCollect(IndexSearcher searcher,
+                                 LuceneQueryBuilder.Context queryContext,
+                                 RoutedCollectPhase collectPhase,
+                                 CollectTask collectTask,
+                                 int readerId) {
+            this.searcher = searcher;
+            this.queryContext = queryContext;
+            this.collectPhase = collectPhase;
+            this.collectTask = collectTask;
+            this.readerId = readerId;
+        }
+
+        /**
+         * Creates an iterator with its own collector expressions, so that multiple iterators can be consumed concurrently.
+         */
+        private BatchIterator<Row> newIterator(List<LeafReaderContext> leaves) {
+            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
+                docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
+            return new LuceneBatchIterator(
+                searcher,
+                leaves,
+                queryContext.query(),
+                queryContext.minScore(),
+                Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
+                new CollectorContext(readerId),
+                docCtx.topLevelInputs(),
+                docCtx.expressions()
+            );
+        }
+    }
+
     @Nullable
     @Override
     protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
@@ -203,7 +297,9 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             table,
             luceneQueryBuilder,
             normalizedPhase,
-            collectTask
+            collectTask,
+            searchExecutor,
+            availableSearchThreads
         );
     }
 
@@ -21,8 +21,10 @@
 
 package io.crate.execution.engine.collect;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -39,6 +41,9 @@ import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.SentinelRow;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.export.FileOutputFactory;
@@ -50,6 +55,7 @@ import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.reference.sys.shard.ShardRowContext;
+import io.crate.expression.symbol.AggregateMode;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.Schemas;
@@ -122,14 +128,32 @@ public abstract class ShardCollectorProvider {
                     return fusedIterator;
                 }
             }
+            Collection<? extends Projection> shardProjections = Projections.shardProjections(collectPhase.projections());
             final BatchIterator<Row> iterator;
             if (isOpenIndex && WhereClause.canMatch(normalizedCollectNode.where())) {
+                if (!requiresScroll && producesPartialResults(shardProjections)) {
+                    BatchIterator<Row> sliceIterator = getSegmentParallelIterator(
+                        normalizedCollectNode,
+                        collectTask,
+                        it -> wrapShardProjections(collectPhase, shardProjections, collectTask, it)
+                    );
+                    if (sliceIterator != null) {
+                        return sliceIterator;
+                    }
+                }
                 iterator = getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask);
             } else {
                 iterator = InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
             }
+            return wrapShardProjections(collectPhase, shardProjections, collectTask, iterator);
+        }
+
+        private BatchIterator<Row> wrapShardProjections(RoutedCollectPhase collectPhase,
+                                                        Collection<? extends Projection> shardProjections,
+                                                        CollectTask collectTask,
+                                                        BatchIterator<Row> iterator) {
             return Projectors.wrap(
-                Projections.shardProjections(collectPhase.projections()),
+                shardProjections,
                 collectPhase.jobId(),
                 collectTask.txnCtx(),
                 collectTask.getRamAccounting(),
@@ -169,6 +193,37 @@ public abstract class ShardCollectorProvider {
     protected abstract BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase,
                                                                      CollectTask collectTask);
 
+    /**
+     * Partial aggregation results of different parts of a shard can be merged the same way as
+     * the results of different shards, so the shard can be scanned concurrently.
+     */
+    private static boolean producesPartialResults(Collection<? extends Projection> shardProjections) {
+        if (shardProjections.size() != 1) {
+            return false;
+        }
+        Projection projection = shardProjections.iterator().next();
+        if (projection instanceof AggregationProjection aggregationProjection) {
+            return aggregationProjection.mode() == AggregateMode.ITER_PARTIAL;
+        }
+        if (projection instanceof GroupProjection groupProjection) {
+            return groupProjection.mode() == AggregateMode.ITER_PARTIAL;
+        }
+        return false;
+    }
+
+    /**
+     * @param applyShardProjections must be applied to each slice iterator.
+     *                              The projections produce partial aggregation results.
+     * @return A BatchIterator which scans slices of the shard concurrently and applies the shard projections
+     *         to each of them. If this returns null the shard is collected by a single {@link #getUnorderedIterator}.
+     */
+    @Nullable
+    protected BatchIterator<Row> getSegmentParallelIterator(RoutedCollectPhase collectPhase,
+                                                            CollectTask collectTask,
+                                                            UnaryOperator<BatchIterator<Row>> applyShardProjections) {
+        return null;
+    }
+
     protected abstract BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                                boolean requiresScroll,
                                                                CollectTask collectTask);
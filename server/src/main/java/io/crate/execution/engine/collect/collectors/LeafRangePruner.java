@@ -0,0 +1,125 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.collectors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.ArrayUtil;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Skips whole segments if a range which is required by the query doesn't overlap with the
+ * minimum and maximum value of the field within the segment.
+ * <p>
+ * The minimum and maximum values are taken from the points index, which keeps them per segment.
+ * Checking them is cheaper than creating the scorers of all query clauses
+ * and setting up the collector expressions for a segment which can't have any matches.
+ * E.g. for a filter like {@code ts >= now() - '15 minutes'::interval} most segments of a table which
+ * contains months of data are skipped.
+ * </p>
+ */
+public final class LeafRangePruner {
+
+    private final List<PointRangeQuery> requiredRanges;
+
+    private LeafRangePruner(List<PointRangeQuery> requiredRanges) {
+        this.requiredRanges = requiredRanges;
+    }
+
+    /**
+     * @return a pruner or null if the query doesn't contain any required point ranges.
+     */
+    @Nullable
+    public static LeafRangePruner of(Query query) {
+        ArrayList<PointRangeQuery> requiredRanges = new ArrayList<>();
+        collectRequiredRanges(query, requiredRanges);
+        if (requiredRanges.isEmpty()) {
+            return null;
+        }
+        return new LeafRangePruner(requiredRanges);
+    }
+
+    private static void collectRequiredRanges(Query query, List<PointRangeQuery> requiredRanges) {
+        if (query instanceof PointRangeQuery pointRangeQuery) {
+            requiredRanges.add(pointRangeQuery);
+        } else if (query instanceof IndexOrDocValuesQuery indexOrDocValuesQuery) {
+            collectRequiredRanges(indexOrDocValuesQuery.getIndexQuery(), requiredRanges);
+        } else if (query instanceof ConstantScoreQuery constantScoreQuery) {
+            collectRequiredRanges(constantScoreQuery.getQuery(), requiredRanges);
+        } else if (query instanceof BoostQuery boostQuery) {
+            collectRequiredRanges(boostQuery.getQuery(), requiredRanges);
+        } else if (query instanceof BooleanQuery booleanQuery) {
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                if (clause.isRequired()) {
+                    collectRequiredRanges(clause.getQuery(), requiredRanges);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if none of the documents of the segment can match the query.
+     */
+    public boolean canMatch(LeafReader reader) throws IOException {
+        for (PointRangeQuery range : requiredRanges) {
+            PointValues values = reader.getPointValues(range.getField());
+            if (values == null) {
+                // No document in the segment has a value for the field
+                return false;
+            }
+            if (values.getNumIndexDimensions() != range.getNumDims() || values.getBytesPerDimension() != range.getBytesPerDim()) {
+                continue;
+            }
+            if (disjoint(range, values.getMinPackedValue(), values.getMaxPackedValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean disjoint(PointRangeQuery range, byte[] minPackedValue, byte[] maxPackedValue) {
+        int bytesPerDim = range.getBytesPerDim();
+        ArrayUtil.ByteArrayComparator comparator = ArrayUtil.getUnsignedComparator(bytesPerDim);
+        byte[] lowerPoint = range.getLowerPoint();
+        byte[] upperPoint = range.getUpperPoint();
+        for (int dim = 0; dim < range.getNumDims(); dim++) {
+            int offset = dim * bytesPerDim;
+            if (comparator.compare(maxPackedValue, offset, lowerPoint, offset) < 0
+                || comparator.compare(minPackedValue, offset, upperPoint, offset) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
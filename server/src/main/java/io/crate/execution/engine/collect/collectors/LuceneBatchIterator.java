@@ -64,6 +64,8 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     private final InputRow row;
     private Weight weight;
     private final Float minScore;
+    @Nullable
+    private final LeafRangePruner leafRangePruner;
 
     private Iterator<LeafReaderContext> leavesIt;
     private LeafReaderContext currentLeaf;
@@ -78,6 +80,30 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
                                CollectorContext collectorContext,
                                List<? extends Input<?>> inputs,
                                Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(
+            indexSearcher,
+            indexSearcher.getTopReaderContext().leaves(),
+            query,
+            minScore,
+            doScores,
+            collectorContext,
+            inputs,
+            expressions
+        );
+    }
+
+    /**
+     * @param leaves the subset of the leaves of the {@code indexSearcher} to iterate over.
+     *               Used to scan the slices of a shard concurrently.
+     */
+    public LuceneBatchIterator(IndexSearcher indexSearcher,
+                               List<LeafReaderContext> leaves,
+                               Query query,
+                               @Nullable Float minScore,
+                               boolean doScores,
+                               CollectorContext collectorContext,
+                               List<? extends Input<?>> inputs,
+                               Collection<? extends LuceneCollectorExpression<?>> expressions) {
         this.indexSearcher = indexSearcher;
         this.query = query;
         this.doScores = doScores || minScore != null;
@@ -85,8 +111,9 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         this.collectorContext = collectorContext;
         this.row = new InputRow(inputs);
         this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
-        leaves = indexSearcher.getTopReaderContext().leaves();
+        this.leaves = leaves;
         leavesIt = leaves.iterator();
+        leafRangePruner = LeafRangePruner.of(query);
     }
 
     @Override
@@ -146,6 +173,9 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         }
         while (leavesIt.hasNext()) {
             LeafReaderContext leaf = leavesIt.next();
+            if (leafRangePruner != null && !leafRangePruner.canMatch(leaf.reader())) {
+                continue;
+            }
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
@@ -163,7 +163,7 @@ public class InternalCountOperation implements CountOperation {
             if (Thread.interrupted()) {
                 throw JobKilledException.of("thread interrupted during count-operation");
             }
-            return searcher.count(queryCtx.query());
+            return PointTreeCounter.count(searcher, queryCtx.query());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         } catch (IllegalIndexShardStateException e) {
@@ -0,0 +1,320 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.count;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.PointValues.IntersectVisitor;
+import org.apache.lucene.index.PointValues.PointTree;
+import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.common.annotations.VisibleForTesting;
+
+/**
+ * Counts the documents matching a query segment by segment, preferably without visiting the matching documents.
+ * <p>
+ * First {@link Weight#count(LeafReaderContext)} is tried. If that can't provide the count and the query is
+ * a range, or a conjunction of ranges on the same field (e.g. {@code ts >= ? AND ts < ?}), the points index is
+ * used instead: Cells of the tree which are fully inside the range are counted using their size, only the
+ * (at most two) cells crossing the range boundaries are visited.
+ * Deleted documents are subtracted by checking them against the query, as long as there are fewer
+ * deleted documents than matches.
+ * </p>
+ * Everything else falls back to iterating over the matches.
+ */
+public final class PointTreeCounter {
+
+    private PointTreeCounter() {
+    }
+
+    public static long count(IndexSearcher searcher, Query query) throws IOException {
+        Query rewritten = searcher.rewrite(query);
+        Weight weight = searcher.createWeight(rewritten, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        PointRangeQuery range = requiredRange(rewritten);
+        long count = 0;
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            int leafCount = weight.count(leaf);
+            if (leafCount == -1 && range != null) {
+                leafCount = countWithPointTree(leaf, weight, range);
+            }
+            if (leafCount == -1) {
+                leafCount = countMatches(leaf, weight);
+            }
+            count += leafCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return the intersection of all ranges if the query only consists of ranges on the same field.
+     *         Null otherwise.
+     */
+    @Nullable
+    @VisibleForTesting
+    static PointRangeQuery requiredRange(Query query) {
+        ArrayList<PointRangeQuery> ranges = new ArrayList<>();
+        if (!collectRanges(query, ranges) || ranges.isEmpty()) {
+            return null;
+        }
+        PointRangeQuery first = ranges.get(0);
+        if (ranges.size() == 1) {
+            return first;
+        }
+        int numDims = first.getNumDims();
+        int bytesPerDim = first.getBytesPerDim();
+        ArrayUtil.ByteArrayComparator comparator = ArrayUtil.getUnsignedComparator(bytesPerDim);
+        byte[] lowerPoint = first.getLowerPoint().clone();
+        byte[] upperPoint = first.getUpperPoint().clone();
+        for (int i = 1; i < ranges.size(); i++) {
+            PointRangeQuery range = ranges.get(i);
+            if (!range.getField().equals(first.getField())
+                || range.getNumDims() != numDims
+                || range.getBytesPerDim() != bytesPerDim) {
+                return null;
+            }
+            for (int dim = 0; dim < numDims; dim++) {
+                int offset = dim * bytesPerDim;
+                if (comparator.compare(range.getLowerPoint(), offset, lowerPoint, offset) > 0) {
+                    System.arraycopy(range.getLowerPoint(), offset, lowerPoint, offset, bytesPerDim);
+                }
+                if (comparator.compare(range.getUpperPoint(), offset, upperPoint, offset) < 0) {
+                    System.arraycopy(range.getUpperPoint(), offset, upperPoint, offset, bytesPerDim);
+                }
+            }
+        }
+        return new PointRangeQuery(first.getField(), lowerPoint, upperPoint, numDims) {
+
+            @Override
+            protected String toString(int dimension, byte[] value) {
+                return Arrays.toString(value);
+            }
+        };
+    }
+
+    private static boolean collectRanges(Query query, List<PointRangeQuery> ranges) {
+        if (query instanceof PointRangeQuery pointRangeQuery) {
+            ranges.add(pointRangeQuery);
+            return true;
+        } else if (query instanceof IndexOrDocValuesQuery indexOrDocValuesQuery) {
+            return collectRanges(indexOrDocValuesQuery.getIndexQuery(), ranges);
+        } else if (query instanceof ConstantScoreQuery constantScoreQuery) {
+            return collectRanges(constantScoreQuery.getQuery(), ranges);
+        } else if (query instanceof BoostQuery boostQuery) {
+            return collectRanges(boostQuery.getQuery(), ranges);
+        } else if (query instanceof BooleanQuery booleanQuery) {
+            if (booleanQuery.getMinimumNumberShouldMatch() > 0) {
+                return false;
+            }
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                if (!clause.isRequired()) {
+                    return false;
+                }
+                if (clause.getQuery() instanceof MatchAllDocsQuery) {
+                    continue;
+                }
+                if (!collectRanges(clause.getQuery(), ranges)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of live documents within the range or -1 if the points index can't be used to count them.
+     */
+    private static int countWithPointTree(LeafReaderContext leaf, Weight weight, PointRangeQuery range) throws IOException {
+        LeafReader reader = leaf.reader();
+        PointValues values = reader.getPointValues(range.getField());
+        if (values == null
+            || values.getNumIndexDimensions() != range.getNumDims()
+            || values.getBytesPerDimension() != range.getBytesPerDim()
+            || values.getDocCount() != values.size()) {
+            // Multi-valued documents would be counted once per value
+            return -1;
+        }
+        RangeMatcher matcher = new RangeMatcher(range);
+        long count = countPoints(values.getPointTree(), matcher);
+        int numDeletedDocs = reader.numDeletedDocs();
+        if (numDeletedDocs > 0) {
+            if (numDeletedDocs >= count) {
+                return -1;
+            }
+            count -= countDeletedMatches(leaf, weight, numDeletedDocs);
+        }
+        return Math.toIntExact(count);
+    }
+
+    private static long countPoints(PointTree pointTree, RangeMatcher matcher) throws IOException {
+        switch (matcher.relate(pointTree.getMinPackedValue(), pointTree.getMaxPackedValue())) {
+            case CELL_OUTSIDE_QUERY:
+                return 0;
+
+            case CELL_INSIDE_QUERY:
+                return pointTree.size();
+
+            default:
+                if (pointTree.moveToChild()) {
+                    long count = 0;
+                    do {
+                        count += countPoints(pointTree, matcher);
+                    } while (pointTree.moveToSibling());
+                    pointTree.moveToParent();
+                    return count;
+                }
+                matcher.count = 0;
+                pointTree.visitDocValues(matcher);
+                return matcher.count;
+        }
+    }
+
+    /**
+     * Counts the deleted documents which match the query.
+     * They are included in the counts of the points index.
+     */
+    private static int countDeletedMatches(LeafReaderContext leaf, Weight weight, int numDeletedDocs) throws IOException {
+        ScorerSupplier scorerSupplier = weight.scorerSupplier(leaf);
+        if (scorerSupplier == null) {
+            return 0;
+        }
+        // Only few documents are checked, so let the scorer prefer doc-values over building a bitset of all matches
+        Scorer scorer = scorerSupplier.get(numDeletedDocs);
+        TwoPhaseIterator twoPhase = scorer.twoPhaseIterator();
+        DocIdSetIterator approximation = twoPhase == null ? scorer.iterator() : twoPhase.approximation();
+        Bits liveDocs = leaf.reader().getLiveDocs();
+        int maxDoc = leaf.reader().maxDoc();
+        int count = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (liveDocs.get(doc)) {
+                continue;
+            }
+            int current = approximation.docID();
+            if (current < doc) {
+                current = approximation.advance(doc);
+            }
+            if (current == DocIdSetIterator.NO_MORE_DOCS) {
+                break;
+            }
+            if (current == doc && (twoPhase == null || twoPhase.matches())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countMatches(LeafReaderContext leaf, Weight weight) throws IOException {
+        Scorer scorer = weight.scorer(leaf);
+        if (scorer == null) {
+            return 0;
+        }
+        TwoPhaseIterator twoPhase = scorer.twoPhaseIterator();
+        DocIdSetIterator approximation = twoPhase == null ? scorer.iterator() : twoPhase.approximation();
+        Bits liveDocs = leaf.reader().getLiveDocs();
+        int count = 0;
+        for (int doc = approximation.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = approximation.nextDoc()) {
+            if ((liveDocs == null || liveDocs.get(doc)) && (twoPhase == null || twoPhase.matches())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class RangeMatcher implements IntersectVisitor {
+
+        private final int numDims;
+        private final int bytesPerDim;
+        private final byte[] lowerPoint;
+        private final byte[] upperPoint;
+        private final ArrayUtil.ByteArrayComparator comparator;
+
+        private long count;
+
+        RangeMatcher(PointRangeQuery range) {
+            this.numDims = range.getNumDims();
+            this.bytesPerDim = range.getBytesPerDim();
+            this.lowerPoint = range.getLowerPoint();
+            this.upperPoint = range.getUpperPoint();
+            this.comparator = ArrayUtil.getUnsignedComparator(bytesPerDim);
+        }
+
+        @Override
+        public void visit(int docID) {
+            count++;
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+            for (int dim = 0; dim < numDims; dim++) {
+                int offset = dim * bytesPerDim;
+                if (comparator.compare(packedValue, offset, lowerPoint, offset) < 0
+                    || comparator.compare(packedValue, offset, upperPoint, offset) > 0) {
+                    return;
+                }
+            }
+            count++;
+        }
+
+        @Override
+        public Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            return relate(minPackedValue, maxPackedValue);
+        }
+
+        Relation relate(byte[] minPackedValue, byte[] maxPackedValue) {
+            boolean crosses = false;
+            for (int dim = 0; dim < numDims; dim++) {
+                int offset = dim * bytesPerDim;
+                if (comparator.compare(minPackedValue, offset, upperPoint, offset) > 0
+                    || comparator.compare(maxPackedValue, offset, lowerPoint, offset) < 0) {
+                    return Relation.CELL_OUTSIDE_QUERY;
+                }
+                crosses |= comparator.compare(minPackedValue, offset, lowerPoint, offset) < 0
+                    || comparator.compare(maxPackedValue, offset, upperPoint, offset) > 0;
+            }
+            return crosses ? Relation.CELL_CROSSES_QUERY : Relation.CELL_INSIDE_QUERY;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.breaker.RamAccounting;
+
+/**
+ * Reads the lines of an uncompressed file by splitting it into chunks of {@code chunkSize} bytes.
+ * Up to {@code parallelism} chunks are read and decoded concurrently, but the lines are returned in file order.
+ * If a {@link LineParser} is given, the lines are also parsed by the task which reads the chunk.
+ *
+ * <p>
+ * A chunk owns all lines which start within its byte range.
+ * It skips the bytes up to and including the first line terminator (unless it's the first chunk),
+ * because that line is owned by the previous chunk, and it reads past its end to complete its last line.
+ * Like {@link java.io.BufferedReader#readLine()}, {@code '\n'}, {@code '\r'} and {@code "\r\n"} terminate a line.
+ * Splitting at these bytes is safe for UTF-8, they never occur within a multi-byte sequence.
+ * </p>
+ *
+ * <p>
+ * The memory of the chunks is accounted on the thread calling {@link #nextChunk()}.
+ * When a chunk is scheduled, the size of its byte range (plus {@link #LINE_OVERHANG}) is reserved.
+ * Once it has been read, the reservation is replaced by the size of the decoded (and parsed) lines,
+ * which is released when the next chunk is consumed or the reader is closed.
+ * </p>
+ */
+final class ChunkedLineReader implements Closeable {
+
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Number of bytes which are requested beyond the end of a chunk to complete its last line.
+     * If the line is longer, the remainder is read with additional requests.
+     */
+    private static final int LINE_OVERHANG = 64 * 1024;
+    private static final int MAX_RETRIES = FileReadingIterator.MAX_SOCKET_TIMEOUT_RETRIES;
+    private static final long LINE_ENTRY_OVERHEAD = 2L * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final FileInput fileInput;
+    private final URI uri;
+    private final long fileSize;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Executor executor;
+    @Nullable
+    private final Supplier<LineParser> lineParsers;
+    private final RamAccounting ramAccounting;
+    private final ArrayDeque<PendingChunk> chunks;
+    private final long numChunks;
+
+    private long nextChunk = 0;
+    private Chunk currentChunk = Chunk.EMPTY;
+    private int currentLineIdx = 0;
+    private long currentChunkBytes = 0;
+    private long accountedBytes = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * @param lineParsers creates a parser for each chunk, called by the task reading the chunk.
+     *                    If null, the lines are not parsed.
+     */
+    ChunkedLineReader(FileInput fileInput,
+                      URI uri,
+                      long fileSize,
+                      int chunkSize,
+                      int parallelism,
+                      Executor executor,
+                      @Nullable Supplier<LineParser> lineParsers,
+                      RamAccounting ramAccounting) {
+        assert parallelism > 0 : "parallelism must be greater than 0";
+        this.fileInput = fileInput;
+        this.uri = uri;
+        this.fileSize = fileSize;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.lineParsers = lineParsers;
+        this.ramAccounting = ramAccounting;
+        this.numChunks = (fileSize + chunkSize - 1) / chunkSize;
+        this.chunks = new ArrayDeque<>(parallelism);
+        try {
+            scheduleChunks();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return null if a line can be read via {@link #readLine()} without blocking or if all lines have been read.
+     *         Otherwise a future which completes once the next chunk has been read.
+     */
+    @Nullable
+    CompletableFuture<?> nextChunk() {
+        while (currentLineIdx >= currentChunk.lines.size()) {
+            PendingChunk pending = chunks.peek();
+            if (pending == null) {
+                return null;
+            }
+            CompletableFuture<Chunk> chunk = pending.future;
+            if (!chunk.isDone()) {
+                return chunk;
+            }
+            if (chunk.isCompletedExceptionally()) {
+                // readLine raises the failure
+                return null;
+            }
+            chunks.poll();
+            // The reservation of the polled chunk replaces the bytes of the consumed chunk
+            long consumedBytes = currentChunkBytes;
+            currentChunkBytes = pending.reservedBytes;
+            currentChunk = chunk.join();
+            currentLineIdx = 0;
+            release(consumedBytes);
+            account(currentChunk.bytes - currentChunkBytes);
+            currentChunkBytes = currentChunk.bytes;
+            scheduleChunks();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the next line, including empty lines, or null if all lines have been read.
+     * Must only be called if {@link #nextChunk()} returned null.
+     */
+    @Nullable
+    String readLine() throws IOException {
+        if (currentLineIdx < currentChunk.lines.size()) {
+            return currentChunk.lines.get(currentLineIdx++);
+        }
+        PendingChunk pending = chunks.peek();
+        if (pending == null) {
+            return null;
+        }
+        CompletableFuture<Chunk> chunk = pending.future;
+        assert chunk.isDone() : "readLine must only be called if nextChunk() returned null";
+        try {
+            chunk.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            Exceptions.rethrowUnchecked(cause);
+        }
+        throw new AssertionError("nextChunk() must consume completed chunks");
+    }
+
+    /**
+     * @return the result of the {@link LineParser} for the line last returned by {@link #readLine()}
+     *         or null if the line wasn't parsed.
+     */
+    @Nullable
+    LineParser.ParsedLine parsedLine() {
+        assert currentLineIdx > 0 : "parsedLine must only be called after readLine()";
+        return currentChunk.parsedLines == null ? null : currentChunk.parsedLines.get(currentLineIdx - 1);
+    }
+
+    private void scheduleChunks() {
+        while (chunks.size() < parallelism && nextChunk < numChunks) {
+            long start = nextChunk * chunkSize;
+            long end = Math.min(start + chunkSize, fileSize);
+            long reservedBytes = Math.min(end + LINE_OVERHANG, fileSize) - start;
+            account(reservedBytes);
+            chunks.add(new PendingChunk(
+                CompletableFuture.supplyAsync(() -> readChunkWithRetries(start, end), executor),
+                reservedBytes
+            ));
+            nextChunk++;
+        }
+    }
+
+    private void account(long bytes) {
+        ramAccounting.addBytes(bytes);
+        accountedBytes += bytes;
+    }
+
+    private void release(long bytes) {
+        ramAccounting.addBytes(- bytes);
+        accountedBytes -= bytes;
+    }
+
+    private Chunk readChunkWithRetries(long start, long end) {
+        int retries = 0;
+        while (true) {
+            try {
+                return readChunk(start, end);
+            } catch (SocketException | SocketTimeoutException e) {
+                if (retries >= MAX_RETRIES) {
+                    throw new UncheckedIOException(e);
+                }
+                retries++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Chunk readChunk(long start, long end) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        LineParser lineParser = lineParsers == null ? null : lineParsers.get();
+        ArrayList<LineParser.ParsedLine> parsedLines = lineParser == null ? null : new ArrayList<>();
+        long bytes = 0;
+        // Start one byte early to see if the chunk starts with a new line
+        long readFrom = start == 0 ? 0 : start - 1;
+        try (RangeReader reader = new RangeReader(readFrom, end)) {
+            if (start > 0 && !reader.skipLine()) {
+                return new Chunk(lines, parsedLines, bytes);
+            }
+            while (!closed && reader.position() < end) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                lines.add(line);
+                bytes += RamUsageEstimator.sizeOf(line) + LINE_ENTRY_OVERHEAD;
+                if (parsedLines != null) {
+                    LineParser.ParsedLine parsedLine = line.isEmpty() ? null : lineParser.parse(line);
+                    parsedLines.add(parsedLine);
+                    if (parsedLine != null) {
+                        bytes += parsedLine.ramBytesUsed();
+                    }
+                }
+            }
+        }
+        return new Chunk(lines, parsedLines, bytes);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear();
+        currentChunk = Chunk.EMPTY;
+        currentChunkBytes = 0;
+        release(accountedBytes);
+    }
+
+    /**
+     * @param parsedLines the results of the {@link LineParser}, by line, or null if the lines aren't parsed
+     * @param bytes the estimated memory used by the lines
+     */
+    private record Chunk(List<String> lines, @Nullable List<LineParser.ParsedLine> parsedLines, long bytes) {
+
+        static final Chunk EMPTY = new Chunk(List.of(), null, 0);
+    }
+
+    private record PendingChunk(CompletableFuture<Chunk> future, long reservedBytes) {
+    }
+
+    /**
+     * Reads lines from bounded streams of the file, starting at {@code position}.
+     * If a line continues beyond the current stream, a new stream is opened.
+     */
+    private class RangeReader implements Closeable {
+
+        private final byte[] buffer = new byte[8192];
+        private final long end;
+        private InputStream stream;
+        private long streamEnd;
+        private long position;
+        private int bufferPos = 0;
+        private int bufferLength = 0;
+        private byte[] lineBytes = new byte[256];
+
+        RangeReader(long position, long end) throws IOException {
+            this.position = position;
+            this.end = end;
+            openStream(Math.min(end + LINE_OVERHANG, fileSize) - position);
+        }
+
+        long position() {
+            return position;
+        }
+
+        private void openStream(long length) throws IOException {
+            stream = fileInput.getStream(uri, position, length);
+            streamEnd = position + length;
+        }
+
+        /**
+         * @return the next byte or -1 at the end of the file
+         */
+        private int read() throws IOException {
+            if (bufferPos == bufferLength) {
+                bufferLength = stream.read(buffer);
+                bufferPos = 0;
+                if (bufferLength <= 0) {
+                    bufferLength = 0;
+                    if (position >= fileSize) {
+                        return -1;
+                    }
+                    if (position < streamEnd) {
+                        throw new IOException("Unexpected end of stream at position " + position + " of " + uri);
+                    }
+                    // Line continues beyond the requested range
+                    closeStream();
+                    openStream(Math.min((long) chunkSize, fileSize - position));
+                    return read();
+                }
+            }
+            position++;
+            return buffer[bufferPos++] & 0xFF;
+        }
+
+        /**
+         * Consumes the {@code '\n'} of a {@code "\r\n"} line terminator after a {@code '\r'} has been read.
+         */
+        private void skipLineFeed() throws IOException {
+            if (read() == '\n') {
+                return;
+            }
+            if (bufferPos > 0) {
+                // Not part of the line terminator, unread it. read() either returned -1 or left the byte in the buffer.
+                bufferPos--;
+                position--;
+            }
+        }
+
+        /**
+         * @return false if the end of the file or chunk was reached before the end of the line
+         */
+        boolean skipLine() throws IOException {
+            int b;
+            while ((b = read()) != -1) {
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r') {
+                        skipLineFeed();
+                    }
+                    return position < end;
+                }
+            }
+            return false;
+        }
+
+        @Nullable
+        String readLine() throws IOException {
+            int length = 0;
+            int b = read();
+            if (b == -1) {
+                return null;
+            }
+            while (b != -1 && b != '\n' && b != '\r') {
+                if (length == lineBytes.length) {
+                    byte[] newLineBytes = new byte[lineBytes.length * 2];
+                    System.arraycopy(lineBytes, 0, newLineBytes, 0, length);
+                    lineBytes = newLineBytes;
+                }
+                lineBytes[length++] = (byte) b;
+                b = read();
+            }
+            if (b == '\r') {
+                skipLineFeed();
+            }
+            return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void closeStream() throws IOException {
+            if (stream != null) {
+                // Consume the rest of the bounded stream, some clients abort the connection otherwise
+                stream.skip(Long.MAX_VALUE);
+                stream.close();
+                stream = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeStream();
+        }
+    }
+}
@@ -23,6 +23,7 @@ package io.crate.execution.engine.collect.files;
 
 import io.crate.execution.engine.export.FileOutputFactory;
 import io.crate.execution.engine.export.LocalFsFileOutputFactory;
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
 import io.crate.plugin.CopyPlugin;
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.inject.multibindings.MapBinder;
@@ -45,6 +46,12 @@ public class CopyModule extends AbstractModule {
         fileInputFactoryMapBinder.addBinding(LocalFsFileInputFactory.NAME).to(LocalFsFileInputFactory.class).asEagerSingleton();
         fileOutputFactoryMapBinder.addBinding(LocalFsFileOutputFactory.NAME).to(LocalFsFileOutputFactory.class).asEagerSingleton();
 
+        // Also injected into the PostgreSQL protocol handler to register the streams of COPY FROM STDIN / TO STDOUT
+        bind(StdinFileInputFactory.class).asEagerSingleton();
+        bind(StdoutFileOutputFactory.class).asEagerSingleton();
+        fileInputFactoryMapBinder.addBinding(StdinFileInputFactory.NAME).to(StdinFileInputFactory.class);
+        fileOutputFactoryMapBinder.addBinding(StdoutFileOutputFactory.NAME).to(StdoutFileOutputFactory.class);
+
         for (var copyPlugin : copyPlugins) {
             for (var e : copyPlugin.getFileInputFactories().entrySet()) {
                 fileInputFactoryMapBinder.addBinding(e.getKey()).toInstance(e.getValue());
@@ -38,6 +38,22 @@ public interface FileInput {
 
     InputStream getStream(URI uri) throws IOException;
 
+    /**
+     * Returns a stream over at most {@code length} bytes of the file, starting at {@code offset}.
+     * Used to read different parts of a file concurrently.
+     */
+    default InputStream getStream(URI uri, long offset, long length) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support reading a range of a file");
+    }
+
+    /**
+     * @return the size of the file in bytes or -1 if unknown.
+     *         Inputs which know the size must support {@link #getStream(URI, long, long)}
+     */
+    default long size(URI uri) throws IOException {
+        return -1;
+    }
+
     boolean isGlobbed();
 
     URI uri();
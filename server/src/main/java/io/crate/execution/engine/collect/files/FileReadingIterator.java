@@ -34,13 +34,17 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.logging.log4j.LogManager;
@@ -54,6 +58,9 @@ import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.exceptions.Exceptions;
 import io.crate.common.unit.TimeValue;
 import io.crate.data.BatchIterator;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
+import io.crate.parquet.ParquetReader;
 
 /**
  * BatchIterator to read lines from one or more {@link URI}s.
@@ -70,6 +77,21 @@ import io.crate.data.BatchIterator;
  * </p>
  *
  * <p>
+ * Uncompressed files of inputs which support range reads (See {@link FileInput#size(URI)})
+ * and which are bigger than one chunk are read using a {@link ChunkedLineReader} if a
+ * {@code parallelism} greater than 1 is given.
+ * The lines and line numbers are the same as if the file were read sequentially.
+ * The lines of a chunk are also converted by the {@link LineParser} given via {@link #parseLinesWith(Function)},
+ * the result is exposed via {@link LineCursor#parsedLine()}.
+ * </p>
+ *
+ * <p>
+ * Parquet files are read using a {@link ParquetReader}. Instead of a line, the cursor
+ * then holds the values of a row as map ({@link LineCursor#record()}) and the line number
+ * is the row number.
+ * </p>
+ *
+ * <p>
  * The file content is exposed via a shared {@link LineCursor}
  * It's properties are mutated after each {@link #moveNext()} call.
  * Use {@link LineCursor#copy()} if you need an instance that's not shared.
@@ -91,6 +113,8 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
     private final int numReaders;
     private final int readerNumber;
     private final boolean compressed;
+    private final InputFormat inputFormat;
+    private final List<String> targetColumns;
     private final List<FileInput> fileInputs;
 
     private volatile Throwable killed;
@@ -99,6 +123,9 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
     private FileInput currentInput = null;
     private Iterator<URI> currentInputUriIterator = null;
     private BufferedReader currentReader = null;
+    private ChunkedLineReader currentChunkedReader = null;
+    private CompletableFuture<?> pendingChunk = null;
+    private ParquetReader currentParquetReader = null;
 
     @VisibleForTesting
     long watermark;
@@ -106,20 +133,36 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
     private final LineCursor cursor;
     private final ScheduledExecutorService scheduler;
     private final Iterator<TimeValue> backOffPolicy;
+    private final Executor executor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final RamAccounting ramAccounting;
+    private Function<URI, Supplier<LineParser>> lineParsers = uri -> null;
 
     public static class LineCursor {
         private URI uri;
         private long lineNumber;
         private String line;
+        private LinkedHashMap<String, Object> record;
+        private LineParser.ParsedLine parsedLine;
         private IOException failure;
 
         public LineCursor() {
         }
 
         public LineCursor(URI uri, long lineNumber, @Nullable String line, @Nullable IOException failure) {
+            this(uri, lineNumber, line, null, failure);
+        }
+
+        public LineCursor(URI uri,
+                          long lineNumber,
+                          @Nullable String line,
+                          @Nullable LinkedHashMap<String, Object> record,
+                          @Nullable IOException failure) {
             this.uri = uri;
             this.lineNumber = lineNumber;
             this.line = line;
+            this.record = record;
             this.failure = failure;
         }
 
@@ -136,6 +179,24 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
             return line;
         }
 
+        /**
+         * The values of the current row if the file is read in a format which isn't line based (Parquet).
+         * {@link #line()} is null in that case.
+         */
+        @Nullable
+        public LinkedHashMap<String, Object> record() {
+            return record;
+        }
+
+        /**
+         * The {@link #line()} converted by a {@link LineParser} while the file was read.
+         * Null if the line wasn't parsed yet.
+         */
+        @Nullable
+        public LineParser.ParsedLine parsedLine() {
+            return parsedLine;
+        }
+
         @Nullable
         public IOException failure() {
             return failure;
@@ -143,17 +204,19 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
 
         @VisibleForTesting
         public LineCursor copy() {
-            return new LineCursor(uri, lineNumber, line, failure);
+            LineCursor copy = new LineCursor(uri, lineNumber, line, record, failure);
+            copy.parsedLine = parsedLine;
+            return copy;
         }
 
         @Override
         public String toString() {
-            return "LineCursor{" + uri + ":" + lineNumber + ":line=" + line + ", failure=" + failure + "}";
+            return "LineCursor{" + uri + ":" + lineNumber + ":line=" + line + ", record=" + record + ", failure=" + failure + "}";
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(uri, lineNumber, line, failure);
+            return Objects.hash(uri, lineNumber, line, record, parsedLine, failure);
         }
 
         @Override
@@ -171,6 +234,8 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
             return Objects.equals(uri, other.uri)
                 && lineNumber == other.lineNumber
                 && Objects.equals(line, other.line)
+                && Objects.equals(record, other.record)
+                && Objects.equals(parsedLine, other.parsedLine)
                 && Objects.equals(failure, other.failure);
         }
     }
@@ -183,6 +248,74 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
                                int readerNumber,
                                Settings withClauseOptions,
                                ScheduledExecutorService scheduler) {
+        this(fileUris,
+             compression,
+             fileInputFactories,
+             shared,
+             numReaders,
+             readerNumber,
+             withClauseOptions,
+             scheduler,
+             Runnable::run,
+             1,
+             InputFormat.JSON,
+             List.of(),
+             RamAccounting.NO_ACCOUNTING);
+    }
+
+    /**
+     * @param executor used to read chunks of a file concurrently
+     * @param parallelism maximum number of chunks of a file which are read concurrently.
+     *                    1 disables chunked reading.
+     * @param inputFormat files are read as Parquet if the format is {@link InputFormat#PARQUET}
+     *                    or if their name ends with {@code .parquet}
+     * @param targetColumns columns to read from Parquet files. All columns are read if empty.
+     * @param ramAccounting accounts the chunks which are read concurrently and the column chunks of Parquet files
+     */
+    public FileReadingIterator(Collection<String> fileUris,
+                               String compression,
+                               Map<String, FileInputFactory> fileInputFactories,
+                               Boolean shared,
+                               int numReaders,
+                               int readerNumber,
+                               Settings withClauseOptions,
+                               ScheduledExecutorService scheduler,
+                               Executor executor,
+                               int parallelism,
+                               InputFormat inputFormat,
+                               List<String> targetColumns,
+                               RamAccounting ramAccounting) {
+        this(fileUris,
+             compression,
+             fileInputFactories,
+             shared,
+             numReaders,
+             readerNumber,
+             withClauseOptions,
+             scheduler,
+             executor,
+             parallelism,
+             inputFormat,
+             targetColumns,
+             ramAccounting,
+             ChunkedLineReader.DEFAULT_CHUNK_SIZE);
+    }
+
+    @VisibleForTesting
+    FileReadingIterator(Collection<String> fileUris,
+                        String compression,
+                        Map<String, FileInputFactory> fileInputFactories,
+                        Boolean shared,
+                        int numReaders,
+                        int readerNumber,
+                        Settings withClauseOptions,
+                        ScheduledExecutorService scheduler,
+                        Executor executor,
+                        int parallelism,
+                        InputFormat inputFormat,
+                        List<String> targetColumns,
+                        RamAccounting ramAccounting,
+                        int chunkSize) {
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
         this.fileInputFactories = fileInputFactories;
         this.cursor = new LineCursor();
@@ -191,6 +324,12 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
         this.readerNumber = readerNumber;
         this.scheduler = scheduler;
         this.backOffPolicy = BackoffPolicy.exponentialBackoff(TimeValue.ZERO, MAX_SOCKET_TIMEOUT_RETRIES).iterator();
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.inputFormat = inputFormat;
+        this.targetColumns = targetColumns;
+        this.ramAccounting = ramAccounting;
 
         this.fileInputs = fileUris.stream()
             .map(uri -> toFileInput(uri, withClauseOptions))
@@ -199,6 +338,14 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
         fileInputsIterator = fileInputs.iterator();
     }
 
+    /**
+     * @param lineParsers provides the factory for the parsers of the lines of a file which is read in chunks.
+     *                    The factory is called by the tasks reading the chunks and may return null.
+     */
+    public void parseLinesWith(Function<URI, Supplier<LineParser>> lineParsers) {
+        this.lineParsers = lineParsers;
+    }
+
     @Override
     public LineCursor currentElement() {
         return cursor;
@@ -212,6 +359,7 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
     @Override
     public void moveToStart() {
         raiseIfKilled();
+        closeReader();
         reset();
         watermark = 0;
         fileInputsIterator = fileInputs.iterator();
@@ -221,7 +369,40 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
     public boolean moveNext() {
         raiseIfKilled();
         try {
-            if (currentReader != null) {
+            if (currentParquetReader != null) {
+                LinkedHashMap<String, Object> record = currentParquetReader.next();
+                if (record == null) {
+                    closeReader();
+                    return moveNext();
+                }
+                cursor.lineNumber++;
+                cursor.record = record;
+                cursor.parsedLine = null;
+                cursor.failure = null;
+                return true;
+            } else if (currentChunkedReader != null) {
+                while (true) {
+                    CompletableFuture<?> nextChunk = currentChunkedReader.nextChunk();
+                    if (nextChunk != null) {
+                        pendingChunk = nextChunk;
+                        return false;
+                    }
+                    String line = currentChunkedReader.readLine();
+                    if (line == null) {
+                        closeReader();
+                        return moveNext();
+                    }
+                    cursor.lineNumber++;
+                    if (line.length() == 0) {
+                        continue;
+                    }
+                    cursor.line = line;
+                    cursor.record = null;
+                    cursor.parsedLine = currentChunkedReader.parsedLine();
+                    cursor.failure = null;
+                    return true;
+                }
+            } else if (currentReader != null) {
                 String line;
                 try {
                     line = getLine(currentReader);
@@ -236,6 +417,8 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
                     return moveNext();
                 }
                 cursor.line = line;
+                cursor.record = null;
+                cursor.parsedLine = null;
                 cursor.failure = null;
                 return true;
             } else if (currentInputUriIterator != null && currentInputUriIterator.hasNext()) {
@@ -250,6 +433,8 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
             }
         } catch (IOException e) {
             cursor.failure = e;
+            cursor.record = null;
+            cursor.parsedLine = null;
             closeReader();
             // If IOError happens on file opening, let consumers collect the error
             // This is mostly for RETURN SUMMARY of COPY FROM
@@ -290,11 +475,44 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
     private void createReader(FileInput fileInput, URI uri) throws IOException {
         cursor.uri = uri;
         cursor.lineNumber = 0;
+        if (isParquet(uri)) {
+            currentParquetReader = new ParquetReader(fileInput, uri, targetColumns, ramAccounting);
+            return;
+        }
+        if (parallelism > 1 && !compressed) {
+            long size = fileInput.size(uri);
+            if (size > chunkSize) {
+                currentChunkedReader = new ChunkedLineReader(
+                    fileInput,
+                    uri,
+                    size,
+                    chunkSize,
+                    parallelism,
+                    executor,
+                    lineParsers.apply(uri),
+                    ramAccounting
+                );
+                return;
+            }
+        }
         InputStream stream = fileInput.getStream(uri);
         currentReader = createBufferedReader(stream);
     }
 
+    private boolean isParquet(URI uri) {
+        return inputFormat == InputFormat.PARQUET || uri.toString().endsWith(".parquet");
+    }
+
     private void closeReader() {
+        if (currentParquetReader != null) {
+            currentParquetReader.close();
+            currentParquetReader = null;
+        }
+        if (currentChunkedReader != null) {
+            currentChunkedReader.close();
+            currentChunkedReader = null;
+            pendingChunk = null;
+        }
         if (currentReader != null) {
             try {
                 currentReader.close();
@@ -359,6 +577,12 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
 
     @Override
     public CompletableFuture<?> loadNextBatch() throws IOException {
+        if (pendingChunk != null) {
+            CompletableFuture<?> chunk = pendingChunk;
+            pendingChunk = null;
+            // Failures are raised by the next moveNext call to expose them via the cursor
+            return chunk.handle((result, err) -> null);
+        }
         if (backOffPolicy.hasNext()) {
             CompletableFuture<Void> cf = new CompletableFuture<>();
             scheduler.schedule(
@@ -373,7 +597,7 @@ public class FileReadingIterator implements BatchIterator<FileReadingIterator.Li
 
     @Override
     public boolean allLoaded() {
-        return !backOffPolicy.hasNext();
+        return pendingChunk == null && !backOffPolicy.hasNext();
     }
 
     @Override
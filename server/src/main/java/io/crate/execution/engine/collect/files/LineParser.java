@@ -0,0 +1,53 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.util.LinkedHashMap;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts lines into the JSON source of a row and its values, see {@link LineProcessor}.
+ * Used to parse the lines of a file while it is read. A parser is only used by a single thread.
+ */
+@FunctionalInterface
+public interface LineParser {
+
+    /**
+     * @return the parsed line or null if the line can't be parsed.
+     *         Lines which can't be parsed are processed again by the {@link LineProcessor}, which reports the failure.
+     */
+    @Nullable
+    ParsedLine parse(String line);
+
+    /**
+     * @param source the JSON source of the row
+     * @param values the values of {@code source}
+     */
+    record ParsedLine(byte[] source, LinkedHashMap<String, Object> values) {
+
+        public long ramBytesUsed() {
+            return RamUsageEstimator.sizeOf(source) + RamUsageEstimator.sizeOfMap(values);
+        }
+    }
+}
@@ -25,7 +25,13 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.Supplier;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.jetbrains.annotations.Nullable;
 
 import io.crate.analyze.CopyFromParserProperties;
 import io.crate.data.BatchIterator;
@@ -35,9 +41,12 @@ import io.crate.data.Row;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
 import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
+import io.crate.execution.engine.collect.files.LineParser.ParsedLine;
 import io.crate.expression.InputRow;
 import io.crate.expression.reference.file.LineContext;
 import io.crate.operation.collect.files.CSVLineParser;
+import io.crate.server.xcontent.ParsedXContent;
+import io.crate.server.xcontent.XContentHelper;
 
 public final class LineProcessor extends MappedForwardingBatchIterator<LineCursor, Row> {
 
@@ -97,6 +106,55 @@ public final class LineProcessor extends MappedForwardingBatchIterator<LineCurso
         }
     }
 
+    /**
+     * Provides parsers which convert lines the same way as this processor, so that files can be
+     * parsed concurrently while they are read. See {@link FileReadingIterator#parseLinesWith}.
+     *
+     * <p>
+     * Must be called once the previous files have been processed, the format of a file is determined
+     * by the first line of the first file.
+     * </p>
+     *
+     * @return null if the lines of the file can't be parsed before they reach this processor,
+     *         that's the case for a CSV header which hasn't been parsed yet.
+     */
+    @Nullable
+    public Supplier<LineParser> lineParsers(URI uri) {
+        boolean csv = firstLine ? isCSV(inputFormat, uri) : inputFormat == InputFormat.CSV;
+        if (!csv) {
+            return () -> line -> parse(line.getBytes(StandardCharsets.UTF_8));
+        }
+        boolean fileHeader = parserProperties.fileHeader();
+        if (fileHeader && firstLine) {
+            return null;
+        }
+        CSVLineParser template = fileHeader ? csvLineParser : null;
+        return () -> {
+            CSVLineParser parser = fileHeader
+                ? new CSVLineParser(template)
+                : new CSVLineParser(parserProperties, targetColumns);
+            return line -> {
+                try {
+                    // The row number is only used for failures, which are reported by the processor
+                    return parse(fileHeader ? parser.parse(line, 0) : parser.parseWithoutHeader(line, 0));
+                } catch (Exception e) {
+                    return null;
+                }
+            };
+        };
+    }
+
+    @Nullable
+    private static ParsedLine parse(byte[] source) {
+        try {
+            // preserve the order of the source, like LineContext does
+            ParsedXContent parsedXContent = XContentHelper.convertToMap(new BytesArray(source), true, XContentType.JSON);
+            return new ParsedLine(source, (LinkedHashMap<String, Object>) parsedXContent.map());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private static boolean isCSV(FileUriCollectPhase.InputFormat inputFormat, URI currentUri) {
         return (inputFormat == FileUriCollectPhase.InputFormat.CSV) || currentUri.toString().endsWith(".csv");
     }
@@ -106,6 +164,13 @@ public final class LineProcessor extends MappedForwardingBatchIterator<LineCurso
         try {
             while (source.moveNext()) {
                 LineCursor cursor = source.currentElement();
+                LinkedHashMap<String, Object> record = cursor.record();
+                if (record != null) {
+                    // Already parsed by a columnar reader (Parquet)
+                    lineContext.resetCurrentParsingFailure();
+                    lineContext.parsedSource(record);
+                    return true;
+                }
                 String line = cursor.line();
                 if (line == null) {
                     assert cursor.failure() != null : "If the line is null, there must be a failure";
@@ -117,6 +182,12 @@ public final class LineProcessor extends MappedForwardingBatchIterator<LineCurso
                         continue;
                     }
                 }
+                ParsedLine parsedLine = cursor.parsedLine();
+                if (parsedLine != null) {
+                    lineContext.resetCurrentParsingFailure();
+                    lineContext.source(parsedLine.source(), parsedLine.values());
+                    return true;
+                }
                 try {
                     byte[] json = getByteArray(line, cursor.lineNumber());
                     lineContext.resetCurrentParsingFailure();
@@ -24,6 +24,7 @@ package io.crate.execution.engine.collect.files;
 
 import io.crate.common.annotations.VisibleForTesting;
 
+import org.elasticsearch.common.io.Streams;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import java.io.File;
@@ -31,6 +32,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileSystemLoopException;
 import java.nio.file.FileVisitResult;
@@ -149,6 +152,20 @@ public class LocalFsFileInput implements FileInput {
         return new FileInputStream(file);
     }
 
+    @Override
+    public InputStream getStream(URI uri, long offset, long length) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(Paths.get(uri));
+        if (offset > 0L) {
+            channel.position(offset);
+        }
+        return Streams.limitStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        return Files.size(Paths.get(uri));
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
@@ -0,0 +1,126 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+
+/**
+ * Provides the data of a {@code COPY ... FROM STDIN} statement to the file collect phase.
+ * <p>
+ * The client streams the data using the PostgreSQL COPY sub-protocol. The protocol handler
+ * registers the {@link InputStream} receiving the data and rewrites the statement to read
+ * from the returned {@code stdin:///<id>} URI. The stream only exists on the node handling
+ * the client connection, so the collect phase must run on that node.
+ */
+public class StdinFileInputFactory implements FileInputFactory {
+
+    public static final String NAME = "stdin";
+
+    private final Map<String, InputStream> streams = new ConcurrentHashMap<>();
+
+    public URI register(InputStream stream) {
+        // The id must not be guessable, it grants access to the stream of the client
+        String id = UUIDs.randomBase64UUID();
+        streams.put(id, stream);
+        return URI.create(NAME + ":///" + id);
+    }
+
+    public void unregister(URI uri) {
+        streams.remove(id(uri));
+    }
+
+    public static boolean isStdin(String uri) {
+        return uri.regionMatches(true, 0, NAME + ":", 0, NAME.length() + 1);
+    }
+
+    /**
+     * @param uris the value of the URI of a COPY statement, a string or an array of strings
+     */
+    public static boolean containsStdin(Object uris) {
+        if (uris instanceof String uri) {
+            return isStdin(uri);
+        } else if (uris instanceof List<?> list) {
+            for (Object uri : list) {
+                if (containsStdin(uri)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String id(URI uri) {
+        return uri.getPath().substring(1);
+    }
+
+    @Override
+    public FileInput create(URI uri, Settings withClauseOptions) throws IOException {
+        return new StdinFileInput(uri);
+    }
+
+    private class StdinFileInput implements FileInput {
+
+        private final URI uri;
+
+        private StdinFileInput(URI uri) {
+            this.uri = uri;
+        }
+
+        @Override
+        public List<URI> expandUri() throws IOException {
+            return List.of(uri);
+        }
+
+        @Override
+        public InputStream getStream(URI uri) throws IOException {
+            InputStream stream = streams.remove(id(uri));
+            if (stream == null) {
+                throw new IOException("No client is sending data for " + uri);
+            }
+            return stream;
+        }
+
+        @Override
+        public boolean isGlobbed() {
+            return false;
+        }
+
+        @Override
+        public URI uri() {
+            return uri;
+        }
+
+        @Override
+        public boolean sharedStorageDefault() {
+            return false;
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.concurrent.CompletableFuture;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import io.crate.analyze.AnalyzedCopyFrom;
@@ -64,6 +65,7 @@ public class FileCollectSource implements CollectSource {
     private final InputFactory inputFactory;
     private final NodeContext nodeCtx;
     private final ThreadPool threadPool;
+    private final int numProcessors;
 
     @Inject
     public FileCollectSource(NodeContext nodeCtx,
@@ -75,6 +77,7 @@ public class FileCollectSource implements CollectSource {
         this.inputFactory = new InputFactory(nodeCtx);
         this.clusterService = clusterService;
         this.threadPool = threadPool;
+        this.numProcessors = EsExecutors.numberOfProcessors(clusterService.getSettings());
     }
 
     @Override
@@ -96,7 +99,12 @@ public class FileCollectSource implements CollectSource {
             fileUriCollectPhase.nodeIds().size(),
             getReaderNumber(fileUriCollectPhase.nodeIds(), clusterService.state().nodes().getLocalNodeId()),
             fileUriCollectPhase.withClauseOptions(),
-            threadPool.scheduler()
+            threadPool.scheduler(),
+            threadPool.executor(ThreadPool.Names.GENERIC),
+            numProcessors,
+            fileUriCollectPhase.inputFormat(),
+            fileUriCollectPhase.targetColumns(),
+            collectTask.getRamAccounting()
         );
         CopyFromParserProperties parserProperties = fileUriCollectPhase.parserProperties();
         LineProcessor lineProcessor = new LineProcessor(
@@ -109,6 +117,8 @@ public class FileCollectSource implements CollectSource {
             parserProperties,
             fileUriCollectPhase.targetColumns()
         );
+        // Lines of files which are read in chunks are parsed by the tasks reading the chunks
+        fileReadingIterator.parseLinesWith(lineProcessor::lineParsers);
         return CompletableFuture.completedFuture(lineProcessor);
     }
 
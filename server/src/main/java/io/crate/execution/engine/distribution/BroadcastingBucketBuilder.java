@@ -35,8 +35,15 @@ public class BroadcastingBucketBuilder implements MultiBucketBuilder {
     private final StreamBucket.Builder bucketBuilder;
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets, RamAccounting ramAccounting) {
+        this(streamers, numBuckets, false, ramAccounting);
+    }
+
+    /**
+     * @param columnar see {@link StreamBucket.Builder#Builder(Streamer[], boolean, RamAccounting)}
+     */
+    public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets, boolean columnar, RamAccounting ramAccounting) {
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers, ramAccounting);
+        this.bucketBuilder = new StreamBucket.Builder(streamers, columnar, ramAccounting);
     }
 
     @Override
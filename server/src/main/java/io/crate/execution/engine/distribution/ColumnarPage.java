@@ -0,0 +1,426 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.types.DateType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+
+/**
+ * Column-by-column layout for the rows of a {@link StreamBucket}.
+ *
+ * <pre>
+ *  for each column:
+ *      byte encoding
+ *      int length of the encoded values in bytes
+ *      GENERIC:     values written by the columns {@link Streamer}
+ *      DICTIONARY:  vInt dictionarySize, dictionary strings, vInt ordinal per row (0 for null)
+ *      LONG/INT:    null bitmap, zLong per non-null value
+ *      DOUBLE:      null bitmap, double per non-null value
+ *      FLOAT:       null bitmap, float per non-null value
+ * </pre>
+ *
+ * Compared to the row layout this avoids repeating low-cardinality strings and the per value null flag.
+ * The length prefix allows to read the columns of a row side by side without decoding the whole page.
+ */
+final class ColumnarPage {
+
+    static final byte GENERIC = 0;
+    static final byte DICTIONARY = 1;
+    static final byte LONG = 2;
+    static final byte INT = 3;
+    static final byte DOUBLE = 4;
+    static final byte FLOAT = 5;
+
+    private static final int INITIAL_COLUMN_SIZE = 128;
+
+    /**
+     * Once a string column has more distinct values it is written as {@link #GENERIC} column instead.
+     * A dictionary that large doesn't save much and would have to be held in memory by both sides.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1024;
+
+    private ColumnarPage() {
+    }
+
+    static byte encoding(Streamer<?> streamer) {
+        if (streamer instanceof StringType) {
+            return DICTIONARY;
+        } else if (streamer instanceof LongType || streamer instanceof TimestampType || streamer instanceof DateType) {
+            return LONG;
+        } else if (streamer instanceof IntegerType) {
+            return INT;
+        } else if (streamer instanceof DoubleType) {
+            return DOUBLE;
+        } else if (streamer instanceof FloatType) {
+            return FLOAT;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * @return true if at least one column benefits from the columnar layout
+     */
+    static boolean hasEncodedColumns(Streamer<?>[] streamers) {
+        for (Streamer<?> streamer : streamers) {
+            if (encoding(streamer) != GENERIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class Writer {
+
+        private final ColumnWriter[] columns;
+        private int numRows = 0;
+
+        Writer(Streamer<?>[] streamers) {
+            columns = new ColumnWriter[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                columns[i] = switch (encoding(streamers[i])) {
+                    case DICTIONARY -> new DictionaryColumn(streamers[i]);
+                    case LONG -> new NumericColumn(LONG);
+                    case INT -> new NumericColumn(INT);
+                    case DOUBLE -> new NumericColumn(DOUBLE);
+                    case FLOAT -> new NumericColumn(FLOAT);
+                    default -> new GenericColumn(streamers[i]);
+                };
+            }
+        }
+
+        void add(Row row) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i].add(numRows, row.get(i));
+            }
+            numRows++;
+        }
+
+        /**
+         * @return the size of the encoded values including the structures needed to encode them
+         */
+        long bytesUsed() {
+            long bytes = 0;
+            for (ColumnWriter column : columns) {
+                bytes += column.bytesUsed();
+            }
+            return bytes;
+        }
+
+        BytesReference bytes() throws IOException {
+            BytesStreamOutput out = new BytesStreamOutput(Math.toIntExact(bytesUsed() + columns.length * 5L));
+            for (ColumnWriter column : columns) {
+                out.writeByte(column.encoding());
+                long lengthPosition = out.position();
+                out.writeInt(0);
+                column.writeTo(out);
+                long end = out.position();
+                out.seek(lengthPosition);
+                out.writeInt(Math.toIntExact(end - lengthPosition - Integer.BYTES));
+                out.seek(end);
+            }
+            return out.bytes();
+        }
+    }
+
+    /**
+     * Creates a reader per column. The values are decoded one row at a time while the readers are advanced.
+     *
+     * @param streamers used to read {@link #GENERIC} columns
+     */
+    static ColumnReader[] readers(BytesReference bytes, Streamer<?>[] streamers) throws IOException {
+        ColumnReader[] readers = new ColumnReader[streamers.length];
+        int offset = 0;
+        for (int c = 0; c < streamers.length; c++) {
+            byte encoding = bytes.get(offset);
+            int length = bytes.getInt(offset + 1);
+            offset += 1 + Integer.BYTES;
+            StreamInput in = bytes.slice(offset, length).streamInput();
+            offset += length;
+            readers[c] = switch (encoding) {
+                case GENERIC -> new GenericReader(in, streamers[c]);
+                case DICTIONARY -> new DictionaryReader(in);
+                case LONG, INT, DOUBLE, FLOAT -> new NumericReader(in, encoding);
+                default -> throw new IllegalStateException("Invalid column encoding: " + encoding);
+            };
+        }
+        return readers;
+    }
+
+    abstract static class ColumnReader {
+
+        /**
+         * @return the value of the next row
+         */
+        abstract Object next() throws IOException;
+    }
+
+    private static final class GenericReader extends ColumnReader {
+
+        private final StreamInput in;
+        private final Streamer<?> streamer;
+
+        private GenericReader(StreamInput in, Streamer<?> streamer) {
+            this.in = in;
+            this.streamer = streamer;
+        }
+
+        @Override
+        Object next() throws IOException {
+            return streamer.readValueFrom(in);
+        }
+    }
+
+    private static final class DictionaryReader extends ColumnReader {
+
+        private final StreamInput in;
+        private final String[] dictionary;
+
+        private DictionaryReader(StreamInput in) throws IOException {
+            this.in = in;
+            dictionary = new String[in.readVInt() + 1];
+            for (int i = 1; i < dictionary.length; i++) {
+                dictionary[i] = in.readString();
+            }
+        }
+
+        @Override
+        Object next() throws IOException {
+            return dictionary[in.readVInt()];
+        }
+    }
+
+    private static final class NumericReader extends ColumnReader {
+
+        private final StreamInput in;
+        private final byte encoding;
+        private final BitSet nulls;
+        private int rowIdx = 0;
+
+        private NumericReader(StreamInput in, byte encoding) throws IOException {
+            this.in = in;
+            this.encoding = encoding;
+            long[] words = new long[in.readVInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            nulls = BitSet.valueOf(words);
+        }
+
+        @Override
+        Object next() throws IOException {
+            if (nulls.get(rowIdx++)) {
+                return null;
+            }
+            switch (encoding) {
+                case LONG:
+                    return in.readZLong();
+                case INT:
+                    return (int) in.readZLong();
+                case DOUBLE:
+                    return in.readDouble();
+                default:
+                    return in.readFloat();
+            }
+        }
+    }
+
+    private abstract static class ColumnWriter {
+
+        abstract byte encoding();
+
+        /**
+         * @return the writer to use for the next values, usually this one
+         */
+        abstract ColumnWriter add(int rowIdx, Object value) throws IOException;
+
+        abstract long bytesUsed();
+
+        abstract void writeTo(StreamOutput out) throws IOException;
+    }
+
+    private static final class GenericColumn extends ColumnWriter {
+
+        private final Streamer<?> streamer;
+        private final BytesStreamOutput values;
+
+        private GenericColumn(Streamer<?> streamer) {
+            this(streamer, INITIAL_COLUMN_SIZE);
+        }
+
+        private GenericColumn(Streamer<?> streamer, int expectedSize) {
+            this.streamer = streamer;
+            this.values = new BytesStreamOutput(expectedSize);
+        }
+
+        @Override
+        byte encoding() {
+            return GENERIC;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ColumnWriter add(int rowIdx, Object value) throws IOException {
+            ((Streamer) streamer).writeValueTo(values, value);
+            return this;
+        }
+
+        @Override
+        long bytesUsed() {
+            return values.size();
+        }
+
+        @Override
+        void writeTo(StreamOutput out) throws IOException {
+            values.bytes().writeTo(out);
+        }
+    }
+
+    private static final class DictionaryColumn extends ColumnWriter {
+
+        private final Streamer<?> streamer;
+        private final ObjectIntHashMap<String> ordinals = new ObjectIntHashMap<>();
+        private final BytesStreamOutput dictionary = new BytesStreamOutput(INITIAL_COLUMN_SIZE);
+        private final BytesStreamOutput values = new BytesStreamOutput(INITIAL_COLUMN_SIZE);
+
+        private DictionaryColumn(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        byte encoding() {
+            return DICTIONARY;
+        }
+
+        @Override
+        ColumnWriter add(int rowIdx, Object value) throws IOException {
+            if (value == null) {
+                values.writeVInt(0);
+                return this;
+            }
+            String str = (String) value;
+            int ordinal = ordinals.getOrDefault(str, 0);
+            if (ordinal == 0) {
+                if (ordinals.size() == MAX_DICTIONARY_SIZE) {
+                    return toGeneric(rowIdx).add(rowIdx, value);
+                }
+                ordinal = ordinals.size() + 1;
+                ordinals.put(str, ordinal);
+                dictionary.writeString(str);
+            }
+            values.writeVInt(ordinal);
+            return this;
+        }
+
+        /**
+         * Re-encodes the values added so far
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private GenericColumn toGeneric(int numValues) throws IOException {
+            String[] terms = new String[ordinals.size() + 1];
+            for (var cursor : ordinals) {
+                terms[cursor.value] = cursor.key;
+            }
+            GenericColumn generic = new GenericColumn(streamer, Math.toIntExact(bytesUsed()));
+            StreamInput in = values.bytes().streamInput();
+            for (int i = 0; i < numValues; i++) {
+                ((Streamer) streamer).writeValueTo(generic.values, terms[in.readVInt()]);
+            }
+            return generic;
+        }
+
+        @Override
+        long bytesUsed() {
+            long ordinalsBytes = (long) ordinals.keys.length * (RamUsageEstimator.NUM_BYTES_OBJECT_REF + Integer.BYTES);
+            return dictionary.size() + values.size() + ordinalsBytes;
+        }
+
+        @Override
+        void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(ordinals.size());
+            dictionary.bytes().writeTo(out);
+            values.bytes().writeTo(out);
+        }
+    }
+
+    private static final class NumericColumn extends ColumnWriter {
+
+        private final byte encoding;
+        private final BitSet nulls = new BitSet();
+        private final BytesStreamOutput values = new BytesStreamOutput(INITIAL_COLUMN_SIZE);
+
+        private NumericColumn(byte encoding) {
+            this.encoding = encoding;
+        }
+
+        @Override
+        byte encoding() {
+            return encoding;
+        }
+
+        @Override
+        ColumnWriter add(int rowIdx, Object value) throws IOException {
+            if (value == null) {
+                nulls.set(rowIdx);
+                return this;
+            }
+            switch (encoding) {
+                case LONG, INT -> values.writeZLong(((Number) value).longValue());
+                case DOUBLE -> values.writeDouble(((Number) value).doubleValue());
+                default -> values.writeFloat(((Number) value).floatValue());
+            }
+            return this;
+        }
+
+        @Override
+        long bytesUsed() {
+            return values.size() + nulls.size() / Byte.SIZE;
+        }
+
+        @Override
+        void writeTo(StreamOutput out) throws IOException {
+            long[] words = nulls.toLongArray();
+            out.writeVInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            values.bytes().writeTo(out);
+        }
+    }
+}
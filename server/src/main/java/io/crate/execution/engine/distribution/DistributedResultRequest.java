@@ -26,6 +26,7 @@ import java.util.UUID;
 
 import org.jetbrains.annotations.Nullable;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportRequest;
@@ -36,6 +37,12 @@ import io.crate.execution.support.NodeRequest;
 
 public class DistributedResultRequest extends TransportRequest {
 
+    /**
+     * Page index of requests from upstreams which send the next page only after
+     * they received the response for the previous one.
+     */
+    public static final int UNSEQUENCED = -1;
+
     public static class Builder {
 
         public final DistributedResultRequest innerRequest;
@@ -54,17 +61,19 @@ public class DistributedResultRequest extends TransportRequest {
                                                            int executionPhaseId,
                                                            byte inputId,
                                                            int bucketIdx,
+                                                           int pageIdx,
                                                            StreamBucket rows,
                                                            boolean isLast) {
         return new NodeRequest<>(
             nodeId,
-            new DistributedResultRequest(jobId, executionPhaseId, inputId, bucketIdx, rows, isLast)
+            new DistributedResultRequest(jobId, executionPhaseId, inputId, bucketIdx, pageIdx, rows, isLast)
         );
     }
 
     private final byte inputId;
     private final int executionPhaseId;
     private final int bucketIdx;
+    private int pageIdx = UNSEQUENCED;
 
     private StreamBucket rows;
     private final UUID jobId;
@@ -84,9 +93,11 @@ public class DistributedResultRequest extends TransportRequest {
                                      int executionPhaseId,
                                      byte inputId,
                                      int bucketIdx,
+                                     int pageIdx,
                                      StreamBucket rows,
                                      boolean isLast) {
         this(jobId, inputId, executionPhaseId, bucketIdx);
+        this.pageIdx = pageIdx;
         this.rows = rows;
         this.isLast = isLast;
     }
@@ -118,6 +129,14 @@ public class DistributedResultRequest extends TransportRequest {
         return bucketIdx;
     }
 
+    /**
+     * Position of the page within the pages sent by the upstream for {@link #bucketIdx()},
+     * or {@link #UNSEQUENCED}.
+     */
+    public int pageIdx() {
+        return pageIdx;
+    }
+
     public Bucket readRows(Streamer<?>[] streamers) {
         rows.streamers(streamers);
         return rows;
@@ -143,6 +162,9 @@ public class DistributedResultRequest extends TransportRequest {
         bucketIdx = in.readVInt();
         isLast = in.readBoolean();
         inputId = in.readByte();
+        if (in.getVersion().onOrAfter(Version.V_5_5_0)) {
+            pageIdx = in.readInt();
+        }
 
         boolean failure = in.readBoolean();
         if (failure) {
@@ -162,6 +184,9 @@ public class DistributedResultRequest extends TransportRequest {
         out.writeVInt(bucketIdx);
         out.writeBoolean(isLast);
         out.writeByte(inputId);
+        if (out.getVersion().onOrAfter(Version.V_5_5_0)) {
+            out.writeInt(pageIdx);
+        }
 
         boolean failure = throwable != null;
         out.writeBoolean(failure);
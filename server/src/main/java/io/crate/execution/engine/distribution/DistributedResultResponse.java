@@ -21,30 +21,56 @@
 
 package io.crate.execution.engine.distribution;
 
+import java.io.IOException;
+
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportResponse;
-
-import java.io.IOException;
+import org.jetbrains.annotations.Nullable;
 
 public class DistributedResultResponse extends TransportResponse {
 
     private final boolean needMore;
 
+    @Nullable
+    private final UpstreamRowFilter rowFilter;
+
     public DistributedResultResponse(boolean needMore) {
+        this(needMore, null);
+    }
+
+    /**
+     * @param rowFilter filter which the upstream applies to the rows of its next pages, see {@link UpstreamRowFilter}
+     */
+    public DistributedResultResponse(boolean needMore, @Nullable UpstreamRowFilter rowFilter) {
         this.needMore = needMore;
+        this.rowFilter = rowFilter;
     }
 
     public boolean needMore() {
         return needMore;
     }
 
+    @Nullable
+    public UpstreamRowFilter rowFilter() {
+        return rowFilter;
+    }
+
     public DistributedResultResponse(StreamInput in) throws IOException {
         needMore = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_5_5_0)) {
+            rowFilter = in.readOptionalWriteable(UpstreamRowFilter::new);
+        } else {
+            rowFilter = null;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeBoolean(needMore);
+        if (out.getVersion().onOrAfter(Version.V_5_5_0)) {
+            out.writeOptionalWriteable(rowFilter);
+        }
     }
 }
@@ -19,6 +19,7 @@
  * software solely pursuant to the terms of the relevant commercial agreement.
  */
 
+
 package io.crate.execution.engine.distribution;
 
 import java.util.ArrayList;
@@ -35,12 +36,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 
+import io.crate.common.annotations.GuardedBy;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.exceptions.SQLExceptions;
+import io.crate.execution.jobs.SequencedPageBucketReceiver;
 import io.crate.execution.support.ActionExecutor;
 import io.crate.execution.support.NodeRequest;
 
@@ -50,11 +53,22 @@ import io.crate.execution.support.NodeRequest;
  * The rows from the source {@link BatchIterator} are "bucketed" using a {@link MultiBucketBuilder}. So a downstream
  * can either receive a part of the data or all data.
  *
- * Every time requests to the downstreams are made consumption of the source BatchIterator is stopped until a response
- * from all downstreams is received.
+ * Up to {@link #maxInFlightPages} pages can be sent to a downstream before the response for the first of them is
+ * received. A downstream responds to a page once it processed it, so each response grants the credit to send
+ * another page (See {@link SequencedPageBucketReceiver}).
+ * Consumption of the source BatchIterator is stopped while a downstream has no credit left or while the pages in
+ * flight exceed {@link Paging#MAX_PAGE_BYTES}, and it is resumed once enough responses are received.
+ *
+ * Downstreams can respond with an {@link UpstreamRowFilter}. Once every downstream provided one,
+ * rows which are rejected by all of them are dropped instead of being sent.
  */
 public class DistributingConsumer implements RowConsumer {
 
+    /**
+     * Number of pages which can be in flight to each downstream
+     */
+    static final int MAX_IN_FLIGHT_PAGES = 4;
+
     private static final Logger LOGGER = LogManager.getLogger(DistributingConsumer.class);
     private final Executor responseExecutor;
     private final UUID jobId;
@@ -63,16 +77,33 @@ public class DistributingConsumer implements RowConsumer {
     private final int bucketIdx;
     private final ActionExecutor<NodeRequest<DistributedResultRequest>, DistributedResultResponse> distributedResultAction;
     private final int pageSize;
+    private final int maxInFlightPages;
     private final StreamBucket[] buckets;
     private final List<Downstream> downstreams;
     private final boolean traceEnabled;
     private final CompletableFuture<Void> completionFuture;
+    private final Object lock = new Object();
 
     @VisibleForTesting
     final MultiBucketBuilder multiBucketBuilder;
 
     private volatile Throwable failure;
 
+    @GuardedBy("lock")
+    private int numInFlightPages = 0;
+
+    @GuardedBy("lock")
+    private long inFlightBytes = 0;
+
+    /**
+     * True while the consumption of the source is stopped until responses from the downstreams arrive.
+     */
+    @GuardedBy("lock")
+    private boolean paused = false;
+
+    @GuardedBy("lock")
+    private boolean lastPageSent = false;
+
     public DistributingConsumer(Executor responseExecutor,
                                 UUID jobId,
                                 MultiBucketBuilder multiBucketBuilder,
@@ -81,7 +112,9 @@ public class DistributingConsumer implements RowConsumer {
                                 int bucketIdx,
                                 Collection<String> downstreamNodeIds,
                                 ActionExecutor<NodeRequest<DistributedResultRequest>, DistributedResultResponse> distributedResultAction,
-                                int pageSize) {
+                                int pageSize,
+                                int maxInFlightPages) {
+        assert maxInFlightPages > 0 : "maxInFlightPages must be greater than 0";
         this.traceEnabled = LOGGER.isTraceEnabled();
         this.responseExecutor = responseExecutor;
         this.jobId = jobId;
@@ -91,6 +124,7 @@ public class DistributingConsumer implements RowConsumer {
         this.bucketIdx = bucketIdx;
         this.distributedResultAction = distributedResultAction;
         this.pageSize = pageSize;
+        this.maxInFlightPages = maxInFlightPages;
         this.buckets = new StreamBucket[downstreamNodeIds.size()];
         this.completionFuture = new CompletableFuture<>();
         downstreams = new ArrayList<>(downstreamNodeIds.size());
@@ -117,14 +151,21 @@ public class DistributingConsumer implements RowConsumer {
     private void consumeIt(BatchIterator<Row> it) {
         try {
             while (it.moveNext()) {
-                multiBucketBuilder.add(it.currentElement());
+                Row row = it.currentElement();
+                if (rejectedByAllDownstreams(row)) {
+                    continue;
+                }
+                multiBucketBuilder.add(row);
                 if (multiBucketBuilder.size() >= pageSize || multiBucketBuilder.ramBytesUsed() >= Paging.MAX_PAGE_BYTES) {
                     forwardResults(it, false);
-                    return;
+                    if (pauseOrContinue(it) == false) {
+                        return;
+                    }
                 }
             }
             if (it.allLoaded()) {
                 forwardResults(it, true);
+                pauseOrContinue(it);
             } else {
                 it.loadNextBatch().whenComplete((r, t) -> {
                     if (t == null) {
@@ -139,6 +180,19 @@ public class DistributingConsumer implements RowConsumer {
         }
     }
 
+    /**
+     * A row is only dropped if it is rejected by all downstreams, as it isn't known to which of them it will be sent.
+     */
+    private boolean rejectedByAllDownstreams(Row row) {
+        for (int i = 0; i < downstreams.size(); i++) {
+            UpstreamRowFilter rowFilter = downstreams.get(i).rowFilter;
+            if (rowFilter == null || rowFilter.mightMatch(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void forwardFailure(@Nullable final BatchIterator<?> it, final Throwable f) {
         Throwable failure = SQLExceptions.unwrap(f); // make sure it's streamable
         AtomicInteger numActiveRequests = new AtomicInteger(downstreams.size());
@@ -189,17 +243,36 @@ public class DistributingConsumer implements RowConsumer {
     }
 
     private void forwardResults(BatchIterator<Row> it, boolean isLast) {
+        long pageBytes = multiBucketBuilder.ramBytesUsed();
         multiBucketBuilder.build(buckets);
-        AtomicInteger numActiveRequests = new AtomicInteger(downstreams.size());
+        boolean[] receivers = new boolean[downstreams.size()];
+        InFlightPage page;
+        synchronized (lock) {
+            lastPageSent = isLast;
+            int numReceivers = 0;
+            for (int i = 0; i < downstreams.size(); i++) {
+                Downstream downstream = downstreams.get(i);
+                if (downstream.needsMoreData) {
+                    downstream.numInFlightPages++;
+                    receivers[i] = true;
+                    numReceivers++;
+                }
+            }
+            page = new InFlightPage(pageBytes, numReceivers);
+            numInFlightPages += numReceivers;
+            if (numReceivers > 0) {
+                inFlightBytes += pageBytes;
+            }
+        }
         for (int i = 0; i < downstreams.size(); i++) {
-            Downstream downstream = downstreams.get(i);
-            if (downstream.needsMoreData == false) {
-                countdownAndMaybeContinue(it, numActiveRequests, true);
+            if (receivers[i] == false) {
                 continue;
             }
+            Downstream downstream = downstreams.get(i);
+            int pageIdx = downstream.nextPageIdx++;
             if (traceEnabled) {
-                LOGGER.trace("forwardResults targetNode={} jobId={} targetPhase={}/{} bucket={} isLast={}",
-                             downstream.nodeId, jobId, targetPhaseId, inputId, bucketIdx, isLast);
+                LOGGER.trace("forwardResults targetNode={} jobId={} targetPhase={}/{} bucket={} page={} isLast={}",
+                             downstream.nodeId, jobId, targetPhaseId, inputId, bucketIdx, pageIdx, isLast);
             }
             distributedResultAction
                 .execute(
@@ -209,13 +282,16 @@ public class DistributingConsumer implements RowConsumer {
                         targetPhaseId,
                         inputId,
                         bucketIdx,
+                        pageIdx,
                         buckets[i],
                         isLast))
                 .whenComplete(
                     (resp, t) -> {
                         if (t == null) {
-                            downstream.needsMoreData = resp.needMore();
-                            countdownAndMaybeContinue(it, numActiveRequests, false);
+                            if (resp.rowFilter() != null) {
+                                downstream.rowFilter = resp.rowFilter();
+                            }
+                            onResponse(it, downstream, page, resp.needMore());
                         } else {
                             LOGGER.trace(
                                 "Failure from downstream while sending result. job={} targetNode={} failure={}",
@@ -224,52 +300,137 @@ public class DistributingConsumer implements RowConsumer {
                                 t
                             );
                             failure = t;
-                            downstream.needsMoreData = false;
                             // continue because it's necessary to send something to downstreams still waiting for data
-                            countdownAndMaybeContinue(it, numActiveRequests, false);
+                            onResponse(it, downstream, page, false);
                         }
                     }
                 );
         }
     }
 
-    private void countdownAndMaybeContinue(BatchIterator<Row> it,
-                                           AtomicInteger numActiveRequests,
-                                           boolean sameExecutor) {
-        if (numActiveRequests.decrementAndGet() == 0) {
-            if (downstreams.stream().anyMatch(Downstream::needsMoreData)) {
-                if (failure == null) {
-                    if (sameExecutor) {
-                        consumeIt(it);
-                    } else {
-                        // try to dispatch to different executor, if it fails, forward the error in the same thread
-                        try {
-                            responseExecutor.execute(() -> consumeIt(it));
-                        } catch (EsRejectedExecutionException e) {
-                            failure = e;
-                            forwardFailure(it, failure);
-                        }
-                    }
-                } else {
+    private void onResponse(BatchIterator<Row> it, Downstream downstream, InFlightPage page, boolean needMore) {
+        Next next;
+        synchronized (lock) {
+            downstream.needsMoreData = downstream.needsMoreData && needMore;
+            downstream.numInFlightPages--;
+            numInFlightPages--;
+            page.pendingResponses--;
+            if (page.pendingResponses == 0) {
+                inFlightBytes -= page.bytes;
+            }
+            if (paused == false) {
+                return;
+            }
+            next = next();
+        }
+        switch (next) {
+            case WAIT:
+                break;
+
+            case CONSUME:
+                // try to dispatch to different executor, if it fails, forward the error in the same thread
+                try {
+                    responseExecutor.execute(() -> consumeIt(it));
+                } catch (EsRejectedExecutionException e) {
+                    failure = e;
                     forwardFailure(it, failure);
                 }
-            } else {
-                // If we've a failure we either communicated it to the other downstreams already,
-                // or were able to send results to all downstreams. In either case, *this* operation succeeded and the
-                // downstreams need to deal with failures.
+                break;
 
-                // The NodeDisconnectJobMonitorService takes care of node disconnects, so we don't have to manage
-                // that scenario.
-                it.close();
-                completionFuture.complete(null);
+            default:
+                finish(it, next);
+        }
+    }
+
+    /**
+     * Stops the consumption of the source until enough responses arrived to continue.
+     *
+     * @return true if the consumption can continue right away in the current thread.
+     */
+    private boolean pauseOrContinue(BatchIterator<Row> it) {
+        Next next;
+        synchronized (lock) {
+            paused = true;
+            next = next();
+        }
+        switch (next) {
+            case WAIT:
+                return false;
+
+            case CONSUME:
+                return true;
+
+            default:
+                finish(it, next);
+                return false;
+        }
+    }
+
+    @GuardedBy("lock")
+    private Next next() {
+        assert paused : "next() must only be called while the consumption is paused";
+        boolean anyNeedsMoreData = downstreams.stream().anyMatch(Downstream::needsMoreData);
+        if (lastPageSent || failure != null || anyNeedsMoreData == false) {
+            if (numInFlightPages > 0) {
+                return Next.WAIT;
+            }
+            paused = false;
+            return failure != null && anyNeedsMoreData ? Next.FORWARD_FAILURE : Next.CLOSE;
+        }
+        if (inFlightBytes >= Paging.MAX_PAGE_BYTES) {
+            return Next.WAIT;
+        }
+        for (Downstream downstream : downstreams) {
+            if (downstream.needsMoreData && downstream.numInFlightPages >= maxInFlightPages) {
+                return Next.WAIT;
             }
         }
+        paused = false;
+        return Next.CONSUME;
+    }
+
+    private void finish(BatchIterator<Row> it, Next next) {
+        if (next == Next.FORWARD_FAILURE) {
+            forwardFailure(it, failure);
+        } else {
+            // If we've a failure we either communicated it to the other downstreams already,
+            // or were able to send results to all downstreams. In either case, *this* operation succeeded and the
+            // downstreams need to deal with failures.
+
+            // The NodeDisconnectJobMonitorService takes care of node disconnects, so we don't have to manage
+            // that scenario.
+            it.close();
+            completionFuture.complete(null);
+        }
+    }
+
+    private enum Next {
+        WAIT,
+        CONSUME,
+        FORWARD_FAILURE,
+        CLOSE
+    }
+
+    private static class InFlightPage {
+
+        private final long bytes;
+        private int pendingResponses;
+
+        InFlightPage(long bytes, int pendingResponses) {
+            this.bytes = bytes;
+            this.pendingResponses = pendingResponses;
+        }
     }
 
     private static class Downstream {
 
         private final String nodeId;
         private boolean needsMoreData = true;
+        private int numInFlightPages = 0;
+        private int nextPageIdx = 0;
+
+        @Nullable
+        private volatile UpstreamRowFilter rowFilter;
 
         Downstream(String nodeId) {
             this.nodeId = nodeId;
@@ -284,6 +445,7 @@ public class DistributingConsumer implements RowConsumer {
             return "Downstream{" +
                    nodeId + '\'' +
                    ", needsMoreData=" + needsMoreData +
+                   ", inFlightPages=" + numInFlightPages +
                    '}';
         }
     }
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.Executor;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
@@ -74,6 +75,8 @@ public class DistributingConsumerFactory {
         byte phaseInputId = nodeOperation.downstreamExecutionPhaseInputId();
         int bucketIdx = getBucketIdx(nodeOperation.executionPhase().nodeIds(), phaseInputId);
 
+        // Older nodes require the pages of a bucket to arrive one at a time and can't read columnar pages
+        boolean allNodesOnOrAfter5_5 = clusterService.state().nodes().getMinNodeVersion().onOrAfter(Version.V_5_5_0);
         MultiBucketBuilder multiBucketBuilder;
         switch (distributionInfo.distributionType()) {
             case MODULO:
@@ -81,13 +84,17 @@ public class DistributingConsumerFactory {
                     multiBucketBuilder = new BroadcastingBucketBuilder(
                         streamers,
                         nodeOperation.downstreamNodes().size(),
+                        allNodesOnOrAfter5_5,
                         ramAccounting
                     );
                 } else {
                     multiBucketBuilder = new ModuloBucketBuilder(
                         streamers,
                         nodeOperation.downstreamNodes().size(),
-                        distributionInfo.distributeByColumn(),
+                        distributionInfo.distributeByColumns(),
+                        distributionInfo.skewHandling(),
+                        distributionInfo.skewedKeyHashes(),
+                        allNodesOnOrAfter5_5,
                         ramAccounting
                     );
                 }
@@ -96,6 +103,7 @@ public class DistributingConsumerFactory {
                 multiBucketBuilder = new BroadcastingBucketBuilder(
                     streamers,
                     nodeOperation.downstreamNodes().size(),
+                    allNodesOnOrAfter5_5,
                     ramAccounting
                 );
                 break;
@@ -103,6 +111,7 @@ public class DistributingConsumerFactory {
                 throw new UnsupportedOperationException("Can't handle distributionInfo: " + distributionInfo);
         }
 
+        int maxInFlightPages = allNodesOnOrAfter5_5 ? DistributingConsumer.MAX_IN_FLIGHT_PAGES : 1;
         return new DistributingConsumer(
             responseExecutor,
             jobId,
@@ -112,7 +121,8 @@ public class DistributingConsumerFactory {
             bucketIdx,
             nodeOperation.downstreamNodes(),
             distributedResultAction,
-            pageSize
+            pageSize,
+            maxInFlightPages
         );
     }
 
@@ -21,41 +21,101 @@
 
 package io.crate.execution.engine.distribution;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.carrotsearch.hppc.BitMixer;
+
 import io.crate.Streamer;
 import io.crate.data.Row;
 import io.crate.data.breaker.RamAccounting;
-
-import org.jetbrains.annotations.Nullable;
-import java.util.ArrayList;
-import java.util.List;
+import io.crate.planner.distribution.SkewHandling;
 
 /**
  * builds N buckets where N is passed in the CTOR.
  * The rows that are added via {@link #add(Row)} are assigned to the buckets by modulo calculation.
+ *
+ * <p>
+ * Rows distributed by a single column without skew handling use the plain hashCode of the value.
+ * This must not change as long as nodes of older versions may participate in the same distribution.
+ * Composite keys and skew handling use {@link #hash(Row, int[])}, which mixes the bits of the
+ * combined hashCode so that keys with poorly distributed hashCodes still spread evenly.
+ * </p>
+ *
+ * <p>
+ * If a key hashes to one of the skewed key hashes, the row is either routed to the next bucket in
+ * a round-robin fashion ({@link SkewHandling#SPLIT}) or added to all buckets ({@link SkewHandling#REPLICATE}).
+ * </p>
  */
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
     private final List<StreamBucket.Builder> bucketBuilders;
-    private final int distributedByColumnIdx;
+    private final int[] distributedByColumns;
+    private final SkewHandling skewHandling;
+    private final int[] skewedKeyHashes;
+    private final boolean legacyHash;
+    private int nextSplitBucket;
     private int size = 0;
 
     public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx, RamAccounting ramAccounting) {
+        this(streamers, numBuckets, new int[] { distributedByColumnIdx }, SkewHandling.NONE, new int[0], false, ramAccounting);
+    }
+
+    /**
+     * @param skewedKeyHashes sorted hashes, computed using {@link #hash(Object)} or {@link #hash(Row, int[])}
+     * @param columnar see {@link StreamBucket.Builder#Builder(Streamer[], boolean, RamAccounting)}
+     */
+    public ModuloBucketBuilder(Streamer<?>[] streamers,
+                               int numBuckets,
+                               int[] distributedByColumns,
+                               SkewHandling skewHandling,
+                               int[] skewedKeyHashes,
+                               boolean columnar,
+                               RamAccounting ramAccounting) {
         this.numBuckets = numBuckets;
-        this.distributedByColumnIdx = distributedByColumnIdx;
+        this.distributedByColumns = distributedByColumns;
+        this.skewHandling = skewHandling;
+        this.skewedKeyHashes = skewedKeyHashes;
+        this.legacyHash = distributedByColumns.length == 1 && skewHandling == SkewHandling.NONE;
+        // Start at a random bucket so that upstreams with only a few skewed rows don't all pick the first bucket
+        this.nextSplitBucket = numBuckets > 0 ? ThreadLocalRandom.current().nextInt(numBuckets) : 0;
         this.bucketBuilders = new ArrayList<>(numBuckets);
         for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers, ramAccounting));
+            bucketBuilders.add(new StreamBucket.Builder(streamers, columnar, ramAccounting));
         }
     }
 
     @Override
     public void add(Row row) {
-        StreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
-        builder.add(row);
+        if (legacyHash) {
+            bucketBuilders.get(getBucket(row)).add(row);
+        } else {
+            int hash = hash(row, distributedByColumns);
+            if (skewHandling != SkewHandling.NONE && Arrays.binarySearch(skewedKeyHashes, hash) >= 0) {
+                addSkewed(row);
+            } else {
+                bucketBuilders.get(Math.floorMod(hash, numBuckets)).add(row);
+            }
+        }
         size++;
     }
 
+    private void addSkewed(Row row) {
+        if (skewHandling == SkewHandling.SPLIT) {
+            bucketBuilders.get(nextSplitBucket).add(row);
+            nextSplitBucket = (nextSplitBucket + 1) % numBuckets;
+        } else {
+            for (int i = 0; i < numBuckets; i++) {
+                bucketBuilders.get(i).add(row);
+            }
+        }
+    }
+
     @Override
     public int size() {
         return size;
@@ -76,13 +136,31 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
      * get bucket number by doing modulo hashcode of the defined row-element
      */
     private int getBucket(Row row) {
-        int hash = hashCode(row.get(distributedByColumnIdx));
+        int hash = hashCode(row.get(distributedByColumns[0]));
         if (hash == Integer.MIN_VALUE) {
             hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
         }
         return Math.abs(hash) % numBuckets;
     }
 
+    /**
+     * Well mixed hash of the composite key formed by the values of {@code columns}.
+     */
+    public static int hash(Row row, int[] columns) {
+        int hash = 0;
+        for (int column : columns) {
+            hash = 31 * hash + hashCode(row.get(column));
+        }
+        return BitMixer.mix32(hash);
+    }
+
+    /**
+     * Well mixed hash of a single value key, equal to {@link #hash(Row, int[])} with one column.
+     */
+    public static int hash(@Nullable Object value) {
+        return BitMixer.mix32(hashCode(value));
+    }
+
     private static int hashCode(@Nullable Object value) {
         if (value == null) {
             return 0;
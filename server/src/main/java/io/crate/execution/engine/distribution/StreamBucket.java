@@ -28,6 +28,7 @@ import io.crate.data.RowN;
 import io.crate.data.breaker.RamAccounting;
 
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -48,6 +49,7 @@ public class StreamBucket implements Bucket, Writeable {
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
+    private boolean columnar = false;
 
     public static class Builder implements Accountable {
 
@@ -57,40 +59,87 @@ public class StreamBucket implements Bucket, Writeable {
 
         private int size = 0;
         private BytesStreamOutput out;
-        private int prevOutSize = 0;
+        @Nullable
+        private ColumnarPage.Writer columns;
+        private long prevOutSize = 0;
 
         public Builder(Streamer<?>[] streamers, RamAccounting ramAccounting) {
+            this(streamers, false, ramAccounting);
+        }
+
+        /**
+         * @param columnar use the {@link ColumnarPage} layout if any of the columns benefits from it.
+         *                 Only nodes on or after {@link Version#V_5_5_0} can read it.
+         */
+        public Builder(Streamer<?>[] streamers, boolean columnar, RamAccounting ramAccounting) {
             this.ramAccounting = requireNonNull(ramAccounting, "RamAccounting must not be null");
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
-            out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            if (columnar && ColumnarPage.hasEncodedColumns(streamers)) {
+                columns = new ColumnarPage.Writer(streamers);
+            } else {
+                out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            }
         }
 
         public void add(Row row) {
             assert streamers.length == row.numColumns() : "number of streamer must match row size";
 
             size++;
-            for (int i = 0; i < row.numColumns(); i++) {
+            long outSize;
+            if (columns == null) {
+                for (int i = 0; i < row.numColumns(); i++) {
+                    try {
+                        //noinspection unchecked
+                        ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                outSize = out.size();
+            } else {
                 try {
-                    //noinspection unchecked
-                    ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+                    columns.add(row);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
+                outSize = columns.bytesUsed();
+            }
+            // The size can shrink if a column switches its encoding (See ColumnarPage).
+            // Keep the high-water mark accounted until the page is reset, the previous encoding was in use up to now.
+            if (outSize > prevOutSize) {
+                ramAccounting.addBytes(outSize - prevOutSize);
+                prevOutSize = outSize;
             }
-            ramAccounting.addBytes(out.size() - prevOutSize);
-            prevOutSize = out.size();
         }
 
         public StreamBucket build() {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
-            sb.bytes = out.bytes();
+            if (columns == null) {
+                sb.bytes = out.bytes();
+            } else {
+                sb.columnar = true;
+                try {
+                    sb.bytes = columns.bytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
             return sb;
         }
 
+        /**
+         * Starts a new page and releases the accounted bytes of the previous one, which was handed out by {@link #build()}
+         */
         public void reset() {
-            out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            ramAccounting.addBytes(-prevOutSize);
+            prevOutSize = 0;
+            if (columns == null) {
+                out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            } else {
+                columns = new ColumnarPage.Writer(streamers);
+            }
             size = 0;
         }
 
@@ -98,9 +147,12 @@ public class StreamBucket implements Bucket, Writeable {
             return size;
         }
 
+        /**
+         * @return the accounted bytes of the current page
+         */
         @Override
         public long ramBytesUsed() {
-            return ramAccounting.totalBytes();
+            return prevOutSize;
         }
     }
 
@@ -171,6 +223,40 @@ public class StreamBucket implements Bucket, Writeable {
         }
     }
 
+    private static class ColumnarRowIterator implements Iterator<Row> {
+
+        private final ColumnarPage.ColumnReader[] columns;
+        private final int size;
+        private final Object[] current;
+        private final RowN row;
+        private int pos = 0;
+
+        private ColumnarRowIterator(ColumnarPage.ColumnReader[] columns, int size) {
+            this.columns = columns;
+            this.size = size;
+            current = new Object[columns.length];
+            row = new RowN(current);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            for (int c = 0; c < columns.length; c++) {
+                try {
+                    current[c] = columns[c].next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            pos++;
+            return row;
+        }
+    }
+
     @Override
     @NotNull
     public Iterator<Row> iterator() {
@@ -179,6 +265,9 @@ public class StreamBucket implements Bucket, Writeable {
         }
         assert streamers != null : "streamers must not be null";
         try {
+            if (columnar) {
+                return new ColumnarRowIterator(ColumnarPage.readers(bytes, streamers), size);
+            }
             return new RowIterator(bytes.streamInput(), streamers, size);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -200,6 +289,9 @@ public class StreamBucket implements Bucket, Writeable {
      */
     public StreamBucket(StreamInput in) throws IOException {
         size = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_5_5_0)) {
+            columnar = in.readBoolean();
+        }
         if (size > 0) {
             bytes = in.readBytesReference();
         }
@@ -216,8 +308,28 @@ public class StreamBucket implements Bucket, Writeable {
     public void writeTo(StreamOutput out) throws IOException {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
-        if (size > 0) {
-            out.writeBytesReference(bytes);
+        if (out.getVersion().onOrAfter(Version.V_5_5_0)) {
+            out.writeBoolean(columnar);
+            if (size > 0) {
+                out.writeBytesReference(bytes);
+            }
+        } else if (size > 0) {
+            out.writeBytesReference(columnar ? rowBytes() : bytes);
+        }
+    }
+
+    /**
+     * Re-encodes the rows of a columnar bucket in the row layout for nodes which can't read the columnar one.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BytesReference rowBytes() throws IOException {
+        assert streamers != null : "streamers must not be null";
+        BytesStreamOutput rowsOut = new BytesStreamOutput(bytes.length());
+        for (Row row : this) {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(rowsOut, row.get(i));
+            }
         }
+        return rowsOut.bytes();
     }
 }
@@ -172,9 +172,11 @@ public class TransportDistributedResultAction extends TransportAction<NodeReques
 
         Throwable throwable = request.throwable();
         if (throwable == null) {
-            SendResponsePageResultListener pageResultListener = new SendResponsePageResultListener();
+            SendResponsePageResultListener pageResultListener =
+                new SendResponsePageResultListener(pageBucketReceiver, request.bucketIdx());
             pageBucketReceiver.setBucket(
                 request.bucketIdx(),
+                request.pageIdx(),
                 request.readRows(pageBucketReceiver.streamers()),
                 request.isLast(),
                 pageResultListener
@@ -234,11 +236,19 @@ public class TransportDistributedResultAction extends TransportAction<NodeReques
 
     private static class SendResponsePageResultListener implements PageResultListener {
         private final CompletableFuture<DistributedResultResponse> future = new CompletableFuture<>();
+        private final PageBucketReceiver pageBucketReceiver;
+        private final int bucketIdx;
+
+        SendResponsePageResultListener(PageBucketReceiver pageBucketReceiver, int bucketIdx) {
+            this.pageBucketReceiver = pageBucketReceiver;
+            this.bucketIdx = bucketIdx;
+        }
 
         @Override
         public void needMore(boolean needMore) {
             LOGGER.trace("sending needMore response, need more? {}", needMore);
-            future.complete(new DistributedResultResponse(needMore));
+            UpstreamRowFilter rowFilter = needMore ? pageBucketReceiver.pollUpstreamRowFilter(bucketIdx) : null;
+            future.complete(new DistributedResultResponse(needMore, rowFilter));
         }
     }
 
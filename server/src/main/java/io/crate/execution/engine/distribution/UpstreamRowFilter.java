@@ -0,0 +1,77 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.distribution;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import io.crate.data.Row;
+import io.crate.execution.engine.join.HashBloomFilter;
+
+/**
+ * A filter which a downstream hands out to its upstreams with the responses to their pages.
+ * The upstreams drop rows for which {@link #mightMatch(Row)} returns false instead of sending them.
+ * <p>
+ * Used by hash joins to push the hashes of the build side down to the upstreams of the probe side:
+ * A row can't have a join partner if the hash of its join key isn't contained in the bloom filter.
+ * </p>
+ */
+public final class UpstreamRowFilter implements Writeable {
+
+    private final int[] keyColumns;
+    private final HashBloomFilter hashes;
+
+    /**
+     * @param keyColumns the positions of the join key within the rows of the upstreams
+     */
+    public UpstreamRowFilter(int[] keyColumns, HashBloomFilter hashes) {
+        this.keyColumns = keyColumns;
+        this.hashes = hashes;
+    }
+
+    public UpstreamRowFilter(StreamInput in) throws IOException {
+        this.keyColumns = in.readVIntArray();
+        this.hashes = new HashBloomFilter(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVIntArray(keyColumns);
+        hashes.writeTo(out);
+    }
+
+    /**
+     * The hash must be computed like the hash of the join, see {@code HashJoinOperation#getHashBuilderFromSymbols}
+     */
+    public boolean mightMatch(Row row) {
+        int hash = 0;
+        for (int column : keyColumns) {
+            Object value = row.get(column);
+            hash = 31 * hash + (value == null ? 0 : value.hashCode());
+        }
+        return hashes.mightContain(hash);
+    }
+}
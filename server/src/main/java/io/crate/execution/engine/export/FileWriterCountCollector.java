@@ -48,17 +48,21 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
+import io.crate.analyze.CopyStatementSettings;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.data.Row1;
+import io.crate.data.breaker.RamAccounting;
 import io.crate.exceptions.SQLParseException;
 import io.crate.exceptions.UnhandledServerException;
 import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.execution.dsl.projection.WriterProjection;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.metadata.ColumnIdent;
+import io.crate.parquet.ParquetWriter;
 import io.crate.server.xcontent.XContentHelper;
+import io.crate.types.DataType;
 
 /**
  * Collector implementation which writes the rows to the configured {@link FileOutput}
@@ -71,6 +75,7 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
     private final Executor executor;
     private final Iterable<CollectExpression<Row, ?>> collectExpressions;
     private final List<Input<?>> inputs;
+    private final List<DataType<?>> inputTypes;
     private final URI uri;
     private final FileOutput fileOutput;
     private final Map<String, Object> overwrites;
@@ -78,6 +83,8 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
     @Nullable
     private final List<String> outputNames;
     private final WriterProjection.OutputFormat outputFormat;
+    private final Settings withClauseOptions;
+    private final RamAccounting ramAccounting;
 
     private final RowWriter rowWriter;
 
@@ -85,19 +92,24 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
                              String uriStr,
                              @Nullable WriterProjection.CompressionType compressionType,
                              @Nullable List<Input<?>> inputs,
+                             List<DataType<?>> inputTypes,
                              Iterable<CollectExpression<Row, ?>> collectExpressions,
                              Map<ColumnIdent, Object> overwrites,
                              @Nullable List<String> outputNames,
                              WriterProjection.OutputFormat outputFormat,
                              Map<String, FileOutputFactory> fileOutputFactories,
-                             Settings withClauseOptions) {
+                             Settings withClauseOptions,
+                             RamAccounting ramAccounting) {
         this.executor = executor;
         this.collectExpressions = collectExpressions;
         this.inputs = inputs;
+        this.inputTypes = inputTypes;
         this.overwrites = toNestedStringObjectMap(overwrites);
         this.compressionType = compressionType;
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
+        this.withClauseOptions = withClauseOptions;
+        this.ramAccounting = ramAccounting;
         try {
             uri = new URI(uriStr);
         } catch (URISyntaxException e) {
@@ -153,7 +165,20 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
 
     private RowWriter initWriter() {
         try {
-            if (!overwrites.isEmpty()) {
+            if (outputFormat == WriterProjection.OutputFormat.PARQUET) {
+                assert inputs != null && outputNames != null : "Parquet output requires inputs and outputNames";
+                long rowGroupSize = CopyStatementSettings.ROW_GROUP_SIZE_SETTING.get(withClauseOptions).getBytes();
+                // compression is applied to the pages within the file
+                ParquetWriter writer = new ParquetWriter(
+                    fileOutput.acquireOutputStream(executor, uri, null),
+                    outputNames,
+                    inputTypes,
+                    compressionType == WriterProjection.CompressionType.GZIP,
+                    rowGroupSize,
+                    ramAccounting
+                );
+                return new ParquetRowWriter(writer, collectExpressions, inputs);
+            } else if (!overwrites.isEmpty()) {
                 return new DocWriter(
                     fileOutput.acquireOutputStream(executor, uri, compressionType), collectExpressions, overwrites);
             } else if (outputFormat.equals(WriterProjection.OutputFormat.JSON_ARRAY)) {
@@ -336,6 +361,38 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
         }
     }
 
+    static class ParquetRowWriter implements RowWriter {
+
+        private final ParquetWriter writer;
+        private final Iterable<CollectExpression<Row, ?>> collectExpressions;
+        private final List<Input<?>> inputs;
+
+        ParquetRowWriter(ParquetWriter writer,
+                         Iterable<CollectExpression<Row, ?>> collectExpressions,
+                         List<Input<?>> inputs) {
+            this.writer = writer;
+            this.collectExpressions = collectExpressions;
+            this.inputs = inputs;
+        }
+
+        @Override
+        public void write(Row row) {
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            try {
+                writer.write(inputs);
+            } catch (IOException e) {
+                throw new UnhandledServerException("Failed to write row to output", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
     static class ColumnRowObjectWriter extends ColumnRowWriter {
 
         private final List<String> outputNames;
@@ -0,0 +1,98 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+
+/**
+ * Sends the output of a {@code COPY ... TO STDOUT} statement to the client.
+ * <p>
+ * The protocol handler registers the {@link OutputStream} forwarding the data to the client
+ * and rewrites the statement to write to the returned {@code stdout:///<id>} URI.
+ * The stream only exists on the node handling the client connection, so all rows must be
+ * written on that node by a single writer.
+ */
+public class StdoutFileOutputFactory implements FileOutputFactory {
+
+    public static final String NAME = "stdout";
+
+    private final Map<String, OutputStream> streams = new ConcurrentHashMap<>();
+
+    public URI register(OutputStream stream) {
+        // The id must not be guessable, it grants access to the stream of the client
+        String id = UUIDs.randomBase64UUID();
+        streams.put(id, stream);
+        return URI.create(NAME + ":///" + id);
+    }
+
+    public void unregister(URI uri) {
+        streams.remove(id(uri));
+    }
+
+    public static boolean isStdout(String uri) {
+        return uri.regionMatches(true, 0, NAME + ":", 0, NAME.length() + 1);
+    }
+
+    /**
+     * @param uris the value of the URI of a COPY statement, a string or an array of strings
+     */
+    public static boolean containsStdout(Object uris) {
+        if (uris instanceof String uri) {
+            return isStdout(uri);
+        } else if (uris instanceof List<?> list) {
+            for (Object uri : list) {
+                if (containsStdout(uri)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String id(URI uri) {
+        return uri.getPath().substring(1);
+    }
+
+    @Override
+    public FileOutput create(Settings withClauseOptions) {
+        return (executor, uri, compressionType) -> {
+            OutputStream os = streams.remove(id(uri));
+            if (os == null) {
+                throw new IOException("No client is receiving data for " + uri);
+            }
+            if (compressionType != null) {
+                os = new GZIPOutputStream(os);
+            }
+            return os;
+        };
+    }
+}
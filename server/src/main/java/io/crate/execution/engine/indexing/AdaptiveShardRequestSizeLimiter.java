@@ -0,0 +1,89 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.indexing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+
+/**
+ * Flushes a bulk once one of its shard requests reaches a byte threshold.
+ *
+ * The threshold adapts to the observed latency of the shard requests:
+ * It is sized so that a single shard request takes about {@link #TARGET_REQUEST_DURATION_NS} to be processed.
+ * Fast shards get bigger requests to amortize the round-trip, slow shards get smaller ones so that the
+ * next requests can be sent while the previous ones are still in-flight.
+ */
+class AdaptiveShardRequestSizeLimiter implements Predicate<ShardedRequests<?, ?>> {
+
+    private static final Logger LOGGER = LogManager.getLogger(AdaptiveShardRequestSizeLimiter.class);
+
+    static final long MIN_REQUEST_BYTES = ByteSizeUnit.KB.toBytes(256);
+    static final long MAX_REQUEST_BYTES = ByteSizeUnit.MB.toBytes(32);
+    static final long INITIAL_REQUEST_BYTES = ByteSizeUnit.MB.toBytes(4);
+    static final long TARGET_REQUEST_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Weight of a new sample. Smoothens out the threshold to avoid jumping around on single outliers.
+     */
+    private static final double SAMPLE_WEIGHT = 0.25;
+
+    private volatile long requestBytesLimit = INITIAL_REQUEST_BYTES;
+
+    @Override
+    public boolean test(ShardedRequests<?, ?> requests) {
+        return requests.largestShardRequestBytes() >= requestBytesLimit;
+    }
+
+    long requestBytesLimit() {
+        return requestBytesLimit;
+    }
+
+    /**
+     * Adjusts the threshold based on a completed shard request
+     *
+     * @param requestBytes estimated size of the request
+     * @param durationInNs time it took until the response for the request arrived
+     */
+    synchronized void onResponse(long requestBytes, long durationInNs) {
+        if (requestBytes <= 0) {
+            return;
+        }
+        double bytesPerNs = (double) requestBytes / Math.max(1L, durationInNs);
+        long optimalBytes = (long) Math.min(bytesPerNs * TARGET_REQUEST_DURATION_NS, MAX_REQUEST_BYTES);
+        long newLimit = (long) (requestBytesLimit * (1 - SAMPLE_WEIGHT) + optimalBytes * SAMPLE_WEIGHT);
+        newLimit = Math.max(MIN_REQUEST_BYTES, Math.min(MAX_REQUEST_BYTES, newLimit));
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(
+                "Shard request of {} bytes took {}ms, adjusting shard request limit from {} to {} bytes",
+                requestBytes,
+                TimeUnit.NANOSECONDS.toMillis(durationInNs),
+                requestBytesLimit,
+                newLimit
+            );
+        }
+        requestBytesLimit = newLimit;
+    }
+}
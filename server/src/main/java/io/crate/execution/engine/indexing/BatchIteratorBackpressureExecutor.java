@@ -50,8 +50,12 @@ import io.crate.exceptions.JobKilledException;
  * The future returned on {@link #consumeIteratorAndExecute()} completes
  * once all items in the BatchIterator have been processed.
  *
- * If {@link #pauseConsumption} returns true it will pause for a while ({@link #throttleDelay})
- * and afterwards resume consumption.
+ * If {@link #pauseConsumption} returns true it will pause for a while ({@link #getDelayInMs})
+ * and afterwards resume consumption. The consumption is resumed earlier if one of the in-flight
+ * executions completes in the meantime and {@link #pauseConsumption} no longer holds for the item
+ * which caused the pause, as the completion freed up the resources the pause was waiting for.
+ * The item which caused the pause is already built at that point, so it can be executed right away
+ * while the following items are being built.
  */
 public class BatchIteratorBackpressureExecutor<T, R> {
 
@@ -74,6 +78,12 @@ public class BatchIteratorBackpressureExecutor<T, R> {
     private final Function<T, Long> getDelayInMs;
     private final AtomicReference<R> resultRef;
     private final AtomicReference<Throwable> failureRef = new AtomicReference<>(null);
+
+    /**
+     * Set while the consumption is paused. Whoever manages to reset it resumes the consumption;
+     * either the scheduled resume or a completing execution.
+     */
+    private final AtomicReference<Object> pauseToken = new AtomicReference<>(null);
     private volatile boolean consumptionFinished = false;
 
 
@@ -136,7 +146,13 @@ public class BatchIteratorBackpressureExecutor<T, R> {
             }
             // else: waiting for other async-operations to finish
         } else {
-            consumeIterator();
+            Object token = pauseToken.get();
+            if (token == null) {
+                consumeIterator();
+            } else if (pauseConsumption.test(batchIterator.currentElement()) == false) {
+                resumeConsumption(token);
+            }
+            // else: still paused, the scheduled resume continues the consumption
         }
     }
 
@@ -174,9 +190,13 @@ public class BatchIteratorBackpressureExecutor<T, R> {
                         if (LOGGER.isDebugEnabled()) {
                             LOGGER.debug("Pausing consumption jobId={} delayInMs={}", jobId, delayInMs);
                         }
-                        // release semaphore inside resumeConsumption: after throttle delay has passed
-                        // to make sure callbacks of previously triggered async operations don't resume consumption
-                        scheduler.schedule(this::resumeConsumption, delayInMs, TimeUnit.MILLISECONDS);
+                        // release semaphore inside resumeConsumption: after throttle delay has passed or
+                        // once a previously triggered async operation completed.
+                        // The token makes sure only one of them resumes and that a stale scheduled resume
+                        // doesn't interfere with a later pause.
+                        Object token = new Object();
+                        pauseToken.set(token);
+                        scheduler.schedule(() -> resumeConsumption(token), delayInMs, TimeUnit.MILLISECONDS);
                         return;
                     }
                     // fall through to execute
@@ -209,7 +229,10 @@ public class BatchIteratorBackpressureExecutor<T, R> {
         execute.apply(item).whenComplete(continueConsumptionOrFinish);
     }
 
-    private void resumeConsumption() {
+    private void resumeConsumption(Object token) {
+        if (pauseToken.compareAndSet(token, null) == false) {
+            return;
+        }
         T item = batchIterator.currentElement();
         try {
             executor.execute(() -> doResumeConsumption(item));
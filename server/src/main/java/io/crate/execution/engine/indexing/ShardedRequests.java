@@ -42,12 +42,14 @@ public final class ShardedRequests<TReq extends ShardRequest<TReq, TItem>, TItem
     final Map<String, String> sourceUrisWithFailure = new HashMap<>();
     final List<RowSourceInfo> rowSourceInfos = new ArrayList<>();
     final Map<ShardLocation, TReq> itemsByShard = new HashMap<>();
+    final Map<ShardLocation, Long> bytesByShard = new HashMap<>();
 
     private final Function<ShardId, TReq> requestFactory;
     private final RamAccounting ramAccounting;
 
     private int location = -1;
     private long usedMemoryEstimate = 0L;
+    private long largestShardRequestBytes = 0L;
 
     /**
      * @param requestFactory function to create a request
@@ -77,6 +79,8 @@ public final class ShardedRequests<TReq extends ShardRequest<TReq, TItem>, TItem
         location++;
         req.add(location, item);
         rowSourceInfos.add(rowSourceInfo);
+        long shardRequestBytes = bytesByShard.merge(shardLocation, itemSizeInBytes, Long::sum);
+        largestShardRequestBytes = Math.max(largestShardRequestBytes, shardRequestBytes);
     }
 
     @Override
@@ -84,6 +88,13 @@ public final class ShardedRequests<TReq extends ShardRequest<TReq, TItem>, TItem
         return usedMemoryEstimate;
     }
 
+    /**
+     * @return the estimated size of the biggest request within {@link #itemsByShard()}
+     */
+    public long largestShardRequestBytes() {
+        return largestShardRequestBytes;
+    }
+
     void addFailedItem(String sourceUri, String readFailure, Long lineNumber) {
         List<ReadFailureAndLineNumber> itemsWithFailure = itemsWithFailureBySourceUri.computeIfAbsent(
             sourceUri, k -> new ArrayList<>());
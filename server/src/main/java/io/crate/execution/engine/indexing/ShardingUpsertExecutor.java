@@ -93,6 +93,7 @@ public class ShardingUpsertExecutor
     private final BulkRequestExecutor<ShardUpsertRequest> requestExecutor;
     private final ElasticsearchClient elasticsearchClient;
     private final BulkShardCreationLimiter bulkShardCreationLimiter;
+    private final AdaptiveShardRequestSizeLimiter shardRequestSizeLimiter = new AdaptiveShardRequestSizeLimiter();
     private final UpsertResultCollector resultCollector;
     private final boolean isDebugEnabled;
     private final CircuitBreaker queryCircuitBreaker;
@@ -208,6 +209,7 @@ public class ShardingUpsertExecutor
 
             String nodeId = entry.getKey().nodeId;
             ConcurrencyLimit nodeLimit = nodeLimits.get(nodeId);
+            long requestBytes = requests.bytesByShard.getOrDefault(entry.getKey(), 0L);
             ActionListener<ShardResponse> listener =
                 new ShardResponseActionListener(
                     numRequests,
@@ -216,6 +218,7 @@ public class ShardingUpsertExecutor
                     resultCollector.accumulator(),
                     requests.rowSourceInfos,
                     nodeLimit,
+                    requestBytes,
                     resultFuture);
 
             listener = new RetryListener<>(
@@ -271,7 +274,7 @@ public class ShardingUpsertExecutor
             bulkSize,
             () -> new ShardedRequests<>(requestFactory, ramAccounting),
             grouper,
-            bulkShardCreationLimiter.or(isUsedBytesOverThreshold)
+            bulkShardCreationLimiter.or(isUsedBytesOverThreshold).or(shardRequestSizeLimiter)
         );
         // If IO is involved the source iterator should pause when the target node reaches a concurrent job counter limit.
         // Without IO, we assume that the source iterates over in-memory structures which should be processed as
@@ -321,6 +324,7 @@ public class ShardingUpsertExecutor
         private final AtomicReference<Exception> interrupt;
         private final CompletableFuture<UpsertResults> upsertResultFuture;
         private final ConcurrencyLimit nodeLimit;
+        private final long requestBytes;
         private final long startTime;
 
         ShardResponseActionListener(AtomicInteger numRequests,
@@ -329,6 +333,7 @@ public class ShardingUpsertExecutor
                                     UpsertResultCollector.Accumulator resultAccumulator,
                                     List<RowSourceInfo> rowSourceInfos,
                                     ConcurrencyLimit nodeLimit,
+                                    long requestBytes,
                                     CompletableFuture<UpsertResults> upsertResultFuture) {
             this.numRequests = numRequests;
             this.interrupt = interrupt;
@@ -336,6 +341,7 @@ public class ShardingUpsertExecutor
             this.resultAccumulator = resultAccumulator;
             this.rowSourceInfos = rowSourceInfos;
             this.nodeLimit = nodeLimit;
+            this.requestBytes = requestBytes;
             this.startTime = nodeLimit.startSample();
             this.upsertResultFuture = upsertResultFuture;
         }
@@ -343,6 +349,7 @@ public class ShardingUpsertExecutor
         @Override
         public void onResponse(ShardResponse shardResponse) {
             nodeLimit.onSample(startTime, false);
+            shardRequestSizeLimiter.onResponse(requestBytes, System.nanoTime() - startTime);
             resultAccumulator.accept(upsertResults, shardResponse, rowSourceInfos);
             maybeSetInterrupt(shardResponse.failure());
             countdown();
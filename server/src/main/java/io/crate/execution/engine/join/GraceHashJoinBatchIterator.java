@@ -0,0 +1,333 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.Streamer;
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.netty.util.collection.IntObjectHashMap;
+
+/**
+ * Hash join which partitions both sides to disk before joining them (grace hash join).
+ *
+ * <pre>
+ *     Partition Phase:
+ *     for (leftRow in left) {
+ *         write leftRow to leftPartitions[hash(leftRow) % numPartitions]
+ *     }
+ *     for (rightRow in right) {
+ *         if (leftHashes mightContain hash(rightRow)) {
+ *             write rightRow to rightPartitions[hash(rightRow) % numPartitions]
+ *         }
+ *     }
+ *
+ *     Join Phase:
+ *     for (p in partitions) {
+ *         load rows of leftPartitions[p] into Buffer (HashMap) until the blockSize is reached
+ *         for (rightRow in rightPartitions[p]) {
+ *             probe Buffer like {@link HashInnerJoinBatchIterator}
+ *         }
+ *         repeat with the next block if leftPartitions[p] did not fit into a single block
+ *     }
+ * </pre>
+ * <p>
+ * The hashes of the left rows are recorded in a bloom filter, so that right rows which can't have a match
+ * are dropped before they're written to disk. Once the left side is partitioned, the filter is handed to
+ * {@code onLeftHashes} so that it can be pushed down to the producers of the right side.
+ * </p>
+ * <p>
+ * Both sources are consumed exactly once, no matter how many blocks are required to process the left side.
+ * Only if a single partition doesn't fit into one block, the right partition file is re-read
+ * from the local disk.
+ * </p>
+ */
+public class GraceHashJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    /**
+     * Upper bound for the number of partitions, each partition requires two open files.
+     */
+    static final int MAX_PARTITIONS = 64;
+
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final ToIntFunction<Row> hashBuilderForLeft;
+    private final ToIntFunction<Row> hashBuilderForRight;
+    private final IntSupplier calculateBlockSize;
+    private final SpilledRowPartitions leftPartitions;
+    private final SpilledRowPartitions rightPartitions;
+    private final HashBloomFilter leftHashes;
+    private final RamAccounting filterRamAccounting;
+    private final Consumer<HashBloomFilter> onLeftHashes;
+    private final IntObjectHashMap<List<Object[]>> buffer = new IntObjectHashMap<>();
+
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow rightRow = new UnsafeArrayRow();
+
+    private boolean partitioned = false;
+    private int partition = -1;
+
+    @Nullable
+    private SpilledRowPartitions.Reader leftReader;
+
+    @Nullable
+    private SpilledRowPartitions.Reader rightReader;
+
+    @Nullable
+    private Iterator<Object[]> leftMatchingRowsIterator;
+
+    private volatile Throwable killed;
+
+    /**
+     * Calculates the number of partitions so that each left partition is expected to fit into a single block.
+     */
+    public static int numPartitions(long numberOfRowsForLeft, int blockSize) {
+        long numPartitions = (numberOfRowsForLeft + blockSize - 1) / Math.max(blockSize, 1);
+        return (int) Math.max(2, Math.min(numPartitions, MAX_PARTITIONS));
+    }
+
+    /**
+     * @param filterRamAccounting accounts the bloom filter on the hashes of the left rows
+     * @param onLeftHashes called with the bloom filter once all left rows were added to it
+     */
+    public GraceHashJoinBatchIterator(BatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      Streamer<?>[] leftStreamers,
+                                      Streamer<?>[] rightStreamers,
+                                      RowAccounting<Object[]> leftRowAccounting,
+                                      RamAccounting filterRamAccounting,
+                                      Consumer<HashBloomFilter> onLeftHashes,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      ToIntFunction<Row> hashBuilderForLeft,
+                                      ToIntFunction<Row> hashBuilderForRight,
+                                      IntSupplier calculateBlockSize,
+                                      long numberOfRowsForLeft,
+                                      int numPartitions) {
+        super(left, right, combiner);
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.hashBuilderForLeft = hashBuilderForLeft;
+        this.hashBuilderForRight = hashBuilderForRight;
+        this.calculateBlockSize = calculateBlockSize;
+        this.leftHashes = new HashBloomFilter(numberOfRowsForLeft);
+        this.filterRamAccounting = filterRamAccounting;
+        this.onLeftHashes = onLeftHashes;
+        filterRamAccounting.addBytes(leftHashes.sizeInBytes());
+        this.leftPartitions = new SpilledRowPartitions(leftStreamers, numPartitions);
+        this.rightPartitions = new SpilledRowPartitions(rightStreamers, numPartitions);
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfKilled();
+        if (partitioned) {
+            // Sources have been fully consumed into the partitions, they're re-read from disk.
+            resetBuffer();
+            partition = -1;
+            leftReader = null;
+            rightReader = null;
+        }
+        // Otherwise no rows have been emitted yet and the partitioning continues
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        try {
+            if (!partitioned && !partitionSources()) {
+                return false;
+            }
+            return joinPartitions();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return true if both sides are fully partitioned,
+     *         false if the active source needs to load the next batch.
+     */
+    private boolean partitionSources() throws IOException {
+        if (activeIt == left) {
+            while (left.moveNext()) {
+                Row row = left.currentElement();
+                int hash = hashBuilderForLeft.applyAsInt(row);
+                leftHashes.add(hash);
+                leftPartitions.add(row, hash);
+            }
+            if (!left.allLoaded()) {
+                return false;
+            }
+            onLeftHashes.accept(leftHashes);
+            activeIt = right;
+        }
+        while (right.moveNext()) {
+            Row row = right.currentElement();
+            int hash = hashBuilderForRight.applyAsInt(row);
+            if (leftHashes.mightContain(hash)) {
+                rightPartitions.add(row, hash);
+            }
+        }
+        if (!right.allLoaded()) {
+            return false;
+        }
+        partitioned = true;
+        return true;
+    }
+
+    private boolean joinPartitions() throws IOException {
+        while (true) {
+            // In case of multiple matches on the left side (duplicate values or hash collisions)
+            if (leftMatchingRowsIterator != null && findMatchingRows()) {
+                return true;
+            }
+            leftMatchingRowsIterator = null;
+            if (rightReader != null) {
+                while (rightReader.next()) {
+                    List<Object[]> leftMatchingRows = buffer.get(rightReader.hash());
+                    if (leftMatchingRows != null) {
+                        leftMatchingRowsIterator = leftMatchingRows.iterator();
+                        combiner.setRight(rightRow.cells(rightReader.cells()));
+                        if (findMatchingRows()) {
+                            return true;
+                        }
+                    }
+                }
+                rightReader = null;
+            }
+            if (!loadNextBlock()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Loads the next block of rows of the current left partition into the buffer,
+     * or of the next partition if the current one is exhausted.
+     *
+     * @return false if all partitions have been processed.
+     */
+    private boolean loadNextBlock() throws IOException {
+        resetBuffer();
+        int numPartitions = leftPartitions.numPartitions();
+        while (leftReader == null || leftReader.exhausted()) {
+            partition++;
+            if (partition >= numPartitions) {
+                partition = numPartitions;
+                leftReader = null;
+                return false;
+            }
+            // An empty side can't produce any matches for an inner join
+            if (leftPartitions.numRows(partition) > 0 && rightPartitions.numRows(partition) > 0) {
+                leftReader = leftPartitions.reader(partition);
+            }
+        }
+        int blockSize = calculateBlockSize.getAsInt();
+        int numberOfRowsInBuffer = 0;
+        while (numberOfRowsInBuffer < blockSize && leftReader.next()) {
+            Object[] cells = leftReader.cells();
+            leftRowAccounting.accountForAndMaybeBreak(cells);
+            addToBuffer(cells, leftReader.hash());
+            numberOfRowsInBuffer++;
+        }
+        rightReader = rightPartitions.reader(partition);
+        return true;
+    }
+
+    private void resetBuffer() {
+        buffer.clear();
+        leftMatchingRowsIterator = null;
+        leftRowAccounting.release();
+    }
+
+    private void addToBuffer(Object[] currentRow, int hash) {
+        List<Object[]> existingRows = buffer.get(hash);
+        if (existingRows == null) {
+            existingRows = new ArrayList<>();
+            buffer.put(hash, existingRows);
+        }
+        existingRows.add(currentRow);
+    }
+
+    private boolean findMatchingRows() {
+        while (leftMatchingRowsIterator.hasNext()) {
+            leftRow.cells(leftMatchingRowsIterator.next());
+            combiner.setLeft(leftRow);
+            if (joinCondition.test(combiner.currentElement())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (killed == null) {
+            killed = BatchIterator.CLOSED;
+        }
+        super.close();
+        releaseResources();
+    }
+
+    @Override
+    public void kill(@NotNull Throwable throwable) {
+        killed = throwable;
+        super.kill(throwable);
+        releaseResources();
+    }
+
+    private void releaseResources() {
+        buffer.clear();
+        leftRowAccounting.release();
+        filterRamAccounting.release();
+        try (rightPartitions) {
+            leftPartitions.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.join;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import com.carrotsearch.hppc.BitMixer;
+
+/**
+ * A bloom filter on the (already computed) join condition hashes of the rows of one side of a join.
+ * <p>
+ * If {@link #mightContain(int)} returns false for the hash of a row of the other side,
+ * the row can't have a match as rows which fulfill the join condition have the same hash.
+ * </p>
+ * The filter is sized upfront based on the expected number of entries.
+ * If more entries are added the rate of false positives increases, but the filter remains correct.
+ */
+public final class HashBloomFilter implements Writeable {
+
+    private static final int NUM_HASH_FUNCTIONS = 3;
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int MIN_NUM_BITS = 1 << 12;
+    private static final int MAX_NUM_BITS = 1 << 24;
+
+    private final long[] bits;
+    private final int mask;
+
+    public HashBloomFilter(long expectedEntries) {
+        long numBits = Math.min(Math.max(expectedEntries, 1), MAX_NUM_BITS) * BITS_PER_ENTRY;
+        int size = Math.max(MIN_NUM_BITS, (int) Math.min(Long.highestOneBit(numBits) << 1, MAX_NUM_BITS));
+        this.bits = new long[size >>> 6];
+        this.mask = size - 1;
+    }
+
+    public HashBloomFilter(StreamInput in) throws IOException {
+        this.bits = in.readLongArray();
+        if (bits.length == 0 || Integer.bitCount(bits.length) != 1 || bits.length > MAX_NUM_BITS >>> 6) {
+            throw new IOException("Invalid bloom filter size: " + bits.length);
+        }
+        this.mask = (bits.length << 6) - 1;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeLongArray(bits);
+    }
+
+    public void add(int hash) {
+        int h1 = BitMixer.mix32(hash);
+        int h2 = BitMixer.mix32(h1) | 1;
+        for (int i = 0; i < NUM_HASH_FUNCTIONS; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int hash) {
+        int h1 = BitMixer.mix32(hash);
+        int h2 = BitMixer.mix32(h1) | 1;
+        for (int i = 0; i < NUM_HASH_FUNCTIONS; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the filter in bytes
+     */
+    public long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+}
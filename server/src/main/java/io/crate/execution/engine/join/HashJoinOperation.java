@@ -23,10 +23,12 @@ package io.crate.execution.engine.join;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.jetbrains.annotations.Nullable;
 
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
@@ -34,19 +36,43 @@ import io.crate.data.CapturingRowConsumer;
 import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.RowConsumer;
+import io.crate.data.breaker.RamAccounting;
 import io.crate.data.breaker.RowAccounting;
 import io.crate.data.join.CombinedRow;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.distribution.UpstreamRowFilter;
+import io.crate.execution.jobs.PageBucketReceiver;
 import io.crate.expression.InputFactory;
+import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.TransactionContext;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 
 public class HashJoinOperation implements CompletionListenable {
 
+    /**
+     * If the right side turns out to be smaller than the estimated number of rows of the left side
+     * by at least this factor, the right side is used to build the hash table.
+     */
+    static final int SWAP_FACTOR = 10;
+
     private final CapturingRowConsumer leftConsumer;
     private final CapturingRowConsumer rightConsumer;
     private final RowConsumer resultConsumer;
 
+    /**
+     * Positions of the join key within the right rows, null if the key isn't made of plain columns
+     */
+    @Nullable
+    private final int[] rightKeyColumns;
+
+    @Nullable
+    private volatile PageBucketReceiver rightReceiver;
+
+    /**
+     * @param filterRamAccounting accounts the bloom filter on the join keys of the left side
+     */
     public HashJoinOperation(int numLeftCols,
                              int numRightCols,
                              RowConsumer nlResultConsumer,
@@ -54,13 +80,18 @@ public class HashJoinOperation implements CompletionListenable {
                              List<Symbol> joinLeftInputs,
                              List<Symbol> joinRightInputs,
                              RowAccounting<Object[]> rowAccounting,
+                             RowAccounting<Object[]> rightRowAccounting,
+                             RamAccounting filterRamAccounting,
                              TransactionContext txnCtx,
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
                              long estimatedRowSizeForLeft,
-                             long numberOfRowsForLeft) {
+                             long numberOfRowsForLeft,
+                             List<DataType<?>> leftOutputTypes,
+                             List<DataType<?>> rightOutputTypes) {
 
         this.resultConsumer = nlResultConsumer;
+        this.rightKeyColumns = inputColumnIndices(joinRightInputs);
         this.leftConsumer = new CapturingRowConsumer(nlResultConsumer.requiresScroll(), nlResultConsumer.completionFuture());
         this.rightConsumer = new CapturingRowConsumer(true, nlResultConsumer.completionFuture());
         CompletableFuture.allOf(leftConsumer.capturedBatchIterator(), rightConsumer.capturedBatchIterator())
@@ -77,12 +108,14 @@ public class HashJoinOperation implements CompletionListenable {
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs),
                             rowAccounting,
-                            new RamBlockSizeCalculator(
-                                Paging.PAGE_SIZE,
-                                circuitBreaker,
-                                estimatedRowSizeForLeft,
-                                numberOfRowsForLeft
-                            )
+                            rightRowAccounting,
+                            filterRamAccounting,
+                            this::pushDownLeftHashes,
+                            circuitBreaker,
+                            estimatedRowSizeForLeft,
+                            numberOfRowsForLeft,
+                            leftOutputTypes,
+                            rightOutputTypes
                         );
                         nlResultConsumer.accept(joinIterator, null);
                     } catch (Exception e) {
@@ -107,6 +140,38 @@ public class HashJoinOperation implements CompletionListenable {
         return rightConsumer;
     }
 
+    /**
+     * Pushes the bloom filter on the join keys of the left side down to the upstreams of the right side
+     * once it's built, so that they don't send rows which can't have a match.
+     * This is only done if the join spills both sides to disk.
+     *
+     * @param rightReceiver receives the right rows from the upstreams.
+     *                      Must pass them on as they are, without projections in between.
+     */
+    public void pushDownFilterTo(PageBucketReceiver rightReceiver) {
+        this.rightReceiver = rightReceiver;
+    }
+
+    private void pushDownLeftHashes(HashBloomFilter leftHashes) {
+        PageBucketReceiver receiver = rightReceiver;
+        if (receiver != null && rightKeyColumns != null) {
+            receiver.setUpstreamRowFilter(new UpstreamRowFilter(rightKeyColumns, leftHashes));
+        }
+    }
+
+    @Nullable
+    private static int[] inputColumnIndices(List<Symbol> symbols) {
+        int[] indices = new int[symbols.size()];
+        for (int i = 0; i < indices.length; i++) {
+            if (symbols.get(i) instanceof InputColumn inputColumn) {
+                indices[i] = inputColumn.index();
+            } else {
+                return null;
+            }
+        }
+        return indices;
+    }
+
     private static ToIntFunction<Row> getHashBuilderFromSymbols(TransactionContext txnCtx,
                                                                 InputFactory inputFactory,
                                                                 List<Symbol> inputs) {
@@ -134,8 +199,74 @@ public class HashJoinOperation implements CompletionListenable {
                                                              ToIntFunction<Row> hashBuilderForLeft,
                                                              ToIntFunction<Row> hashBuilderForRight,
                                                              RowAccounting<Object[]> rowAccounting,
-                                                             RamBlockSizeCalculator blockSizeCalculator) {
+                                                             RowAccounting<Object[]> rightRowAccounting,
+                                                             RamAccounting filterRamAccounting,
+                                                             Consumer<HashBloomFilter> onLeftHashes,
+                                                             CircuitBreaker circuitBreaker,
+                                                             long estimatedRowSizeForLeft,
+                                                             long numberOfRowsForLeft,
+                                                             List<DataType<?>> leftOutputTypes,
+                                                             List<DataType<?>> rightOutputTypes) {
+        // The build side is chosen by the planner based on table statistics, which can be far off
+        // (e.g. stale or not accounting for filters). If the right side is already fully loaded
+        // and turns out to be a lot smaller, it's used to build the hash table instead. It fits into a
+        // single block, so the left side is read only once.
+        // (The right types are missing if the phase was created by a node on an older version)
+        if (rightOutputTypes.size() == rightNumCols) {
+            int numberOfRowsForRight = numRowsIfAllLoaded(right);
+            if (numberOfRowsForRight >= 0
+                && numberOfRowsForRight < Paging.PAGE_SIZE
+                && numberOfRowsForLeft > (long) numberOfRowsForRight * SWAP_FACTOR) {
+                return new HashInnerJoinBatchIterator(
+                    right,
+                    left,
+                    rightRowAccounting,
+                    new SwappedCombinedRow(leftNumCols, rightNumCols),
+                    joinCondition,
+                    hashBuilderForRight,
+                    hashBuilderForLeft,
+                    // Greater than the number of rows so that the block is never considered full
+                    // and the left side doesn't need to be scrolled.
+                    () -> numberOfRowsForRight + 1
+                );
+            }
+        }
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
+        RamBlockSizeCalculator blockSizeCalculator = new RamBlockSizeCalculator(
+            Paging.PAGE_SIZE,
+            circuitBreaker,
+            estimatedRowSizeForLeft,
+            numberOfRowsForLeft
+        );
+        // If the left side is expected to require more than one block, the block based join would
+        // have to re-read the whole right side for each block. Partitioning both sides to disk
+        // instead requires reading each source only once.
+        if (rightOutputTypes.size() == rightNumCols && numberOfRowsForLeft > blockSizeCalculator.getAsInt()) {
+            // Both sources are fully consumed before the join starts, so the block size isn't
+            // restricted by the page size to prevent dead locks of distributed joins.
+            RamBlockSizeCalculator partitionBlockSizeCalculator = new RamBlockSizeCalculator(
+                Integer.MAX_VALUE,
+                circuitBreaker,
+                estimatedRowSizeForLeft,
+                numberOfRowsForLeft
+            );
+            return new GraceHashJoinBatchIterator(
+                left,
+                right,
+                DataTypes.getStreamers(leftOutputTypes),
+                DataTypes.getStreamers(rightOutputTypes),
+                rowAccounting,
+                filterRamAccounting,
+                onLeftHashes,
+                combiner,
+                joinCondition,
+                hashBuilderForLeft,
+                hashBuilderForRight,
+                partitionBlockSizeCalculator,
+                numberOfRowsForLeft,
+                GraceHashJoinBatchIterator.numPartitions(numberOfRowsForLeft, partitionBlockSizeCalculator.getAsInt())
+            );
+        }
         return new HashInnerJoinBatchIterator(
             left,
             right,
@@ -146,4 +277,44 @@ public class HashJoinOperation implements CompletionListenable {
             hashBuilderForRight,
             blockSizeCalculator);
     }
+
+    /**
+     * Counts the rows of a source without loading more data.
+     * The source must be scrollable, it's moved back to the start afterwards.
+     *
+     * @return the number of rows or -1 if not all data of the source is loaded yet.
+     */
+    private static int numRowsIfAllLoaded(BatchIterator<Row> it) {
+        if (!it.allLoaded()) {
+            return -1;
+        }
+        int numRows = 0;
+        while (it.moveNext()) {
+            numRows++;
+        }
+        it.moveToStart();
+        return numRows;
+    }
+
+    /**
+     * Combines rows of a join where the right relation is used as the build (left) side of the
+     * {@link HashInnerJoinBatchIterator}. The columns are kept in the order of the original
+     * left and right relation.
+     */
+    private static class SwappedCombinedRow extends CombinedRow {
+
+        SwappedCombinedRow(int leftNumCols, int rightNumCols) {
+            super(leftNumCols, rightNumCols);
+        }
+
+        @Override
+        public void setLeft(Row o) {
+            super.setRight(o);
+        }
+
+        @Override
+        public void setRight(Row o) {
+            super.setLeft(o);
+        }
+    }
 }
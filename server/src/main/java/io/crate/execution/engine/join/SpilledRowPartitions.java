@@ -0,0 +1,191 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+
+/**
+ * Rows of one side of a join, hash-partitioned into node-local temporary files.
+ *
+ * <pre>
+ *  row:  hash | cell[0] .. cell[numColumns - 1]
+ * </pre>
+ *
+ * The hash of the join condition inputs is written along with the row,
+ * so that it doesn't have to be re-computed when the partition is read back.
+ * A partition can be read multiple times via {@link #reader(int)}, but only one reader
+ * per partition may be active at a time.
+ */
+final class SpilledRowPartitions implements Closeable {
+
+    private final Streamer<Object>[] streamers;
+    private final FileChannel[] channels;
+    private final StreamOutput[] outputs;
+    private final int[] numRows;
+
+    @SuppressWarnings("unchecked")
+    SpilledRowPartitions(Streamer<?>[] streamers, int numPartitions) {
+        this.streamers = (Streamer<Object>[]) streamers;
+        this.channels = new FileChannel[numPartitions];
+        this.outputs = new StreamOutput[numPartitions];
+        this.numRows = new int[numPartitions];
+    }
+
+    int numPartitions() {
+        return numRows.length;
+    }
+
+    int partition(int hash) {
+        return Math.floorMod(BitMixer.mix(hash), numRows.length);
+    }
+
+    int numRows(int partition) {
+        return numRows[partition];
+    }
+
+    void add(Row row, int hash) throws IOException {
+        int partition = partition(hash);
+        StreamOutput out = output(partition);
+        out.writeInt(hash);
+        for (int i = 0; i < streamers.length; i++) {
+            streamers[i].writeValueTo(out, row.get(i));
+        }
+        numRows[partition]++;
+    }
+
+    /**
+     * Opens a reader positioned at the first row of the partition.
+     * Any previously opened reader of the same partition becomes invalid.
+     */
+    Reader reader(int partition) throws IOException {
+        FileChannel channel = channels[partition];
+        if (channel == null) {
+            return new Reader(null, 0);
+        }
+        outputs[partition].flush();
+        channel.position(0);
+        StreamInput in = new InputStreamStreamInput(new BufferedInputStream(Channels.newInputStream(channel)));
+        return new Reader(in, numRows[partition]);
+    }
+
+    private StreamOutput output(int partition) throws IOException {
+        StreamOutput out = outputs[partition];
+        if (out == null) {
+            Path file = Files.createTempFile("crate-hashjoin-", ".spill");
+            FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE
+            );
+            channels[partition] = channel;
+            out = new OutputStreamStreamOutput(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            outputs[partition] = out;
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (int i = 0; i < channels.length; i++) {
+            final FileChannel channel = channels[i];
+            channels[i] = null;
+            outputs[i] = null;
+            numRows[i] = 0;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    exception = ExceptionsHelper.useOrSuppress(exception, e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    final class Reader {
+
+        private final StreamInput in;
+        private int remaining;
+        private int hash;
+        private Object[] cells;
+
+        private Reader(StreamInput in, int numRows) {
+            this.in = in;
+            this.remaining = numRows;
+        }
+
+        boolean exhausted() {
+            return remaining == 0;
+        }
+
+        /**
+         * Reads the next row.
+         * @return false if there are no more rows in the partition.
+         */
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            hash = in.readInt();
+            cells = new Object[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                cells[i] = streamers[i].readValueFrom(in);
+            }
+            remaining--;
+            return true;
+        }
+
+        int hash() {
+            return hash;
+        }
+
+        /**
+         * @return the cells of the current row, a new array is allocated for each row.
+         */
+        Object[] cells() {
+            return cells;
+        }
+    }
+}
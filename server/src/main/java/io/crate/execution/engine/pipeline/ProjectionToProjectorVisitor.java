@@ -96,6 +96,7 @@ import io.crate.execution.dsl.projection.builder.InputColumns;
 import io.crate.execution.engine.CorrelatedJoinProjector;
 import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.AggregationPipe;
+import io.crate.execution.engine.aggregation.GroupingCollector;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.NestableCollectExpression;
@@ -348,7 +349,8 @@ public class ProjectionToProjectorVisitor
             context.ramAccounting,
             context.memoryManager,
             clusterService.state().nodes().getMinNodeVersion(),
-            indexVersionCreated
+            indexVersionCreated,
+            GroupingCollector.computeSpillThreshold(circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY))
         );
     }
 
@@ -387,21 +389,10 @@ public class ProjectionToProjectorVisitor
             SymbolEvaluator.evaluate(context.txnCtx, nodeCtx, projection.uri(), Row.EMPTY, SubQueryResults.EMPTY));
         assert uri != null : "URI must not be null";
 
-        StringBuilder sb = new StringBuilder(uri);
-        Symbol resolvedFileName = normalizer.normalize(WriterProjection.DIRECTORY_TO_FILENAME, context.txnCtx);
-        assert resolvedFileName instanceof Literal : "resolvedFileName must be a Literal, but is: " + resolvedFileName;
-        assert resolvedFileName.valueType().id() == StringType.ID :
-            "resolvedFileName.valueType() must be " + StringType.INSTANCE;
-
-        String fileName = (String) ((Literal) resolvedFileName).value();
-        if (!uri.endsWith("/")) {
-            sb.append("/");
-        }
-        sb.append(fileName);
-        if (projection.compressionType() == WriterProjection.CompressionType.GZIP) {
-            sb.append(".gz");
+        // COPY TO STDOUT writes a single stream instead of a file per shard
+        if (!projection.writesToStdout()) {
+            uri = shardFileUri(projection, uri, context.txnCtx);
         }
-        uri = sb.toString();
 
         Map<ColumnIdent, Object> overwrites =
             symbolMapToObject(projection.overwrites(), ctx, context.txnCtx);
@@ -411,13 +402,38 @@ public class ProjectionToProjectorVisitor
             uri,
             projection.compressionType(),
             inputs,
+            Symbols.typeView(projection.inputs()),
             ctx.expressions(),
             overwrites,
             projection.outputNames(),
             projection.outputFormat(),
             fileOutputFactoryMap,
-            projection.withClauseOptions()
+            projection.withClauseOptions(),
+            context.ramAccounting
+        );
+    }
+
+    private String shardFileUri(WriterProjection projection, String directoryUri, TransactionContext txnCtx) {
+        boolean parquet = projection.outputFormat() == WriterProjection.OutputFormat.PARQUET;
+        StringBuilder sb = new StringBuilder(directoryUri);
+        Symbol resolvedFileName = normalizer.normalize(
+            parquet ? WriterProjection.DIRECTORY_TO_PARQUET_FILENAME : WriterProjection.DIRECTORY_TO_FILENAME,
+            txnCtx
         );
+        assert resolvedFileName instanceof Literal : "resolvedFileName must be a Literal, but is: " + resolvedFileName;
+        assert resolvedFileName.valueType().id() == StringType.ID :
+            "resolvedFileName.valueType() must be " + StringType.INSTANCE;
+
+        String fileName = (String) ((Literal) resolvedFileName).value();
+        if (!directoryUri.endsWith("/")) {
+            sb.append("/");
+        }
+        sb.append(fileName);
+        // Parquet files are compressed per page, not as a whole
+        if (projection.compressionType() == WriterProjection.CompressionType.GZIP && !parquet) {
+            sb.append(".gz");
+        }
+        return sb.toString();
     }
 
     private Map<ColumnIdent, Object> symbolMapToObject(Map<ColumnIdent, Symbol> symbolMap,
@@ -56,6 +56,9 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
     private int seenFrameUpperBound = -1;
     private Object resultForCurrentFrame;
 
+    @Nullable
+    private AggregationSegmentTree segmentTree;
+
     AggregateToWindowFunctionAdapter(AggregationFunction aggregationFunction,
                                      ExpressionsInput<Row, Boolean> filter,
                                      Version indexVersionCreated,
@@ -99,7 +102,12 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                           Input... args) {
         assert ignoreNulls == null;
         if (idxInPartition == 0) {
+            segmentTree = null;
             recomputeFunction(frame, expressions, args);
+        } else if (segmentTree != null) {
+            if (frame.lowerBound() != seenFrameLowerBound || frame.upperBoundExclusive() != seenFrameUpperBound) {
+                executeAggregateUsingSegmentTree(frame);
+            }
         } else if (isLowerBoundIncreasing(frame, seenFrameLowerBound)) {
             if (aggregationFunction.isRemovableCumulative()) {
                 removeSeenRowsFromAccumulatedState(frame, expressions, args);
@@ -110,6 +118,19 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                 }
                 seenFrameLowerBound = frame.lowerBound();
                 seenFrameUpperBound = frame.upperBoundExclusive();
+            } else if (aggregationFunction.hasImmutableStates()) {
+                segmentTree = new AggregationSegmentTree(
+                    aggregationFunction,
+                    filter,
+                    frame,
+                    expressions,
+                    args,
+                    ramAccounting,
+                    memoryManager,
+                    indexVersionCreated,
+                    minNodeVersion
+                );
+                executeAggregateUsingSegmentTree(frame);
             } else {
                 recomputeFunction(frame, expressions, args);
             }
@@ -119,6 +140,16 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
         return resultForCurrentFrame;
     }
 
+    /**
+     * Once the frame starts sliding the rows of the whole partition are put into a segment tree,
+     * so that the aggregation doesn't need to be recomputed for each frame.
+     */
+    private void executeAggregateUsingSegmentTree(WindowFrameState frame) {
+        resultForCurrentFrame = segmentTree.query(frame.lowerBound(), frame.upperBoundExclusive());
+        seenFrameLowerBound = frame.lowerBound();
+        seenFrameUpperBound = frame.upperBoundExclusive();
+    }
+
     private void removeSeenRowsFromAccumulatedState(WindowFrameState frame,
                                                     List<? extends CollectExpression<Row, ?>> expressions,
                                                     Input[] args) {
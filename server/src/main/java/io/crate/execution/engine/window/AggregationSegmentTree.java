@@ -0,0 +1,118 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import java.util.List;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.Version;
+
+import io.crate.data.ArrayRow;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.ExpressionsInput;
+import io.crate.memory.MemoryManager;
+
+/**
+ * Segment tree of the partial aggregation states of all rows of a partition.
+ * <p>
+ * Used to compute aggregations which are not removable cumulative (e.g. {@code min}, {@code max}) over
+ * sliding frames. Building the tree is {@code O(n)}, the aggregate of any frame is then computed in {@code O(log n)}
+ * instead of aggregating all rows of the frame again.
+ * </p>
+ * <p>
+ * Only usable for aggregations with {@link AggregationFunction#hasImmutableStates()} as the states of the nodes are
+ * re-used for all frames.
+ * </p>
+ */
+final class AggregationSegmentTree {
+
+    private final AggregationFunction<Object, ?> aggregationFunction;
+    private final RamAccounting ramAccounting;
+    private final Object emptyState;
+
+    /**
+     * The leaves are stored at [size, 2 * size), the parent of node i is stored at i / 2.
+     */
+    private final Object[] nodes;
+    private final int size;
+
+    @SuppressWarnings("unchecked")
+    AggregationSegmentTree(AggregationFunction<?, ?> aggregationFunction,
+                           ExpressionsInput<Row, Boolean> filter,
+                           WindowFrameState frame,
+                           List<? extends CollectExpression<Row, ?>> expressions,
+                           Input<?>[] args,
+                           RamAccounting ramAccounting,
+                           MemoryManager memoryManager,
+                           Version indexVersionCreated,
+                           Version minNodeVersion) {
+        assert aggregationFunction.hasImmutableStates()
+            : "Segment tree requires an aggregation with immutable states";
+        this.aggregationFunction = (AggregationFunction<Object, ?>) aggregationFunction;
+        this.ramAccounting = ramAccounting;
+        this.emptyState = aggregationFunction.newState(ramAccounting, indexVersionCreated, minNodeVersion, memoryManager);
+        this.size = frame.partitionSize();
+        this.nodes = new Object[2 * size];
+        ramAccounting.addBytes(RamUsageEstimator.shallowSizeOf(nodes));
+
+        var row = new ArrayRow();
+        for (int i = 0; i < size; i++) {
+            Object[] cells = frame.getRowInPartitionAtIndexOrNull(i);
+            assert cells != null : "No row at idx=" + i + " in current partition=" + frame;
+            row.cells(cells);
+            for (int j = 0, expressionsSize = expressions.size(); j < expressionsSize; j++) {
+                expressions.get(j).setNextRow(row);
+            }
+            nodes[size + i] = filter.value(row)
+                ? this.aggregationFunction.iterate(ramAccounting, memoryManager, emptyState, args)
+                : emptyState;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            nodes[i] = this.aggregationFunction.reduce(ramAccounting, nodes[2 * i], nodes[2 * i + 1]);
+        }
+    }
+
+    /**
+     * @return the result of the aggregation over the rows [lowerBound, upperBoundExclusive) of the partition.
+     */
+    Object query(int lowerBound, int upperBoundExclusive) {
+        assert lowerBound >= 0 && upperBoundExclusive <= size
+            : "Bounds must be within the partition: [" + lowerBound + ", " + upperBoundExclusive + ")";
+        // Left and right side are accumulated separately to retain the order of the rows
+        Object left = emptyState;
+        Object right = emptyState;
+        for (int lo = lowerBound + size, hi = upperBoundExclusive + size; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                left = aggregationFunction.reduce(ramAccounting, left, nodes[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                right = aggregationFunction.reduce(ramAccounting, nodes[--hi], right);
+            }
+        }
+        return aggregationFunction.terminatePartial(ramAccounting, aggregationFunction.reduce(ramAccounting, left, right));
+    }
+}
@@ -23,18 +23,22 @@ package io.crate.execution.engine.window;
 
 import static io.crate.common.collections.Lists2.findFirstNonPeer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
 
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.common.collections.Iterables;
@@ -43,6 +47,7 @@ import io.crate.data.Buckets;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
+import io.crate.data.RowN;
 import io.crate.data.breaker.RowAccounting;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.sort.Sort;
@@ -117,6 +122,46 @@ public final class WindowFunctionBatchIterator {
         );
     }
 
+    /**
+     * Creates a BatchIterator which computes the window functions of a source that is already sorted by the
+     * PARTITION BY and ORDER BY expressions of the window definition.
+     * <p>
+     * Instead of materializing all rows, the rows of a partition are emitted as soon as the first row of the next
+     * partition arrives. The memory usage is therefore bound by the largest partition instead of the whole input.
+     * </p>
+     */
+    public static BatchIterator<Row> ofSortedInput(BatchIterator<Row> source,
+                                                   RowAccounting<Row> rowAccounting,
+                                                   ComputeFrameBoundary<Object[]> computeFrameStart,
+                                                   ComputeFrameBoundary<Object[]> computeFrameEnd,
+                                                   Comparator<Object[]> cmpPartitionBy,
+                                                   int numCellsInSourceRow,
+                                                   List<WindowFunction> windowFunctions,
+                                                   List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                                   Boolean[] ignoreNulls,
+                                                   Input[]... args) {
+        assert windowFunctions.size() == args.length : "arguments must be defined for each window function";
+        assert args.length == ignoreNulls.length : "ignore-nulls option must be defined for each window function";
+        return new SortedInputBatchIterator(
+            source,
+            rowAccounting,
+            partition -> computeWindowFunctions(
+                partition,
+                computeFrameStart,
+                computeFrameEnd,
+                null,
+                numCellsInSourceRow,
+                windowFunctions,
+                argsExpressions,
+                ignoreNulls,
+                args
+            ),
+            cmpPartitionBy,
+            numCellsInSourceRow,
+            windowFunctions.size()
+        );
+    }
+
     private static Object[] materializeWithSpare(Row row, int numWindowFunctions) {
         Object[] cells = new Object[row.numColumns() + numWindowFunctions];
         for (int i = 0; i < row.numColumns(); i++) {
@@ -227,6 +272,121 @@ public final class WindowFunctionBatchIterator {
         return cmpPartitionBy.thenComparing(cmpOrderBy);
     }
 
+    private static final class SortedInputBatchIterator implements BatchIterator<Row> {
+
+        private final BatchIterator<Row> source;
+        private final RowAccounting<Row> rowAccounting;
+        private final Function<List<Object[]>, Iterable<Object[]>> computeWindowFunctions;
+        private final Comparator<Object[]> cmpPartitionBy;
+        private final int numWindowFunctions;
+        private final Function<Object[], Row> arrayToRow = Buckets.arrayToSharedRow();
+        private final RowN sourceRow;
+
+        private ArrayList<Object[]> partition = new ArrayList<>();
+        private Iterator<Object[]> computedRows = Collections.emptyIterator();
+        private boolean releasePreviousPartition = false;
+        private boolean sourceExhausted = false;
+        private Row current = null;
+
+        SortedInputBatchIterator(BatchIterator<Row> source,
+                                 RowAccounting<Row> rowAccounting,
+                                 Function<List<Object[]>, Iterable<Object[]>> computeWindowFunctions,
+                                 Comparator<Object[]> cmpPartitionBy,
+                                 int numCellsInSourceRow,
+                                 int numWindowFunctions) {
+            this.source = source;
+            this.rowAccounting = rowAccounting;
+            this.computeWindowFunctions = computeWindowFunctions;
+            this.cmpPartitionBy = cmpPartitionBy;
+            this.numWindowFunctions = numWindowFunctions;
+            this.sourceRow = new RowN(numCellsInSourceRow);
+        }
+
+        @Override
+        public Row currentElement() {
+            return current;
+        }
+
+        @Override
+        public void moveToStart() {
+            source.moveToStart();
+            rowAccounting.release();
+            partition = new ArrayList<>();
+            computedRows = Collections.emptyIterator();
+            releasePreviousPartition = false;
+            sourceExhausted = false;
+            current = null;
+        }
+
+        @Override
+        public boolean moveNext() {
+            while (true) {
+                if (computedRows.hasNext()) {
+                    current = arrayToRow.apply(computedRows.next());
+                    return true;
+                }
+                current = null;
+                if (sourceExhausted) {
+                    return false;
+                }
+                if (releasePreviousPartition) {
+                    // All rows of the previous partition have been consumed; only the
+                    // first row of the current partition is still referenced.
+                    rowAccounting.release();
+                    for (Object[] cells : partition) {
+                        sourceRow.cells(cells);
+                        rowAccounting.accountForAndMaybeBreak(sourceRow);
+                    }
+                    releasePreviousPartition = false;
+                }
+                if (source.moveNext()) {
+                    Row row = source.currentElement();
+                    rowAccounting.accountForAndMaybeBreak(row);
+                    Object[] cells = materializeWithSpare(row, numWindowFunctions);
+                    if (!partition.isEmpty() && cmpPartitionBy.compare(partition.get(0), cells) != 0) {
+                        computedRows = computeWindowFunctions.apply(partition).iterator();
+                        partition = new ArrayList<>();
+                        releasePreviousPartition = true;
+                    }
+                    partition.add(cells);
+                } else if (source.allLoaded()) {
+                    sourceExhausted = true;
+                    if (!partition.isEmpty()) {
+                        computedRows = computeWindowFunctions.apply(partition).iterator();
+                        partition = new ArrayList<>();
+                    }
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            source.close();
+        }
+
+        @Override
+        public CompletionStage<?> loadNextBatch() throws Exception {
+            return source.loadNextBatch();
+        }
+
+        @Override
+        public boolean allLoaded() {
+            return source.allLoaded();
+        }
+
+        @Override
+        public void kill(@NotNull Throwable throwable) {
+            source.kill(throwable);
+        }
+
+        @Override
+        public boolean hasLazyResultSet() {
+            return source.hasLazyResultSet();
+        }
+    }
+
     private static Object[] computeAndInjectResults(List<Object[]> rows,
                                                     int numCellsInSourceRow,
                                                     List<WindowFunction> windowFunctions,
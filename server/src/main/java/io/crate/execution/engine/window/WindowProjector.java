@@ -153,6 +153,20 @@ public class WindowProjector {
             windowDefinition,
             cmpOrderBy
         );
+        if (projection.isInputSorted() && cmpPartitionBy != null) {
+            return sourceRows -> WindowFunctionBatchIterator.ofSortedInput(
+                sourceRows,
+                accounting,
+                computeFrameStart,
+                computeFrameEnd,
+                cmpPartitionBy,
+                numCellsInSourceRow,
+                windowFunctions,
+                windowFuncArgsExpressions,
+                ignoreNulls,
+                windowFuncArgsInputs
+            );
+        }
         return sourceRows -> WindowFunctionBatchIterator.of(
             sourceRows,
             accounting,
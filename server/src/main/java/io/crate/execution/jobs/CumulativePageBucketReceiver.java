@@ -97,12 +97,14 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
         this.bucketsByIdx = new IntObjectHashMap<>(numBuckets);
         this.listenersByBucketIdx = new IntObjectHashMap<>(numBuckets);
         processingFuture.whenComplete((result, ex) -> {
+            List<PageResultListener> listeners;
             synchronized (listenersByBucketIdx) {
-                for (PageResultListener resultListener : listenersByBucketIdx.values()) {
-                    resultListener.needMore(false);
-                }
+                listeners = new ArrayList<>(listenersByBucketIdx.values());
                 listenersByBucketIdx.clear();
             }
+            for (PageResultListener resultListener : listeners) {
+                resultListener.needMore(false);
+            }
         });
         batchPagingIterator = new BatchPagingIterator<>(
             pagingIterator,
@@ -244,25 +246,30 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     }
 
     private void fetchExhausted(Integer exhaustedBucket) {
+        PageResultListener pageResultListener;
         synchronized (listenersByBucketIdx) {
             // We're only requesting data for 1 specific bucket,
             // so we need to fill in other buckets to meet the
             // "receivedAllBucketsOfPage" condition once we get the data for this bucket
-            PageResultListener pageResultListener = listenersByBucketIdx.remove(exhaustedBucket);
+            pageResultListener = listenersByBucketIdx.remove(exhaustedBucket);
             for (Integer bucketIdx : listenersByBucketIdx.keySet()) {
                 bucketsByIdx.putIfAbsent(bucketIdx, Bucket.EMPTY);
             }
-            pageResultListener.needMore(true);
         }
+        // Listeners are invoked outside of the lock, they may call setBucket right away
+        // if the upstream already sent the next page (See SequencedPageBucketReceiver)
+        pageResultListener.needMore(true);
     }
 
     private void fetchFromUnExhausted() {
+        List<PageResultListener> listeners;
         synchronized (listenersByBucketIdx) {
-            for (PageResultListener listener : listenersByBucketIdx.values()) {
-                listener.needMore(true);
-            }
+            listeners = new ArrayList<>(listenersByBucketIdx.values());
             listenersByBucketIdx.clear();
         }
+        for (PageResultListener listener : listeners) {
+            listener.needMore(true);
+        }
     }
 
     @Override
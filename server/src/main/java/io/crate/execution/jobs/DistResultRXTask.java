@@ -51,7 +51,7 @@ public class DistResultRXTask implements Task, DownstreamRXTask {
         this.id = id;
         this.name = name;
         this.numBuckets = numBuckets;
-        this.pageBucketReceiver = pageBucketReceiver;
+        this.pageBucketReceiver = new SequencedPageBucketReceiver(pageBucketReceiver);
         this.ramAccounting = ramAccounting;
         this.completionFuture = pageBucketReceiver.completionFuture().handle((result, ex) -> {
             totalBytesUsed = ramAccounting.totalBytes();
@@ -949,11 +949,15 @@ public class JobSetup {
                 //    7 bytes per key for the IntHashObjectHashMap  (should be 4 but the map pre-allocates more)
                 //    7 bytes perv value (pointer from the map to the list) (should be 4 but the map pre-allocates more)
                 new RowCellsAccountingWithEstimators(phase.leftOutputTypes(), ramAccountingOfOperation, 110),
+                new RowCellsAccountingWithEstimators(phase.rightOutputTypes(), ramAccountingOfOperation, 110),
+                new BlockBasedRamAccounting(ramAccounting::addBytes, ramAccountingBlockSizeInBytes),
                 context.transactionContext,
                 inputFactory,
                 breaker(),
                 phase.estimatedRowSizeForLeft(),
-                phase.numberOfRowsForLeft());
+                phase.numberOfRowsForLeft(),
+                phase.leftOutputTypes(),
+                phase.rightOutputTypes());
             DistResultRXTask left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
@@ -977,6 +981,10 @@ public class JobSetup {
             );
             if (right != null) {
                 context.registerSubContext(right);
+                // Projections of the merge phase could depend on the rows which would be filtered out
+                if (!phase.rightMergePhase().hasProjections()) {
+                    joinOperation.pushDownFilterTo(right.getBucketReceiver((byte) 0));
+                }
             }
             context.registerSubContext(new JoinTask(
                 phase,
@@ -24,12 +24,15 @@ package io.crate.execution.jobs;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 
+import org.jetbrains.annotations.Nullable;
+
 import io.crate.Streamer;
 import io.crate.common.concurrent.Killable;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.Bucket;
 import io.crate.execution.dsl.phases.MergePhase;
 import io.crate.execution.engine.distribution.DistributingConsumerFactory;
+import io.crate.execution.engine.distribution.UpstreamRowFilter;
 
 /**
  * A component which receives buckets from one or more upstreams.
@@ -71,8 +74,36 @@ public interface PageBucketReceiver extends CompletionListenable, Killable {
      */
     void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener);
 
+    /**
+     * Receives a page of a bucket from an upstream which sends several pages without waiting for the
+     * {@code pageResultListener} of the previous ones. The pages may arrive out of order.
+     *
+     * The default implementation requires the pages to arrive one at a time and in order,
+     * see {@link SequencedPageBucketReceiver} for a receiver which restores the order.
+     *
+     * @param pageIdx The position of the page within the pages of this bucket, starting at 0.
+     */
+    default void setBucket(int bucketIdx, int pageIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
+        setBucket(bucketIdx, rows, isLast, pageResultListener);
+    }
+
     Streamer<?>[] streamers();
 
+    /**
+     * Sets a filter which is handed out to the upstreams with the responses to their pages,
+     * so that they can drop rows instead of sending them.
+     */
+    default void setUpstreamRowFilter(UpstreamRowFilter rowFilter) {
+    }
+
+    /**
+     * @return the filter for the upstream of the given bucket if it hasn't been handed out to it yet, otherwise null.
+     */
+    @Nullable
+    default UpstreamRowFilter pollUpstreamRowFilter(int bucketIdx) {
+        return null;
+    }
+
     /**
      * Returns a future that will complete successfully when the all data is processed (operation is complete). It will
      * complete exceptionally when the processing of data failed and the operation needs to be stopped.
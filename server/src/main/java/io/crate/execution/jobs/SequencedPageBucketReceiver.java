@@ -0,0 +1,257 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.Streamer;
+import io.crate.common.annotations.GuardedBy;
+import io.crate.data.Bucket;
+import io.crate.execution.engine.distribution.DistributedResultRequest;
+import io.crate.execution.engine.distribution.DistributingConsumer;
+import io.crate.execution.engine.distribution.UpstreamRowFilter;
+import io.netty.util.collection.IntObjectHashMap;
+
+/**
+ * A {@link PageBucketReceiver} for upstreams which keep several pages of a bucket in flight,
+ * see {@link DistributingConsumer}.
+ *
+ * <p>
+ * The pages of a bucket can arrive out of order. They are buffered and handed to the
+ * underlying receiver one at a time, in order: The next page of a bucket is only passed on once
+ * the underlying receiver requested more data for the previous one. The response for a page is
+ * sent once the underlying receiver processed it, which grants the upstream the credit for
+ * sending another page.
+ * </p>
+ *
+ * <p>
+ * Buffered pages are answered with {@code needMore=false} once the underlying receiver no longer
+ * needs data for the bucket or completes.
+ * </p>
+ */
+public final class SequencedPageBucketReceiver implements PageBucketReceiver {
+
+    private final PageBucketReceiver delegate;
+
+    @GuardedBy("this")
+    private final IntObjectHashMap<BucketPages> pagesByBucketIdx = new IntObjectHashMap<>();
+
+    @GuardedBy("this")
+    private boolean done = false;
+
+    @Nullable
+    private volatile UpstreamRowFilter upstreamRowFilter;
+
+    public SequencedPageBucketReceiver(PageBucketReceiver delegate) {
+        this.delegate = delegate;
+        delegate.completionFuture().whenComplete((result, err) -> close());
+    }
+
+    @Override
+    public void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
+        delegate.setBucket(bucketIdx, rows, isLast, pageResultListener);
+    }
+
+    @Override
+    public void setBucket(int bucketIdx, int pageIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
+        if (pageIdx == DistributedResultRequest.UNSEQUENCED) {
+            delegate.setBucket(bucketIdx, rows, isLast, pageResultListener);
+            return;
+        }
+        final boolean rejected;
+        Page next = null;
+        synchronized (this) {
+            BucketPages pages = pagesByBucketIdx.get(bucketIdx);
+            if (pages == null) {
+                pages = new BucketPages();
+                pagesByBucketIdx.put(bucketIdx, pages);
+            }
+            rejected = done || pages.closed;
+            if (!rejected) {
+                pages.pending.put(pageIdx, new Page(rows, isLast, pageResultListener));
+                next = pages.pollNext();
+            }
+        }
+        if (rejected) {
+            pageResultListener.needMore(false);
+        } else {
+            deliver(bucketIdx, next);
+        }
+    }
+
+    private void deliver(int bucketIdx, @Nullable Page page) {
+        if (page == null) {
+            return;
+        }
+        delegate.setBucket(bucketIdx, page.rows, page.isLast, needMore -> onPageProcessed(bucketIdx, page, needMore));
+        if (delegate.completionFuture().isDone()) {
+            // The delegate doesn't call listeners which it receives after it completed
+            close();
+        }
+    }
+
+    private void onPageProcessed(int bucketIdx, Page page, boolean needMore) {
+        Page next = null;
+        List<Page> rejected = List.of();
+        synchronized (this) {
+            if (page.answered) {
+                return;
+            }
+            page.answered = true;
+            BucketPages pages = pagesByBucketIdx.get(bucketIdx);
+            pages.current = null;
+            if (needMore && !done) {
+                pages.nextPageIdx++;
+                next = pages.pollNext();
+            } else {
+                rejected = pages.close();
+            }
+        }
+        page.listener.needMore(needMore);
+        for (Page rejectedPage : rejected) {
+            rejectedPage.listener.needMore(false);
+        }
+        deliver(bucketIdx, next);
+    }
+
+    private void close() {
+        List<Page> rejected = new ArrayList<>();
+        synchronized (this) {
+            done = true;
+            for (BucketPages pages : pagesByBucketIdx.values()) {
+                rejected.addAll(pages.close());
+            }
+        }
+        for (Page page : rejected) {
+            page.listener.needMore(false);
+        }
+    }
+
+    @Override
+    public Streamer<?>[] streamers() {
+        return delegate.streamers();
+    }
+
+    @Override
+    public void setUpstreamRowFilter(UpstreamRowFilter rowFilter) {
+        this.upstreamRowFilter = rowFilter;
+    }
+
+    @Override
+    @Nullable
+    public UpstreamRowFilter pollUpstreamRowFilter(int bucketIdx) {
+        UpstreamRowFilter rowFilter = upstreamRowFilter;
+        if (rowFilter == null) {
+            return null;
+        }
+        synchronized (this) {
+            BucketPages pages = pagesByBucketIdx.get(bucketIdx);
+            if (pages == null || pages.rowFilterSent) {
+                return null;
+            }
+            pages.rowFilterSent = true;
+            return rowFilter;
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> completionFuture() {
+        return delegate.completionFuture();
+    }
+
+    @Override
+    public void consumeRows() {
+        delegate.consumeRows();
+    }
+
+    @Override
+    public void kill(@NotNull Throwable t) {
+        delegate.kill(t);
+    }
+
+    @Override
+    public String toString() {
+        return "SequencedPageBucketReceiver{" + delegate + '}';
+    }
+
+    private static class Page {
+
+        private final Bucket rows;
+        private final boolean isLast;
+        private final PageResultListener listener;
+        private boolean answered = false;
+
+        Page(Bucket rows, boolean isLast, PageResultListener listener) {
+            this.rows = rows;
+            this.isLast = isLast;
+            this.listener = listener;
+        }
+    }
+
+    private static class BucketPages {
+
+        private final IntObjectHashMap<Page> pending = new IntObjectHashMap<>();
+        private int nextPageIdx = 0;
+        private boolean closed = false;
+        private boolean rowFilterSent = false;
+
+        @Nullable
+        private Page current;
+
+        /**
+         * @return the next page to hand to the underlying receiver, or null if it is still
+         *         processing a page or the next page didn't arrive yet.
+         */
+        @Nullable
+        Page pollNext() {
+            if (current != null) {
+                return null;
+            }
+            current = pending.remove(nextPageIdx);
+            return current;
+        }
+
+        /**
+         * Marks the bucket as closed and returns the pages which haven't been answered yet.
+         */
+        List<Page> close() {
+            closed = true;
+            List<Page> unanswered = new ArrayList<>(pending.size() + 1);
+            if (current != null && !current.answered) {
+                unanswered.add(current);
+            }
+            current = null;
+            unanswered.addAll(pending.values());
+            pending.clear();
+            for (Page page : unanswered) {
+                page.answered = true;
+            }
+            return unanswered;
+        }
+    }
+}
@@ -22,14 +22,18 @@
 package io.crate.expression.reference.file;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.lucene.util.UnicodeUtil;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.NotXContentException;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
@@ -51,6 +55,14 @@ public class LineContext {
 
     @Nullable
     String sourceAsString() {
+        if (rawSource == null && parsedSource != null) {
+            // source was provided as parsed values (e.g. read from Parquet), but is required as JSON
+            try (XContentBuilder builder = JsonXContent.builder()) {
+                rawSource = BytesReference.toBytes(BytesReference.bytes(builder.map(parsedSource)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         if (rawSource != null) {
             char[] chars = new char[rawSource.length];
             int len = UnicodeUtil.UTF8toUTF16(rawSource, 0, rawSource.length, chars);
@@ -88,6 +100,23 @@ public class LineContext {
         this.parsedSource = null;
     }
 
+    /**
+     * Sets the source from already parsed values, avoiding the JSON parsing in {@link #sourceAsMap()}.
+     * The JSON representation is only created if requested by {@link #sourceAsString()}.
+     */
+    public void parsedSource(LinkedHashMap<String, Object> source) {
+        this.parsedSource = source;
+        this.rawSource = null;
+    }
+
+    /**
+     * Sets the source together with its already parsed values, avoiding the JSON parsing in {@link #sourceAsMap()}.
+     */
+    public void source(byte[] rawSource, LinkedHashMap<String, Object> parsedSource) {
+        this.rawSource = rawSource;
+        this.parsedSource = parsedSource;
+    }
+
     String currentUri() {
         return cursor.uri().toString();
     }
@@ -39,6 +39,7 @@ import org.elasticsearch.monitor.process.ProcessStats;
 import org.elasticsearch.threadpool.ThreadPoolStats;
 
 import io.crate.common.collections.Lists2;
+import io.crate.memory.OffHeapMemoryStats;
 import io.crate.monitor.ExtendedOsStats;
 import io.crate.protocols.ConnectionStats;
 import io.crate.types.DataTypes;
@@ -65,6 +66,7 @@ public class NodeStatsContext implements Writeable {
     private ThreadPoolStats threadPools;
     private HttpStats httpStats;
     private ConnectionStats psqlStats;
+    private OffHeapMemoryStats offHeapStats;
 
     private String osName;
     private String osArch;
@@ -204,6 +206,10 @@ public class NodeStatsContext implements Writeable {
         return psqlStats;
     }
 
+    public OffHeapMemoryStats offHeapStats() {
+        return offHeapStats;
+    }
+
     public long openTransportConnections() {
         return openTransportConnections;
     }
@@ -304,6 +310,10 @@ public class NodeStatsContext implements Writeable {
         this.psqlStats = psqlStats;
     }
 
+    public void offHeapStats(OffHeapMemoryStats offHeapStats) {
+        this.offHeapStats = offHeapStats;
+    }
+
     void openTransportConnections(long openTransportConnections) {
         this.openTransportConnections = openTransportConnections;
     }
@@ -332,6 +342,9 @@ public class NodeStatsContext implements Writeable {
         this.threadPools = in.readOptionalWriteable(ThreadPoolStats::new);
         this.httpStats = in.readOptionalWriteable(HttpStats::new);
         this.psqlStats = in.readOptionalWriteable(ConnectionStats::new);
+        if (in.getVersion().onOrAfter(Version.V_5_5_0)) {
+            this.offHeapStats = in.readOptionalWriteable(OffHeapMemoryStats::new);
+        }
         this.openTransportConnections = in.readLong();
         this.clusterStateVersion = in.readLong();
 
@@ -374,6 +387,9 @@ public class NodeStatsContext implements Writeable {
         out.writeOptionalWriteable(threadPools);
         out.writeOptionalWriteable(httpStats);
         out.writeOptionalWriteable(psqlStats);
+        if (out.getVersion().onOrAfter(Version.V_5_5_0)) {
+            out.writeOptionalWriteable(offHeapStats);
+        }
         out.writeLong(openTransportConnections);
         out.writeLong(clusterStateVersion);
 
@@ -59,6 +59,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import io.crate.common.annotations.VisibleForTesting;
+import io.crate.memory.MemoryManagerFactory;
+import io.crate.memory.OffHeapMemoryStats;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.monitor.ExtendedNodeInfo;
@@ -75,6 +77,7 @@ public class NodeStatsContextFieldResolver {
     private final ThreadPool threadPool;
     private final ExtendedNodeInfo extendedNodeInfo;
     private final Supplier<ConnectionStats> psqlStats;
+    private final Supplier<OffHeapMemoryStats> offHeapStats;
     private final Supplier<TransportAddress> boundPostgresAddress;
     private final LongSupplier numOpenTransportConnections;
     private final ProcessService processService;
@@ -91,7 +94,8 @@ public class NodeStatsContextFieldResolver {
                                          TransportService transportService,
                                          ThreadPool threadPool,
                                          ExtendedNodeInfo extendedNodeInfo,
-                                         PostgresNetty postgresNetty) {
+                                         PostgresNetty postgresNetty,
+                                         MemoryManagerFactory memoryManagerFactory) {
         this(
             clusterService::localNode,
             nodeService.getMonitorService(),
@@ -108,7 +112,8 @@ public class NodeStatsContextFieldResolver {
                 return boundTransportAddress.publishAddress();
             },
             () -> transportService.stats().getServerOpen(),
-            () -> clusterService.state().version()
+            () -> clusterService.state().version(),
+            memoryManagerFactory::offHeapStats
         );
     }
 
@@ -122,7 +127,8 @@ public class NodeStatsContextFieldResolver {
                                   Supplier<ConnectionStats> psqlStats,
                                   Supplier<TransportAddress> boundPostgresAddress,
                                   LongSupplier numOpenTransportConnections,
-                                  LongSupplier clusterStateVersion) {
+                                  LongSupplier clusterStateVersion,
+                                  Supplier<OffHeapMemoryStats> offHeapStats) {
         this.localNode = localNode;
         processService = monitorService.processService();
         osService = monitorService.osService();
@@ -136,6 +142,7 @@ public class NodeStatsContextFieldResolver {
         this.boundPostgresAddress = boundPostgresAddress;
         this.numOpenTransportConnections = numOpenTransportConnections;
         this.clusterStateVersion = clusterStateVersion;
+        this.offHeapStats = offHeapStats;
     }
 
     public NodeStatsContext forTopColumnIdents(Collection<ColumnIdent> topColumnIdents) {
@@ -233,6 +240,12 @@ public class NodeStatsContextFieldResolver {
                 context.jvmStats(jvmService.stats());
             }
         }),
+        entry(SysNodesTableInfo.Columns.OFF_HEAP, new Consumer<>() {
+            @Override
+            public void accept(NodeStatsContext context) {
+                context.offHeapStats(offHeapStats.get());
+            }
+        }),
         entry(SysNodesTableInfo.Columns.VERSION, context -> {
             context.version(Version.CURRENT);
             context.build(Build.CURRENT);
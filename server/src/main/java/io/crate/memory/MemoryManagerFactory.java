@@ -80,6 +80,7 @@ public final class MemoryManagerFactory implements Function<RamAccounting, Memor
     );
 
     private volatile MemoryType currentMemoryType = MemoryType.ON_HEAP;
+    private final OffHeapMemoryPool offHeapMemoryPool = new OffHeapMemoryPool();
 
     @Inject
     public MemoryManagerFactory(ClusterSettings clusterSettings) {
@@ -97,12 +98,16 @@ public final class MemoryManagerFactory implements Function<RamAccounting, Memor
             case ON_HEAP:
                 return new OnHeapMemoryManager(ramAccounting::addBytes);
             case OFF_HEAP:
-                return new OffHeapMemoryManager();
+                return new OffHeapMemoryManager(offHeapMemoryPool, ramAccounting::addBytes);
             default:
                 throw new AssertionError("MemoryType is supposed to have only 2 cases");
         }
     }
 
+    public OffHeapMemoryStats offHeapStats() {
+        return offHeapMemoryPool.stats();
+    }
+
     @Override
     public MemoryManager apply(RamAccounting ramAccounting) {
         return getMemoryManager(ramAccounting);
@@ -22,29 +22,44 @@
 package io.crate.memory;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 
 import java.util.ArrayList;
+import java.util.function.IntConsumer;
 
+/**
+ * A MemoryManager that allocates direct buffers from the {@link OffHeapMemoryPool} of the node.
+ * Like the {@link OnHeapMemoryManager} it accounts the used memory via an injected `IntConsumer`,
+ * which is also responsible to de-account the used-bytes eventually.
+ * The buffers are returned to the pool on {@link #close()}.
+ */
 public final class OffHeapMemoryManager implements MemoryManager {
 
+    private final OffHeapMemoryPool pool;
+    private final IntConsumer accountBytes;
     private final ArrayList<ByteBuf> allocatedBuffers = new ArrayList<>();
+    private long allocatedBytes = 0;
 
-    public OffHeapMemoryManager() {
+    /**
+     * @param accountBytes A consumer that will be called on each ByteBuf allocation with the number of allocated bytes.
+     */
+    public OffHeapMemoryManager(OffHeapMemoryPool pool, IntConsumer accountBytes) {
+        this.pool = pool;
+        this.accountBytes = accountBytes;
     }
 
     @Override
     public ByteBuf allocate(int capacity) {
-        ByteBuf byteBuf = Unpooled.directBuffer(capacity);
+        accountBytes.accept(capacity);
+        ByteBuf byteBuf = pool.allocate(capacity);
         allocatedBuffers.add(byteBuf);
+        allocatedBytes += capacity;
         return byteBuf;
     }
 
     @Override
     public void close() {
-        for (ByteBuf buffer : allocatedBuffers) {
-            buffer.release();
-        }
+        pool.release(allocatedBuffers, allocatedBytes);
         allocatedBuffers.clear();
+        allocatedBytes = 0;
     }
 }
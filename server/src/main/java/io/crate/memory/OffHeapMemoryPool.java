@@ -0,0 +1,86 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.memory;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Node-wide pool of direct memory used by {@link OffHeapMemoryManager}s.
+ *
+ * <p>
+ * Allocations are served by a {@link PooledByteBufAllocator}, which reserves large chunks of direct
+ * memory and splits them into size classes. Buffers released by one operation are re-used by the next one
+ * instead of going through a direct memory allocation each time.
+ * </p>
+ */
+public final class OffHeapMemoryPool {
+
+    private final PooledByteBufAllocator allocator;
+    private final LongAdder usedBytes = new LongAdder();
+    private final LongAdder numAllocations = new LongAdder();
+
+    public OffHeapMemoryPool() {
+        this.allocator = new PooledByteBufAllocator(
+            true,
+            0,
+            PooledByteBufAllocator.defaultNumDirectArena(),
+            PooledByteBufAllocator.defaultPageSize(),
+            PooledByteBufAllocator.defaultMaxOrder(),
+            PooledByteBufAllocator.defaultSmallCacheSize(),
+            PooledByteBufAllocator.defaultNormalCacheSize(),
+            // Buffers are usually released by a different thread than the one which allocated them,
+            // thread local caches would only hold on to memory.
+            false
+        );
+    }
+
+    ByteBuf allocate(int capacity) {
+        ByteBuf buffer = allocator.directBuffer(capacity);
+        usedBytes.add(capacity);
+        numAllocations.increment();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffers to the pool.
+     *
+     * @param bytes the sum of the capacities that had been requested for the buffers.
+     */
+    void release(List<ByteBuf> buffers, long bytes) {
+        for (ByteBuf buffer : buffers) {
+            buffer.release();
+        }
+        usedBytes.add(-bytes);
+    }
+
+    public OffHeapMemoryStats stats() {
+        return new OffHeapMemoryStats(
+            usedBytes.sum(),
+            allocator.metric().usedDirectMemory(),
+            numAllocations.sum()
+        );
+    }
+}
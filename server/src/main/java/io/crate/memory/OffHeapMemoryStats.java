@@ -0,0 +1,74 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.memory;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+/**
+ * Usage statistics of the {@link OffHeapMemoryPool} of a node.
+ */
+public final class OffHeapMemoryStats implements Writeable {
+
+    private final long used;
+    private final long reserved;
+    private final long allocations;
+
+    /**
+     * @param used bytes currently allocated by operations
+     * @param reserved bytes of direct memory held by the pool, including memory which is not in use
+     * @param allocations total number of allocations since the node started
+     */
+    public OffHeapMemoryStats(long used, long reserved, long allocations) {
+        this.used = used;
+        this.reserved = reserved;
+        this.allocations = allocations;
+    }
+
+    public OffHeapMemoryStats(StreamInput in) throws IOException {
+        this.used = in.readVLong();
+        this.reserved = in.readVLong();
+        this.allocations = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(used);
+        out.writeVLong(reserved);
+        out.writeVLong(allocations);
+    }
+
+    public long used() {
+        return used;
+    }
+
+    public long reserved() {
+        return reserved;
+    }
+
+    public long allocations() {
+        return allocations;
+    }
+}
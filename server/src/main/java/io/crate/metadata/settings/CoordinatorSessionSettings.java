@@ -38,6 +38,10 @@ import io.crate.user.User;
  * <p>
  * A subset of this information can be streamed as {@link SessionSettings}
  * </p>
+ *
+ * <p>
+ * New settings must also be added to the key of the {@link io.crate.action.sql.PlanCache}
+ * </p>
  */
 public class CoordinatorSessionSettings extends SessionSettings {
 
@@ -47,6 +51,7 @@ public class CoordinatorSessionSettings extends SessionSettings {
     private String applicationName;
     private String dateStyle;
     private TimeValue statementTimeout;
+    private boolean skewAwareDistribution;
 
     public CoordinatorSessionSettings(User authenticatedUser, String ... searchPath) {
         this(authenticatedUser, authenticatedUser, searchPath);
@@ -146,4 +151,13 @@ public class CoordinatorSessionSettings extends SessionSettings {
     public void memoryLimit(int memoryLimit) {
         this.memoryLimit = memoryLimit;
     }
+
+    @Override
+    public boolean skewAwareDistribution() {
+        return skewAwareDistribution;
+    }
+
+    public void setSkewAwareDistribution(boolean skewAwareDistribution) {
+        this.skewAwareDistribution = skewAwareDistribution;
+    }
 }
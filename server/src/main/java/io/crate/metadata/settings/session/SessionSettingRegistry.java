@@ -121,6 +121,21 @@ public class SessionSettingRegistry {
         DataTypes.INTEGER
     );
 
+    static final SessionSetting<Boolean> SKEW_AWARE_DISTRIBUTION = new SessionSetting<>(
+        "enable_skew_aware_distribution",
+        inputs -> {
+            if (inputs.length != 1) {
+                throw new IllegalArgumentException("enable_skew_aware_distribution should have only one argument.");
+            }
+        },
+        inputs -> DataTypes.BOOLEAN.implicitCast(inputs[0]),
+        CoordinatorSessionSettings::setSkewAwareDistribution,
+        settings -> Boolean.toString(settings.skewAwareDistribution()),
+        () -> String.valueOf(false),
+        "Spreads the most common join key values across all nodes when distributing a Hash Join.",
+        DataTypes.BOOLEAN
+    );
+
     private final Map<String, SessionSetting<?>> settings;
 
     @Inject
@@ -237,7 +252,8 @@ public class SessionSettingRegistry {
             .put(APPLICATION_NAME.name(), APPLICATION_NAME)
             .put(DATE_STYLE.name(), DATE_STYLE)
             .put(STATEMENT_TIMEOUT.name(), STATEMENT_TIMEOUT)
-            .put(MEMORY_LIMIT.name(), MEMORY_LIMIT);
+            .put(MEMORY_LIMIT.name(), MEMORY_LIMIT)
+            .put(SKEW_AWARE_DISTRIBUTION.name(), SKEW_AWARE_DISTRIBUTION);
 
         for (var providers : sessionSettingProviders) {
             for (var setting : providers.sessionSettings()) {
@@ -55,6 +55,7 @@ public class SysNodesTableInfo {
     private static final String SYS_COL_LOAD = "load";
     private static final String SYS_COL_MEM = "mem";
     private static final String SYS_COL_HEAP = "heap";
+    private static final String SYS_COL_OFF_HEAP = "off_heap";
     private static final String SYS_COL_VERSION = "version";
     private static final String SYS_COL_THREAD_POOLS = "thread_pools";
     private static final String SYS_COL_NETWORK = "network";
@@ -79,6 +80,8 @@ public class SysNodesTableInfo {
 
         public static final ColumnIdent HEAP = new ColumnIdent(SYS_COL_HEAP);
 
+        public static final ColumnIdent OFF_HEAP = new ColumnIdent(SYS_COL_OFF_HEAP);
+
         public static final ColumnIdent VERSION = new ColumnIdent(SYS_COL_VERSION);
 
         public static final ColumnIdent THREAD_POOLS = new ColumnIdent(SYS_COL_THREAD_POOLS);
@@ -131,6 +134,12 @@ public class SysNodesTableInfo {
                 .add("max", LONG, x -> x.jvmStats().getMem().getHeapMax().getBytes())
                 .add("probe_timestamp", TIMESTAMPZ, x -> x.jvmStats().getTimestamp())
             .endObject()
+            // Nodes before 5.5.0 don't provide off-heap stats
+            .startObject("off_heap", x -> x.offHeapStats() == null)
+                .add("used", LONG, x -> x.offHeapStats() == null ? null : x.offHeapStats().used())
+                .add("reserved", LONG, x -> x.offHeapStats() == null ? null : x.offHeapStats().reserved())
+                .add("allocations", LONG, x -> x.offHeapStats() == null ? null : x.offHeapStats().allocations())
+            .endObject()
             .startObject("version")
                 .add("number", STRING, x -> x.version().externalNumber())
                 .add("build_hash", STRING, x -> x.build().hash())
@@ -67,6 +67,16 @@ public class CSVLineParser {
             .with(csvSchema);
     }
 
+    /**
+     * Creates a parser with the same header and settings. Used to parse lines concurrently, a parser isn't thread-safe.
+     */
+    public CSVLineParser(CSVLineParser other) {
+        targetColumns = other.targetColumns;
+        headerKeyList.addAll(other.headerKeyList);
+        columnNamesArray = other.columnNamesArray;
+        csvReader = other.csvReader;
+    }
+
     public void parseHeader(String header) throws IOException {
         MappingIterator<String> iterator = csvReader.readValues(header.getBytes(StandardCharsets.UTF_8));
         iterator.readAll(headerKeyList);
@@ -0,0 +1,378 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import static io.crate.parquet.ParquetFormat.BIT_PACKED;
+import static io.crate.parquet.ParquetFormat.PLAIN;
+import static io.crate.parquet.ParquetFormat.PLAIN_DICTIONARY;
+import static io.crate.parquet.ParquetFormat.RLE;
+import static io.crate.parquet.ParquetFormat.RLE_DICTIONARY;
+import static io.crate.parquet.ParquetFormat.UNCOMPRESSED;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.crate.parquet.ParquetFormat.DataPageHeader;
+import io.crate.parquet.ParquetFormat.DataPageHeaderV2;
+import io.crate.parquet.ParquetFormat.DictionaryPageHeader;
+import io.crate.parquet.ParquetFormat.PageHeader;
+
+/**
+ * Reads the values of one column chunk (the data of a {@link ParquetSchema.Column} within a row group)
+ * and places them row by row into the source map of a row.
+ *
+ * Pages are decoded lazily, one at a time. Dictionary entries are converted once per dictionary page.
+ */
+final class ColumnChunkReader {
+
+    private static final VarHandle VH_LE_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle VH_LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ParquetSchema.Column column;
+    private final int codec;
+    private final byte[] chunk;
+    private final int chunkEnd;
+    private final boolean allNull;
+    private int chunkPos;
+
+    // state of the current data page
+    private int pageNumValues = 0;
+    private int pageIndex = 0;
+    private int[] definitionLevels = new int[0];
+    private int[] repetitionLevels = new int[0];
+    private int valueEncoding;
+    private byte[] values;
+    private int valuesPos;
+    private int booleanBitOffset;
+    private RleBitPackedHybridDecoder rleValues;
+    private Object[] dictionary;
+
+    // levels of the current value
+    private int definitionLevel;
+
+    private ColumnChunkReader(ParquetSchema.Column column, int codec, byte[] chunk, int offset, int length, boolean allNull) {
+        this.column = column;
+        this.codec = codec;
+        this.chunk = chunk;
+        this.chunkPos = offset;
+        this.chunkEnd = offset + length;
+        this.allNull = allNull;
+    }
+
+    /**
+     * @param chunk buffer containing the column chunk data (pages) within {@code offset} and {@code offset + length}
+     */
+    static ColumnChunkReader of(ParquetSchema.Column column, int codec, byte[] chunk, int offset, int length) {
+        return new ColumnChunkReader(column, codec, chunk, offset, length, false);
+    }
+
+    /**
+     * Reader for a column chunk which according to its statistics only contains null values.
+     * The data of these chunks doesn't have to be read at all.
+     */
+    static ColumnChunkReader allNull(ParquetSchema.Column column) {
+        return new ColumnChunkReader(column, UNCOMPRESSED, null, 0, 0, true);
+    }
+
+    /**
+     * Reads the value of the next row and puts it into {@code row} under the path of the column.
+     */
+    @SuppressWarnings("unchecked")
+    void readInto(Map<String, Object> row) throws IOException {
+        nextLevels();
+        int defLevel = definitionLevel;
+        String[] fieldNames = column.fieldNames();
+        int[] fieldDefinitionLevels = column.fieldDefinitionLevels();
+        int last = fieldNames.length - 1;
+        Map<String, Object> target = row;
+        for (int i = 0; i < last; i++) {
+            if (defLevel < fieldDefinitionLevels[i]) {
+                target.putIfAbsent(fieldNames[i], null);
+                return;
+            }
+            target = (Map<String, Object>) target.computeIfAbsent(fieldNames[i], k -> new LinkedHashMap<>());
+        }
+        String name = fieldNames[last];
+        if (defLevel < fieldDefinitionLevels[last]) {
+            target.put(name, null);
+            return;
+        }
+        if (column.maxRepetitionLevel() == 0) {
+            target.put(name, readValue());
+            return;
+        }
+        int maxDefinitionLevel = column.maxDefinitionLevel();
+        List<Object> list = new ArrayList<>();
+        if (defLevel >= column.elementDefinitionLevel()) {
+            list.add(defLevel == maxDefinitionLevel ? readValue() : null);
+            while (nextRepetitionLevel() > 0) {
+                nextLevels();
+                list.add(definitionLevel == maxDefinitionLevel ? readValue() : null);
+            }
+        }
+        target.put(name, list);
+    }
+
+    private void nextLevels() throws IOException {
+        if (allNull) {
+            definitionLevel = 0;
+            return;
+        }
+        if (pageIndex == pageNumValues && !readNextDataPage()) {
+            throw new IOException("Corrupt Parquet file: column chunk of `" + column + "` contains fewer values than rows");
+        }
+        definitionLevel = column.maxDefinitionLevel() == 0 ? 0 : definitionLevels[pageIndex];
+        pageIndex++;
+    }
+
+    /**
+     * @return the repetition level of the next value without consuming it. 0 if there is no next value.
+     */
+    private int nextRepetitionLevel() throws IOException {
+        if (pageIndex == pageNumValues && !readNextDataPage()) {
+            return 0;
+        }
+        return repetitionLevels[pageIndex];
+    }
+
+    private boolean readNextDataPage() throws IOException {
+        while (chunkPos < chunkEnd) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, chunkPos, chunkEnd - chunkPos);
+            ThriftStruct header = ThriftCompactProtocol.readStruct(buffer);
+            int pageStart = buffer.position();
+            int compressedSize = header.getInt(PageHeader.COMPRESSED_PAGE_SIZE, 0);
+            int uncompressedSize = header.getInt(PageHeader.UNCOMPRESSED_PAGE_SIZE, 0);
+            chunkPos = pageStart + compressedSize;
+            if (chunkPos > chunkEnd) {
+                throw new IOException("Corrupt Parquet file: page of column `" + column + "` exceeds the column chunk");
+            }
+            switch (header.getInt(PageHeader.TYPE, -1)) {
+                case ParquetFormat.DICTIONARY_PAGE:
+                    readDictionaryPage(header.getStruct(PageHeader.DICTIONARY_PAGE_HEADER), pageStart, compressedSize, uncompressedSize);
+                    break;
+
+                case ParquetFormat.DATA_PAGE:
+                    readDataPage(header.getStruct(PageHeader.DATA_PAGE_HEADER), pageStart, compressedSize, uncompressedSize);
+                    return true;
+
+                case ParquetFormat.DATA_PAGE_V2:
+                    readDataPageV2(header.getStruct(PageHeader.DATA_PAGE_HEADER_V2), pageStart, compressedSize, uncompressedSize);
+                    return true;
+
+                default:
+                    // index pages are not used
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private void readDictionaryPage(ThriftStruct header, int start, int compressedSize, int uncompressedSize) throws IOException {
+        int encoding = header.getInt(DictionaryPageHeader.ENCODING, PLAIN);
+        if (encoding != PLAIN && encoding != PLAIN_DICTIONARY) {
+            throw unsupportedEncoding(encoding);
+        }
+        int numValues = header.getInt(DictionaryPageHeader.NUM_VALUES, 0);
+        byte[] page = decompress(start, compressedSize, uncompressedSize);
+        setValues(PLAIN, page, 0, page.length);
+        Object[] entries = new Object[numValues];
+        for (int i = 0; i < numValues; i++) {
+            entries[i] = readPlainValue();
+        }
+        dictionary = entries;
+    }
+
+    private void readDataPage(ThriftStruct header, int start, int compressedSize, int uncompressedSize) throws IOException {
+        int numValues = header.getInt(DataPageHeader.NUM_VALUES, 0);
+        byte[] page = decompress(start, compressedSize, uncompressedSize);
+        int pos = 0;
+        if (column.maxRepetitionLevel() > 0) {
+            if (header.getInt(DataPageHeader.REPETITION_LEVEL_ENCODING, RLE) == BIT_PACKED) {
+                throw unsupportedEncoding(BIT_PACKED);
+            }
+            int length = (int) VH_LE_INT.get(page, pos);
+            repetitionLevels = readLevels(page, pos + 4, length, column.maxRepetitionLevel(), numValues, repetitionLevels);
+            pos += 4 + length;
+        }
+        if (column.maxDefinitionLevel() > 0) {
+            if (header.getInt(DataPageHeader.DEFINITION_LEVEL_ENCODING, RLE) == BIT_PACKED) {
+                throw unsupportedEncoding(BIT_PACKED);
+            }
+            int length = (int) VH_LE_INT.get(page, pos);
+            definitionLevels = readLevels(page, pos + 4, length, column.maxDefinitionLevel(), numValues, definitionLevels);
+            pos += 4 + length;
+        }
+        setValues(header.getInt(DataPageHeader.ENCODING, PLAIN), page, pos, page.length);
+        pageNumValues = numValues;
+        pageIndex = 0;
+    }
+
+    private void readDataPageV2(ThriftStruct header, int start, int compressedSize, int uncompressedSize) throws IOException {
+        // levels are never compressed and not prefixed by their length
+        int repetitionLevelsLength = header.getInt(DataPageHeaderV2.REPETITION_LEVELS_BYTE_LENGTH, 0);
+        int definitionLevelsLength = header.getInt(DataPageHeaderV2.DEFINITION_LEVELS_BYTE_LENGTH, 0);
+        int numValues = header.getInt(DataPageHeaderV2.NUM_VALUES, 0);
+        int pos = start;
+        if (column.maxRepetitionLevel() > 0) {
+            repetitionLevels = readLevels(
+                chunk, pos, repetitionLevelsLength, column.maxRepetitionLevel(), numValues, repetitionLevels);
+        }
+        pos += repetitionLevelsLength;
+        if (column.maxDefinitionLevel() > 0) {
+            definitionLevels = readLevels(
+                chunk, pos, definitionLevelsLength, column.maxDefinitionLevel(), numValues, definitionLevels);
+        }
+        pos += definitionLevelsLength;
+        int levelsLength = repetitionLevelsLength + definitionLevelsLength;
+        int encoding = header.getInt(DataPageHeaderV2.ENCODING, PLAIN);
+        if (header.getBoolean(DataPageHeaderV2.IS_COMPRESSED, true) && codec != UNCOMPRESSED) {
+            byte[] data = ParquetFormat.decompress(
+                codec, chunk, pos, compressedSize - levelsLength, uncompressedSize - levelsLength);
+            setValues(encoding, data, 0, data.length);
+        } else {
+            setValues(encoding, chunk, pos, start + compressedSize);
+        }
+        pageNumValues = numValues;
+        pageIndex = 0;
+    }
+
+    private static int[] readLevels(byte[] data, int offset, int length, int maxLevel, int numValues, int[] reuse) throws IOException {
+        int[] levels = reuse.length >= numValues ? reuse : new int[numValues];
+        int bitWidth = 32 - Integer.numberOfLeadingZeros(maxLevel);
+        new RleBitPackedHybridDecoder(data, offset, length, bitWidth).next(levels, numValues);
+        return levels;
+    }
+
+    private byte[] decompress(int start, int compressedSize, int uncompressedSize) throws IOException {
+        return ParquetFormat.decompress(codec, chunk, start, compressedSize, uncompressedSize);
+    }
+
+    private void setValues(int encoding, byte[] data, int offset, int end) throws IOException {
+        this.values = data;
+        this.valuesPos = offset;
+        this.booleanBitOffset = 0;
+        switch (encoding) {
+            case PLAIN:
+                valueEncoding = PLAIN;
+                break;
+
+            case PLAIN_DICTIONARY:
+            case RLE_DICTIONARY:
+                if (dictionary == null) {
+                    throw new IOException("Corrupt Parquet file: dictionary page of column `" + column + "` is missing");
+                }
+                // pages without non-null values may not contain the bit width
+                int bitWidth = offset < end ? data[offset] & 0xFF : 0;
+                rleValues = new RleBitPackedHybridDecoder(data, offset + 1, Math.max(0, end - offset - 1), bitWidth);
+                valueEncoding = RLE_DICTIONARY;
+                break;
+
+            case RLE:
+                if (column.physicalType() != ParquetFormat.BOOLEAN) {
+                    throw unsupportedEncoding(encoding);
+                }
+                int length = offset + 4 <= end ? (int) VH_LE_INT.get(data, offset) : 0;
+                rleValues = new RleBitPackedHybridDecoder(data, offset + 4, length, 1);
+                valueEncoding = RLE;
+                break;
+
+            default:
+                throw unsupportedEncoding(encoding);
+        }
+    }
+
+    private Object readValue() throws IOException {
+        switch (valueEncoding) {
+            case RLE_DICTIONARY:
+                int idx = rleValues.next();
+                if (idx >= dictionary.length) {
+                    throw new IOException("Corrupt Parquet file: dictionary index out of bounds in column `" + column + "`");
+                }
+                return dictionary[idx];
+
+            case RLE:
+                return rleValues.next() == 1;
+
+            default:
+                return readPlainValue();
+        }
+    }
+
+    private Object readPlainValue() throws IOException {
+        switch (column.physicalType()) {
+            case ParquetFormat.BOOLEAN: {
+                int bit = (values[valuesPos + (booleanBitOffset >>> 3)] >>> (booleanBitOffset & 7)) & 1;
+                booleanBitOffset++;
+                return bit == 1;
+            }
+            case ParquetFormat.INT32: {
+                int value = (int) VH_LE_INT.get(values, valuesPos);
+                valuesPos += 4;
+                return column.convert(value);
+            }
+            case ParquetFormat.INT64: {
+                long value = (long) VH_LE_LONG.get(values, valuesPos);
+                valuesPos += 8;
+                return column.convert(value);
+            }
+            case ParquetFormat.INT96: {
+                Object value = column.convert(values, valuesPos, 12);
+                valuesPos += 12;
+                return value;
+            }
+            case ParquetFormat.FLOAT: {
+                float value = Float.intBitsToFloat((int) VH_LE_INT.get(values, valuesPos));
+                valuesPos += 4;
+                return value;
+            }
+            case ParquetFormat.DOUBLE: {
+                double value = Double.longBitsToDouble((long) VH_LE_LONG.get(values, valuesPos));
+                valuesPos += 8;
+                return value;
+            }
+            case ParquetFormat.BYTE_ARRAY: {
+                int length = (int) VH_LE_INT.get(values, valuesPos);
+                Object value = column.convert(values, valuesPos + 4, length);
+                valuesPos += 4 + length;
+                return value;
+            }
+            default: {
+                int length = column.typeLength();
+                Object value = column.convert(values, valuesPos, length);
+                valuesPos += length;
+                return value;
+            }
+        }
+    }
+
+    private IOException unsupportedEncoding(int encoding) {
+        return new IOException("Parquet encoding " + encoding + " of column `" + column + "` is not supported. " +
+                               "Supported encodings are: PLAIN, PLAIN_DICTIONARY, RLE_DICTIONARY and RLE for booleans");
+    }
+}
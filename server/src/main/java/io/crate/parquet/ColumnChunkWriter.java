@@ -0,0 +1,498 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.parquet.ParquetFormat.ColumnChunk;
+import io.crate.parquet.ParquetFormat.ColumnMetaData;
+import io.crate.parquet.ParquetFormat.DataPageHeader;
+import io.crate.parquet.ParquetFormat.DictionaryPageHeader;
+import io.crate.parquet.ParquetFormat.LogicalType;
+import io.crate.parquet.ParquetFormat.PageHeader;
+import io.crate.parquet.ParquetFormat.SchemaElement;
+import io.crate.parquet.ParquetFormat.Statistics;
+import io.crate.types.ArrayType;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.CharacterType;
+import io.crate.types.DataType;
+import io.crate.types.DateType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+
+/**
+ * Buffers the values of a top-level column for the current row group and encodes them into data pages.
+ *
+ * <p>
+ * Values are dictionary encoded until the dictionary of the column chunk exceeds {@link #MAX_DICTIONARY_SIZE},
+ * the following pages of the chunk fall back to PLAIN encoding.
+ * Arrays of primitive types are written using the 3-level LIST representation, all types without a
+ * matching Parquet type (objects, nested arrays, geo types, ...) are written as JSON.
+ * </p>
+ */
+final class ColumnChunkWriter {
+
+    static final int MAX_DICTIONARY_SIZE = 1024 * 1024;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * HashMap.Node, table slot and boxed id of a dictionary entry
+     */
+    private static final long DICTIONARY_ENTRY_OVERHEAD = 64;
+
+    private static final long BOXED_VALUE_SIZE = RamUsageEstimator.shallowSizeOfInstance(Long.class);
+
+    private enum Kind {
+        BOOLEAN(ParquetFormat.BOOLEAN),
+        BYTE(ParquetFormat.INT32),
+        SHORT(ParquetFormat.INT32),
+        INTEGER(ParquetFormat.INT32),
+        DATE(ParquetFormat.INT32),
+        LONG(ParquetFormat.INT64),
+        TIMESTAMP(ParquetFormat.INT64),
+        TIMESTAMP_WITH_TZ(ParquetFormat.INT64),
+        FLOAT(ParquetFormat.FLOAT),
+        DOUBLE(ParquetFormat.DOUBLE),
+        STRING(ParquetFormat.BYTE_ARRAY),
+        JSON(ParquetFormat.BYTE_ARRAY);
+
+        private final int physicalType;
+
+        Kind(int physicalType) {
+            this.physicalType = physicalType;
+        }
+
+        @Nullable
+        private static Kind of(DataType<?> type) {
+            return switch (type.id()) {
+                case BooleanType.ID -> BOOLEAN;
+                case ByteType.ID -> BYTE;
+                case ShortType.ID -> SHORT;
+                case IntegerType.ID -> INTEGER;
+                case DateType.ID -> DATE;
+                case LongType.ID -> LONG;
+                case TimestampType.ID_WITHOUT_TZ -> TIMESTAMP;
+                case TimestampType.ID_WITH_TZ -> TIMESTAMP_WITH_TZ;
+                case FloatType.ID -> FLOAT;
+                case DoubleType.ID -> DOUBLE;
+                case StringType.ID, CharacterType.ID, IpType.ID -> STRING;
+                default -> null;
+            };
+        }
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final boolean repeated;
+    private final int maxDefinitionLevel;
+    private final int codec;
+    private final int pageSize;
+
+    // state of the column chunk of the current row group
+    private ByteArrayOutputStream pages = new ByteArrayOutputStream();
+    private ByteArrayOutputStream dictionaryValues = new ByteArrayOutputStream();
+    @Nullable
+    private Map<Object, Integer> dictionary;
+    private int dictionarySize = 0;
+    private long dictionaryEntriesBytes = 0;
+    private boolean dictionaryPages = false;
+    private boolean plainPages = false;
+    private long numValues = 0;
+    private long nullCount = 0;
+    private long uncompressedSize = 0;
+
+    // state of the current page
+    private final ByteArrayOutputStream plainValues = new ByteArrayOutputStream();
+    private int[] definitionLevels = new int[64];
+    private int[] repetitionLevels = new int[64];
+    private int numLevels = 0;
+    // dictionary ids or booleans
+    private int[] ids = new int[64];
+    private int numIds = 0;
+
+    ColumnChunkWriter(String name, DataType<?> type, int codec, int pageSize) {
+        this.name = name;
+        Kind elementKind = type instanceof ArrayType<?> arrayType ? Kind.of(arrayType.innerType()) : null;
+        this.repeated = elementKind != null;
+        if (repeated) {
+            this.kind = elementKind;
+        } else {
+            Kind primitiveKind = Kind.of(type);
+            this.kind = primitiveKind == null ? Kind.JSON : primitiveKind;
+        }
+        // optional group (LIST) -> repeated group list -> optional element
+        this.maxDefinitionLevel = repeated ? 3 : 1;
+        this.codec = codec;
+        this.pageSize = pageSize;
+        this.dictionary = kind == Kind.BOOLEAN ? null : new HashMap<>();
+    }
+
+    void addSchemaElements(List<ThriftStruct> schema) {
+        if (repeated) {
+            schema.add(new ThriftStruct()
+                .set(SchemaElement.REPETITION_TYPE, ParquetFormat.OPTIONAL)
+                .set(SchemaElement.NAME, name)
+                .set(SchemaElement.NUM_CHILDREN, 1)
+                .set(SchemaElement.CONVERTED_TYPE, ParquetFormat.CONVERTED_LIST)
+                .set(SchemaElement.LOGICAL_TYPE, new ThriftStruct().set(LogicalType.LIST, new ThriftStruct())));
+            schema.add(new ThriftStruct()
+                .set(SchemaElement.REPETITION_TYPE, ParquetFormat.REPEATED)
+                .set(SchemaElement.NAME, "list")
+                .set(SchemaElement.NUM_CHILDREN, 1));
+        }
+        ThriftStruct leaf = new ThriftStruct()
+            .set(SchemaElement.TYPE, kind.physicalType)
+            .set(SchemaElement.REPETITION_TYPE, ParquetFormat.OPTIONAL)
+            .set(SchemaElement.NAME, repeated ? "element" : name);
+        switch (kind) {
+            case BYTE, SHORT -> {
+                ThriftStruct integer = new ThriftStruct()
+                    .set(LogicalType.INTEGER_BIT_WIDTH, kind == Kind.BYTE ? (byte) 8 : (byte) 16)
+                    .set(LogicalType.INTEGER_IS_SIGNED, true);
+                leaf.set(SchemaElement.CONVERTED_TYPE, kind == Kind.BYTE ? ParquetFormat.CONVERTED_INT_8 : ParquetFormat.CONVERTED_INT_16)
+                    .set(SchemaElement.LOGICAL_TYPE, new ThriftStruct().set(LogicalType.INTEGER, integer));
+            }
+            case DATE -> leaf.set(SchemaElement.CONVERTED_TYPE, ParquetFormat.CONVERTED_DATE)
+                .set(SchemaElement.LOGICAL_TYPE, new ThriftStruct().set(LogicalType.DATE, new ThriftStruct()));
+            case TIMESTAMP, TIMESTAMP_WITH_TZ -> {
+                boolean adjustedToUtc = kind == Kind.TIMESTAMP_WITH_TZ;
+                ThriftStruct timestamp = new ThriftStruct()
+                    .set(LogicalType.TIMESTAMP_IS_ADJUSTED_TO_UTC, adjustedToUtc)
+                    .set(LogicalType.TIMESTAMP_UNIT, new ThriftStruct().set(LogicalType.UNIT_MILLIS, new ThriftStruct()));
+                leaf.set(SchemaElement.LOGICAL_TYPE, new ThriftStruct().set(LogicalType.TIMESTAMP, timestamp));
+                if (adjustedToUtc) {
+                    // The converted type implies a UTC adjusted timestamp
+                    leaf.set(SchemaElement.CONVERTED_TYPE, ParquetFormat.CONVERTED_TIMESTAMP_MILLIS);
+                }
+            }
+            case STRING -> leaf.set(SchemaElement.CONVERTED_TYPE, ParquetFormat.CONVERTED_UTF8)
+                .set(SchemaElement.LOGICAL_TYPE, new ThriftStruct().set(LogicalType.STRING, new ThriftStruct()));
+            case JSON -> leaf.set(SchemaElement.CONVERTED_TYPE, ParquetFormat.CONVERTED_JSON)
+                .set(SchemaElement.LOGICAL_TYPE, new ThriftStruct().set(LogicalType.JSON, new ThriftStruct()));
+            default -> {
+            }
+        }
+        schema.add(leaf);
+    }
+
+    /**
+     * Adds the value of the column of the next row
+     */
+    void add(@Nullable Object value) throws IOException {
+        if (repeated) {
+            if (value == null) {
+                addLevels(0, 0);
+            } else {
+                List<?> values = (List<?>) value;
+                if (values.isEmpty()) {
+                    addLevels(0, 1);
+                }
+                for (int i = 0; i < values.size(); i++) {
+                    addValue(i == 0 ? 0 : 1, values.get(i));
+                }
+            }
+        } else {
+            addValue(0, value);
+        }
+        if (dictionary != null && dictionaryValues.size() > MAX_DICTIONARY_SIZE) {
+            // The ids of the current page refer to the dictionary, the next pages use PLAIN encoding
+            finishPage();
+            dictionary = null;
+            dictionaryEntriesBytes = 0;
+        } else if (pageBytes() >= pageSize) {
+            finishPage();
+        }
+    }
+
+    private void addValue(int repetitionLevel, @Nullable Object value) throws IOException {
+        if (value == null) {
+            addLevels(repetitionLevel, maxDefinitionLevel - 1);
+            return;
+        }
+        addLevels(repetitionLevel, maxDefinitionLevel);
+        if (kind == Kind.BOOLEAN) {
+            addId((Boolean) value ? 1 : 0);
+            return;
+        }
+        Object physicalValue = toPhysicalValue(value);
+        if (dictionary == null) {
+            writePlain(plainValues, physicalValue);
+            return;
+        }
+        Integer id = dictionary.get(physicalValue);
+        if (id == null) {
+            id = dictionarySize++;
+            dictionary.put(physicalValue, id);
+            dictionaryEntriesBytes += DICTIONARY_ENTRY_OVERHEAD + (physicalValue instanceof String str
+                ? RamUsageEstimator.sizeOf(str)
+                : BOXED_VALUE_SIZE);
+            writePlain(dictionaryValues, physicalValue);
+        }
+        addId(id);
+    }
+
+    private Object toPhysicalValue(Object value) throws IOException {
+        return switch (kind) {
+            case BYTE, SHORT, INTEGER -> ((Number) value).intValue();
+            case DATE -> (int) Math.floorDiv(((Number) value).longValue(), MILLIS_PER_DAY);
+            case LONG, TIMESTAMP, TIMESTAMP_WITH_TZ -> ((Number) value).longValue();
+            case FLOAT -> ((Number) value).floatValue();
+            case DOUBLE -> ((Number) value).doubleValue();
+            case STRING -> value.toString();
+            case JSON -> {
+                try (XContentBuilder builder = JsonXContent.builder()) {
+                    builder.value(value);
+                    yield BytesReference.bytes(builder).utf8ToString();
+                }
+            }
+            case BOOLEAN -> throw new AssertionError("booleans are not dictionary encoded");
+        };
+    }
+
+    private void writePlain(ByteArrayOutputStream out, Object value) {
+        switch (kind.physicalType) {
+            case ParquetFormat.INT32 -> writeIntLE(out, (Integer) value);
+            case ParquetFormat.INT64 -> writeLongLE(out, (Long) value);
+            case ParquetFormat.FLOAT -> writeIntLE(out, Float.floatToIntBits((Float) value));
+            case ParquetFormat.DOUBLE -> writeLongLE(out, Double.doubleToLongBits((Double) value));
+            default -> {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                writeIntLE(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    private void addLevels(int repetitionLevel, int definitionLevel) {
+        if (numLevels == definitionLevels.length) {
+            definitionLevels = Arrays.copyOf(definitionLevels, numLevels * 2);
+            repetitionLevels = Arrays.copyOf(repetitionLevels, numLevels * 2);
+        }
+        repetitionLevels[numLevels] = repetitionLevel;
+        definitionLevels[numLevels] = definitionLevel;
+        numLevels++;
+        if (definitionLevel < maxDefinitionLevel) {
+            nullCount++;
+        }
+    }
+
+    private void addId(int id) {
+        if (numIds == ids.length) {
+            ids = Arrays.copyOf(ids, numIds * 2);
+        }
+        ids[numIds++] = id;
+    }
+
+    private long pageBytes() {
+        if (kind == Kind.BOOLEAN) {
+            return numIds / 8;
+        } else if (dictionary == null) {
+            return plainValues.size();
+        }
+        return (long) numIds * dictionaryBitWidth() / 8;
+    }
+
+    private int dictionaryBitWidth() {
+        return RleBitPackedHybridEncoder.bitWidth(Math.max(0, dictionarySize - 1));
+    }
+
+    /**
+     * @return the approximate number of bytes of the buffered column chunk
+     */
+    long bufferedBytes() {
+        return pages.size() + dictionaryValues.size() + pageBytes();
+    }
+
+    /**
+     * @return the approximate heap usage of the buffered column chunk, including the dictionary and the
+     *         values and levels of the current page
+     */
+    long ramBytesUsed() {
+        return pages.size()
+            + dictionaryValues.size()
+            + dictionaryEntriesBytes
+            + plainValues.size()
+            + (long) (definitionLevels.length + repetitionLevels.length + ids.length) * Integer.BYTES;
+    }
+
+    private void finishPage() throws IOException {
+        if (numLevels == 0) {
+            return;
+        }
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        if (repeated) {
+            writeLevels(page, repetitionLevels, 1);
+        }
+        writeLevels(page, definitionLevels, maxDefinitionLevel);
+        int encoding;
+        if (kind == Kind.BOOLEAN) {
+            encoding = ParquetFormat.PLAIN;
+            // bit-packed, starting with the least significant bit
+            for (int i = 0; i < numIds; i += 8) {
+                int b = 0;
+                for (int j = i; j < Math.min(i + 8, numIds); j++) {
+                    b |= ids[j] << (j - i);
+                }
+                page.write(b);
+            }
+        } else if (dictionary != null) {
+            encoding = ParquetFormat.PLAIN_DICTIONARY;
+            int bitWidth = dictionaryBitWidth();
+            page.write(bitWidth);
+            RleBitPackedHybridEncoder.encode(ids, numIds, bitWidth, page);
+            dictionaryPages = true;
+        } else {
+            encoding = ParquetFormat.PLAIN;
+            plainValues.writeTo(page);
+            plainPages = true;
+        }
+        ThriftStruct dataPageHeader = new ThriftStruct()
+            .set(DataPageHeader.NUM_VALUES, numLevels)
+            .set(DataPageHeader.ENCODING, encoding)
+            .set(DataPageHeader.DEFINITION_LEVEL_ENCODING, ParquetFormat.RLE)
+            .set(DataPageHeader.REPETITION_LEVEL_ENCODING, ParquetFormat.RLE);
+        writePage(pages, ParquetFormat.DATA_PAGE, page.toByteArray(), PageHeader.DATA_PAGE_HEADER, dataPageHeader);
+        numValues += numLevels;
+        numLevels = 0;
+        numIds = 0;
+        plainValues.reset();
+    }
+
+    private void writeLevels(ByteArrayOutputStream page, int[] levels, int maxLevel) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        RleBitPackedHybridEncoder.encode(levels, numLevels, RleBitPackedHybridEncoder.bitWidth(maxLevel), encoded);
+        writeIntLE(page, encoded.size());
+        encoded.writeTo(page);
+    }
+
+    private void writePage(ByteArrayOutputStream out,
+                           int pageType,
+                           byte[] uncompressed,
+                           int typeHeaderFieldId,
+                           ThriftStruct typeHeader) throws IOException {
+        byte[] compressed = ParquetFormat.compress(codec, uncompressed);
+        ThriftStruct header = new ThriftStruct()
+            .set(PageHeader.TYPE, pageType)
+            .set(PageHeader.UNCOMPRESSED_PAGE_SIZE, uncompressed.length)
+            .set(PageHeader.COMPRESSED_PAGE_SIZE, compressed.length)
+            .set(typeHeaderFieldId, typeHeader);
+        int start = out.size();
+        ThriftCompactProtocol.writeStruct(header, out);
+        uncompressedSize += out.size() - start + uncompressed.length;
+        out.write(compressed, 0, compressed.length);
+    }
+
+    /**
+     * Writes the column chunk of the current row group to the output and resets the state for the next row group.
+     *
+     * @param offset the position of the output within the file
+     * @return the ColumnChunk metadata
+     */
+    ThriftStruct flush(OutputStream out, long offset) throws IOException {
+        finishPage();
+        ThriftStruct metadata = new ThriftStruct()
+            .set(ColumnMetaData.TYPE, kind.physicalType)
+            .set(ColumnMetaData.PATH_IN_SCHEMA, repeated ? List.of(name, "list", "element") : List.of(name))
+            .set(ColumnMetaData.CODEC, codec)
+            .set(ColumnMetaData.NUM_VALUES, numValues)
+            .set(ColumnMetaData.STATISTICS, new ThriftStruct().set(Statistics.NULL_COUNT, nullCount));
+        List<Integer> encodings = new ArrayList<>(3);
+        encodings.add(ParquetFormat.RLE);
+        long dataPageOffset = offset;
+        if (dictionaryPages) {
+            ByteArrayOutputStream dictionaryPage = new ByteArrayOutputStream();
+            ThriftStruct dictionaryPageHeader = new ThriftStruct()
+                .set(DictionaryPageHeader.NUM_VALUES, dictionarySize)
+                .set(DictionaryPageHeader.ENCODING, ParquetFormat.PLAIN_DICTIONARY);
+            writePage(
+                dictionaryPage,
+                ParquetFormat.DICTIONARY_PAGE,
+                dictionaryValues.toByteArray(),
+                PageHeader.DICTIONARY_PAGE_HEADER,
+                dictionaryPageHeader
+            );
+            dictionaryPage.writeTo(out);
+            dataPageOffset += dictionaryPage.size();
+            metadata.set(ColumnMetaData.DICTIONARY_PAGE_OFFSET, offset);
+            encodings.add(ParquetFormat.PLAIN_DICTIONARY);
+        }
+        if (plainPages || kind == Kind.BOOLEAN) {
+            encodings.add(ParquetFormat.PLAIN);
+        }
+        pages.writeTo(out);
+        long compressedSize = dataPageOffset - offset + pages.size();
+        metadata
+            .set(ColumnMetaData.ENCODINGS, encodings)
+            .set(ColumnMetaData.TOTAL_UNCOMPRESSED_SIZE, uncompressedSize)
+            .set(ColumnMetaData.TOTAL_COMPRESSED_SIZE, compressedSize)
+            .set(ColumnMetaData.DATA_PAGE_OFFSET, dataPageOffset);
+
+        // New buffers instead of reset() so that the memory of the flushed chunk can be reclaimed
+        pages = new ByteArrayOutputStream();
+        dictionaryValues = new ByteArrayOutputStream();
+        dictionary = kind == Kind.BOOLEAN ? null : new HashMap<>();
+        dictionarySize = 0;
+        dictionaryEntriesBytes = 0;
+        dictionaryPages = false;
+        plainPages = false;
+        numValues = 0;
+        nullCount = 0;
+        uncompressedSize = 0;
+        return new ThriftStruct()
+            .set(ColumnChunk.FILE_OFFSET, offset)
+            .set(ColumnChunk.META_DATA, metadata);
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static void writeLongLE(ByteArrayOutputStream out, long value) {
+        writeIntLE(out, (int) value);
+        writeIntLE(out, (int) (value >>> 32));
+    }
+}
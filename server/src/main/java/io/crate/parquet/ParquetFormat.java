@@ -0,0 +1,280 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.compress.LZ4;
+
+/**
+ * Constants of the Parquet file format.
+ *
+ * Enum values and thrift field ids are defined in
+ * https://github.com/apache/parquet-format/blob/master/src/main/thrift/parquet.thrift
+ */
+final class ParquetFormat {
+
+    static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Length of the footer length and the trailing magic bytes
+     */
+    static final int FOOTER_TAIL_LENGTH = 8;
+
+    // Physical types
+    static final int BOOLEAN = 0;
+    static final int INT32 = 1;
+    static final int INT64 = 2;
+    static final int INT96 = 3;
+    static final int FLOAT = 4;
+    static final int DOUBLE = 5;
+    static final int BYTE_ARRAY = 6;
+    static final int FIXED_LEN_BYTE_ARRAY = 7;
+
+    // Field repetition types
+    static final int REQUIRED = 0;
+    static final int OPTIONAL = 1;
+    static final int REPEATED = 2;
+
+    // Converted types, superseded by the logical types but still written by most writers
+    static final int CONVERTED_UTF8 = 0;
+    static final int CONVERTED_LIST = 3;
+    static final int CONVERTED_DECIMAL = 5;
+    static final int CONVERTED_DATE = 6;
+    static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    static final int CONVERTED_TIMESTAMP_MICROS = 10;
+    static final int CONVERTED_UINT_32 = 13;
+    static final int CONVERTED_UINT_64 = 14;
+    static final int CONVERTED_INT_8 = 15;
+    static final int CONVERTED_INT_16 = 16;
+    static final int CONVERTED_JSON = 19;
+
+    // Encodings
+    static final int PLAIN = 0;
+    static final int PLAIN_DICTIONARY = 2;
+    static final int RLE = 3;
+    static final int BIT_PACKED = 4;
+    static final int RLE_DICTIONARY = 8;
+
+    // Compression codecs
+    static final int UNCOMPRESSED = 0;
+    static final int SNAPPY = 1;
+    static final int GZIP = 2;
+    static final int LZ4_RAW = 7;
+
+    // Page types
+    static final int DATA_PAGE = 0;
+    static final int DICTIONARY_PAGE = 2;
+    static final int DATA_PAGE_V2 = 3;
+
+    static final class FileMetaData {
+        static final int VERSION = 1;
+        static final int SCHEMA = 2;
+        static final int NUM_ROWS = 3;
+        static final int ROW_GROUPS = 4;
+        static final int CREATED_BY = 6;
+    }
+
+    static final class SchemaElement {
+        static final int TYPE = 1;
+        static final int TYPE_LENGTH = 2;
+        static final int REPETITION_TYPE = 3;
+        static final int NAME = 4;
+        static final int NUM_CHILDREN = 5;
+        static final int CONVERTED_TYPE = 6;
+        static final int SCALE = 7;
+        static final int PRECISION = 8;
+        static final int LOGICAL_TYPE = 10;
+    }
+
+    /**
+     * Field ids of the LogicalType union and its members
+     */
+    static final class LogicalType {
+        static final int STRING = 1;
+        static final int LIST = 3;
+        static final int DECIMAL = 5;
+        static final int DATE = 6;
+        static final int TIMESTAMP = 8;
+        static final int INTEGER = 10;
+        static final int JSON = 12;
+        static final int UUID = 14;
+
+        static final int DECIMAL_SCALE = 1;
+        static final int DECIMAL_PRECISION = 2;
+        static final int TIMESTAMP_IS_ADJUSTED_TO_UTC = 1;
+        static final int TIMESTAMP_UNIT = 2;
+        static final int INTEGER_BIT_WIDTH = 1;
+        static final int INTEGER_IS_SIGNED = 2;
+
+        static final int UNIT_MILLIS = 1;
+        static final int UNIT_MICROS = 2;
+        static final int UNIT_NANOS = 3;
+    }
+
+    static final class RowGroup {
+        static final int COLUMNS = 1;
+        static final int TOTAL_BYTE_SIZE = 2;
+        static final int NUM_ROWS = 3;
+        static final int FILE_OFFSET = 5;
+        static final int TOTAL_COMPRESSED_SIZE = 6;
+    }
+
+    static final class ColumnChunk {
+        static final int FILE_PATH = 1;
+        static final int FILE_OFFSET = 2;
+        static final int META_DATA = 3;
+    }
+
+    static final class ColumnMetaData {
+        static final int TYPE = 1;
+        static final int ENCODINGS = 2;
+        static final int PATH_IN_SCHEMA = 3;
+        static final int CODEC = 4;
+        static final int NUM_VALUES = 5;
+        static final int TOTAL_UNCOMPRESSED_SIZE = 6;
+        static final int TOTAL_COMPRESSED_SIZE = 7;
+        static final int DATA_PAGE_OFFSET = 9;
+        static final int DICTIONARY_PAGE_OFFSET = 11;
+        static final int STATISTICS = 12;
+    }
+
+    static final class Statistics {
+        static final int NULL_COUNT = 3;
+        static final int DISTINCT_COUNT = 4;
+        static final int MAX_VALUE = 5;
+        static final int MIN_VALUE = 6;
+    }
+
+    static final class PageHeader {
+        static final int TYPE = 1;
+        static final int UNCOMPRESSED_PAGE_SIZE = 2;
+        static final int COMPRESSED_PAGE_SIZE = 3;
+        static final int DATA_PAGE_HEADER = 5;
+        static final int DICTIONARY_PAGE_HEADER = 7;
+        static final int DATA_PAGE_HEADER_V2 = 8;
+    }
+
+    static final class DataPageHeader {
+        static final int NUM_VALUES = 1;
+        static final int ENCODING = 2;
+        static final int DEFINITION_LEVEL_ENCODING = 3;
+        static final int REPETITION_LEVEL_ENCODING = 4;
+        static final int STATISTICS = 5;
+    }
+
+    static final class DictionaryPageHeader {
+        static final int NUM_VALUES = 1;
+        static final int ENCODING = 2;
+    }
+
+    static final class DataPageHeaderV2 {
+        static final int NUM_VALUES = 1;
+        static final int NUM_NULLS = 2;
+        static final int NUM_ROWS = 3;
+        static final int ENCODING = 4;
+        static final int DEFINITION_LEVELS_BYTE_LENGTH = 5;
+        static final int REPETITION_LEVELS_BYTE_LENGTH = 6;
+        static final int IS_COMPRESSED = 7;
+        static final int STATISTICS = 8;
+    }
+
+    private ParquetFormat() {
+    }
+
+    static byte[] decompress(int codec, byte[] src, int offset, int length, int uncompressedLength) throws IOException {
+        switch (codec) {
+            case UNCOMPRESSED:
+                if (offset == 0 && length == src.length) {
+                    return src;
+                }
+                byte[] copy = new byte[length];
+                System.arraycopy(src, offset, copy, 0, length);
+                return copy;
+
+            case SNAPPY:
+                byte[] snappyResult = new byte[uncompressedLength];
+                Snappy.uncompress(src, offset, length, snappyResult);
+                return snappyResult;
+
+            case GZIP:
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(src, offset, length))) {
+                    byte[] gzipResult = in.readNBytes(uncompressedLength);
+                    if (gzipResult.length != uncompressedLength) {
+                        throw new IOException("Corrupt Parquet page: expected " + uncompressedLength +
+                                              " bytes after decompression but got " + gzipResult.length);
+                    }
+                    return gzipResult;
+                }
+
+            case LZ4_RAW:
+                byte[] lz4Result = new byte[uncompressedLength];
+                LZ4.decompress(new ByteArrayDataInput(src, offset, length), uncompressedLength, lz4Result, 0);
+                return lz4Result;
+
+            default:
+                throw new IOException(String.format(
+                    Locale.ENGLISH,
+                    "Parquet compression codec %s is not supported, supported codecs are: UNCOMPRESSED, SNAPPY, GZIP, LZ4_RAW",
+                    codecName(codec)));
+        }
+    }
+
+    static byte[] compress(int codec, byte[] src) throws IOException {
+        switch (codec) {
+            case UNCOMPRESSED:
+                return src;
+
+            case GZIP:
+                ByteArrayOutputStream out = new ByteArrayOutputStream(src.length / 2);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(src);
+                }
+                return out.toByteArray();
+
+            default:
+                throw new IOException("Writing Parquet files with the compression codec " + codecName(codec) + " is not supported");
+        }
+    }
+
+    static String codecName(int codec) {
+        return switch (codec) {
+            case UNCOMPRESSED -> "UNCOMPRESSED";
+            case SNAPPY -> "SNAPPY";
+            case GZIP -> "GZIP";
+            case 3 -> "LZO";
+            case 4 -> "BROTLI";
+            case 5 -> "LZ4";
+            case 6 -> "ZSTD";
+            case LZ4_RAW -> "LZ4_RAW";
+            default -> String.valueOf(codec);
+        };
+    }
+}
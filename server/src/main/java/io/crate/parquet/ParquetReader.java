@@ -0,0 +1,291 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.collect.files.FileInput;
+import io.crate.parquet.ParquetFormat.ColumnChunk;
+import io.crate.parquet.ParquetFormat.ColumnMetaData;
+import io.crate.parquet.ParquetFormat.FileMetaData;
+import io.crate.parquet.ParquetFormat.RowGroup;
+import io.crate.parquet.ParquetFormat.Statistics;
+
+/**
+ * Reads the rows of a Parquet file as source maps.
+ *
+ * <p>
+ * Values are converted from their physical Parquet representation directly into the
+ * representation of the corresponding CrateDB type (See {@link ParquetSchema.Column}),
+ * without going through an intermediate text format.
+ * </p>
+ *
+ * <p>
+ * The footer and the column chunks of a row group are fetched using range reads.
+ * Only the chunks of the selected columns are read and chunks which contain only
+ * null values according to their statistics are skipped.
+ * Inputs that don't support range reads aren't supported, as the footer is at the end of the file.
+ * </p>
+ *
+ * <p>
+ * The column chunks of the current row group are held in memory and accounted.
+ * They are released when the next row group is opened or the reader is closed.
+ * </p>
+ */
+public final class ParquetReader implements Closeable {
+
+    private static final VarHandle VH_LE_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Number of bytes read from the end of the file when opening it.
+     * The footer usually fits into it so that a single read suffices.
+     */
+    private static final int FOOTER_READ_SIZE = 64 * 1024;
+
+    /**
+     * Column chunks which are at most this many bytes apart are fetched with a single read
+     */
+    private static final int MAX_READ_GAP = 64 * 1024;
+
+    private final FileInput fileInput;
+    private final URI uri;
+    private final List<ThriftStruct> rowGroups;
+    private final List<ParquetSchema.Column> columns;
+    private final int[] columnIndices;
+    private final RamAccounting ramAccounting;
+
+    private long accountedBytes = 0;
+    private int nextRowGroup = 0;
+    private long remainingRows = 0;
+    private ColumnChunkReader[] chunkReaders;
+
+    /**
+     * @param columnNames names of the top-level columns to read. If empty all columns are read.
+     * @param ramAccounting accounts the column chunks of the current row group
+     */
+    public ParquetReader(FileInput fileInput,
+                         URI uri,
+                         Collection<String> columnNames,
+                         RamAccounting ramAccounting) throws IOException {
+        this.fileInput = fileInput;
+        this.uri = uri;
+        this.ramAccounting = ramAccounting;
+        long size = fileInput.size(uri);
+        if (size < 0) {
+            throw new IOException(
+                "Cannot read Parquet file `" + uri + "`, Parquet files can only be read from inputs which support range reads, like `file://` or `s3://`");
+        }
+        if (size < ParquetFormat.MAGIC.length + ParquetFormat.FOOTER_TAIL_LENGTH) {
+            throw new IOException("File `" + uri + "` is not a Parquet file");
+        }
+        int tailLength = (int) Math.min(size, FOOTER_READ_SIZE);
+        byte[] tail = read(size - tailLength, tailLength);
+        int magicPos = tailLength - ParquetFormat.MAGIC.length;
+        if (!Arrays.equals(tail, magicPos, tailLength, ParquetFormat.MAGIC, 0, ParquetFormat.MAGIC.length)) {
+            throw new IOException("File `" + uri + "` is not a Parquet file");
+        }
+        int footerLength = (int) VH_LE_INT.get(tail, tailLength - ParquetFormat.FOOTER_TAIL_LENGTH);
+        if (footerLength < 0 || footerLength + ParquetFormat.FOOTER_TAIL_LENGTH > size) {
+            throw new IOException("Corrupt Parquet file `" + uri + "`: invalid footer length " + footerLength);
+        }
+        ByteBuffer footer;
+        int footerEnd = tailLength - ParquetFormat.FOOTER_TAIL_LENGTH;
+        if (footerLength <= footerEnd) {
+            footer = ByteBuffer.wrap(tail, footerEnd - footerLength, footerLength);
+        } else {
+            footer = ByteBuffer.wrap(read(size - ParquetFormat.FOOTER_TAIL_LENGTH - footerLength, footerLength));
+        }
+        ThriftStruct metadata;
+        try {
+            metadata = ThriftCompactProtocol.readStruct(footer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt Parquet file `" + uri + "`: truncated metadata", e);
+        }
+        ParquetSchema schema = ParquetSchema.of(metadata.getList(FileMetaData.SCHEMA));
+        this.rowGroups = metadata.getList(FileMetaData.ROW_GROUPS);
+
+        List<ParquetSchema.Column> allColumns = schema.columns();
+        List<ParquetSchema.Column> selectedColumns = new ArrayList<>();
+        List<Integer> selectedIndices = new ArrayList<>();
+        for (int i = 0; i < allColumns.size(); i++) {
+            ParquetSchema.Column column = allColumns.get(i);
+            if (columnNames.isEmpty() || columnNames.contains(column.name())) {
+                String unsupportedReason = column.unsupportedReason();
+                if (unsupportedReason != null) {
+                    throw new IOException(
+                        "Cannot read column `" + column + "` of Parquet file `" + uri + "`: " + unsupportedReason);
+                }
+                selectedColumns.add(column);
+                selectedIndices.add(i);
+            }
+        }
+        this.columns = selectedColumns;
+        this.columnIndices = selectedIndices.stream().mapToInt(Integer::intValue).toArray();
+        this.chunkReaders = new ColumnChunkReader[columnIndices.length];
+    }
+
+    /**
+     * @return the next row or null if all rows have been read
+     */
+    @Nullable
+    public LinkedHashMap<String, Object> next() throws IOException {
+        while (remainingRows == 0) {
+            if (nextRowGroup == rowGroups.size()) {
+                return null;
+            }
+            openRowGroup(rowGroups.get(nextRowGroup++));
+        }
+        remainingRows--;
+        LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+        try {
+            for (ColumnChunkReader chunkReader : chunkReaders) {
+                chunkReader.readInto(row);
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Corrupt Parquet file `" + uri + "`", e);
+        }
+        return row;
+    }
+
+    private void openRowGroup(ThriftStruct rowGroup) throws IOException {
+        releaseChunks();
+        List<ThriftStruct> chunks = rowGroup.getList(RowGroup.COLUMNS);
+        List<ChunkRange> ranges = new ArrayList<>(columnIndices.length);
+        for (int i = 0; i < columnIndices.length; i++) {
+            ParquetSchema.Column column = columns.get(i);
+            ThriftStruct chunk = chunks.get(columnIndices[i]);
+            if (chunk.has(ColumnChunk.FILE_PATH)) {
+                throw new IOException("Parquet file `" + uri + "` references column data in other files, which is not supported");
+            }
+            ThriftStruct metadata = chunk.getStruct(ColumnChunk.META_DATA);
+            if (metadata == null) {
+                throw new IOException("Corrupt Parquet file `" + uri + "`: metadata of column `" + column + "` is missing");
+            }
+            ThriftStruct statistics = metadata.getStruct(ColumnMetaData.STATISTICS);
+            long numValues = metadata.getLong(ColumnMetaData.NUM_VALUES, -1);
+            if (statistics != null
+                && column.maxRepetitionLevel() == 0
+                && column.maxDefinitionLevel() > 0
+                && statistics.getLong(Statistics.NULL_COUNT, -1) == numValues) {
+                chunkReaders[i] = ColumnChunkReader.allNull(column);
+                continue;
+            }
+            long dataPageOffset = metadata.getLong(ColumnMetaData.DATA_PAGE_OFFSET, 0);
+            long dictionaryPageOffset = metadata.getLong(ColumnMetaData.DICTIONARY_PAGE_OFFSET, 0);
+            // Some writers set the dictionary page offset to 0 if there is no dictionary page
+            long start = dictionaryPageOffset > 0 && dictionaryPageOffset < dataPageOffset
+                ? dictionaryPageOffset
+                : dataPageOffset;
+            long length = metadata.getLong(ColumnMetaData.TOTAL_COMPRESSED_SIZE, 0);
+            ranges.add(new ChunkRange(i, metadata.getInt(ColumnMetaData.CODEC, ParquetFormat.UNCOMPRESSED), start, length));
+        }
+        readChunks(ranges);
+        remainingRows = rowGroup.getLong(RowGroup.NUM_ROWS, 0);
+    }
+
+    /**
+     * Reads the column chunks, merging the reads of chunks which are close to each other
+     */
+    private void readChunks(List<ChunkRange> ranges) throws IOException {
+        ranges.sort(Comparator.comparingLong(ChunkRange::start));
+        int i = 0;
+        while (i < ranges.size()) {
+            long start = ranges.get(i).start;
+            long end = ranges.get(i).end();
+            int j = i + 1;
+            while (j < ranges.size()
+                   && ranges.get(j).start - end <= MAX_READ_GAP
+                   && ranges.get(j).end() - start <= Integer.MAX_VALUE) {
+                end = Math.max(end, ranges.get(j).end());
+                j++;
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Column chunk of Parquet file `" + uri + "` is too large");
+            }
+            int length = (int) (end - start);
+            ramAccounting.addBytes(length);
+            accountedBytes += length;
+            byte[] data = read(start, length);
+            for (int k = i; k < j; k++) {
+                ChunkRange range = ranges.get(k);
+                chunkReaders[range.column] = ColumnChunkReader.of(
+                    columns.get(range.column),
+                    range.codec,
+                    data,
+                    (int) (range.start - start),
+                    (int) range.length
+                );
+            }
+            i = j;
+        }
+    }
+
+    private void releaseChunks() {
+        Arrays.fill(chunkReaders, null);
+        ramAccounting.addBytes(-accountedBytes);
+        accountedBytes = 0;
+    }
+
+    /**
+     * Releases the column chunks of the current row group
+     */
+    @Override
+    public void close() {
+        remainingRows = 0;
+        nextRowGroup = rowGroups.size();
+        releaseChunks();
+    }
+
+    private byte[] read(long offset, int length) throws IOException {
+        try (InputStream stream = fileInput.getStream(uri, offset, length)) {
+            byte[] bytes = stream.readNBytes(length);
+            if (bytes.length != length) {
+                throw new IOException("Unexpected end of Parquet file `" + uri + "`");
+            }
+            return bytes;
+        }
+    }
+
+    private record ChunkRange(int column, int codec, long start, long length) {
+
+        long end() {
+            return start + length;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import static io.crate.parquet.ParquetFormat.CONVERTED_DATE;
+import static io.crate.parquet.ParquetFormat.CONVERTED_DECIMAL;
+import static io.crate.parquet.ParquetFormat.CONVERTED_JSON;
+import static io.crate.parquet.ParquetFormat.CONVERTED_LIST;
+import static io.crate.parquet.ParquetFormat.CONVERTED_TIMESTAMP_MICROS;
+import static io.crate.parquet.ParquetFormat.CONVERTED_TIMESTAMP_MILLIS;
+import static io.crate.parquet.ParquetFormat.CONVERTED_UINT_32;
+import static io.crate.parquet.ParquetFormat.CONVERTED_UINT_64;
+import static io.crate.parquet.ParquetFormat.REPEATED;
+import static io.crate.parquet.ParquetFormat.REQUIRED;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.parquet.ParquetFormat.LogicalType;
+import io.crate.parquet.ParquetFormat.SchemaElement;
+
+/**
+ * Schema of a Parquet file.
+ *
+ * <p>
+ * Each leaf of the schema tree is a {@link Column}, which is stored in its own column chunk per row group.
+ * Groups are exposed as objects, the standard LIST representations (3-level and 2-level) and
+ * un-annotated repeated primitive fields as arrays. Maps, lists of groups and nested lists are not supported.
+ * </p>
+ */
+final class ParquetSchema {
+
+    private static final VarHandle VH_BE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle VH_LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle VH_LE_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long JULIAN_EPOCH_DAY = 2_440_588L;
+
+    private final List<Column> columns;
+
+    private ParquetSchema(List<Column> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @param elements the schema elements of the file metadata: A depth-first flattening of the schema tree.
+     */
+    static ParquetSchema of(List<ThriftStruct> elements) throws IOException {
+        if (elements.isEmpty()) {
+            throw new IOException("Invalid Parquet metadata: schema is empty");
+        }
+        int[] pos = new int[] { 0 };
+        Node root = Node.of(elements, pos);
+        List<Column> columns = new ArrayList<>();
+        collectColumns(root, new ArrayList<>(), columns);
+        return new ParquetSchema(List.copyOf(columns));
+    }
+
+    /**
+     * @return the leaf columns in the order of the column chunks within a row group
+     */
+    List<Column> columns() {
+        return columns;
+    }
+
+    private static void collectColumns(Node group, List<Node> path, List<Column> columns) {
+        for (Node child : group.children) {
+            path.add(child);
+            if (child.isGroup()) {
+                collectColumns(child, path, columns);
+            } else {
+                columns.add(new Column(List.copyOf(path)));
+            }
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private static final class Node {
+
+        private final String name;
+        private final int repetition;
+        private final int physicalType;
+        private final int typeLength;
+        private final int convertedType;
+        @Nullable
+        private final ThriftStruct logicalType;
+        private final int scale;
+        private final List<Node> children;
+
+        private Node(ThriftStruct element, List<Node> children) {
+            this.name = element.getString(SchemaElement.NAME);
+            this.repetition = element.getInt(SchemaElement.REPETITION_TYPE, REQUIRED);
+            this.physicalType = element.getInt(SchemaElement.TYPE, -1);
+            this.typeLength = element.getInt(SchemaElement.TYPE_LENGTH, -1);
+            this.convertedType = element.getInt(SchemaElement.CONVERTED_TYPE, -1);
+            this.logicalType = element.getStruct(SchemaElement.LOGICAL_TYPE);
+            ThriftStruct decimal = logicalType == null ? null : logicalType.getStruct(LogicalType.DECIMAL);
+            this.scale = decimal == null
+                ? element.getInt(SchemaElement.SCALE, 0)
+                : decimal.getInt(LogicalType.DECIMAL_SCALE, 0);
+            this.children = children;
+        }
+
+        private static Node of(List<ThriftStruct> elements, int[] pos) throws IOException {
+            if (pos[0] >= elements.size()) {
+                throw new IOException("Invalid Parquet metadata: schema has fewer elements than declared");
+            }
+            ThriftStruct element = elements.get(pos[0]++);
+            int numChildren = element.getInt(SchemaElement.NUM_CHILDREN, 0);
+            List<Node> children = new ArrayList<>(numChildren);
+            for (int i = 0; i < numChildren; i++) {
+                children.add(of(elements, pos));
+            }
+            return new Node(element, children);
+        }
+
+        boolean isGroup() {
+            return physicalType == -1;
+        }
+
+        boolean isList() {
+            return convertedType == CONVERTED_LIST || hasLogicalType(LogicalType.LIST);
+        }
+
+        private boolean hasLogicalType(int fieldId) {
+            return logicalType != null && logicalType.has(fieldId);
+        }
+    }
+
+    /**
+     * A leaf of the schema, together with the information required to assemble
+     * the value of the top-level column it belongs to from its repetition and definition levels.
+     */
+    static final class Column {
+
+        /**
+         * How physical values are converted into the representation of the matching CrateDB type.
+         * e.g. DATE (days since epoch) and TIMESTAMP values become epoch milliseconds,
+         * DECIMAL values become {@link BigDecimal} (NUMERIC) and JSON values are parsed.
+         */
+        private enum Conversion {
+            NONE,
+            UNSIGNED,
+            DATE,
+            DECIMAL,
+            TIMESTAMP_MILLIS,
+            TIMESTAMP_MICROS,
+            TIMESTAMP_NANOS,
+            UUID,
+            JSON
+        }
+
+        private final List<String> path;
+        private final Node leaf;
+        private final int maxDefinitionLevel;
+        private final int maxRepetitionLevel;
+        private final String[] fieldNames;
+        private final int[] fieldDefinitionLevels;
+        private final int elementDefinitionLevel;
+        @Nullable
+        private final String unsupportedReason;
+        private final Conversion conversion;
+
+        private Column(List<Node> nodes) {
+            this.path = nodes.stream().map(n -> n.name).toList();
+            this.leaf = nodes.get(nodes.size() - 1);
+
+            int numNodes = nodes.size();
+            int definitionLevel = 0;
+            int repetitionLevel = 0;
+            int repeatedIdx = -1;
+            int[] definitionLevels = new int[numNodes];
+            for (int i = 0; i < numNodes; i++) {
+                Node node = nodes.get(i);
+                if (node.repetition != REQUIRED) {
+                    definitionLevel++;
+                }
+                if (node.repetition == REPEATED) {
+                    repetitionLevel++;
+                    repeatedIdx = i;
+                }
+                definitionLevels[i] = definitionLevel;
+            }
+            this.maxDefinitionLevel = definitionLevel;
+            this.maxRepetitionLevel = repetitionLevel;
+
+            // Number of nodes which are exposed as (nested) fields; The last one holds the value
+            int numFields = numNodes;
+            String unsupported = null;
+            if (repetitionLevel > 1) {
+                unsupported = "nested lists are not supported";
+            } else if (repetitionLevel == 1) {
+                if (repeatedIdx == numNodes - 1) {
+                    // 2-level list if the parent is annotated, otherwise a repeated primitive field
+                    boolean annotatedParent = repeatedIdx > 0 && nodes.get(repeatedIdx - 1).isList();
+                    numFields = annotatedParent ? repeatedIdx : repeatedIdx + 1;
+                } else if (repeatedIdx == numNodes - 2
+                           && repeatedIdx > 0
+                           && nodes.get(repeatedIdx - 1).isList()
+                           && nodes.get(repeatedIdx).children.size() == 1) {
+                    // 3-level list: <list> (LIST) -> repeated group list -> element
+                    numFields = repeatedIdx;
+                } else {
+                    unsupported = "maps and lists of objects are not supported";
+                }
+            }
+            this.unsupportedReason = unsupported;
+            this.fieldNames = new String[numFields];
+            this.fieldDefinitionLevels = new int[numFields];
+            for (int i = 0; i < numFields; i++) {
+                fieldNames[i] = nodes.get(i).name;
+                // A repeated field itself exists (but is empty) if its parent is defined
+                fieldDefinitionLevels[i] = i == repeatedIdx ? definitionLevels[i] - 1 : definitionLevels[i];
+            }
+            this.elementDefinitionLevel = repeatedIdx == -1 ? maxDefinitionLevel : definitionLevels[repeatedIdx];
+            this.conversion = conversion(leaf);
+        }
+
+        private static Conversion conversion(Node leaf) {
+            ThriftStruct logicalType = leaf.logicalType;
+            if (logicalType != null) {
+                ThriftStruct integer = logicalType.getStruct(LogicalType.INTEGER);
+                if (integer != null && !integer.getBoolean(LogicalType.INTEGER_IS_SIGNED, true)
+                    && integer.getInt(LogicalType.INTEGER_BIT_WIDTH, 0) >= 32) {
+                    return Conversion.UNSIGNED;
+                }
+                if (logicalType.has(LogicalType.DATE)) {
+                    return Conversion.DATE;
+                }
+                if (logicalType.has(LogicalType.DECIMAL)) {
+                    return Conversion.DECIMAL;
+                }
+                if (logicalType.has(LogicalType.UUID)) {
+                    return Conversion.UUID;
+                }
+                if (logicalType.has(LogicalType.JSON)) {
+                    return Conversion.JSON;
+                }
+                ThriftStruct timestamp = logicalType.getStruct(LogicalType.TIMESTAMP);
+                if (timestamp != null) {
+                    ThriftStruct unit = timestamp.getStruct(LogicalType.TIMESTAMP_UNIT);
+                    if (unit != null && unit.has(LogicalType.UNIT_MICROS)) {
+                        return Conversion.TIMESTAMP_MICROS;
+                    } else if (unit != null && unit.has(LogicalType.UNIT_NANOS)) {
+                        return Conversion.TIMESTAMP_NANOS;
+                    }
+                    return Conversion.TIMESTAMP_MILLIS;
+                }
+            }
+            return switch (leaf.convertedType) {
+                case CONVERTED_UINT_32, CONVERTED_UINT_64 -> Conversion.UNSIGNED;
+                case CONVERTED_DATE -> Conversion.DATE;
+                case CONVERTED_DECIMAL -> Conversion.DECIMAL;
+                case CONVERTED_TIMESTAMP_MILLIS -> Conversion.TIMESTAMP_MILLIS;
+                case CONVERTED_TIMESTAMP_MICROS -> Conversion.TIMESTAMP_MICROS;
+                case CONVERTED_JSON -> Conversion.JSON;
+                default -> Conversion.NONE;
+            };
+        }
+
+        /**
+         * Name of the top-level column this leaf belongs to
+         */
+        String name() {
+            return path.get(0);
+        }
+
+        int physicalType() {
+            return leaf.physicalType;
+        }
+
+        int typeLength() {
+            return leaf.typeLength;
+        }
+
+        int maxDefinitionLevel() {
+            return maxDefinitionLevel;
+        }
+
+        int maxRepetitionLevel() {
+            return maxRepetitionLevel;
+        }
+
+        String[] fieldNames() {
+            return fieldNames;
+        }
+
+        /**
+         * @return for each field the minimum definition level at which it is not null
+         */
+        int[] fieldDefinitionLevels() {
+            return fieldDefinitionLevels;
+        }
+
+        /**
+         * @return the minimum definition level at which a repeated column contains an element
+         */
+        int elementDefinitionLevel() {
+            return elementDefinitionLevel;
+        }
+
+        @Nullable
+        String unsupportedReason() {
+            return unsupportedReason;
+        }
+
+        Object convert(int value) {
+            return switch (conversion) {
+                case DATE -> value * MILLIS_PER_DAY;
+                case DECIMAL -> BigDecimal.valueOf(value, leaf.scale);
+                case UNSIGNED -> Integer.toUnsignedLong(value);
+                default -> value;
+            };
+        }
+
+        Object convert(long value) {
+            return switch (conversion) {
+                case TIMESTAMP_MICROS -> Math.floorDiv(value, 1000L);
+                case TIMESTAMP_NANOS -> Math.floorDiv(value, 1000_000L);
+                case DECIMAL -> BigDecimal.valueOf(value, leaf.scale);
+                case UNSIGNED -> value >= 0 ? (Object) value : new BigDecimal(Long.toUnsignedString(value));
+                default -> value;
+            };
+        }
+
+        Object convert(byte[] data, int offset, int length) throws IOException {
+            if (leaf.physicalType == ParquetFormat.INT96) {
+                // nanoseconds of the day followed by the julian day
+                long nanosOfDay = (long) VH_LE_LONG.get(data, offset);
+                long julianDay = (int) VH_LE_INT.get(data, offset + 8);
+                return (julianDay - JULIAN_EPOCH_DAY) * MILLIS_PER_DAY + Math.floorDiv(nanosOfDay, 1000_000L);
+            }
+            return switch (conversion) {
+                case DECIMAL -> new BigDecimal(new BigInteger(data, offset, length), leaf.scale);
+                case UUID -> length == 16
+                    ? new UUID((long) VH_BE_LONG.get(data, offset), (long) VH_BE_LONG.get(data, offset + 8)).toString()
+                    : new String(data, offset, length, StandardCharsets.UTF_8);
+                case JSON -> parseJson(data, offset, length);
+                default -> new String(data, offset, length, StandardCharsets.UTF_8);
+            };
+        }
+
+        @Nullable
+        private static Object parseJson(byte[] data, int offset, int length) throws IOException {
+            try (XContentParser parser = JsonXContent.JSON_XCONTENT.createParser(
+                    NamedXContentRegistry.EMPTY,
+                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+                    data,
+                    offset,
+                    length)) {
+                XContentParser.Token token = parser.nextToken();
+                if (token == XContentParser.Token.START_OBJECT) {
+                    return parser.map();
+                } else if (token == XContentParser.Token.START_ARRAY) {
+                    return parser.list();
+                }
+                return parser.objectText();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.join(".", path);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import io.crate.data.Input;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.parquet.ParquetFormat.ColumnChunk;
+import io.crate.parquet.ParquetFormat.ColumnMetaData;
+import io.crate.parquet.ParquetFormat.FileMetaData;
+import io.crate.parquet.ParquetFormat.RowGroup;
+import io.crate.parquet.ParquetFormat.SchemaElement;
+import io.crate.types.DataType;
+
+/**
+ * Writes rows into a Parquet file.
+ *
+ * <p>
+ * The rows are buffered column-wise in memory until the encoded columns reach the configured row group size.
+ * The row group is then written out and the file metadata is written as footer once the writer is closed.
+ * The buffered row group is accounted, if the circuit breaker trips the row group is written out early.
+ * Values are dictionary encoded (See {@link ColumnChunkWriter}), repetition and definition levels and
+ * dictionary ids use the RLE / bit-packing hybrid encoding.
+ * </p>
+ */
+public final class ParquetWriter implements Closeable {
+
+    /**
+     * Target size of the uncompressed data pages
+     */
+    private static final int PAGE_SIZE = 1024 * 1024;
+
+    private final OutputStream out;
+    private final long rowGroupSize;
+    private final ColumnChunkWriter[] columns;
+    private final List<ThriftStruct> schema;
+    private final List<ThriftStruct> rowGroups = new ArrayList<>();
+    private final RamAccounting ramAccounting;
+
+    private long position = 0;
+    private long numRows = 0;
+    private long rowGroupStartRow = 0;
+    private long accountedBytes = 0;
+
+    /**
+     * @param gzip if true the pages are compressed using GZIP, otherwise they're stored uncompressed
+     * @param rowGroupSize the number of bytes after which a row group is written
+     * @param ramAccounting accounts the memory of the buffered row group
+     */
+    public ParquetWriter(OutputStream out,
+                         List<String> columnNames,
+                         List<? extends DataType<?>> columnTypes,
+                         boolean gzip,
+                         long rowGroupSize,
+                         RamAccounting ramAccounting) throws IOException {
+        assert columnNames.size() == columnTypes.size() : "Must have a name for each column type";
+        this.out = out;
+        this.rowGroupSize = rowGroupSize;
+        this.ramAccounting = ramAccounting;
+        int codec = gzip ? ParquetFormat.GZIP : ParquetFormat.UNCOMPRESSED;
+        this.columns = new ColumnChunkWriter[columnNames.size()];
+        this.schema = new ArrayList<>();
+        schema.add(new ThriftStruct()
+            .set(SchemaElement.NAME, "schema")
+            .set(SchemaElement.NUM_CHILDREN, columns.length));
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnChunkWriter(columnNames.get(i), columnTypes.get(i), codec, PAGE_SIZE);
+            columns[i].addSchemaElements(schema);
+        }
+        writeBytes(ParquetFormat.MAGIC);
+    }
+
+    public void write(List<? extends Input<?>> row) throws IOException {
+        long bufferedBytes = 0;
+        long ramBytesUsed = 0;
+        for (int i = 0; i < columns.length; i++) {
+            ColumnChunkWriter column = columns[i];
+            column.add(row.get(i).value());
+            bufferedBytes += column.bufferedBytes();
+            ramBytesUsed += column.ramBytesUsed();
+        }
+        numRows++;
+        try {
+            ramAccounting.addBytes(ramBytesUsed - accountedBytes);
+            accountedBytes = ramBytesUsed;
+        } catch (CircuitBreakingException e) {
+            if (numRows - rowGroupStartRow == 1) {
+                // Nothing to free up, a single row doesn't fit
+                throw e;
+            }
+            flushRowGroup();
+            return;
+        }
+        if (bufferedBytes >= rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        long rowGroupOffset = position;
+        List<ThriftStruct> columnChunks = new ArrayList<>(columns.length);
+        long totalByteSize = 0;
+        for (ColumnChunkWriter column : columns) {
+            ThriftStruct columnChunk = column.flush(out, position);
+            ThriftStruct metadata = columnChunk.getStruct(ColumnChunk.META_DATA);
+            assert metadata != null : "ColumnChunk must have metadata";
+            position += metadata.getLong(ColumnMetaData.TOTAL_COMPRESSED_SIZE, 0);
+            totalByteSize += metadata.getLong(ColumnMetaData.TOTAL_UNCOMPRESSED_SIZE, 0);
+            columnChunks.add(columnChunk);
+        }
+        rowGroups.add(new ThriftStruct()
+            .set(RowGroup.COLUMNS, columnChunks)
+            .set(RowGroup.TOTAL_BYTE_SIZE, totalByteSize)
+            .set(RowGroup.NUM_ROWS, numRows - rowGroupStartRow)
+            .set(RowGroup.FILE_OFFSET, rowGroupOffset)
+            .set(RowGroup.TOTAL_COMPRESSED_SIZE, position - rowGroupOffset));
+        rowGroupStartRow = numRows;
+        ramAccounting.addBytes(-accountedBytes);
+        accountedBytes = 0;
+    }
+
+    /**
+     * Writes the remaining rows and the footer and closes the underlying output stream
+     */
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            if (numRows > rowGroupStartRow) {
+                flushRowGroup();
+            }
+            ThriftStruct fileMetaData = new ThriftStruct()
+                .set(FileMetaData.VERSION, 1)
+                .set(FileMetaData.SCHEMA, schema)
+                .set(FileMetaData.NUM_ROWS, numRows)
+                .set(FileMetaData.ROW_GROUPS, rowGroups)
+                .set(FileMetaData.CREATED_BY, "CrateDB version " + Version.CURRENT.externalNumber());
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            ThriftCompactProtocol.writeStruct(fileMetaData, footer);
+            int footerLength = footer.size();
+            footer.write(footerLength);
+            footer.write(footerLength >>> 8);
+            footer.write(footerLength >>> 16);
+            footer.write(footerLength >>> 24);
+            footer.write(ParquetFormat.MAGIC, 0, ParquetFormat.MAGIC.length);
+            footer.writeTo(out);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.IOException;
+
+/**
+ * Decoder for the RLE / bit-packing hybrid encoding which Parquet uses for
+ * repetition and definition levels, dictionary indices and booleans.
+ *
+ * See https://github.com/apache/parquet-format/blob/master/Encodings.md#run-length-encoding--bit-packing-hybrid-rle--3
+ */
+final class RleBitPackedHybridDecoder {
+
+    private final byte[] data;
+    private final int end;
+    private final int bitWidth;
+    private final int byteWidth;
+    private final long mask;
+
+    private int pos;
+    private int remaining = 0;
+    private boolean rle;
+    private int rleValue;
+    private int[] packed = new int[8];
+    private int packedIndex;
+
+    RleBitPackedHybridDecoder(byte[] data, int offset, int length, int bitWidth) {
+        if (bitWidth < 0 || bitWidth > 32) {
+            throw new IllegalArgumentException("Invalid bit width for RLE/bit-packed data: " + bitWidth);
+        }
+        this.data = data;
+        this.pos = offset;
+        this.end = offset + length;
+        this.bitWidth = bitWidth;
+        this.byteWidth = (bitWidth + 7) / 8;
+        this.mask = bitWidth == 32 ? 0xFFFFFFFFL : (1L << bitWidth) - 1;
+    }
+
+    int next() throws IOException {
+        if (remaining == 0) {
+            readRun();
+        }
+        remaining--;
+        return rle ? rleValue : packed[packedIndex++];
+    }
+
+    void next(int[] dest, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            dest[i] = next();
+        }
+    }
+
+    private void readRun() throws IOException {
+        if (pos >= end) {
+            throw new IOException("Corrupt Parquet page: RLE/bit-packed data contains fewer values than expected");
+        }
+        int header = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            header |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        if ((header & 1) == 0) {
+            rle = true;
+            remaining = header >>> 1;
+            int value = 0;
+            for (int i = 0; i < byteWidth; i++) {
+                value |= (data[pos++] & 0xFF) << (i * 8);
+            }
+            rleValue = value;
+        } else {
+            rle = false;
+            int numGroups = header >>> 1;
+            int numValues = numGroups * 8;
+            if (packed.length < numValues) {
+                packed = new int[numValues];
+            }
+            // values are packed starting with the least significant bit of each byte
+            long buffer = 0;
+            int bitsInBuffer = 0;
+            int p = pos;
+            for (int i = 0; i < numValues; i++) {
+                while (bitsInBuffer < bitWidth) {
+                    // the last run may be truncated if it isn't padded to a full group
+                    long nextByte = p < end ? data[p] & 0xFF : 0;
+                    buffer |= nextByte << bitsInBuffer;
+                    p++;
+                    bitsInBuffer += 8;
+                }
+                packed[i] = (int) (buffer & mask);
+                buffer >>>= bitWidth;
+                bitsInBuffer -= bitWidth;
+            }
+            pos += numGroups * bitWidth;
+            remaining = numValues;
+            packedIndex = 0;
+        }
+        if (remaining == 0) {
+            readRun();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encoder for the RLE / bit-packing hybrid encoding, the counterpart of {@link RleBitPackedHybridDecoder}.
+ *
+ * <p>
+ * Repeated values are written as RLE runs once they repeat at least 8 times, all other values are bit-packed
+ * in groups of 8. Bit-packed runs must contain a multiple of 8 values except for the last run, which is padded.
+ * </p>
+ */
+final class RleBitPackedHybridEncoder {
+
+    private static final int MIN_RLE_RUN = 8;
+
+    private RleBitPackedHybridEncoder() {
+    }
+
+    /**
+     * @return the number of bits required to encode values in the range of [0, maxValue]
+     */
+    static int bitWidth(int maxValue) {
+        return 32 - Integer.numberOfLeadingZeros(maxValue);
+    }
+
+    static void encode(int[] values, int count, int bitWidth, ByteArrayOutputStream out) {
+        int literalStart = 0;
+        int i = 0;
+        while (i < count) {
+            int value = values[i];
+            int runEnd = i + 1;
+            while (runEnd < count && values[runEnd] == value) {
+                runEnd++;
+            }
+            int runLength = runEnd - i;
+            // Pending literals are completed to a multiple of 8 using values of the run
+            int padding = (MIN_RLE_RUN - (i - literalStart) % MIN_RLE_RUN) % MIN_RLE_RUN;
+            if (runLength - padding >= MIN_RLE_RUN) {
+                writeBitPacked(values, literalStart, i + padding - literalStart, bitWidth, out);
+                writeRle(value, runLength - padding, bitWidth, out);
+                literalStart = runEnd;
+            }
+            i = runEnd;
+        }
+        writeBitPacked(values, literalStart, count - literalStart, bitWidth, out);
+    }
+
+    private static void writeRle(int value, int runLength, int bitWidth, ByteArrayOutputStream out) {
+        ThriftCompactProtocol.writeVarLong(out, (long) runLength << 1);
+        int byteWidth = (bitWidth + 7) / 8;
+        for (int i = 0; i < byteWidth; i++) {
+            out.write(value >>> (i * 8));
+        }
+    }
+
+    private static void writeBitPacked(int[] values, int offset, int length, int bitWidth, ByteArrayOutputStream out) {
+        if (length == 0) {
+            return;
+        }
+        int numGroups = (length + 7) / 8;
+        ThriftCompactProtocol.writeVarLong(out, ((long) numGroups << 1) | 1);
+        // values are packed starting with the least significant bit of each byte
+        long buffer = 0;
+        int bitsInBuffer = 0;
+        for (int i = 0; i < numGroups * 8; i++) {
+            long value = i < length ? values[offset + i] & 0xFFFFFFFFL : 0;
+            buffer |= value << bitsInBuffer;
+            bitsInBuffer += bitWidth;
+            while (bitsInBuffer >= 8) {
+                out.write((int) buffer);
+                buffer >>>= 8;
+                bitsInBuffer -= 8;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.IOException;
+
+/**
+ * Decoder for the raw (unframed) snappy format, which is used for Parquet pages compressed with the SNAPPY codec.
+ *
+ * See https://github.com/google/snappy/blob/main/format_description.txt
+ */
+final class Snappy {
+
+    private static final int LITERAL = 0;
+    private static final int COPY_1_BYTE_OFFSET = 1;
+    private static final int COPY_2_BYTE_OFFSET = 2;
+
+    private Snappy() {
+    }
+
+    static void uncompress(byte[] src, int offset, int length, byte[] dest) throws IOException {
+        try {
+            int pos = offset;
+
+            // preamble: uncompressed length as varint
+            int uncompressedLength = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = src[pos++];
+                uncompressedLength |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (uncompressedLength != dest.length) {
+                throw new IOException("Corrupt snappy data: expected " + dest.length +
+                                      " uncompressed bytes but got " + uncompressedLength);
+            }
+
+            int destPos = 0;
+            int end = offset + length;
+            while (pos < end) {
+                int tag = src[pos++] & 0xFF;
+                int copyLength;
+                int copyOffset;
+                switch (tag & 0x03) {
+                    case LITERAL:
+                        int literalLength = tag >>> 2;
+                        if (literalLength >= 60) {
+                            int numBytes = literalLength - 59;
+                            literalLength = 0;
+                            for (int i = 0; i < numBytes; i++) {
+                                literalLength |= (src[pos++] & 0xFF) << (i * 8);
+                            }
+                        }
+                        literalLength++;
+                        System.arraycopy(src, pos, dest, destPos, literalLength);
+                        pos += literalLength;
+                        destPos += literalLength;
+                        continue;
+
+                    case COPY_1_BYTE_OFFSET:
+                        copyLength = 4 + ((tag >>> 2) & 0x07);
+                        copyOffset = ((tag >>> 5) << 8) | (src[pos++] & 0xFF);
+                        break;
+
+                    case COPY_2_BYTE_OFFSET:
+                        copyLength = 1 + (tag >>> 2);
+                        copyOffset = (src[pos] & 0xFF) | ((src[pos + 1] & 0xFF) << 8);
+                        pos += 2;
+                        break;
+
+                    default:
+                        copyLength = 1 + (tag >>> 2);
+                        copyOffset = (src[pos] & 0xFF)
+                            | ((src[pos + 1] & 0xFF) << 8)
+                            | ((src[pos + 2] & 0xFF) << 16)
+                            | ((src[pos + 3] & 0xFF) << 24);
+                        pos += 4;
+                        break;
+                }
+                if (copyOffset <= 0 || copyOffset > destPos) {
+                    throw new IOException("Corrupt snappy data: invalid copy offset " + copyOffset);
+                }
+                // source and destination may overlap, so copy byte by byte
+                int from = destPos - copyOffset;
+                for (int i = 0; i < copyLength; i++) {
+                    dest[destPos++] = dest[from + i];
+                }
+            }
+            if (destPos != dest.length) {
+                throw new IOException("Corrupt snappy data: expected " + dest.length +
+                                      " uncompressed bytes but got " + destPos);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt snappy data", e);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal implementation of the thrift compact protocol, which is used to encode the
+ * metadata (footer and page headers) of Parquet files.
+ *
+ * See https://github.com/apache/thrift/blob/master/doc/specs/thrift-compact-protocol.md
+ */
+final class ThriftCompactProtocol {
+
+    static final int TYPE_STOP = 0;
+    static final int TYPE_BOOLEAN_TRUE = 1;
+    static final int TYPE_BOOLEAN_FALSE = 2;
+    static final int TYPE_BYTE = 3;
+    static final int TYPE_I16 = 4;
+    static final int TYPE_I32 = 5;
+    static final int TYPE_I64 = 6;
+    static final int TYPE_DOUBLE = 7;
+    static final int TYPE_BINARY = 8;
+    static final int TYPE_LIST = 9;
+    static final int TYPE_SET = 10;
+    static final int TYPE_MAP = 11;
+    static final int TYPE_STRUCT = 12;
+
+    private ThriftCompactProtocol() {
+    }
+
+    /**
+     * Reads a struct starting at the current position of the buffer.
+     * The position of the buffer is advanced to the end of the struct.
+     */
+    static ThriftStruct readStruct(ByteBuffer buffer) throws IOException {
+        ThriftStruct struct = new ThriftStruct();
+        int lastFieldId = 0;
+        while (true) {
+            int header = buffer.get() & 0xFF;
+            int type = header & 0x0F;
+            if (type == TYPE_STOP) {
+                return struct;
+            }
+            int delta = header >>> 4;
+            int fieldId = delta == 0 ? (short) zigzagDecode(readVarLong(buffer)) : lastFieldId + delta;
+            lastFieldId = fieldId;
+            Object value = switch (type) {
+                // booleans are encoded in the field header
+                case TYPE_BOOLEAN_TRUE -> Boolean.TRUE;
+                case TYPE_BOOLEAN_FALSE -> Boolean.FALSE;
+                default -> readValue(buffer, type);
+            };
+            struct.set(fieldId, value);
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer, int type) throws IOException {
+        switch (type) {
+            case TYPE_BOOLEAN_TRUE:
+            case TYPE_BOOLEAN_FALSE:
+                // booleans within collections are encoded as a single byte
+                return buffer.get() == TYPE_BOOLEAN_TRUE;
+
+            case TYPE_BYTE:
+                return (int) buffer.get();
+
+            case TYPE_I16:
+            case TYPE_I32:
+                return (int) zigzagDecode(readVarLong(buffer));
+
+            case TYPE_I64:
+                return zigzagDecode(readVarLong(buffer));
+
+            case TYPE_DOUBLE:
+                return buffer.order(ByteOrder.LITTLE_ENDIAN).getDouble();
+
+            case TYPE_BINARY:
+                int length = checkLength(buffer, readVarLong(buffer));
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                return bytes;
+
+            case TYPE_LIST:
+            case TYPE_SET:
+                int listHeader = buffer.get() & 0xFF;
+                int size = listHeader >>> 4;
+                if (size == 15) {
+                    size = checkLength(buffer, readVarLong(buffer));
+                }
+                int elementType = listHeader & 0x0F;
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer, elementType));
+                }
+                return list;
+
+            case TYPE_MAP:
+                int mapSize = checkLength(buffer, readVarLong(buffer));
+                Map<Object, Object> map = new LinkedHashMap<>();
+                if (mapSize > 0) {
+                    int kvTypes = buffer.get() & 0xFF;
+                    for (int i = 0; i < mapSize; i++) {
+                        map.put(readValue(buffer, kvTypes >>> 4), readValue(buffer, kvTypes & 0x0F));
+                    }
+                }
+                return map;
+
+            case TYPE_STRUCT:
+                return readStruct(buffer);
+
+            default:
+                throw new IOException("Invalid Parquet metadata: unknown thrift type " + type);
+        }
+    }
+
+    /**
+     * Lengths are read from the file, they are checked before they are used to allocate memory.
+     * Each element of a collection takes at least one byte, so the remaining bytes bound the number of elements too.
+     */
+    private static int checkLength(ByteBuffer buffer, long length) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException(
+                "Invalid Parquet metadata: length " + length + " exceeds the remaining " + buffer.remaining() + " bytes");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Writes a struct. The thrift type of each field is derived from the java type of its value:
+     * {@link Boolean}, {@link Byte}, {@link Short}, {@link Integer} (i32), {@link Long}, {@link Double},
+     * {@code byte[]} or {@link String} (binary), {@link List} or {@link ThriftStruct}.
+     */
+    static void writeStruct(ThriftStruct struct, ByteArrayOutputStream out) {
+        int lastFieldId = 0;
+        for (Map.Entry<Integer, Object> entry : struct.fields().entrySet()) {
+            int fieldId = entry.getKey();
+            Object value = entry.getValue();
+            int type = value instanceof Boolean bool
+                // booleans are encoded in the field header
+                ? (bool ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE)
+                : typeOf(value);
+            int delta = fieldId - lastFieldId;
+            if (delta > 0 && delta <= 15) {
+                out.write((delta << 4) | type);
+            } else {
+                out.write(type);
+                writeVarLong(out, zigzagEncode(fieldId));
+            }
+            lastFieldId = fieldId;
+            if (!(value instanceof Boolean)) {
+                writeValue(out, value);
+            }
+        }
+        out.write(TYPE_STOP);
+    }
+
+    private static int typeOf(Object value) {
+        if (value instanceof Boolean) {
+            return TYPE_BOOLEAN_TRUE;
+        } else if (value instanceof Byte) {
+            return TYPE_BYTE;
+        } else if (value instanceof Short) {
+            return TYPE_I16;
+        } else if (value instanceof Integer) {
+            return TYPE_I32;
+        } else if (value instanceof Long) {
+            return TYPE_I64;
+        } else if (value instanceof Double) {
+            return TYPE_DOUBLE;
+        } else if (value instanceof byte[] || value instanceof String) {
+            return TYPE_BINARY;
+        } else if (value instanceof List) {
+            return TYPE_LIST;
+        } else if (value instanceof ThriftStruct) {
+            return TYPE_STRUCT;
+        }
+        throw new IllegalArgumentException("Cannot encode value of type " + value.getClass().getName());
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Object value) {
+        if (value instanceof Boolean bool) {
+            // booleans within collections are encoded as a single byte
+            out.write(bool ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+        } else if (value instanceof Byte b) {
+            out.write(b);
+        } else if (value instanceof Short || value instanceof Integer || value instanceof Long) {
+            writeVarLong(out, zigzagEncode(((Number) value).longValue()));
+        } else if (value instanceof Double d) {
+            long bits = Double.doubleToLongBits(d);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (i * 8)));
+            }
+        } else if (value instanceof String str) {
+            writeBinary(out, str.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[] bytes) {
+            writeBinary(out, bytes);
+        } else if (value instanceof List<?> list) {
+            int elementType = list.isEmpty() ? TYPE_STRUCT : typeOf(list.get(0));
+            if (list.size() < 15) {
+                out.write((list.size() << 4) | elementType);
+            } else {
+                out.write(0xF0 | elementType);
+                writeVarLong(out, list.size());
+            }
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            writeStruct((ThriftStruct) value, out);
+        }
+    }
+
+    private static void writeBinary(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer buffer) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Invalid Parquet metadata: variable length integer is too long");
+    }
+
+    static long zigzagDecode(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    static long zigzagEncode(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+}
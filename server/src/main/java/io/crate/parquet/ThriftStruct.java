@@ -0,0 +1,102 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Generic representation of a thrift struct as used by the Parquet file metadata.
+ * Fields are addressed by their thrift field id as defined in {@code parquet.thrift}.
+ *
+ * <p>
+ * Values read from a file are {@link Boolean}, {@link Integer} (byte, i16 and i32), {@link Long}, {@link Double},
+ * {@code byte[]} (binary and string), {@link List} or {@link ThriftStruct}.
+ * For writing, {@link Byte} and {@link Short} select the thrift byte and i16 types and {@link String} can be used
+ * for string fields, see {@link ThriftCompactProtocol#writeStruct(ThriftStruct, java.io.ByteArrayOutputStream)}.
+ * </p>
+ */
+final class ThriftStruct {
+
+    private final TreeMap<Integer, Object> fields = new TreeMap<>();
+
+    ThriftStruct set(int fieldId, @Nullable Object value) {
+        if (value != null) {
+            fields.put(fieldId, value);
+        }
+        return this;
+    }
+
+    boolean has(int fieldId) {
+        return fields.containsKey(fieldId);
+    }
+
+    Map<Integer, Object> fields() {
+        return fields;
+    }
+
+    int getInt(int fieldId, int defaultValue) {
+        Object value = fields.get(fieldId);
+        return value == null ? defaultValue : ((Number) value).intValue();
+    }
+
+    long getLong(int fieldId, long defaultValue) {
+        Object value = fields.get(fieldId);
+        return value == null ? defaultValue : ((Number) value).longValue();
+    }
+
+    boolean getBoolean(int fieldId, boolean defaultValue) {
+        Object value = fields.get(fieldId);
+        return value == null ? defaultValue : (Boolean) value;
+    }
+
+    @Nullable
+    byte[] getBinary(int fieldId) {
+        return (byte[]) fields.get(fieldId);
+    }
+
+    @Nullable
+    String getString(int fieldId) {
+        byte[] value = getBinary(fieldId);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    ThriftStruct getStruct(int fieldId) {
+        return (ThriftStruct) fields.get(fieldId);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> List<T> getList(int fieldId) {
+        Object value = fields.get(fieldId);
+        return value == null ? List.of() : (List<T>) value;
+    }
+
+    @Override
+    public String toString() {
+        return "ThriftStruct{" + fields + "}";
+    }
+}
@@ -21,47 +21,114 @@
 
 package io.crate.planner.distribution;
 
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 
-import java.io.IOException;
-
 public class DistributionInfo implements Writeable {
 
+    private static final int[] NO_HASHES = new int[0];
+
     public static final DistributionInfo DEFAULT_BROADCAST = new DistributionInfo(DistributionType.BROADCAST);
     public static final DistributionInfo DEFAULT_SAME_NODE = new DistributionInfo(DistributionType.SAME_NODE);
     public static final DistributionInfo DEFAULT_MODULO = new DistributionInfo(DistributionType.MODULO);
 
-    private DistributionType distributionType;
-    private int distributeByColumn;
+    private final DistributionType distributionType;
+    private final int[] distributeByColumns;
+    private final SkewHandling skewHandling;
+    private final int[] skewedKeyHashes;
 
     public DistributionInfo(DistributionType distributionType, int distributeByColumn) {
+        this(distributionType, new int[] { distributeByColumn }, SkewHandling.NONE, NO_HASHES);
+    }
+
+    /**
+     * @param distributeByColumns positions of the columns which form the distribution key.
+     *                            Distributing by more than one column is only understood by nodes
+     *                            on or after {@link Version#V_5_5_0}.
+     * @param skewHandling how rows with a key contained in {@code skewedKeyHashes} are routed.
+     * @param skewedKeyHashes sorted hashes of keys which are known to be very frequent.
+     *                        See {@link io.crate.execution.engine.distribution.ModuloBucketBuilder#hash(Object)}
+     */
+    public DistributionInfo(DistributionType distributionType,
+                            int[] distributeByColumns,
+                            SkewHandling skewHandling,
+                            int[] skewedKeyHashes) {
+        assert distributeByColumns.length > 0 : "Must distribute by at least one column";
+        assert (skewHandling == SkewHandling.NONE) == (skewedKeyHashes.length == 0)
+            : "skewedKeyHashes must be present if and only if skew handling is enabled";
         this.distributionType = distributionType;
-        this.distributeByColumn = distributeByColumn;
+        this.distributeByColumns = distributeByColumns;
+        this.skewHandling = skewHandling;
+        this.skewedKeyHashes = skewedKeyHashes;
     }
 
     public DistributionInfo(StreamInput in) throws IOException {
         distributionType = DistributionType.values()[in.readVInt()];
-        distributeByColumn = in.readVInt();
+        int distributeByColumn = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_5_5_0)) {
+            distributeByColumns = in.readVIntArray();
+            skewHandling = SkewHandling.values()[in.readVInt()];
+            skewedKeyHashes = in.readIntArray();
+        } else {
+            distributeByColumns = new int[] { distributeByColumn };
+            skewHandling = SkewHandling.NONE;
+            skewedKeyHashes = NO_HASHES;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVInt(distributionType.ordinal());
-        out.writeVInt(distributeByColumn);
+        out.writeVInt(distributeByColumns[0]);
+        if (out.getVersion().onOrAfter(Version.V_5_5_0)) {
+            out.writeVIntArray(distributeByColumns);
+            out.writeVInt(skewHandling.ordinal());
+            out.writeIntArray(skewedKeyHashes);
+        } else {
+            assert distributeByColumns.length == 1 && skewHandling == SkewHandling.NONE
+                : "Distribution by multiple columns or with skew handling requires all nodes to be on >= 5.5.0";
+        }
     }
 
     public DistributionInfo(DistributionType distributionType) {
         this(distributionType, 0);
     }
 
+    /**
+     * Creates a {@link DistributionType#MODULO} distribution by a composite key.
+     * Falls back to distribute by the first column only if there are nodes in the cluster
+     * which don't support composite keys.
+     */
+    public static DistributionInfo modulo(int[] distributeByColumns, Version minNodeVersion) {
+        if (distributeByColumns.length == 1 || minNodeVersion.before(Version.V_5_5_0)) {
+            return new DistributionInfo(DistributionType.MODULO, distributeByColumns[0]);
+        }
+        return new DistributionInfo(DistributionType.MODULO, distributeByColumns, SkewHandling.NONE, NO_HASHES);
+    }
+
     public DistributionType distributionType() {
         return distributionType;
     }
 
     public int distributeByColumn() {
-        return distributeByColumn;
+        return distributeByColumns[0];
+    }
+
+    public int[] distributeByColumns() {
+        return distributeByColumns;
+    }
+
+    public SkewHandling skewHandling() {
+        return skewHandling;
+    }
+
+    public int[] skewedKeyHashes() {
+        return skewedKeyHashes;
     }
 
     @Override
@@ -71,13 +138,18 @@ public class DistributionInfo implements Writeable {
 
         DistributionInfo that = (DistributionInfo) o;
 
-        return distributeByColumn == that.distributeByColumn && distributionType == that.distributionType;
+        return distributionType == that.distributionType
+               && Arrays.equals(distributeByColumns, that.distributeByColumns)
+               && skewHandling == that.skewHandling
+               && Arrays.equals(skewedKeyHashes, that.skewedKeyHashes);
     }
 
     @Override
     public int hashCode() {
         int result = distributionType.hashCode();
-        result = 31 * result + distributeByColumn;
+        result = 31 * result + Arrays.hashCode(distributeByColumns);
+        result = 31 * result + skewHandling.hashCode();
+        result = 31 * result + Arrays.hashCode(skewedKeyHashes);
         return result;
     }
 
@@ -85,7 +157,9 @@ public class DistributionInfo implements Writeable {
     public String toString() {
         return "DistributionInfo{" +
                "distributionType=" + distributionType +
-               ", distributeByColumn=" + distributeByColumn +
+               ", distributeByColumns=" + Arrays.toString(distributeByColumns) +
+               ", skewHandling=" + skewHandling +
+               ", skewedKeyHashes=" + skewedKeyHashes.length +
                '}';
     }
 }
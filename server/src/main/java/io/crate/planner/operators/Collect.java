@@ -90,7 +90,6 @@ public class Collect implements LogicalPlan {
     final TableInfo tableInfo;
     final WhereClause immutableWhere;
 
-    WhereClause mutableBoundWhere;
     DetailedQuery detailedQuery;
 
     public Collect(Collect collect, DetailedQuery detailedQuery) {
@@ -100,7 +99,6 @@ public class Collect implements LogicalPlan {
         this.outputs = collect.outputs();
         this.baseTables = collect.baseTables;
         this.relation = collect.relation;
-        this.mutableBoundWhere = collect.mutableBoundWhere;
         this.immutableWhere = collect.immutableWhere;
         this.tableInfo = collect.relation.tableInfo();
         this.detailedQuery = detailedQuery;
@@ -116,7 +114,6 @@ public class Collect implements LogicalPlan {
         }
         this.relation = relation;
         this.immutableWhere = where;
-        this.mutableBoundWhere = where;
         this.tableInfo = relation.tableInfo();
     }
 
@@ -131,14 +128,7 @@ public class Collect implements LogicalPlan {
                                @Nullable Integer pageSizeHint,
                                Row params,
                                SubQueryResults subQueryResults) {
-        EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
-            plannerContext.nodeContext(),
-            RowGranularity.CLUSTER,
-            null,
-            relation
-        );
-        var binder = new SubQueryAndParamBinder(params, subQueryResults)
-            .andThen(x -> normalizer.normalize(x, plannerContext.transactionContext()));
+        var binder = binder(plannerContext, params, subQueryResults);
         RoutedCollectPhase collectPhase = createPhase(plannerContext, hints, binder, params, subQueryResults);
         PositionalOrderBy positionalOrderBy = getPositionalOrderBy(order, outputs);
         if (positionalOrderBy != null) {
@@ -229,11 +219,34 @@ public class Collect implements LogicalPlan {
         }
     }
 
-    private RoutedCollectPhase createPhase(PlannerContext plannerContext,
-                                           Set<PlanHint> planHints,
-                                           java.util.function.Function<Symbol, Symbol> binder,
-                                           Row params,
-                                           SubQueryResults subQueryResults) {
+    private java.util.function.Function<Symbol, Symbol> binder(PlannerContext plannerContext,
+                                                             Row params,
+                                                             SubQueryResults subQueryResults) {
+        EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
+            plannerContext.nodeContext(),
+            RowGranularity.CLUSTER,
+            null,
+            relation
+        );
+        return new SubQueryAndParamBinder(params, subQueryResults)
+            .andThen(x -> normalizer.normalize(x, plannerContext.transactionContext()));
+    }
+
+    /**
+     * Binds all parameters and possible subQuery values and re-analyzes the query
+     * (could result in a NO_MATCH, routing could've changed, etc).
+     * <p>
+     * The result isn't stored in the operator, plans may be re-used and built concurrently.
+     * </p>
+     */
+    WhereClause boundWhere(PlannerContext plannerContext, Row params, SubQueryResults subQueryResults) {
+        return boundWhere(plannerContext, binder(plannerContext, params, subQueryResults), params, subQueryResults);
+    }
+
+    private WhereClause boundWhere(PlannerContext plannerContext,
+                                   java.util.function.Function<Symbol, Symbol> binder,
+                                   Row params,
+                                   SubQueryResults subQueryResults) {
         WhereClause boundWhere;
         if (tableInfo instanceof DocTableInfo docTable) {
             if (detailedQuery == null) {
@@ -260,18 +273,22 @@ public class Collect implements LogicalPlan {
             boundWhere = immutableWhere.map(binder);
         }
 
-        // bind all parameters and possible subQuery values and re-analyze the query
-        // (could result in a NO_MATCH, routing could've changed, etc).
-        // the <p>where</p> instance variable must be overwritten as the plan creation of outer operators relies on it
-        // (e.g. GroupHashAggregate will build different plans based on the collect routing)
-        mutableBoundWhere = WhereClauseAnalyzer.resolvePartitions(
+        return WhereClauseAnalyzer.resolvePartitions(
             boundWhere,
             relation,
             plannerContext.transactionContext(),
             plannerContext.nodeContext());
-        if (mutableBoundWhere.hasVersions()) {
+    }
+
+    private RoutedCollectPhase createPhase(PlannerContext plannerContext,
+                                           Set<PlanHint> planHints,
+                                           java.util.function.Function<Symbol, Symbol> binder,
+                                           Row params,
+                                           SubQueryResults subQueryResults) {
+        WhereClause boundWhere = boundWhere(plannerContext, binder, params, subQueryResults);
+        if (boundWhere.hasVersions()) {
             throw VersioningValidationException.versionInvalidUsage();
-        } else if (mutableBoundWhere.hasSeqNoAndPrimaryTerm()) {
+        } else if (boundWhere.hasSeqNoAndPrimaryTerm()) {
             throw VersioningValidationException.seqNoAndPrimaryTermUsage();
         }
 
@@ -283,7 +300,7 @@ public class Collect implements LogicalPlan {
             COLLECT_PHASE_NAME,
             plannerContext.allocateRouting(
                 tableInfo,
-                mutableBoundWhere,
+                boundWhere,
                 RoutingProvider.ShardSelection.ANY,
                 sessionSettings),
             tableInfo.rowGranularity(),
@@ -291,7 +308,7 @@ public class Collect implements LogicalPlan {
                 ? Lists2.map(boundOutputs, DocReferences::toSourceLookup)
                 : boundOutputs,
             Collections.emptyList(),
-            Optimizer.optimizeCasts(mutableBoundWhere.queryOrFallback(), plannerContext),
+            Optimizer.optimizeCasts(boundWhere.queryOrFallback(), plannerContext),
             DistributionInfo.DEFAULT_BROADCAST
         );
     }
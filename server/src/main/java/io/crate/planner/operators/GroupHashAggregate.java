@@ -151,7 +151,7 @@ public class GroupHashAggregate extends ForwardingLogicalPlan {
         SubQueryAndParamBinder paramBinder = new SubQueryAndParamBinder(params, subQueryResults);
 
         List<Symbol> sourceOutputs = source.outputs();
-        if (shardsContainAllGroupKeyValues()) {
+        if (shardsContainAllGroupKeyValues(plannerContext, params, subQueryResults)) {
             GroupProjection groupProjection = projectionBuilder.groupProjection(
                 sourceOutputs,
                 groupKeys,
@@ -222,7 +222,15 @@ public class GroupHashAggregate extends ForwardingLogicalPlan {
             plannerContext.transactionContext().sessionSettings().searchPath()
         );
         executionPlan.addProjection(toPartial);
-        executionPlan.setDistributionInfo(DistributionInfo.DEFAULT_MODULO);
+        // The partial group projection outputs the group keys first, followed by the aggregations
+        int[] groupKeyPositions = new int[groupKeys.size()];
+        for (int i = 0; i < groupKeyPositions.length; i++) {
+            groupKeyPositions[i] = i;
+        }
+        executionPlan.setDistributionInfo(DistributionInfo.modulo(
+            groupKeyPositions,
+            plannerContext.clusterState().nodes().getMinNodeVersion()
+        ));
 
         GroupProjection toFinal = projectionBuilder.groupProjection(
             outputs,
@@ -303,12 +311,14 @@ public class GroupHashAggregate extends ForwardingLogicalPlan {
      * @return true if it's guaranteed that a group-key-value doesn't occur in more than 1 shard.
      *         Each shard has "group or row authority"
      */
-    private boolean shardsContainAllGroupKeyValues() {
-        return source instanceof Collect &&
-               ((Collect) source).tableInfo instanceof DocTableInfo &&
+    private boolean shardsContainAllGroupKeyValues(PlannerContext plannerContext,
+                                                   Row params,
+                                                   SubQueryResults subQueryResults) {
+        return source instanceof Collect collect &&
+               collect.tableInfo instanceof DocTableInfo docTable &&
                GroupByConsumer.groupedByClusteredColumnOrPrimaryKeys(
-                   ((DocTableInfo) ((Collect) source).tableInfo),
-                   ((Collect) source).mutableBoundWhere,
+                   docTable,
+                   collect.boundWhere(plannerContext, params, subQueryResults),
                    groupKeys);
     }
 
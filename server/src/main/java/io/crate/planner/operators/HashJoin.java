@@ -25,6 +25,7 @@ import static io.crate.execution.engine.pipeline.LimitAndOffset.NO_LIMIT;
 import static io.crate.planner.operators.NestedLoopJoin.createJoinProjection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -32,6 +33,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.elasticsearch.Version;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.analyze.OrderBy;
@@ -42,17 +44,24 @@ import io.crate.execution.dsl.phases.MergePhase;
 import io.crate.execution.dsl.projection.EvalProjection;
 import io.crate.execution.dsl.projection.builder.InputColumns;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
+import io.crate.execution.engine.distribution.ModuloBucketBuilder;
+import io.crate.expression.symbol.ScopedSymbol;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.SymbolVisitors;
 import io.crate.expression.symbol.Symbols;
+import io.crate.metadata.Reference;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.ExecutionPlan;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.ResultDescription;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.DistributionType;
+import io.crate.planner.distribution.SkewHandling;
 import io.crate.planner.node.dql.join.Join;
 import io.crate.sql.tree.JoinType;
+import io.crate.statistics.ColumnStats;
+import io.crate.statistics.MostCommonValues;
+import io.crate.statistics.Stats;
 
 public class HashJoin extends AbstractJoinPlan {
 
@@ -148,8 +157,33 @@ public class HashJoin extends AbstractJoinPlan {
         } else {
             if (isDistributed) {
                 // Run the join distributed by modulo distribution algorithm
-                leftOutputs = setModuloDistribution(lhsHashSymbols, lhs.outputs(), leftExecutionPlan);
-                rightOutputs = setModuloDistribution(rhsHashSymbols, rhs.outputs(), rightExecutionPlan);
+                Version minNodeVersion = plannerContext.clusterState().nodes().getMinNodeVersion();
+                SkewHandling lhsSkewHandling = SkewHandling.NONE;
+                SkewHandling rhsSkewHandling = SkewHandling.NONE;
+                int[] skewedKeyHashes = new int[0];
+                if (plannerContext.transactionContext().sessionSettings().skewAwareDistribution()
+                    && lhsHashSymbols.size() == 1
+                    && minNodeVersion.onOrAfter(Version.V_5_5_0)) {
+                    // Rows of the bigger relation with a skewed key are split across all nodes,
+                    // the matching rows of the other relation must then be replicated to all nodes.
+                    // This is only correct because a HashJoin is always an inner join.
+                    Stats lhsStats = plannerContext.planStats().get(lhs);
+                    Stats rhsStats = plannerContext.planStats().get(rhs);
+                    boolean splitLhs = lhsStats.numDocs() >= rhsStats.numDocs();
+                    skewedKeyHashes = skewedKeyHashes(
+                        splitLhs ? lhsStats : rhsStats,
+                        splitLhs ? lhsHashSymbols.get(0) : rhsHashSymbols.get(0),
+                        joinExecutionNodes.size()
+                    );
+                    if (skewedKeyHashes.length > 0) {
+                        lhsSkewHandling = splitLhs ? SkewHandling.SPLIT : SkewHandling.REPLICATE;
+                        rhsSkewHandling = splitLhs ? SkewHandling.REPLICATE : SkewHandling.SPLIT;
+                    }
+                }
+                leftOutputs = setModuloDistribution(
+                    lhsHashSymbols, lhs.outputs(), leftExecutionPlan, minNodeVersion, lhsSkewHandling, skewedKeyHashes);
+                rightOutputs = setModuloDistribution(
+                    rhsHashSymbols, rhs.outputs(), rightExecutionPlan, minNodeVersion, rhsSkewHandling, skewedKeyHashes);
             } else {
                 // Run the join non-distributed on the handler node
                 joinExecutionNodes = Collections.singletonList(plannerContext.handlerNode());
@@ -176,6 +210,7 @@ public class HashJoin extends AbstractJoinPlan {
             InputColumns.create(lhsHashSymbols, new InputColumns.SourceSymbols(leftOutputs)),
             InputColumns.create(rhsHashSymbols, new InputColumns.SourceSymbols(rightOutputs)),
             Symbols.typeView(leftOutputs),
+            Symbols.typeView(rightOutputs),
             lhStats.estimateSizeForColumns(leftOutputs),
             lhStats.numDocs());
         return new Join(
@@ -266,29 +301,82 @@ public class HashJoin extends AbstractJoinPlan {
         );
     }
 
-    private List<Symbol> setModuloDistribution(List<Symbol> joinSymbols,
-                                               List<Symbol> planOutputs,
-                                               ExecutionPlan executionPlan) {
+    private static List<Symbol> setModuloDistribution(List<Symbol> joinSymbols,
+                                                      List<Symbol> planOutputs,
+                                                      ExecutionPlan executionPlan,
+                                                      Version minNodeVersion,
+                                                      SkewHandling skewHandling,
+                                                      int[] skewedKeyHashes) {
         List<Symbol> outputs = planOutputs;
-        Symbol firstJoinSymbol = joinSymbols.get(0);
-        int distributeBySymbolPos = planOutputs.indexOf(firstJoinSymbol);
-        if (distributeBySymbolPos < 0) {
-            // Looks like a function symbol, it must be evaluated BEFORE distribution
-            outputs = createEvalProjectionForDistributionJoinSymbol(firstJoinSymbol, planOutputs, executionPlan);
-            distributeBySymbolPos = planOutputs.size();
+        List<Symbol> symbolsToEvaluate = new ArrayList<>();
+        int[] distributeBySymbolPositions = new int[joinSymbols.size()];
+        for (int i = 0; i < distributeBySymbolPositions.length; i++) {
+            Symbol joinSymbol = joinSymbols.get(i);
+            int distributeBySymbolPos = planOutputs.indexOf(joinSymbol);
+            if (distributeBySymbolPos < 0) {
+                // Looks like a function symbol, it must be evaluated BEFORE distribution
+                int evalPos = symbolsToEvaluate.indexOf(joinSymbol);
+                if (evalPos < 0) {
+                    evalPos = symbolsToEvaluate.size();
+                    symbolsToEvaluate.add(joinSymbol);
+                }
+                distributeBySymbolPos = planOutputs.size() + evalPos;
+            }
+            distributeBySymbolPositions[i] = distributeBySymbolPos;
+        }
+        if (!symbolsToEvaluate.isEmpty()) {
+            outputs = createEvalProjectionForDistributionJoinSymbols(symbolsToEvaluate, planOutputs, executionPlan);
+        }
+        if (skewHandling == SkewHandling.NONE) {
+            executionPlan.setDistributionInfo(DistributionInfo.modulo(distributeBySymbolPositions, minNodeVersion));
+        } else {
+            executionPlan.setDistributionInfo(new DistributionInfo(
+                DistributionType.MODULO,
+                distributeBySymbolPositions,
+                skewHandling,
+                skewedKeyHashes
+            ));
         }
-        executionPlan.setDistributionInfo(new DistributionInfo(DistributionType.MODULO, distributeBySymbolPos));
         return outputs;
     }
 
-    private List<Symbol> createEvalProjectionForDistributionJoinSymbol(Symbol firstJoinSymbol,
-                                                                       List<Symbol> outputs,
-                                                                       ExecutionPlan executionPlan) {
-        List<Symbol> projectionOutputs = new ArrayList<>(outputs.size() + 1);
+    private static List<Symbol> createEvalProjectionForDistributionJoinSymbols(List<Symbol> joinSymbols,
+                                                                               List<Symbol> outputs,
+                                                                               ExecutionPlan executionPlan) {
+        List<Symbol> projectionOutputs = new ArrayList<>(outputs.size() + joinSymbols.size());
         projectionOutputs.addAll(outputs);
-        projectionOutputs.add(firstJoinSymbol);
+        projectionOutputs.addAll(joinSymbols);
         EvalProjection evalProjection = new EvalProjection(InputColumns.create(projectionOutputs, new InputColumns.SourceSymbols(outputs)));
         executionPlan.addProjection(evalProjection);
         return projectionOutputs;
     }
+
+    /**
+     * Returns the sorted hashes of the most common values of {@code joinSymbol} which
+     * alone would make up more than half of the rows a single node receives on an even distribution.
+     */
+    private static int[] skewedKeyHashes(Stats stats, Symbol joinSymbol, int numNodes) {
+        ColumnStats<?> columnStats = null;
+        if (joinSymbol instanceof Reference ref) {
+            columnStats = stats.statsByColumn().get(ref.column());
+        } else if (joinSymbol instanceof ScopedSymbol scopedSymbol) {
+            columnStats = stats.statsByColumn().get(scopedSymbol.column());
+        }
+        if (columnStats == null || numNodes < 2) {
+            return new int[0];
+        }
+        MostCommonValues mostCommonValues = columnStats.mostCommonValues();
+        double threshold = 1.0 / (2 * numNodes);
+        int[] hashes = new int[mostCommonValues.length()];
+        int numSkewed = 0;
+        for (int i = 0; i < mostCommonValues.length(); i++) {
+            if (mostCommonValues.frequency(i) > threshold) {
+                hashes[numSkewed] = ModuloBucketBuilder.hash(mostCommonValues.value(i));
+                numSkewed++;
+            }
+        }
+        int[] skewedKeyHashes = Arrays.copyOf(hashes, numSkewed);
+        Arrays.sort(skewedKeyHashes);
+        return skewedKeyHashes;
+    }
 }
@@ -55,9 +55,9 @@ import io.crate.planner.DependencyCarrier;
 import io.crate.planner.ExecutionPlan;
 import io.crate.planner.Merge;
 import io.crate.planner.PlannerContext;
+import io.crate.planner.PositionalOrderBy;
 import io.crate.planner.ResultDescription;
 import io.crate.planner.distribution.DistributionInfo;
-import io.crate.planner.distribution.DistributionType;
 
 public class WindowAgg extends ForwardingLogicalPlan {
 
@@ -157,13 +157,11 @@ public class WindowAgg extends ForwardingLogicalPlan {
         Function<Symbol, Symbol> toInputCols = binder.andThen(s -> InputColumns.create(s, sourceSymbols));
 
         List<WindowFunction> boundWindowFunctions = (List<WindowFunction>)(List<?>) Lists2.map(windowFunctions, toInputCols);
-        List<Projection> projections = new ArrayList<>();
-        WindowAggProjection windowAggProjection = new WindowAggProjection(
-            windowDefinition.map(toInputCols),
-            boundWindowFunctions,
-            InputColumns.create(this.standalone, sourceSymbols)
-        );
-        projections.add(windowAggProjection);
+        // If there are partitions, let the source sort the rows if it can do so cheaply (e.g. a Lucene sort).
+        // The window functions can then be computed one partition at a time instead of materializing all rows.
+        OrderBy sourceOrder = windowDefinition.partitions().isEmpty()
+            ? null
+            : createOrderByInclPartitionBy(windowDefinition);
         ExecutionPlan sourcePlan = source.build(
             executor,
             plannerContext,
@@ -171,12 +169,24 @@ public class WindowAgg extends ForwardingLogicalPlan {
             projectionBuilder,
             LimitAndOffset.NO_LIMIT,
             LimitAndOffset.NO_OFFSET,
-            null,
+            sourceOrder,
             pageSizeHint,
             params,
             subQueryResults
         );
         ResultDescription resultDescription = sourcePlan.resultDescription();
+        PositionalOrderBy sortedInput = resultDescription.orderBy() != null
+            && resultDescription.orderBy().equals(PositionalOrderBy.of(sourceOrder, source.outputs()))
+                ? resultDescription.orderBy()
+                : null;
+        List<Projection> projections = new ArrayList<>();
+        WindowAggProjection windowAggProjection = new WindowAggProjection(
+            windowDefinition.map(toInputCols),
+            boundWindowFunctions,
+            InputColumns.create(this.standalone, sourceSymbols),
+            sortedInput != null
+        );
+        projections.add(windowAggProjection);
         boolean executesOnHandler = executesOnHandler(plannerContext.handlerNode(), resultDescription.nodeIds());
         boolean nonDistExecution = windowDefinition.partitions().isEmpty()
                                    || resultDescription.hasRemainingLimitOrOffset()
@@ -187,10 +197,15 @@ public class WindowAgg extends ForwardingLogicalPlan {
                 sourcePlan.addProjection(projection);
             }
         } else {
-            sourcePlan.setDistributionInfo(new DistributionInfo(
-                DistributionType.MODULO,
-                source.outputs().indexOf(windowDefinition.partitions().iterator().next()))
-            );
+            List<Symbol> partitions = windowDefinition.partitions();
+            int[] partitionPositions = new int[partitions.size()];
+            for (int i = 0; i < partitionPositions.length; i++) {
+                partitionPositions[i] = source.outputs().indexOf(partitions.get(i));
+            }
+            sourcePlan.setDistributionInfo(DistributionInfo.modulo(
+                partitionPositions,
+                plannerContext.clusterState().nodes().getMinNodeVersion()
+            ));
             MergePhase distWindowAgg = new MergePhase(
                 UUIDs.dirtyUUID(),
                 plannerContext.nextExecutionPhaseId(),
@@ -201,7 +216,7 @@ public class WindowAgg extends ForwardingLogicalPlan {
                 resultDescription.streamOutputs(),
                 projections,
                 DistributionInfo.DEFAULT_BROADCAST,
-                null
+                sortedInput
             );
             return new Merge(
                 sourcePlan,
@@ -0,0 +1,300 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.optimizer.rule;
+
+import static io.crate.planner.optimizer.matcher.Pattern.typeOf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.TransactionContext;
+import io.crate.planner.operators.Eval;
+import io.crate.planner.operators.Filter;
+import io.crate.planner.operators.JoinPlan;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.optimizer.Rule;
+import io.crate.planner.optimizer.costs.PlanStats;
+import io.crate.planner.optimizer.joinorder.JoinGraph;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Pattern;
+import io.crate.planner.selectivity.SelectivityFunctions;
+import io.crate.sql.tree.JoinType;
+import io.crate.statistics.Stats;
+
+/**
+ * Re-orders a tree of inner equi-joins into the left-deep join order with the lowest estimated cost.
+ * <p>
+ * The cost of a join tree is the sum of the estimated number of rows of all its joins.
+ * The number of rows of a join only depends on the joined relations, not on their order:
+ * It's the product of the number of rows of the relations and the selectivity of the join conditions between them.
+ * The cheapest left-deep order is found using dynamic programming over all connected subsets of the relations.
+ * </p>
+ * <p>
+ * The rule only applies if statistics are available for all relations and if
+ * the join graph contains all join conditions, which is only the case for inner joins with equi-join conditions.
+ * </p>
+ */
+public class ReorderJoinsByCost implements Rule<JoinPlan> {
+
+    /**
+     * The enumeration is exponential in the number of relations, beyond this limit the original order is kept.
+     */
+    static final int MAX_RELATIONS = 10;
+
+    /**
+     * Marginal improvements are ignored, they're within the error of the estimates.
+     */
+    private static final double MIN_IMPROVEMENT = 0.9;
+
+    private final Pattern<JoinPlan> pattern = typeOf(JoinPlan.class);
+
+    @Override
+    public Pattern<JoinPlan> pattern() {
+        return pattern;
+    }
+
+    @Override
+    public LogicalPlan apply(JoinPlan join,
+                             Captures captures,
+                             PlanStats planStats,
+                             TransactionContext txnCtx,
+                             NodeContext nodeCtx,
+                             Function<LogicalPlan, LogicalPlan> resolvePlan) {
+        if (join.getRelationNames().size() < 3) {
+            return null;
+        }
+        var joinGraph = JoinGraph.create(join, resolvePlan);
+        if (joinGraph.size() < 3 || joinGraph.size() > MAX_RELATIONS) {
+            return null;
+        }
+        var costModel = CostModel.create(joinGraph, planStats);
+        if (costModel == null) {
+            return null;
+        }
+        double[] currentCost = new double[1];
+        if (costModel.collectCost(join, resolvePlan, currentCost) == -1) {
+            return null;
+        }
+        int[] bestOrder = costModel.bestLeftDeepOrder();
+        if (bestOrder == null || costModel.cost(bestOrder) >= currentCost[0] * MIN_IMPROVEMENT) {
+            return null;
+        }
+        var newOrder = new ArrayList<LogicalPlan>(bestOrder.length);
+        for (int node : bestOrder) {
+            newOrder.add(joinGraph.nodes().get(node));
+        }
+        return Eval.create(
+            EliminateCrossJoin.reorder(joinGraph, newOrder),
+            join.outputs()
+        );
+    }
+
+    static final class CostModel {
+
+        private final List<LogicalPlan> nodes;
+        private final Set<List<Symbol>> edgeConditions;
+        private final int[] neighbours;
+        private final double[] cardinalities;
+
+        private CostModel(List<LogicalPlan> nodes,
+                          Set<List<Symbol>> edgeConditions,
+                          int[] neighbours,
+                          double[] cardinalities) {
+            this.nodes = nodes;
+            this.edgeConditions = edgeConditions;
+            this.neighbours = neighbours;
+            this.cardinalities = cardinalities;
+        }
+
+        /**
+         * @return the cost model or null if there are no statistics for one of the nodes.
+         */
+        @Nullable
+        static CostModel create(JoinGraph joinGraph, PlanStats planStats) {
+            List<LogicalPlan> nodes = joinGraph.nodes();
+            int numNodes = nodes.size();
+            Stats[] stats = new Stats[numNodes];
+            for (int i = 0; i < numNodes; i++) {
+                stats[i] = planStats.get(nodes.get(i));
+                if (stats[i].numDocs() == -1) {
+                    return null;
+                }
+            }
+            Set<List<Symbol>> edgeConditions = new HashSet<>();
+            int[] neighbours = new int[numNodes];
+            List<int[]> edgeNodes = new ArrayList<>();
+            List<Double> edgeSelectivities = new ArrayList<>();
+            for (int i = 0; i < numNodes; i++) {
+                LogicalPlan node = nodes.get(i);
+                for (var edge : joinGraph.edges(node)) {
+                    edgeConditions.add(List.of(edge.left(), edge.right()));
+                    int j = nodes.indexOf(edge.to());
+                    if (j == -1) {
+                        return null;
+                    }
+                    neighbours[i] |= 1 << j;
+                    // Edges are indexed from both directions, only count them once
+                    if (i < j) {
+                        boolean leftFromNode = node.outputs().contains(edge.left());
+                        edgeNodes.add(new int[] { i, j });
+                        edgeSelectivities.add(SelectivityFunctions.eqJoinSelectivity(
+                            edge.left(),
+                            leftFromNode ? stats[i] : stats[j],
+                            edge.right(),
+                            leftFromNode ? stats[j] : stats[i]
+                        ));
+                    }
+                }
+            }
+            double[] cardinalities = new double[1 << numNodes];
+            for (int set = 1; set < cardinalities.length; set++) {
+                double cardinality = 1.0;
+                for (int i = 0; i < numNodes; i++) {
+                    if ((set & (1 << i)) != 0) {
+                        cardinality *= stats[i].numDocs();
+                    }
+                }
+                for (int e = 0; e < edgeNodes.size(); e++) {
+                    int[] edge = edgeNodes.get(e);
+                    if ((set & (1 << edge[0])) != 0 && (set & (1 << edge[1])) != 0) {
+                        cardinality *= edgeSelectivities.get(e);
+                    }
+                }
+                cardinalities[set] = cardinality;
+            }
+            return new CostModel(nodes, edgeConditions, neighbours, cardinalities);
+        }
+
+        /**
+         * @return the estimated number of rows of the join of all nodes in {@code set}
+         */
+        double cardinality(int set) {
+            return cardinalities[set];
+        }
+
+        double cost(int[] order) {
+            double cost = 0.0;
+            int set = 1 << order[0];
+            for (int i = 1; i < order.length; i++) {
+                set |= 1 << order[i];
+                cost += cardinality(set);
+            }
+            return cost;
+        }
+
+        /**
+         * @return the indices of the nodes in the cheapest left-deep join order
+         *         or null if the nodes can't be joined without a cross join.
+         */
+        @Nullable
+        int[] bestLeftDeepOrder() {
+            int numNodes = nodes.size();
+            int allNodes = (1 << numNodes) - 1;
+            double[] bestCost = new double[1 << numNodes];
+            int[] lastNode = new int[1 << numNodes];
+            Arrays.fill(bestCost, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < numNodes; i++) {
+                bestCost[1 << i] = 0.0;
+                lastNode[1 << i] = i;
+            }
+            // Subsets of a set are always smaller numbers than the set itself
+            for (int set = 1; set <= allNodes; set++) {
+                if (Integer.bitCount(set) < 2) {
+                    continue;
+                }
+                for (int i = 0; i < numNodes; i++) {
+                    int prev = set & ~(1 << i);
+                    if (prev == set || (neighbours[i] & prev) == 0 || bestCost[prev] == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    double cost = bestCost[prev] + cardinality(set);
+                    if (cost < bestCost[set]) {
+                        bestCost[set] = cost;
+                        lastNode[set] = i;
+                    }
+                }
+            }
+            if (bestCost[allNodes] == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            int[] order = new int[numNodes];
+            int set = allNodes;
+            for (int i = numNodes - 1; i >= 0; i--) {
+                order[i] = lastNode[set];
+                set &= ~(1 << order[i]);
+            }
+            return order;
+        }
+
+        /**
+         * Adds the estimated number of rows of all joins in the tree to {@code cost}.
+         *
+         * @return the nodes within {@code plan} as bit set or -1 if the tree contains joins
+         *         which aren't fully represented by the join graph.
+         */
+        int collectCost(LogicalPlan plan, Function<LogicalPlan, LogicalPlan> resolvePlan, double[] cost) {
+            LogicalPlan resolved = resolvePlan.apply(plan);
+            if (resolved instanceof JoinPlan join) {
+                if (join.joinType() != JoinType.INNER || !conditionsAreEdges(join.joinCondition())) {
+                    return -1;
+                }
+                int lhs = collectCost(join.lhs(), resolvePlan, cost);
+                int rhs = collectCost(join.rhs(), resolvePlan, cost);
+                if (lhs == -1 || rhs == -1) {
+                    return -1;
+                }
+                cost[0] += cardinality(lhs | rhs);
+                return lhs | rhs;
+            }
+            if (resolved instanceof Filter filter) {
+                return collectCost(filter.source(), resolvePlan, cost);
+            }
+            int node = nodes.indexOf(resolved);
+            return node == -1 ? -1 : 1 << node;
+        }
+
+        private boolean conditionsAreEdges(@Nullable Symbol joinCondition) {
+            if (joinCondition == null) {
+                return true;
+            }
+            for (Symbol condition : AndOperator.split(joinCondition)) {
+                if (!(condition instanceof io.crate.expression.symbol.Function fn)
+                    || !fn.name().equals(EqOperator.NAME)
+                    || !edgeConditions.contains(fn.arguments())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -22,7 +22,9 @@
 package io.crate.planner.selectivity;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.jetbrains.annotations.Nullable;
@@ -30,6 +32,10 @@ import org.jetbrains.annotations.Nullable;
 import io.crate.data.Row;
 import io.crate.expression.operator.AndOperator;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.operator.Operators;
 import io.crate.expression.operator.OrOperator;
 import io.crate.expression.predicate.IsNullPredicate;
@@ -64,6 +70,11 @@ public class SelectivityFunctions {
      */
     private static final double MAGIC_SEL = 0.333;
 
+    /**
+     * Used for range predicates like `x > 10 AND x < 20` if there is no histogram for x.
+     */
+    private static final double DEFAULT_RANGE_SEL = 0.005;
+
     public static long estimateNumRows(NodeContext nodeCtx,
                                        TransactionContext txnCtx,
                                        Stats stats,
@@ -112,8 +123,29 @@ public class SelectivityFunctions {
             switch (function.name()) {
                 case AndOperator.NAME: {
                     double selectivity = 1.0;
-                    for (Symbol argument : function.arguments()) {
-                        selectivity *= argument.accept(this, context);
+                    // Lower and upper bounds on the same column are not independent,
+                    // they're combined into a range. (See PostgreSQL `clauselist_selectivity`)
+                    Map<ColumnIdent, RangeSelectivity> ranges = new HashMap<>();
+                    for (Symbol argument : AndOperator.split(function)) {
+                        double argSelectivity = argument.accept(this, context);
+                        if (argument instanceof Function fn && isRangeOperator(fn.name())) {
+                            ColumnIdent column = getColumn(fn.arguments().get(0));
+                            if (column != null) {
+                                RangeSelectivity range = ranges.computeIfAbsent(column, k -> new RangeSelectivity());
+                                if (fn.name().equals(GtOperator.NAME) || fn.name().equals(GteOperator.NAME)) {
+                                    range.addLower(argSelectivity);
+                                } else {
+                                    range.addUpper(argSelectivity);
+                                }
+                                continue;
+                            }
+                        }
+                        selectivity *= argSelectivity;
+                    }
+                    for (var entry : ranges.entrySet()) {
+                        ColumnStats<?> columnStats = stats.getColumnStats(entry.getKey());
+                        double nullFraction = columnStats == null ? 0.0 : columnStats.nullFraction();
+                        selectivity *= entry.getValue().selectivity(nullFraction);
                     }
                     return selectivity;
                 }
@@ -151,6 +183,51 @@ public class SelectivityFunctions {
 
     }
 
+    private static boolean isRangeOperator(String name) {
+        return name.equals(GtOperator.NAME)
+            || name.equals(GteOperator.NAME)
+            || name.equals(LtOperator.NAME)
+            || name.equals(LteOperator.NAME);
+    }
+
+    private static class RangeSelectivity {
+
+        private double lower = Double.NaN;
+        private double upper = Double.NaN;
+
+        /**
+         * If there are multiple bounds on the same side, the most restrictive one is kept.
+         */
+        void addLower(double selectivity) {
+            lower = Double.isNaN(lower) ? selectivity : Math.min(lower, selectivity);
+        }
+
+        void addUpper(double selectivity) {
+            upper = Double.isNaN(upper) ? selectivity : Math.min(upper, selectivity);
+        }
+
+        double selectivity(double nullFraction) {
+            if (Double.isNaN(lower)) {
+                return upper;
+            }
+            if (Double.isNaN(upper)) {
+                return lower;
+            }
+            if (lower == MAGIC_SEL || upper == MAGIC_SEL) {
+                return DEFAULT_RANGE_SEL;
+            }
+            // Both selectivities exclude the null values, the rows outside of the range are:
+            // (1 - lower) + (1 - upper) - nullFraction
+            double selectivity = lower + upper - 1.0 + nullFraction;
+            if (selectivity <= 0.0) {
+                // A slightly negative value is likely due to rounding errors, the range is tiny but not empty.
+                // A very negative value indicates that the bounds are inconsistent (e.g. x > 20 AND x < 10)
+                return selectivity < -0.01 ? DEFAULT_RANGE_SEL : 1.0e-10;
+            }
+            return selectivity;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private static double genericOpSelectivity(NodeContext nodeCtx,
                                                TransactionContext txnCtx,
@@ -187,21 +264,85 @@ public class SelectivityFunctions {
         }
 
         ColumnStats<?> lhsStats = stats.getColumnStats(lhsColumn);
-        if (lhsStats == null || lhsStats.mostCommonValues().isEmpty()) {
+        if (lhsStats == null) {
+            return defaultSel;
+        }
+        MostCommonValues mostCommonValues = lhsStats.mostCommonValues();
+        List<?> histogram = isRangeOperator(function.name()) ? lhsStats.histogram() : List.of();
+        if (mostCommonValues.isEmpty() && histogram.size() < 2) {
             return defaultSel;
         }
 
         Scalar<Boolean, Object> operator = (Scalar<Boolean, Object>) nodeCtx.functions().getQualified(function);
-        MostCommonValues mostCommonValues = lhsStats.mostCommonValues();
-        double selectivity = 0.0;
+        double mcvSelectivity = 0.0;
+        double sumMcvFrequencies = 0.0;
         for (int i = 0; i < mostCommonValues.length(); i++) {
             Object value = mostCommonValues.value(i);
             Boolean result = operator.evaluate(txnCtx, nodeCtx, () -> value, () -> rhsValue);
             if (result != null && result) {
-                selectivity += mostCommonValues.frequency(i);
+                mcvSelectivity += mostCommonValues.frequency(i);
+            }
+            sumMcvFrequencies += mostCommonValues.frequency(i);
+        }
+        if (histogram.size() < 2) {
+            return mcvSelectivity;
+        }
+        // The histogram covers all non-null values which are not part of the most common values
+        double histogramFraction = clamp(1.0 - lhsStats.nullFraction() - sumMcvFrequencies);
+        double histogramSelectivity = histogramSelectivity(nodeCtx, txnCtx, operator, histogram, rhsValue);
+        return clamp(mcvSelectivity + histogramFraction * histogramSelectivity);
+    }
+
+    /**
+     * Estimates the fraction of the values represented by an equi-height histogram that match a
+     * range operator (<, <=, >, >=).
+     * See PostgreSQL src/backend/utils/adt/selfuncs.c `ineq_histogram_selectivity`
+     *
+     * @param histogram sorted bounds of the histogram buckets, each bucket holds the same number of values.
+     */
+    private static double histogramSelectivity(NodeContext nodeCtx,
+                                               TransactionContext txnCtx,
+                                               Scalar<Boolean, Object> operator,
+                                               List<?> histogram,
+                                               Object rhsValue) {
+        int numBounds = histogram.size();
+        int numMatches = 0;
+        for (Object bound : histogram) {
+            Boolean result = operator.evaluate(txnCtx, nodeCtx, () -> bound, () -> rhsValue);
+            if (result != null && result) {
+                numMatches++;
+            }
+        }
+        if (numMatches == 0) {
+            return 0.0;
+        }
+        if (numMatches == numBounds) {
+            return 1.0;
+        }
+        // The operators are monotonic: The matching bounds are either a prefix (<, <=) or a suffix (>, >=)
+        Object firstBound = histogram.get(0);
+        Boolean firstMatches = operator.evaluate(txnCtx, nodeCtx, () -> firstBound, () -> rhsValue);
+        boolean matchesPrefix = firstMatches != null && firstMatches;
+        int lowerBoundIdx = matchesPrefix ? numMatches - 1 : numBounds - numMatches - 1;
+        double position = positionInBucket(histogram.get(lowerBoundIdx), histogram.get(lowerBoundIdx + 1), rhsValue);
+        double matchingBuckets = (numMatches - 1) + (matchesPrefix ? position : 1.0 - position);
+        return clamp(matchingBuckets / (numBounds - 1));
+    }
+
+    /**
+     * @return the relative position of the value within the bucket using linear interpolation,
+     *         or 0.5 if the values are not numeric.
+     */
+    private static double positionInBucket(Object lower, Object upper, Object value) {
+        if (lower instanceof Number lowerNum && upper instanceof Number upperNum && value instanceof Number num) {
+            double low = lowerNum.doubleValue();
+            double high = upperNum.doubleValue();
+            if (high <= low) {
+                return 0.5;
             }
+            return clamp((num.doubleValue() - low) / (high - low));
         }
-        return selectivity;
+        return 0.5;
     }
 
     private static double isNullSelectivity(Symbol arg, Stats stats) {
@@ -246,25 +387,48 @@ public class SelectivityFunctions {
                 return 1.0 / lhsStats.approxDistinct();
             }
 
-            MostCommonValues lhsMcv = lhsStats.mostCommonValues();
-            MostCommonValues rhsMcv = rhsStats.mostCommonValues();
+            return columnEqSelectivity(lhsStats, rhsStats);
+        }
 
-            if (!lhsMcv.isEmpty() && !rhsMcv.isEmpty()) {
-                return selectivityFromMvcMatches(lhsStats, rhsStats);
-            }
+        return 1.0 / lhsStats.approxDistinct();
+    }
 
-            double nullfrac1 = lhsStats.nullFraction();
-            double nullfrac2 = rhsStats.nullFraction();
+    /**
+     * Selectivity of an equi-join condition {@code lhs = rhs} between two relations
+     * which have separate statistics.
+     */
+    public static double eqJoinSelectivity(Symbol lhs, Stats lhsStats, Symbol rhs, Stats rhsStats) {
+        ColumnIdent lhsColumn = getColumn(lhs);
+        ColumnIdent rhsColumn = getColumn(rhs);
+        ColumnStats<?> lhsColumnStats = lhsColumn == null ? null : lhsStats.statsByColumn().get(lhsColumn);
+        ColumnStats<?> rhsColumnStats = rhsColumn == null ? null : rhsStats.statsByColumn().get(rhsColumn);
+        if (lhsColumnStats == null && rhsColumnStats == null) {
+            return DEFAULT_EQ_SEL;
+        } else if (lhsColumnStats == null) {
+            return 1.0 / Math.max(1.0, rhsColumnStats.approxDistinct());
+        } else if (rhsColumnStats == null) {
+            return 1.0 / Math.max(1.0, lhsColumnStats.approxDistinct());
+        }
+        return clamp(columnEqSelectivity(lhsColumnStats, rhsColumnStats));
+    }
 
-            double selectivity = (1.0 - nullfrac1) * (1.0 - nullfrac2);
-            if (lhsStats.approxDistinct() > rhsStats.approxDistinct()) {
-                return selectivity / lhsStats.approxDistinct();
-            } else {
-                return selectivity / rhsStats.approxDistinct();
-            }
+    private static double columnEqSelectivity(ColumnStats<?> lhsStats, ColumnStats<?> rhsStats) {
+        MostCommonValues lhsMcv = lhsStats.mostCommonValues();
+        MostCommonValues rhsMcv = rhsStats.mostCommonValues();
+
+        if (!lhsMcv.isEmpty() && !rhsMcv.isEmpty()) {
+            return selectivityFromMvcMatches(lhsStats, rhsStats);
         }
 
-        return 1.0 / lhsStats.approxDistinct();
+        double nullfrac1 = lhsStats.nullFraction();
+        double nullfrac2 = rhsStats.nullFraction();
+
+        double selectivity = (1.0 - nullfrac1) * (1.0 - nullfrac2);
+        if (lhsStats.approxDistinct() > rhsStats.approxDistinct()) {
+            return selectivity / lhsStats.approxDistinct();
+        } else {
+            return selectivity / rhsStats.approxDistinct();
+        }
     }
 
     private static double clamp(double value) {
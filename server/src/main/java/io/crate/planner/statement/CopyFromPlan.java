@@ -67,6 +67,7 @@ import io.crate.execution.dsl.projection.SourceIndexWriterReturnSummaryProjectio
 import io.crate.execution.dsl.projection.builder.InputColumns;
 import io.crate.execution.engine.JobLauncher;
 import io.crate.execution.engine.NodeOperationTreeGenerator;
+import io.crate.execution.engine.collect.files.StdinFileInputFactory;
 import io.crate.execution.engine.pipeline.LimitAndOffset;
 import io.crate.expression.reference.file.SourceLineNumberExpression;
 import io.crate.expression.reference.file.SourceParsingFailureExpression;
@@ -139,10 +140,19 @@ public final class CopyFromPlan implements Plan {
         JobLauncher jobLauncher = dependencies.phasesTaskFactory()
             .create(plannerContext.jobId(), List.of(nodeOpTree));
 
+        // The data sent by the client can only be consumed while the statement is running
+        boolean waitForCompletion = readsFromStdin(boundedCopyFrom)
+            || boundedCopyFrom.settings().getAsBoolean("wait_for_completion", true);
         jobLauncher.execute(
             consumer,
             plannerContext.transactionContext(),
-            boundedCopyFrom.settings().getAsBoolean("wait_for_completion", true));
+            waitForCompletion);
+    }
+
+    private static boolean readsFromStdin(BoundCopyFrom boundedCopyFrom) {
+        return boundedCopyFrom.uri() instanceof Literal<?> literal
+            && literal.value() instanceof String uri
+            && StdinFileInputFactory.isStdin(uri);
     }
 
     @VisibleForTesting
@@ -185,7 +195,13 @@ public final class CopyFromPlan implements Plan {
         // TODO make FileUriCollectPhase ctor accept an uri of the List<String>
         // instead of the Symbol type, such as the uri can be evaluated and converted
         // to the required type already at this stage, but not later on in FileCollectSource.
-        var boundedURI = validateAndConvertToLiteral(eval.apply(copyFrom.uri()));
+        Object uri = eval.apply(copyFrom.uri());
+        // The statement rewritten for COPY FROM STDIN uses a literal URI, which is checked by the analyzer
+        if (!(copyFrom.uri() instanceof Literal) && StdinFileInputFactory.containsStdin(uri)) {
+            throw new IllegalArgumentException(
+                "The `stdin` URI scheme can't be used directly, use COPY FROM STDIN instead");
+        }
+        var boundedURI = validateAndConvertToLiteral(uri);
         var header = settings.getAsBoolean("header", true);
         var targetColumns = copyFrom.targetColumns();
         if (!header && copyFrom.targetColumns().isEmpty()) {
@@ -321,14 +337,21 @@ public final class CopyFromPlan implements Plan {
             rewriteToCollectToUsePartitionValues(table.partitionedByColumns(), partitionValues, toCollect);
         }
 
+        Collection<String> executionNodes;
+        if (readsFromStdin(boundedCopyFrom)) {
+            // The client streams the data to the node it is connected to
+            executionNodes = List.of(context.handlerNode());
+        } else {
+            executionNodes = getExecutionNodes(
+                allNodes,
+                boundedCopyFrom.settings().getAsInt("num_readers", allNodes.getSize()),
+                boundedCopyFrom.nodePredicate());
+        }
         FileUriCollectPhase collectPhase = new FileUriCollectPhase(
             context.jobId(),
             context.nextExecutionPhaseId(),
             "copyFrom",
-            getExecutionNodes(
-                allNodes,
-                boundedCopyFrom.settings().getAsInt("num_readers", allNodes.getSize()),
-                boundedCopyFrom.nodePredicate()),
+            executionNodes,
             boundedCopyFrom.uri(),
             boundedCopyFrom.targetColumns(),
             toCollect,
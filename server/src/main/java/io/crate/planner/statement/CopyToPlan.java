@@ -23,6 +23,7 @@ package io.crate.planner.statement;
 
 import static io.crate.analyze.CopyStatementSettings.COMPRESSION_SETTING;
 import static io.crate.analyze.CopyStatementSettings.OUTPUT_FORMAT_SETTING;
+import static io.crate.analyze.CopyStatementSettings.ROW_GROUP_SIZE_SETTING;
 import static io.crate.analyze.CopyStatementSettings.settingAsEnum;
 
 import java.util.ArrayList;
@@ -53,6 +54,8 @@ import io.crate.execution.dsl.projection.WriterProjection;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
 import io.crate.execution.engine.JobLauncher;
 import io.crate.execution.engine.NodeOperationTreeGenerator;
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
+import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.RefVisitor;
 import io.crate.expression.symbol.Symbol;
@@ -130,10 +133,19 @@ public final class CopyToPlan implements Plan {
         JobLauncher jobLauncher = executor.phasesTaskFactory()
             .create(plannerContext.jobId(), List.of(nodeOpTree));
 
+        // The client only receives the data while the statement is running
+        boolean waitForCompletion = writesToStdout(boundedCopyTo)
+            || boundedCopyTo.withClauseOptions().getAsBoolean("wait_for_completion", true);
         jobLauncher.execute(
             consumer,
             plannerContext.transactionContext(),
-            boundedCopyTo.withClauseOptions().getAsBoolean("wait_for_completion", true));
+            waitForCompletion);
+    }
+
+    private static boolean writesToStdout(BoundCopyTo boundedCopyTo) {
+        return boundedCopyTo.uri() instanceof Literal<?> literal
+            && literal.value() instanceof String uri
+            && StdoutFileOutputFactory.isStdout(uri);
     }
 
     @VisibleForTesting
@@ -151,23 +163,45 @@ public final class CopyToPlan implements Plan {
                 WriterProjection.OutputFormat.JSON_ARRAY : WriterProjection.OutputFormat.JSON_OBJECT;
         }
 
+        boolean writesToStdout = writesToStdout(boundedCopyTo);
+        List<Symbol> toCollect = boundedCopyTo.outputs();
+        Map<ColumnIdent, Symbol> overwrites = boundedCopyTo.overwrites();
+        if (writesToStdout && !overwrites.isEmpty()) {
+            // The writer runs on the handler node where the partition values can't be resolved,
+            // they are collected along with the documents instead.
+            toCollect = new ArrayList<>(boundedCopyTo.outputs());
+            overwrites = new HashMap<>();
+            for (var entry : boundedCopyTo.overwrites().entrySet()) {
+                Symbol partitionValue = entry.getValue();
+                overwrites.put(entry.getKey(), new InputColumn(toCollect.size(), partitionValue.valueType()));
+                toCollect.add(partitionValue);
+            }
+        }
+
         WriterProjection projection = ProjectionBuilder.writerProjection(
             boundedCopyTo.outputs(),
             boundedCopyTo.uri(),
             boundedCopyTo.compressionType(),
-            boundedCopyTo.overwrites(),
+            overwrites,
             boundedCopyTo.outputNames(),
             outputFormat,
             boundedCopyTo.withClauseOptions());
 
         LogicalPlan collect = new Collect(
             new DocTableRelation(boundedCopyTo.table()),
-            boundedCopyTo.outputs(),
+            toCollect,
             boundedCopyTo.whereClause()
         );
         LogicalPlan source = optimizeCollect(context, planStats, collect);
         ExecutionPlan executionPlan = source.build(
             executor, context, Set.of(), projectionBuilder, 0, 0, null, null, params, SubQueryResults.EMPTY);
+        if (writesToStdout) {
+            // The rows are streamed to the client connected to the handler node by a single writer
+            return Merge.ensureOnHandler(
+                executionPlan,
+                context,
+                List.of(projection, MergeCountProjection.INSTANCE));
+        }
         executionPlan.addProjection(projection);
 
         return Merge.ensureOnHandler(
@@ -215,6 +249,14 @@ public final class CopyToPlan implements Plan {
         Map<ColumnIdent, Symbol> overwrites = null;
         boolean columnsDefined = false;
         final List<String> outputNames = new ArrayList<>(copyTo.columns().size());
+        Settings settings = Settings.builder().put(copyTo.properties().map(eval)).build();
+        // The statement rewritten for COPY TO STDOUT uses a literal URI, which is checked by the analyzer
+        if (!(copyTo.uri() instanceof Literal) && StdoutFileOutputFactory.containsStdout(eval.apply(copyTo.uri()))) {
+            throw new IllegalArgumentException(
+                "The `stdout` URI scheme can't be used directly, use COPY TO STDOUT instead");
+        }
+        WriterProjection.OutputFormat outputFormat =
+            settingAsEnum(WriterProjection.OutputFormat.class, OUTPUT_FORMAT_SETTING.get(settings));
         if (!copyTo.columns().isEmpty()) {
             // TODO: remove outputNames?
             for (Symbol symbol : copyTo.columns()) {
@@ -223,6 +265,12 @@ public final class CopyToPlan implements Plan {
                 outputs.add(DocReferences.toSourceLookup(symbol));
             }
             columnsDefined = true;
+        } else if (outputFormat == WriterProjection.OutputFormat.PARQUET) {
+            // Parquet files are written column-wise and need a schema, so all top-level columns are written
+            for (Reference column : table.columns()) {
+                outputNames.add(column.column().sqlFqn());
+                outputs.add(DocReferences.toSourceLookup(column));
+            }
         } else {
             Reference sourceRef;
             if (table.isPartitioned() && partitions.isEmpty()) {
@@ -244,12 +292,12 @@ public final class CopyToPlan implements Plan {
             outputs = List.of(sourceRef);
         }
 
-        Settings settings = Settings.builder().put(copyTo.properties().map(eval)).build();
-
         WriterProjection.CompressionType compressionType =
             settingAsEnum(WriterProjection.CompressionType.class, COMPRESSION_SETTING.get(settings));
-        WriterProjection.OutputFormat outputFormat =
-            settingAsEnum(WriterProjection.OutputFormat.class, OUTPUT_FORMAT_SETTING.get(settings));
+        if (outputFormat == WriterProjection.OutputFormat.PARQUET) {
+            // Validate the row group size upfront instead of failing on each shard
+            ROW_GROUP_SIZE_SETTING.get(settings);
+        }
 
         if (!columnsDefined && outputFormat == WriterProjection.OutputFormat.JSON_ARRAY) {
             throw new UnsupportedFeatureException("Output format not supported without specifying columns.");
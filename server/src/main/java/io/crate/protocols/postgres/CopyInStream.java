@@ -0,0 +1,172 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+/**
+ * Exposes the payload of the CopyData messages of a {@code COPY ... FROM STDIN} as an {@link InputStream}.
+ * <p>
+ * The messages are added by the netty event loop while the stream is consumed by the thread reading the input
+ * of the COPY. If more than {@link #MAX_BUFFERED_BYTES} are buffered, reading from the connection is paused
+ * until the consumer caught up, so that a client can't send data faster than it can be imported.
+ */
+final class CopyInStream extends InputStream {
+
+    @VisibleForTesting
+    static final int MAX_BUFFERED_BYTES = 4 * 1024 * 1024;
+
+    private final Channel channel;
+    private final ArrayDeque<ByteBuf> buffers = new ArrayDeque<>();
+    private long bufferedBytes = 0;
+    private boolean readPaused = false;
+    private boolean eof = false;
+    private boolean closed = false;
+
+    @Nullable
+    private RuntimeException failure;
+
+    CopyInStream(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Adds the payload of a CopyData message. Takes ownership of the buffer.
+     */
+    synchronized void add(ByteBuf data) {
+        if (closed || eof || failure != null) {
+            data.release();
+            return;
+        }
+        buffers.add(data);
+        bufferedBytes += data.readableBytes();
+        if (bufferedBytes > MAX_BUFFERED_BYTES && !readPaused) {
+            readPaused = true;
+            channel.config().setAutoRead(false);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Marks the end of the data, called on CopyDone
+     */
+    synchronized void finish() {
+        eof = true;
+        notifyAll();
+    }
+
+    /**
+     * Aborts the COPY, the consumer will receive the failure instead of any remaining data.
+     */
+    synchronized void fail(RuntimeException failure) {
+        if (this.failure == null && !eof) {
+            this.failure = failure;
+            releaseBuffers();
+            notifyAll();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int read = read(b, 0, 1);
+        return read == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            ByteBuf head = buffers.peek();
+            if (head != null) {
+                int numBytes = Math.min(len, head.readableBytes());
+                head.readBytes(b, off, numBytes);
+                if (!head.isReadable()) {
+                    buffers.poll();
+                    head.release();
+                }
+                bufferedBytes -= numBytes;
+                if (readPaused && bufferedBytes <= MAX_BUFFERED_BYTES / 2) {
+                    readPaused = false;
+                    channel.config().setAutoRead(true);
+                }
+                return numBytes;
+            }
+            if (eof) {
+                return -1;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for COPY data");
+            }
+        }
+    }
+
+    @Override
+    public synchronized int available() {
+        return (int) Math.min(Integer.MAX_VALUE, bufferedBytes);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseBuffers();
+        notifyAll();
+    }
+
+    private void releaseBuffers() {
+        ByteBuf buffer;
+        while ((buffer = buffers.poll()) != null) {
+            buffer.release();
+        }
+        bufferedBytes = 0;
+        if (readPaused) {
+            readPaused = false;
+            channel.config().setAutoRead(true);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Sends the data written by a {@code COPY ... TO STDOUT} to the client as CopyData messages.
+ * <p>
+ * CopyData
+ * | 'd' | int32 len | byteN data |
+ * <p>
+ * Writes are coalesced into messages of up to {@link #FLUSH_THRESHOLD_BYTES}. While the channel isn't writable
+ * the writer is blocked, unless it runs on the event loop of the channel, to not buffer the whole result in memory
+ * if the client reads slower than the data is produced.
+ */
+final class CopyOutStream extends OutputStream {
+
+    @VisibleForTesting
+    static final int FLUSH_THRESHOLD_BYTES = 64 * 1024;
+
+    private static final int HEADER_BYTES = 5;
+
+    private final DelayableWriteChannel channel;
+
+    @Nullable
+    private ByteBuf buffer;
+    private boolean closed = false;
+
+    CopyOutStream(DelayableWriteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        ensureOpen();
+        buffer().writeByte(b);
+        maybeSend();
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            ByteBuf out = buffer();
+            int numBytes = Math.min(len, FLUSH_THRESHOLD_BYTES + HEADER_BYTES - out.writerIndex());
+            out.writeBytes(b, off, numBytes);
+            off += numBytes;
+            len -= numBytes;
+            maybeSend();
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        send();
+    }
+
+    /**
+     * Sends the remaining data followed by a CopyDone message
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        send();
+        closed = true;
+        Messages.sendCopyDone(channel.bypassDelay());
+        channel.flush();
+    }
+
+    /**
+     * Releases any pending data without sending it, used if the COPY failed
+     */
+    synchronized void discard() {
+        closed = true;
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private ByteBuf buffer() {
+        if (buffer == null) {
+            buffer = channel.alloc().buffer(FLUSH_THRESHOLD_BYTES + HEADER_BYTES);
+            buffer.writeByte('d');
+            buffer.writeInt(0); // set once the message is sent
+        }
+        return buffer;
+    }
+
+    private void maybeSend() throws IOException {
+        if (buffer != null && buffer.writerIndex() - HEADER_BYTES >= FLUSH_THRESHOLD_BYTES) {
+            send();
+        }
+    }
+
+    private void send() throws IOException {
+        ByteBuf message = buffer;
+        if (message == null) {
+            return;
+        }
+        buffer = null;
+        if (!channel.isActive()) {
+            message.release();
+            throw new IOException("Client closed the connection during COPY TO STDOUT");
+        }
+        message.setInt(1, message.writerIndex() - 1);
+        channel.bypassDelay().writeAndFlush(message);
+        if (!channel.isWritable() && !channel.eventLoop().inEventLoop()) {
+            try {
+                channel.whenWritable().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the client to receive COPY data");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+}
@@ -23,6 +23,9 @@ package io.crate.protocols.postgres;
 
 import java.net.SocketAddress;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jetbrains.annotations.Nullable;
@@ -48,11 +51,13 @@ public class DelayableWriteChannel implements Channel {
 
     private final Channel delegate;
     private final AtomicReference<DelayedWrites> delay = new AtomicReference<>(null);
+    private final List<CompletableFuture<Void>> writabilityListeners = new ArrayList<>();
 
     public DelayableWriteChannel(Channel channel) {
         this.delegate = channel;
         channel.closeFuture().addListener(f -> {
             discardDelayedWrites();
+            notifyWritabilityListeners();
         });
     }
 
@@ -285,6 +290,44 @@ public class DelayableWriteChannel implements Channel {
         return delegate;
     }
 
+    /**
+     * @return a future which completes once the channel is writable again, or once it got closed.
+     */
+    public CompletableFuture<Void> whenWritable() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (writabilityListeners) {
+            writabilityListeners.add(future);
+        }
+        // The writability could have changed before the listener got added
+        if (delegate.isWritable() || !delegate.isOpen()) {
+            notifyWritabilityListeners();
+        }
+        return future;
+    }
+
+    /**
+     * Must be called when the writability of the channel changed.
+     */
+    public void writabilityChanged() {
+        if (delegate.isWritable()) {
+            notifyWritabilityListeners();
+        }
+    }
+
+    private void notifyWritabilityListeners() {
+        List<CompletableFuture<Void>> listeners;
+        synchronized (writabilityListeners) {
+            if (writabilityListeners.isEmpty()) {
+                return;
+            }
+            listeners = new ArrayList<>(writabilityListeners);
+            writabilityListeners.clear();
+        }
+        for (var listener : listeners) {
+            listener.complete(null);
+        }
+    }
+
     public void discardDelayedWrites() {
         DelayedWrites currentDelay = delay.getAndSet(null);
         if (currentDelay != null) {
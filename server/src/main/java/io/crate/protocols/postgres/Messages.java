@@ -313,48 +313,63 @@ public class Messages {
      * ByteN
      * The value of the column, in the format indicated by the associated format code. n is the above length.
      */
-    @SuppressWarnings({"unchecked","rawtypes"})
     static void sendDataRow(Channel channel, Row row, List<PGType<?>> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
+        ByteBuf buffer = channel.alloc().buffer();
+        try {
+            writeDataRow(buffer, row, columnTypes, formatCodes);
+        } catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+        channel.write(buffer);
+    }
+
+    /**
+     * Appends a DataRow message to the buffer. See {@link #sendDataRow(Channel, Row, List, FormatCodes.FormatCode[])}.
+     * If the row can't be encoded the buffer is reset to the state before the call.
+     *
+     * @return the number of bytes written
+     */
+    @SuppressWarnings({"unchecked","rawtypes"})
+    static int writeDataRow(ByteBuf buffer, Row row, List<PGType<?>> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
         int length = 4 + 2;
         assert columnTypes.size() == row.numColumns()
             : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + columnTypes;
 
-        ByteBuf buffer = channel.alloc().buffer();
+        int startIndex = buffer.writerIndex();
         buffer.writeByte('D');
         buffer.writeInt(0); // will be set at the end
         buffer.writeShort(row.numColumns());
 
-        for (int i = 0; i < row.numColumns(); i++) {
-            PGType pgType = columnTypes.get(i);
-            Object value;
-            try {
-                value = row.get(i);
-            } catch (Exception e) {
-                buffer.release();
-                throw e;
-            }
-            if (value == null) {
-                buffer.writeInt(-1);
-                length += 4;
-            } else {
-                FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
-                switch (formatCode) {
-                    case TEXT:
-                        length += pgType.writeAsText(buffer, value);
-                        break;
-                    case BINARY:
-                        length += pgType.writeAsBinary(buffer, value);
-                        break;
-
-                    default:
-                        buffer.release();
-                        throw new AssertionError("Unrecognized formatCode: " + formatCode);
+        try {
+            for (int i = 0; i < row.numColumns(); i++) {
+                PGType pgType = columnTypes.get(i);
+                Object value = row.get(i);
+                if (value == null) {
+                    buffer.writeInt(-1);
+                    length += 4;
+                } else {
+                    FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
+                    switch (formatCode) {
+                        case TEXT:
+                            length += pgType.writeAsText(buffer, value);
+                            break;
+                        case BINARY:
+                            length += pgType.writeAsBinary(buffer, value);
+                            break;
+
+                        default:
+                            throw new AssertionError("Unrecognized formatCode: " + formatCode);
+                    }
                 }
             }
+        } catch (Throwable t) {
+            buffer.writerIndex(startIndex);
+            throw t;
         }
 
-        buffer.setInt(1, length);
-        channel.write(buffer);
+        buffer.setInt(startIndex + 1, length);
+        return length + 1;
     }
 
     static void writeCString(ByteBuf buffer, byte[] valBytes) {
@@ -525,6 +540,54 @@ public class Messages {
         sendShortMsg(channel, '3', "sentCloseComplete");
     }
 
+    /**
+     * CopyInResponse
+     * | 'G' | int32 len | int8 format | int16 numColumns | int16[] columnFormatCodes |
+     * <p>
+     * Signals that the client can start sending the data of a COPY FROM STDIN via CopyData messages.
+     */
+    static ChannelFuture sendCopyInResponse(Channel channel, int numColumns) {
+        return sendCopyResponse(channel, 'G', numColumns, "sentCopyInResponse");
+    }
+
+    /**
+     * CopyOutResponse
+     * | 'H' | int32 len | int8 format | int16 numColumns | int16[] columnFormatCodes |
+     * <p>
+     * Announces the CopyData messages of a COPY TO STDOUT.
+     */
+    static ChannelFuture sendCopyOutResponse(Channel channel, int numColumns) {
+        return sendCopyResponse(channel, 'H', numColumns, "sentCopyOutResponse");
+    }
+
+    /**
+     * The data is always sent in text format.
+     */
+    private static ChannelFuture sendCopyResponse(Channel channel, char msgType, int numColumns, String traceLogMsg) {
+        int length = 4 + 1 + 2 + numColumns * 2;
+        ByteBuf buffer = channel.alloc().buffer(length + 1);
+        buffer.writeByte(msgType);
+        buffer.writeInt(length);
+        buffer.writeByte(FormatCodes.FormatCode.TEXT.ordinal());
+        buffer.writeShort(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            buffer.writeShort(FormatCodes.FormatCode.TEXT.ordinal());
+        }
+        ChannelFuture channelFuture = channel.writeAndFlush(buffer);
+        if (LOGGER.isTraceEnabled()) {
+            channelFuture.addListener((ChannelFutureListener) future -> LOGGER.trace(traceLogMsg));
+        }
+        return channelFuture;
+    }
+
+    /**
+     * CopyDone
+     * | 'c' | int32 len |
+     */
+    static ChannelFuture sendCopyDone(Channel channel) {
+        return sendShortMsg(channel, 'c', "sentCopyDone");
+    }
+
     /**
      * AuthenticationCleartextPassword (B)
      *
@@ -60,6 +60,8 @@ import com.carrotsearch.hppc.IntSet;
 
 import io.crate.action.sql.Sessions;
 import io.crate.auth.Authentication;
+import io.crate.execution.engine.collect.files.StdinFileInputFactory;
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
 import io.crate.netty.NettyBootstrap;
 import io.crate.protocols.ssl.SslContextProvider;
@@ -114,6 +116,8 @@ public class PostgresNetty extends AbstractLifecycleComponent {
     private final PageCacheRecycler pageCacheRecycler;
     private final Netty4Transport transport;
     private final SessionSettingRegistry sessionSettingRegistry;
+    private final StdinFileInputFactory stdinInputs;
+    private final StdoutFileOutputFactory stdoutOutputs;
 
     @Inject
     public PostgresNetty(Settings settings,
@@ -126,7 +130,9 @@ public class PostgresNetty extends AbstractLifecycleComponent {
                          NettyBootstrap nettyBootstrap,
                          Netty4Transport netty4Transport,
                          PageCacheRecycler pageCacheRecycler,
-                         SslContextProvider sslContextProvider) {
+                         SslContextProvider sslContextProvider,
+                         StdinFileInputFactory stdinInputs,
+                         StdoutFileOutputFactory stdoutOutputs) {
         this.settings = settings;
         this.sessionSettingRegistry = sessionSettingRegistry;
         this.userManager = userManager;
@@ -137,6 +143,8 @@ public class PostgresNetty extends AbstractLifecycleComponent {
         this.nettyBootstrap = nettyBootstrap;
         this.transport = netty4Transport;
         this.pageCacheRecycler = pageCacheRecycler;
+        this.stdinInputs = stdinInputs;
+        this.stdoutOutputs = stdoutOutputs;
 
         if (SslSettings.isPSQLSslEnabled(settings)) {
             namedLogger.info("PSQL SSL support is enabled.");
@@ -181,7 +189,9 @@ public class PostgresNetty extends AbstractLifecycleComponent {
                         chPipeline.addLast("dispatcher", new Netty4MessageChannelHandler(pageCacheRecycler, transport));
                     },
                     authentication,
-                    sslContextProvider
+                    sslContextProvider,
+                    stdinInputs,
+                    stdoutOutputs
                 );
                 pipeline.addLast("frame-decoder", postgresWireProtocol.decoder);
                 pipeline.addLast("handler", postgresWireProtocol.handler);
@@ -27,6 +27,7 @@ import static io.crate.protocols.postgres.Messages.sendReadyForQuery;
 
 import java.net.InetAddress;
 import java.net.SocketException;
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -34,6 +35,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
@@ -59,6 +61,9 @@ import io.crate.auth.AuthenticationMethod;
 import io.crate.auth.Protocol;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
+import io.crate.exceptions.JobKilledException;
+import io.crate.execution.engine.collect.files.StdinFileInputFactory;
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.settings.CoordinatorSessionSettings;
@@ -69,7 +74,13 @@ import io.crate.protocols.postgres.parser.PgArrayParser;
 import io.crate.protocols.postgres.types.PGType;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyTo;
+import io.crate.sql.tree.Expression;
+import io.crate.sql.tree.GenericProperties;
 import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.StringLiteral;
+import io.crate.sql.tree.Table;
 import io.crate.types.DataType;
 import io.crate.user.User;
 import io.netty.buffer.ByteBuf;
@@ -183,6 +194,42 @@ import joptsimple.OptionSet;
  *          |                                  |
  *          |  ReadyForQuery                   |
  *          |<---------------------------------|
+ *
+ * COPY FROM STDIN (simple query only)
+ *
+ *          +                                  +
+ *          |   Q (COPY .. FROM STDIN)         |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |     CopyInResponse               |
+ *          |<---------------------------------|
+ *          |                                  |
+ *          |     CopyData                     |
+ *          |--------------------------------->|
+ *          |     CopyDone | CopyFail          |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |     CommandComplete | Error      |
+ *          |<---------------------------------|
+ *          |     ReadyForQuery                |
+ *          |<---------------------------------|
+ *
+ * COPY TO STDOUT (simple query only)
+ *
+ *          +                                  +
+ *          |   Q (COPY .. TO STDOUT)          |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |     CopyOutResponse              |
+ *          |<---------------------------------|
+ *          |     CopyData                     |
+ *          |<---------------------------------|
+ *          |     CopyDone                     |
+ *          |<---------------------------------|
+ *          |     CommandComplete | Error      |
+ *          |<---------------------------------|
+ *          |     ReadyForQuery                |
+ *          |<---------------------------------|
  * </pre>
  * <p>
  * Take a look at {@link Messages} to see how the messages are structured.
@@ -205,10 +252,18 @@ public class PostgresWireProtocol {
     private final Function<CoordinatorSessionSettings, AccessControl> getAccessControl;
     private final Authentication authService;
     private final Consumer<ChannelPipeline> addTransportHandler;
+    private final StdinFileInputFactory stdinInputs;
+    private final StdoutFileOutputFactory stdoutOutputs;
 
     private DelayableWriteChannel channel;
     Session session;
     private boolean ignoreTillSync = false;
+
+    /**
+     * Receives the CopyData messages while a COPY FROM STDIN is in progress
+     */
+    @Nullable
+    private volatile CopyInStream copyIn;
     private AuthenticationContext authContext;
     private Properties properties;
 
@@ -218,11 +273,33 @@ public class PostgresWireProtocol {
                          Consumer<ChannelPipeline> addTransportHandler,
                          Authentication authService,
                          Supplier<SslContext> getSslContext) {
+        this(
+            sessions,
+            sessionSettingRegistry,
+            getAcessControl,
+            addTransportHandler,
+            authService,
+            getSslContext,
+            new StdinFileInputFactory(),
+            new StdoutFileOutputFactory()
+        );
+    }
+
+    PostgresWireProtocol(Sessions sessions,
+                         SessionSettingRegistry sessionSettingRegistry,
+                         Function<CoordinatorSessionSettings, AccessControl> getAcessControl,
+                         Consumer<ChannelPipeline> addTransportHandler,
+                         Authentication authService,
+                         Supplier<SslContext> getSslContext,
+                         StdinFileInputFactory stdinInputs,
+                         StdoutFileOutputFactory stdoutOutputs) {
         this.sessions = sessions;
         this.sessionSettingRegistry = sessionSettingRegistry;
         this.getAccessControl = getAcessControl;
         this.addTransportHandler = addTransportHandler;
         this.authService = authService;
+        this.stdinInputs = stdinInputs;
+        this.stdoutOutputs = stdoutOutputs;
         this.decoder = new PgDecoder(getSslContext);
         this.handler = new MessageHandler();
     }
@@ -334,6 +411,10 @@ public class PostgresWireProtocol {
         }
 
         private void dispatchMessage(ByteBuf buffer, DelayableWriteChannel channel) {
+            if (copyIn != null && (decoder.msgType() == 'H' || decoder.msgType() == 'S')) {
+                // Flush and Sync are ignored while receiving the data of a COPY FROM STDIN
+                return;
+            }
             switch (decoder.msgType()) {
                 case 'Q': // Query (simple)
                     handleSimpleQuery(buffer, channel);
@@ -362,6 +443,15 @@ public class PostgresWireProtocol {
                 case 'C':
                     handleClose(buffer, channel);
                     return;
+                case 'd':
+                    handleCopyData(buffer);
+                    return;
+                case 'c':
+                    handleCopyDone();
+                    return;
+                case 'f':
+                    handleCopyFail(buffer);
+                    return;
                 case 'X': // Terminate (called when jdbc connection is closed)
                     closeSession();
                     channel.close();
@@ -383,6 +473,15 @@ public class PostgresWireProtocol {
             }
         }
 
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            DelayableWriteChannel currentChannel = channel;
+            if (currentChannel != null) {
+                currentChannel.writabilityChanged();
+            }
+            super.channelWritabilityChanged(ctx);
+        }
+
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
             if (cause instanceof SocketException && cause.getMessage().equals("Connection reset")) {
@@ -397,6 +496,11 @@ public class PostgresWireProtocol {
         public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
             LOGGER.trace("channelDisconnected");
             channel = null;
+            CopyInStream stream = copyIn;
+            if (stream != null) {
+                copyIn = null;
+                stream.fail(JobKilledException.of("Client closed the connection during COPY FROM STDIN"));
+            }
             closeSession();
             super.channelUnregistered(ctx);
         }
@@ -757,6 +861,46 @@ public class PostgresWireProtocol {
         Messages.sendCloseComplete(channel);
     }
 
+    /**
+     * CopyData
+     * | 'd' | int32 len | byteN data |
+     * <p>
+     * Ignored if no COPY FROM STDIN is in progress, e.g. because it already failed.
+     */
+    private void handleCopyData(ByteBuf buffer) {
+        CopyInStream stream = copyIn;
+        if (stream == null) {
+            buffer.skipBytes(decoder.payloadLength());
+        } else {
+            stream.add(buffer.readRetainedSlice(decoder.payloadLength()));
+        }
+    }
+
+    /**
+     * CopyDone
+     * | 'c' | int32 len |
+     */
+    private void handleCopyDone() {
+        CopyInStream stream = copyIn;
+        if (stream != null) {
+            copyIn = null;
+            stream.finish();
+        }
+    }
+
+    /**
+     * CopyFail
+     * | 'f' | int32 len | string errorMessage |
+     */
+    private void handleCopyFail(ByteBuf buffer) {
+        String errorMessage = readCString(buffer);
+        CopyInStream stream = copyIn;
+        if (stream != null) {
+            copyIn = null;
+            stream.fail(JobKilledException.of("COPY FROM STDIN failed: " + errorMessage));
+        }
+    }
+
     @VisibleForTesting
     void handleSimpleQuery(ByteBuf buffer, final DelayableWriteChannel channel) {
         String queryString = readCString(buffer);
@@ -790,6 +934,12 @@ public class PostgresWireProtocol {
     }
 
     private CompletableFuture<?> handleSingleQuery(Statement statement, String query, DelayableWriteChannel channel) {
+        if (statement instanceof CopyFrom<?> copyFrom && copyFrom.isFromStdin()) {
+            return handleCopyFromStdin(copyFrom, query, channel);
+        }
+        if (statement instanceof CopyTo<?> copyTo && copyTo.isToStdout()) {
+            return handleCopyToStdout(copyTo, query, channel);
+        }
         CompletableFuture<?> result = new CompletableFuture<>();
 
         AccessControl accessControl = getAccessControl.apply(session.sessionSettings());
@@ -831,6 +981,98 @@ public class PostgresWireProtocol {
         }
     }
 
+    /**
+     * Runs a {@code COPY ... FROM STDIN} by reading the data from a {@link StdinFileInputFactory} stream
+     * which is fed by the CopyData messages of the client.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<?> handleCopyFromStdin(CopyFrom<?> copyFrom, String query, DelayableWriteChannel channel) {
+        if (copyFrom.isReturnSummary()) {
+            AccessControl accessControl = getAccessControl.apply(session.sessionSettings());
+            var failure = new UnsupportedOperationException("COPY FROM STDIN doesn't support RETURN SUMMARY");
+            Messages.sendErrorResponse(channel, accessControl, failure);
+            return CompletableFuture.failedFuture(failure);
+        }
+        CopyInStream stream = new CopyInStream(channel.bypassDelay());
+        URI uri = stdinInputs.register(stream);
+        CopyFrom<Expression> copyFromUri = new CopyFrom<>(
+            (Table<Expression>) copyFrom.table(),
+            copyFrom.columns(),
+            new StringLiteral(uri.toString()),
+            (GenericProperties<Expression>) copyFrom.properties(),
+            false,
+            true
+        );
+        return executeCopy(copyFromUri, query, channel, () -> {
+            copyIn = stream;
+            Messages.sendCopyInResponse(channel.bypassDelay(), copyFrom.columns().size());
+        }).whenComplete((result, err) -> {
+            stdinInputs.unregister(uri);
+            if (copyIn == stream) {
+                copyIn = null;
+            }
+            stream.close();
+        });
+    }
+
+    /**
+     * Runs a {@code COPY ... TO STDOUT} using a single writer on this node,
+     * which sends the data as CopyData messages via a {@link StdoutFileOutputFactory} stream.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<?> handleCopyToStdout(CopyTo<?> copyTo, String query, DelayableWriteChannel channel) {
+        CopyOutStream stream = new CopyOutStream(channel);
+        URI uri = stdoutOutputs.register(stream);
+        CopyTo<Expression> copyToUri = new CopyTo<>(
+            (Table<Expression>) copyTo.table(),
+            (List<Expression>) copyTo.columns(),
+            (Optional<Expression>) copyTo.whereClause(),
+            true,
+            new StringLiteral(uri.toString()),
+            (GenericProperties<Expression>) copyTo.properties(),
+            true
+        );
+        Runnable sendCopyOutResponse =
+            () -> Messages.sendCopyOutResponse(channel.bypassDelay(), copyTo.columns().size());
+        return executeCopy(copyToUri, query, channel, sendCopyOutResponse).whenComplete((result, err) -> {
+            stdoutOutputs.unregister(uri);
+            if (err != null) {
+                stream.discard();
+            }
+        });
+    }
+
+    /**
+     * Like {@link #handleSingleQuery(Statement, String, DelayableWriteChannel)} for a COPY statement
+     * which exchanges its data with the client.
+     *
+     * @param sendCopyResponse starts the copy mode of the client once the statement got analyzed.
+     */
+    private CompletableFuture<?> executeCopy(Statement statement,
+                                             String query,
+                                             DelayableWriteChannel channel,
+                                             Runnable sendCopyResponse) {
+        AccessControl accessControl = getAccessControl.apply(session.sessionSettings());
+        try {
+            session.analyze("", statement, Collections.emptyList(), query);
+            session.bind("", "", Collections.emptyList(), null);
+            sendCopyResponse.run();
+            DelayedWrites delayedWrites = channel.delayWrites();
+            RowCountReceiver rowCountReceiver = new RowCountReceiver(
+                query,
+                channel,
+                delayedWrites,
+                accessControl
+            );
+            session.execute("", 0, rowCountReceiver);
+            return session.sync();
+        } catch (Throwable t) {
+            channel.discardDelayedWrites();
+            Messages.sendErrorResponse(channel, accessControl, t);
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
     private void handleCancelRequestBody(ByteBuf buffer, Channel channel) {
         var keyData = KeyData.of(buffer);
 
@@ -22,6 +22,7 @@
 package io.crate.protocols.postgres;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -31,11 +32,17 @@ import io.crate.auth.AccessControl;
 import io.crate.data.Row;
 import io.crate.protocols.postgres.DelayableWriteChannel.DelayedWrites;
 import io.crate.protocols.postgres.types.PGType;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 
 class ResultSetReceiver extends BaseResultReceiver {
 
+    /**
+     * Rows are encoded into a shared buffer which is written and flushed once it reaches this size.
+     */
+    static final int FLUSH_THRESHOLD_BYTES = 64 * 1024;
+
     private final String query;
     private final DelayableWriteChannel channel;
     private final List<PGType<?>> columnTypes;
@@ -49,6 +56,9 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     private long rowCount = 0;
 
+    @Nullable
+    private ByteBuf rowsBuffer;
+
     ResultSetReceiver(String query,
                       DelayableWriteChannel channel,
                       DelayedWrites delayedWrites,
@@ -69,14 +79,46 @@ class ResultSetReceiver extends BaseResultReceiver {
     @Override
     public void setNextRow(Row row) {
         rowCount++;
-        Messages.sendDataRow(directChannel, row, columnTypes, formatCodes);
-        if (rowCount % 1000 == 0) {
+        ByteBuf buffer = rowsBuffer;
+        if (buffer == null) {
+            buffer = directChannel.alloc().buffer(FLUSH_THRESHOLD_BYTES);
+            rowsBuffer = buffer;
+        }
+        Messages.writeDataRow(buffer, row, columnTypes, formatCodes);
+        if (buffer.readableBytes() >= FLUSH_THRESHOLD_BYTES) {
+            writeRows();
             directChannel.flush();
         }
     }
 
+    /**
+     * Pauses the row consumption while the client doesn't keep up reading the rows.
+     * Otherwise they'd pile up in the outbound buffer of the channel.
+     */
+    @Override
+    public CompletableFuture<?> waitUntilReady() {
+        if (directChannel.isWritable() || !directChannel.isActive()) {
+            return null;
+        }
+        directChannel.flush();
+        return channel.whenWritable();
+    }
+
+    private void writeRows() {
+        ByteBuf buffer = rowsBuffer;
+        if (buffer != null) {
+            rowsBuffer = null;
+            if (buffer.isReadable()) {
+                directChannel.write(buffer);
+            } else {
+                buffer.release();
+            }
+        }
+    }
+
     @Override
     public void batchFinished() {
+        writeRows();
         ChannelFuture sendPortalSuspended = Messages.sendPortalSuspended(directChannel);
         channel.writePendingMessages(delayedWrites);
         channel.flush();
@@ -89,6 +131,7 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     @Override
     public void allFinished() {
+        writeRows();
         ChannelFuture sendCommandComplete = Messages.sendCommandComplete(directChannel, query, rowCount);
         channel.writePendingMessages(delayedWrites);
         channel.flush();
@@ -97,6 +140,7 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     @Override
     public void fail(@NotNull Throwable throwable) {
+        writeRows();
         ChannelFuture sendErrorResponse = Messages.sendErrorResponse(directChannel, accessControl, throwable);
         channel.writePendingMessages(delayedWrites);
         channel.flush();
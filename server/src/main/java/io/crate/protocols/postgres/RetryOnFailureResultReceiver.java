@@ -73,6 +73,11 @@ public class RetryOnFailureResultReceiver<T> implements ResultReceiver<T> {
         delegate.setNextRow(row);
     }
 
+    @Override
+    public CompletableFuture<?> waitUntilReady() {
+        return delegate.waitUntilReady();
+    }
+
     @Override
     public void batchFinished() {
         delegate.batchFinished();
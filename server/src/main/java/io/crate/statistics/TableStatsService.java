@@ -22,6 +22,9 @@
 package io.crate.statistics;
 
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.jetbrains.annotations.Nullable;
 
 import org.apache.logging.log4j.LogManager;
@@ -38,14 +41,20 @@ import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.CollectingResultReceiver;
 import io.crate.action.sql.Session;
 import io.crate.action.sql.Sessions;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.unit.TimeValue;
 import io.crate.data.Row;
+import io.crate.metadata.RelationName;
 
 /**
  * Periodically refresh {@link TableStats} based on {@link #refreshInterval}.
+ * <p>
+ * In addition, the number of documents of the tables is checked every {@link #changeCheckInterval}.
+ * If it changed significantly compared to the number in the {@link TableStats}, the refresh is done right away.
+ * </p>
  */
 @Singleton
 public class TableStatsService implements Runnable {
@@ -58,11 +67,34 @@ public class TableStatsService implements Runnable {
     public static final Setting<ByteSizeValue> STATS_SERVICE_THROTTLING_SETTING = Setting.byteSizeSetting(
         "stats.service.max_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB), Property.NodeScope, Property.Dynamic, Property.Exposed);
 
+    public static final Setting<TimeValue> STATS_SERVICE_CHANGE_CHECK_INTERVAL_SETTING = Setting.timeSetting(
+        "stats.service.change_check_interval", TimeValue.timeValueMinutes(5), Property.NodeScope, Property.Dynamic, Property.Exposed);
+
     static final String STMT = "ANALYZE";
 
+    /**
+     * Only includes the tables {@link #STMT} creates stats for.
+     * Otherwise the stats of blob tables or orphaned partitions would always be considered outdated.
+     */
+    @VisibleForTesting
+    public static final String NUM_DOCS_STMT =
+        "SELECT schema_name, table_name, sum(num_docs) FROM sys.shards " +
+        "WHERE primary = true AND schema_name <> 'blob' AND orphan_partition = false " +
+        "GROUP BY 1, 2";
+
+    /**
+     * The stats of a table are considered outdated if the number of documents changed by more than
+     * CHANGE_THRESHOLD + CHANGE_SCALE_FACTOR * numDocs
+     * (Like PostgreSQL's autovacuum_analyze_threshold and autovacuum_analyze_scale_factor)
+     */
+    private static final long CHANGE_THRESHOLD = 50;
+    private static final double CHANGE_SCALE_FACTOR = 0.1;
+
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
     private final Session session;
+    private final Session changeCheckSession;
+    private final TableStats tableStats;
 
     @VisibleForTesting
     volatile TimeValue refreshInterval;
@@ -70,19 +102,32 @@ public class TableStatsService implements Runnable {
     @VisibleForTesting
     volatile Scheduler.ScheduledCancellable scheduledRefresh;
 
+    @VisibleForTesting
+    volatile TimeValue changeCheckInterval;
+
+    @VisibleForTesting
+    volatile Scheduler.ScheduledCancellable scheduledChangeCheck;
+
     @Inject
     public TableStatsService(Settings settings,
                              ThreadPool threadPool,
                              ClusterService clusterService,
-                             Sessions sqlOperations) {
+                             Sessions sqlOperations,
+                             TableStats tableStats) {
         this.threadPool = threadPool;
         this.clusterService = clusterService;
+        this.tableStats = tableStats;
         refreshInterval = STATS_SERVICE_REFRESH_INTERVAL_SETTING.get(settings);
         scheduledRefresh = scheduleNextRefresh(refreshInterval);
+        changeCheckInterval = STATS_SERVICE_CHANGE_CHECK_INTERVAL_SETTING.get(settings);
+        scheduledChangeCheck = scheduleNextChangeCheck(changeCheckInterval);
         session = sqlOperations.newSystemSession();
+        changeCheckSession = sqlOperations.newSystemSession();
 
         clusterService.getClusterSettings().addSettingsUpdateConsumer(
             STATS_SERVICE_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(
+            STATS_SERVICE_CHANGE_CHECK_INTERVAL_SETTING, this::setChangeCheckInterval);
     }
 
     @Override
@@ -117,6 +162,79 @@ public class TableStatsService implements Runnable {
         }
     }
 
+    /**
+     * Refreshes the stats if the number of documents of any table changed significantly since the last refresh.
+     */
+    public void checkForChanges() {
+        if (clusterService.localNode() == null || !clusterService.state().nodes().isLocalNodeElectedMaster()) {
+            scheduledChangeCheck = scheduleNextChangeCheck(changeCheckInterval);
+            return;
+        }
+        try {
+            var resultReceiver = new CollectingResultReceiver<>(Collectors.mapping(Row::materialize, Collectors.toList()));
+            resultReceiver.completionFuture().whenComplete((rows, err) -> {
+                if (err != null) {
+                    LOGGER.error("Error retrieving the number of documents to check if table stats are outdated", err);
+                } else if (hasSignificantChanges(rows)) {
+                    LOGGER.debug("Number of documents changed significantly, refreshing table stats");
+                    Scheduler.ScheduledCancellable refresh = scheduledRefresh;
+                    if (refresh == null || refresh.cancel()) {
+                        updateStats();
+                    }
+                }
+                scheduledChangeCheck = scheduleNextChangeCheck(changeCheckInterval);
+            });
+            changeCheckSession.quickExec(NUM_DOCS_STMT, resultReceiver, Row.EMPTY);
+        } catch (Throwable t) {
+            LOGGER.error("error checking if table stats are outdated", t);
+            scheduledChangeCheck = scheduleNextChangeCheck(changeCheckInterval);
+        }
+    }
+
+    private boolean hasSignificantChanges(List<Object[]> numDocsByTable) {
+        for (Object[] row : numDocsByTable) {
+            RelationName relationName = new RelationName((String) row[0], (String) row[1]);
+            Number numDocs = (Number) row[2];
+            if (numDocs != null && isOutdated(tableStats.numDocs(relationName), numDocs.longValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param numDocsInStats number of documents at the time of the last refresh, -1 if the table wasn't analyzed yet.
+     * @param numDocs current number of documents
+     */
+    @VisibleForTesting
+    static boolean isOutdated(long numDocsInStats, long numDocs) {
+        if (numDocsInStats < 0) {
+            return numDocs > CHANGE_THRESHOLD;
+        }
+        return Math.abs(numDocs - numDocsInStats) > CHANGE_THRESHOLD + CHANGE_SCALE_FACTOR * numDocsInStats;
+    }
+
+    @Nullable
+    private Scheduler.ScheduledCancellable scheduleNextChangeCheck(TimeValue changeCheckInterval) {
+        if (changeCheckInterval.millis() > 0) {
+            return threadPool.schedule(
+                this::checkForChanges,
+                changeCheckInterval,
+                ThreadPool.Names.REFRESH
+            );
+        }
+        return null;
+    }
+
+    private void setChangeCheckInterval(TimeValue newChangeCheckInterval) {
+        if (scheduledChangeCheck != null) {
+            scheduledChangeCheck.cancel();
+            scheduledChangeCheck = null;
+        }
+        changeCheckInterval = newChangeCheckInterval;
+        scheduledChangeCheck = scheduleNextChangeCheck(newChangeCheckInterval);
+    }
+
     @Nullable
     private Scheduler.ScheduledCancellable scheduleNextRefresh(TimeValue refreshInterval) {
         if (refreshInterval.millis() > 0) {
@@ -300,6 +300,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
         TransportSettings.PUBLISH_PORT,
         TransportSettings.OLD_TRANSPORT_COMPRESS,
         TransportSettings.TRANSPORT_COMPRESS,
+        TransportSettings.TRANSPORT_COMPRESSION_SCHEME,
+        TransportSettings.TRANSPORT_COMPRESSED_ACTIONS,
         TransportSettings.PING_SCHEDULE,
         TransportSettings.TCP_CONNECT_TIMEOUT,
         TransportSettings.CONNECT_TIMEOUT,
@@ -417,6 +419,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         JobsLogService.STATS_OPERATIONS_LOG_SIZE_SETTING,
         JobsLogService.STATS_OPERATIONS_LOG_EXPIRATION_SETTING,
         TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING,
+        TableStatsService.STATS_SERVICE_CHANGE_CHECK_INTERVAL_SETTING,
         TableStatsService.STATS_SERVICE_THROTTLING_SETTING,
         ShardingUpsertExecutor.BULK_REQUEST_TIMEOUT_SETTING,
         DecommissioningService.DECOMMISSION_INTERNAL_SETTING_GROUP,
@@ -430,6 +433,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         MemoryManagerFactory.MEMORY_ALLOCATION_TYPE,
         AnalyzerSettings.CUSTOM_ANALYSIS_SETTING_GROUP,
         Sessions.NODE_READ_ONLY_SETTING,
+        Sessions.NODE_PLAN_CACHE_SIZE_SETTING,
         Sessions.STATEMENT_TIMEOUT,
         Sessions.MEMORY_LIMIT,
         PostgresNetty.PSQL_ENABLED_SETTING,
@@ -25,6 +25,7 @@ import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -32,7 +33,8 @@ import java.util.zip.DeflaterOutputStream;
 
 /**
  * This class exists to provide a stream with optional compression. This is useful as using compression
- * requires that the underlying {@link DeflaterOutputStream} be closed to write EOS bytes. However, the
+ * requires that the underlying {@link DeflaterOutputStream} or {@link Lz4BlockOutputStream} be closed to
+ * write EOS bytes or the last block. However, the
  * {@link BytesStream} should not be closed yet, as we have not used the bytes. This class handles these
  * intricacies.
  *
@@ -49,13 +51,18 @@ final class CompressibleBytesOutputStream extends StreamOutput {
     private final BytesStream bytesStreamOutput;
     private final boolean shouldCompress;
 
-    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+    /**
+     * @param compressionScheme the scheme used to compress the written bytes, null to not compress.
+     */
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, @Nullable Compression.Scheme compressionScheme) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
-        this.shouldCompress = shouldCompress;
-        if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(bytesStreamOutput));
-        } else {
+        this.shouldCompress = compressionScheme != null;
+        if (compressionScheme == null) {
             this.stream = bytesStreamOutput;
+        } else if (compressionScheme == Compression.Scheme.LZ4) {
+            this.stream = new Lz4BlockOutputStream(Streams.flushOnCloseStream(bytesStreamOutput));
+        } else {
+            this.stream = CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(bytesStreamOutput));
         }
     }
 
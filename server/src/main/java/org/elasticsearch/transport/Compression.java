@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+public final class Compression {
+
+    /**
+     * LZ4 compressed messages start with this header, followed by blocks of at most {@link #LZ4_BLOCK_SIZE}
+     * uncompressed bytes.
+     */
+    static final byte[] LZ4_HEADER = "LZ4\0".getBytes(StandardCharsets.US_ASCII);
+
+    static final int LZ4_BLOCK_SIZE = PageCacheRecycler.BYTE_PAGE_SIZE;
+
+    /**
+     * Nodes before this version can only decompress {@link Scheme#DEFLATE}
+     */
+    static final Version LZ4_VERSION = Version.V_5_5_0;
+
+    public enum Scheme {
+        DEFLATE,
+        LZ4;
+
+        public static Scheme parse(String scheme) {
+            try {
+                return Scheme.valueOf(scheme.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("no compression scheme support [" + scheme + "]");
+            }
+        }
+    }
+
+    private Compression() {
+    }
+
+    /**
+     * @return the scheme to use for a message sent with {@code version}.
+     *         Falls back to {@link Scheme#DEFLATE} if the receiver cannot decompress {@code configured}.
+     */
+    static Scheme schemeFor(Scheme configured, Version version) {
+        if (configured == Scheme.LZ4 && version.before(LZ4_VERSION)) {
+            return Scheme.DEFLATE;
+        }
+        return configured;
+    }
+
+    static boolean isLZ4(BytesReference bytes) {
+        if (bytes.length() < LZ4_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < LZ4_HEADER.length; i++) {
+            if (bytes.get(i) != LZ4_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
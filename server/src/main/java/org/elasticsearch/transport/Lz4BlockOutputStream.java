@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.compress.LZ4;
+
+/**
+ * Compresses the written bytes using {@link LZ4} in independent blocks of {@link Compression#LZ4_BLOCK_SIZE} bytes.
+ *
+ * <pre>
+ *  LZ4_HEADER
+ *  for each block:
+ *      int uncompressedLength
+ *      int compressedLength
+ *      byte[compressedLength]
+ * </pre>
+ *
+ * A block that doesn't get smaller is stored uncompressed, with {@code compressedLength == uncompressedLength}.
+ *
+ * {@link #close()} writes the remaining bytes and closes the underlying stream.
+ *
+ * @see Lz4TransportDecompressor
+ */
+final class Lz4BlockOutputStream extends OutputStream {
+
+    private static final int MAX_COMPRESSED_BLOCK_SIZE = Compression.LZ4_BLOCK_SIZE + Compression.LZ4_BLOCK_SIZE / 255 + 16;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final OutputStream out;
+    private final Buffers buffers;
+    private final byte[] intBuffer = new byte[Integer.BYTES];
+    private int blockLength = 0;
+    private boolean closed = false;
+
+    Lz4BlockOutputStream(OutputStream out) throws IOException {
+        this.out = out;
+        Buffers threadLocalBuffers = BUFFERS.get();
+        if (threadLocalBuffers.inUse) {
+            this.buffers = new Buffers();
+        } else {
+            this.buffers = threadLocalBuffers;
+        }
+        this.buffers.inUse = true;
+        out.write(Compression.LZ4_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (blockLength == Compression.LZ4_BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffers.block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (blockLength == Compression.LZ4_BLOCK_SIZE) {
+                writeBlock();
+            }
+            int toCopy = Math.min(len, Compression.LZ4_BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, buffers.block, blockLength, toCopy);
+            blockLength += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+            out.close();
+        } finally {
+            buffers.inUse = false;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        byte[] compressed = buffers.compressed;
+        ByteArrayDataOutput dataOutput = new ByteArrayDataOutput(compressed);
+        LZ4.compress(buffers.block, 0, blockLength, dataOutput, buffers.hashTable);
+        int compressedLength = dataOutput.getPosition();
+        writeInt(blockLength);
+        if (compressedLength < blockLength) {
+            writeInt(compressedLength);
+            out.write(compressed, 0, compressedLength);
+        } else {
+            writeInt(blockLength);
+            out.write(buffers.block, 0, blockLength);
+        }
+        blockLength = 0;
+    }
+
+    private void writeInt(int value) throws IOException {
+        intBuffer[0] = (byte) (value >> 24);
+        intBuffer[1] = (byte) (value >> 16);
+        intBuffer[2] = (byte) (value >> 8);
+        intBuffer[3] = (byte) value;
+        out.write(intBuffer, 0, Integer.BYTES);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static final class Buffers {
+
+        private final byte[] block = new byte[Compression.LZ4_BLOCK_SIZE];
+        private final byte[] compressed = new byte[MAX_COMPRESSED_BLOCK_SIZE];
+        private final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+        private boolean inUse = false;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+/**
+ * Decompresses the blocks written by {@link Lz4BlockOutputStream}.
+ *
+ * Each block decompresses into its own page, so a page can be handed out as soon as its block is complete.
+ * Blocks split across several network reads are buffered until all their bytes arrived.
+ */
+final class Lz4TransportDecompressor implements TransportDecompressor {
+
+    private static final int BLOCK_HEADER_LENGTH = 2 * Integer.BYTES;
+
+    private final PageCacheRecycler recycler;
+    private final ArrayDeque<ReleasableBytesReference> pages = new ArrayDeque<>(4);
+    private final byte[] blockHeader = new byte[BLOCK_HEADER_LENGTH];
+    private final byte[] compressed = new byte[Compression.LZ4_BLOCK_SIZE];
+    private int blockHeaderOffset = 0;
+    private int compressedOffset = 0;
+    private int uncompressedLength = -1;
+    private int compressedLength = -1;
+    private boolean hasReadHeader = false;
+
+    Lz4TransportDecompressor(PageCacheRecycler recycler) {
+        this.recycler = recycler;
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasReadHeader == false) {
+            assert Compression.isLZ4(bytesReference) : "must start with the LZ4 header";
+            hasReadHeader = true;
+            int headerLength = Compression.LZ4_HEADER.length;
+            bytesReference = bytesReference.slice(headerLength, bytesReference.length() - headerLength);
+            bytesConsumed += headerLength;
+        }
+
+        BytesRefIterator refIterator = bytesReference.iterator();
+        BytesRef ref;
+        while ((ref = refIterator.next()) != null) {
+            int offset = ref.offset;
+            int end = ref.offset + ref.length;
+            while (offset < end) {
+                if (uncompressedLength == -1) {
+                    int toCopy = Math.min(BLOCK_HEADER_LENGTH - blockHeaderOffset, end - offset);
+                    System.arraycopy(ref.bytes, offset, blockHeader, blockHeaderOffset, toCopy);
+                    blockHeaderOffset += toCopy;
+                    offset += toCopy;
+                    if (blockHeaderOffset == BLOCK_HEADER_LENGTH) {
+                        readBlockHeader();
+                    }
+                } else if (compressedOffset == 0 && end - offset >= compressedLength) {
+                    // The whole block is available, no need to buffer it
+                    decompressBlock(ref.bytes, offset);
+                    offset += compressedLength;
+                } else {
+                    int toCopy = Math.min(compressedLength - compressedOffset, end - offset);
+                    System.arraycopy(ref.bytes, offset, compressed, compressedOffset, toCopy);
+                    compressedOffset += toCopy;
+                    offset += toCopy;
+                    if (compressedOffset == compressedLength) {
+                        decompressBlock(compressed, 0);
+                    }
+                }
+            }
+            bytesConsumed += ref.length;
+        }
+        return bytesConsumed;
+    }
+
+    private void readBlockHeader() throws IOException {
+        uncompressedLength = readInt(blockHeader, 0);
+        compressedLength = readInt(blockHeader, Integer.BYTES);
+        blockHeaderOffset = 0;
+        if (uncompressedLength <= 0
+            || uncompressedLength > Compression.LZ4_BLOCK_SIZE
+            || compressedLength <= 0
+            || compressedLength > uncompressedLength) {
+            throw new IOException(
+                "Invalid LZ4 block, uncompressedLength=" + uncompressedLength + " compressedLength=" + compressedLength);
+        }
+    }
+
+    private void decompressBlock(byte[] src, int offset) throws IOException {
+        Recycler.V<byte[]> page = recycler.bytePage(false);
+        boolean success = false;
+        try {
+            if (compressedLength == uncompressedLength) {
+                System.arraycopy(src, offset, page.v(), 0, uncompressedLength);
+            } else {
+                ByteArrayDataInput input = new ByteArrayDataInput(src, offset, compressedLength);
+                int decompressedLength = LZ4.decompress(input, uncompressedLength, page.v(), 0);
+                if (decompressedLength != uncompressedLength) {
+                    throw new IOException(
+                        "Invalid LZ4 block, expected " + uncompressedLength + " bytes but got " + decompressedLength);
+                }
+            }
+            success = true;
+        } catch (RuntimeException e) {
+            throw new IOException("Exception while decompressing LZ4 block", e);
+        } finally {
+            if (success == false) {
+                page.close();
+            }
+        }
+        pages.add(new ReleasableBytesReference(new BytesArray(page.v(), 0, uncompressedLength), page));
+        uncompressedLength = -1;
+        compressedLength = -1;
+        compressedOffset = 0;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+            | ((bytes[offset + 1] & 0xFF) << 16)
+            | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage() {
+        return pages.pollFirst();
+    }
+
+    @Override
+    public void close() {
+        ReleasableBytesReference page;
+        while ((page = pages.pollFirst()) != null) {
+            page.close();
+        }
+    }
+}
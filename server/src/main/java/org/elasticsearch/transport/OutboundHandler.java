@@ -32,6 +32,7 @@ import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.netty4.Netty4Utils;
+import org.jetbrains.annotations.Nullable;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
@@ -46,6 +47,7 @@ public final class OutboundHandler {
     private final StatsTracker statsTracker;
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
+    private final Compression.Scheme compressionScheme;
 
     private volatile TransportMessageListener messageListener = TransportMessageListener.NOOP_LISTENER;
 
@@ -53,12 +55,14 @@ public final class OutboundHandler {
                     Version version,
                     StatsTracker statsTracker,
                     ThreadPool threadPool,
-                    BigArrays bigArrays) {
+                    BigArrays bigArrays,
+                    Compression.Scheme compressionScheme) {
         this.nodeName = nodeName;
         this.version = version;
         this.statsTracker = statsTracker;
         this.threadPool = threadPool;
         this.bigArrays = bigArrays;
+        this.compressionScheme = compressionScheme;
     }
 
     ChannelFuture sendBytes(CloseableChannel channel, byte[] bytes) {
@@ -99,7 +103,7 @@ public final class OutboundHandler {
             action,
             requestId,
             isHandshake,
-            compressRequest
+            compressionScheme(compressRequest, version)
         );
         ChannelFuture future = sendMessage(channel, message);
         future.addListener(f -> messageListener.onRequestSent(node, requestId, action, request, options));
@@ -123,7 +127,7 @@ public final class OutboundHandler {
             version,
             requestId,
             isHandshake,
-            compress
+            compressionScheme(compress, version)
         );
         ChannelFuture future = sendMessage(channel, message);
         future.addListener(f -> messageListener.onResponseSent(requestId, action, response));
@@ -145,12 +149,17 @@ public final class OutboundHandler {
             version,
             requestId,
             false,
-            false
+            null
         );
         ChannelFuture future = sendMessage(channel, message);
         future.addListener(f -> messageListener.onResponseSent(requestId, action, error));
     }
 
+    @Nullable
+    private Compression.Scheme compressionScheme(boolean compress, Version version) {
+        return compress ? Compression.schemeFor(compressionScheme, version) : null;
+    }
+
     private ChannelFuture sendMessage(CloseableChannel channel, OutboundMessage networkMessage) throws IOException {
         channel.markAccessed(threadPool.relativeTimeInMillis());
 
@@ -30,6 +30,7 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.jetbrains.annotations.Nullable;
 
 abstract class OutboundMessage {
 
@@ -37,10 +38,17 @@ abstract class OutboundMessage {
     protected final Version version;
     protected final long requestId;
     protected final byte status;
-
-    OutboundMessage(Version version, byte status, long requestId, Writeable message) {
+    @Nullable
+    private final Compression.Scheme compressionScheme;
+
+    OutboundMessage(Version version,
+                    byte status,
+                    long requestId,
+                    Writeable message,
+                    @Nullable Compression.Scheme compressionScheme) {
         this.version = version;
         this.status = status;
+        this.compressionScheme = compressionScheme;
         this.requestId = requestId;
         this.message = message;
     }
@@ -59,7 +67,8 @@ abstract class OutboundMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        Compression.Scheme scheme = TransportStatus.isCompress(status) ? compressionScheme : null;
+        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, scheme)) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
@@ -112,8 +121,8 @@ abstract class OutboundMessage {
                 String action,
                 long requestId,
                 boolean isHandshake,
-                boolean compress) {
-            super(version, setStatus(compress, isHandshake, message), requestId, message);
+                @Nullable Compression.Scheme compressionScheme) {
+            super(version, setStatus(compressionScheme != null, isHandshake, message), requestId, message, compressionScheme);
             this.action = action;
         }
 
@@ -147,8 +156,8 @@ abstract class OutboundMessage {
                  Version version,
                  long requestId,
                  boolean isHandshake,
-                 boolean compress) {
-            super(version, setStatus(compress, isHandshake, message), requestId, message);
+                 @Nullable Compression.Scheme compressionScheme) {
+            super(version, setStatus(compressionScheme != null, isHandshake, message), requestId, message, compressionScheme);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
@@ -27,6 +27,7 @@ import static org.elasticsearch.common.settings.Setting.listSetting;
 import static org.elasticsearch.common.settings.Setting.timeSetting;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Function;
 
 import org.elasticsearch.common.network.NetworkService;
@@ -63,6 +64,16 @@ public final class TransportSettings {
         boolSetting("transport.tcp.compress", false, Setting.Property.NodeScope);
     public static final Setting<Boolean> TRANSPORT_COMPRESS =
         boolSetting("transport.compress", OLD_TRANSPORT_COMPRESS, Setting.Property.NodeScope);
+    public static final Setting<Compression.Scheme> TRANSPORT_COMPRESSION_SCHEME = new Setting<>(
+        "transport.compression_scheme",
+        Compression.Scheme.LZ4.name().toLowerCase(Locale.ROOT),
+        Compression.Scheme::parse,
+        DataTypes.STRING,
+        Setting.Property.NodeScope
+    );
+    // requests of these actions are compressed even if transport.compress is disabled
+    public static final Setting<List<String>> TRANSPORT_COMPRESSED_ACTIONS =
+        listSetting("transport.compressed_actions", emptyList(), Function.identity(), STRING_ARRAY, Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.common.unit.TimeValue;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.settings.CoordinatorSessionSettings;
+import io.crate.planner.Plan;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.user.User;
+
+public class PlanCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private static final String STMT = "select name from users where id = ?";
+
+    private SQLExecutor e;
+    private TableStats tableStats;
+    private CoordinatorSessionSettings sessionSettings;
+    private AtomicInteger numPlanned;
+    private Supplier<Plan> createPlan;
+
+    @Before
+    public void prepare() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table users (id int primary key, name text)")
+            .build();
+        tableStats = new TableStats();
+        sessionSettings = new CoordinatorSessionSettings(User.CRATE_USER);
+        numPlanned = new AtomicInteger();
+        createPlan = () -> {
+            numPlanned.incrementAndGet();
+            return mock(Plan.class);
+        };
+    }
+
+    private Plan getOrCreate(PlanCache planCache, String stmt, DataType<?>[] parameterTypes, ClusterState state) {
+        return getOrCreate(planCache, stmt, parameterTypes, sessionSettings, state);
+    }
+
+    private Plan getOrCreate(PlanCache planCache,
+                             String stmt,
+                             DataType<?>[] parameterTypes,
+                             CoordinatorSessionSettings sessionSettings,
+                             ClusterState state) {
+        AnalyzedStatement analyzedStatement = e.analyze(stmt);
+        return planCache.getOrCreate(stmt, parameterTypes, analyzedStatement, sessionSettings, state, createPlan);
+    }
+
+    @Test
+    public void test_plan_is_reused_for_same_statement_and_parameter_types() throws Exception {
+        PlanCache planCache = new PlanCache(10, tableStats);
+        DataType<?>[] types = new DataType[] { DataTypes.INTEGER };
+        Plan plan1 = getOrCreate(planCache, STMT, types, clusterService.state());
+        Plan plan2 = getOrCreate(planCache, STMT, types, clusterService.state());
+
+        assertThat(plan2).isSameAs(plan1);
+        assertThat(numPlanned.get()).isEqualTo(1);
+        assertThat(planCache.hits()).isEqualTo(1L);
+        assertThat(planCache.misses()).isEqualTo(1L);
+        assertThat(planCache.size()).isEqualTo(1L);
+
+        getOrCreate(planCache, STMT, new DataType[] { DataTypes.LONG }, clusterService.state());
+        assertThat(numPlanned.get()).isEqualTo(2);
+        assertThat(planCache.misses()).isEqualTo(2L);
+    }
+
+    @Test
+    public void test_plan_is_invalidated_on_metadata_change() throws Exception {
+        PlanCache planCache = new PlanCache(10, tableStats);
+        DataType<?>[] types = new DataType[] { DataTypes.INTEGER };
+        ClusterState state = clusterService.state();
+        Plan plan1 = getOrCreate(planCache, STMT, types, state);
+
+        ClusterState newState = ClusterState.builder(state)
+            .metadata(Metadata.builder(state.metadata()).version(state.metadata().version() + 1))
+            .build();
+        Plan plan2 = getOrCreate(planCache, STMT, types, newState);
+        assertThat(plan2).isNotSameAs(plan1);
+        assertThat(planCache.misses()).isEqualTo(2L);
+
+        Plan plan3 = getOrCreate(planCache, STMT, types, newState);
+        assertThat(plan3).isSameAs(plan2);
+        assertThat(planCache.hits()).isEqualTo(1L);
+    }
+
+    @Test
+    public void test_plan_is_invalidated_on_table_stats_change() throws Exception {
+        PlanCache planCache = new PlanCache(10, tableStats);
+        DataType<?>[] types = new DataType[] { DataTypes.INTEGER };
+        Plan plan1 = getOrCreate(planCache, STMT, types, clusterService.state());
+
+        tableStats.updateTableStats(Map.of(new RelationName("doc", "users"), new Stats(10, 100, Map.of())));
+        Plan plan2 = getOrCreate(planCache, STMT, types, clusterService.state());
+        assertThat(plan2).isNotSameAs(plan1);
+        assertThat(numPlanned.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_statements_without_logical_plan_are_not_cached() throws Exception {
+        PlanCache planCache = new PlanCache(10, tableStats);
+        String stmt = "refresh table users";
+        getOrCreate(planCache, stmt, new DataType[0], clusterService.state());
+        getOrCreate(planCache, stmt, new DataType[0], clusterService.state());
+
+        assertThat(numPlanned.get()).isEqualTo(2);
+        assertThat(planCache.size()).isEqualTo(0L);
+        assertThat(planCache.misses()).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_cache_with_size_0_is_disabled() throws Exception {
+        PlanCache planCache = new PlanCache(0, tableStats);
+        DataType<?>[] types = new DataType[] { DataTypes.INTEGER };
+        getOrCreate(planCache, STMT, types, clusterService.state());
+        getOrCreate(planCache, STMT, types, clusterService.state());
+
+        assertThat(numPlanned.get()).isEqualTo(2);
+        assertThat(planCache.hits()).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_plan_is_not_shared_between_sessions_with_different_settings() throws Exception {
+        PlanCache planCache = new PlanCache(10, tableStats);
+        String stmt = "select current_setting('application_name'), current_setting('statement_timeout') from users";
+        DataType<?>[] types = new DataType[0];
+        CoordinatorSessionSettings session1 = new CoordinatorSessionSettings(User.CRATE_USER);
+        session1.setApplicationName("app1");
+        CoordinatorSessionSettings session2 = new CoordinatorSessionSettings(User.CRATE_USER);
+        session2.setApplicationName("app2");
+
+        Plan plan1 = getOrCreate(planCache, stmt, types, session1, clusterService.state());
+        Plan plan2 = getOrCreate(planCache, stmt, types, session2, clusterService.state());
+        assertThat(plan2).isNotSameAs(plan1);
+
+        session2.setApplicationName("app1");
+        session2.statementTimeout(TimeValue.timeValueSeconds(10));
+        Plan plan3 = getOrCreate(planCache, stmt, types, session2, clusterService.state());
+        assertThat(plan3).isNotSameAs(plan1);
+
+        session2.statementTimeout(TimeValue.ZERO);
+        Plan plan4 = getOrCreate(planCache, stmt, types, session2, clusterService.state());
+        assertThat(plan4).isSameAs(plan1);
+        assertThat(numPlanned.get()).isEqualTo(3);
+    }
+}
@@ -25,6 +25,7 @@ import static io.crate.testing.Asserts.assertThat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
@@ -77,4 +78,61 @@ public class RowConsumerToResultReceiverTest {
         consumer.accept(FailingBatchIterator.failOnAllLoaded(), null);
         assertThat(resultReceiver.completionFuture().isCompletedExceptionally()).isTrue();
     }
+
+    @Test
+    public void test_consumption_is_paused_until_result_receiver_is_ready() throws Exception {
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        List<Object[]> collectedRows = new ArrayList<>();
+        BaseResultReceiver resultReceiver = new BaseResultReceiver() {
+            @Override
+            public void setNextRow(Row row) {
+                collectedRows.add(row.materialize());
+            }
+
+            @Override
+            public CompletableFuture<?> waitUntilReady() {
+                return collectedRows.size() == 3 ? ready : null;
+            }
+        };
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, t -> {});
+
+        consumer.accept(TestingBatchIterators.range(0, 10), null);
+        assertThat(collectedRows).hasSize(3);
+        assertThat(resultReceiver.completionFuture()).isNotDone();
+
+        ready.complete(null);
+        resultReceiver.completionFuture().get(10, TimeUnit.SECONDS);
+        assertThat(collectedRows).hasSize(10);
+    }
+
+    @Test
+    public void test_consumption_is_resumed_on_the_executor_once_result_receiver_is_ready() throws Exception {
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        List<Object[]> collectedRows = new ArrayList<>();
+        BaseResultReceiver resultReceiver = new BaseResultReceiver() {
+            @Override
+            public void setNextRow(Row row) {
+                collectedRows.add(row.materialize());
+            }
+
+            @Override
+            public CompletableFuture<?> waitUntilReady() {
+                return collectedRows.size() == 3 ? ready : null;
+            }
+        };
+        List<Runnable> tasks = new ArrayList<>();
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, tasks::add, t -> {});
+
+        consumer.accept(TestingBatchIterators.range(0, 10), null);
+        assertThat(collectedRows).hasSize(3);
+
+        // Completed by a network thread, which must not continue consuming the rows
+        ready.complete(null);
+        assertThat(collectedRows).hasSize(3);
+        assertThat(tasks).hasSize(1);
+
+        tasks.get(0).run();
+        assertThat(resultReceiver.completionFuture()).isDone();
+        assertThat(collectedRows).hasSize(10);
+    }
 }
@@ -25,6 +25,7 @@ import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
 import static io.crate.analyze.TableDefinitions.TEST_PARTITIONED_TABLE_IDENT;
 import static io.crate.analyze.TableDefinitions.USER_TABLE_IDENT;
 import static io.crate.testing.Asserts.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -211,6 +212,29 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         analyze("COPY users TO '/blah.txt'");
     }
 
+    @Test
+    public void test_copy_from_stdin_and_to_stdout_require_the_pg_wire_protocol() throws Exception {
+        assertThatThrownBy(() -> analyze("COPY users FROM STDIN"))
+            .isExactlyInstanceOf(UnsupportedOperationException.class)
+            .hasMessage("COPY FROM STDIN is only supported using the simple query mode of the PostgreSQL wire protocol");
+        assertThatThrownBy(() -> analyze("COPY users TO STDOUT"))
+            .isExactlyInstanceOf(UnsupportedOperationException.class)
+            .hasMessage("COPY TO STDOUT is only supported using the simple query mode of the PostgreSQL wire protocol");
+    }
+
+    @Test
+    public void test_stdin_and_stdout_uris_cannot_be_used_directly() throws Exception {
+        assertThatThrownBy(() -> analyze("COPY users FROM 'stdin:///abc'"))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("The `stdin` URI scheme can't be used directly, use COPY FROM STDIN instead");
+        assertThatThrownBy(() -> analyze("COPY users FROM ?", "STDIN:///abc"))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("The `stdin` URI scheme can't be used directly, use COPY FROM STDIN instead");
+        assertThatThrownBy(() -> analyze("COPY users TO DIRECTORY 'stdout:///abc'"))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("The `stdout` URI scheme can't be used directly, use COPY TO STDOUT instead");
+    }
+
     @Test
     public void testCopyToDirectory() throws Exception {
         BoundCopyTo analysis = analyze("COPY users TO DIRECTORY '/foo'");
@@ -324,6 +348,23 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         assertThat(analysis.outputNames()).containsExactly("id", "name");
     }
 
+    @Test
+    public void test_copy_to_parquet_without_columns_writes_all_top_level_columns() throws Exception {
+        BoundCopyTo analysis = analyze("COPY users TO DIRECTORY '/blah' WITH (format='parquet')");
+        assertThat(analysis.outputFormat()).isEqualTo(WriterProjection.OutputFormat.PARQUET);
+        assertThat(analysis.columnsDefined()).isFalse();
+        assertThat(analysis.outputNames()).contains("id", "name");
+        assertThat(analysis.outputs()).hasSize(analysis.outputNames().size());
+        assertThat(analysis.overwrites()).isEmpty();
+    }
+
+    @Test
+    public void test_copy_to_parquet_row_group_size_is_capped() throws Exception {
+        assertThatThrownBy(() -> analyze("COPY users TO DIRECTORY '/blah' WITH (format='parquet', row_group_size='1gb')"))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("failed to parse value [1gb] for setting [row_group_size], must be <= [512mb]");
+    }
+
     @Test
     public void testCopyToFileWithUnsupportedOutputFormatParam() throws Exception {
         expectedException.expect(UnsupportedFeatureException.class);
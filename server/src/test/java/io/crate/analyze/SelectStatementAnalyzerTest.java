@@ -209,6 +209,7 @@ public class SelectStatementAnalyzerTest extends CrateDummyClusterServiceUnitTes
             "mem",
             "name",
             "network",
+            "off_heap",
             "os",
             "os_info",
             "port",
@@ -98,6 +98,39 @@ public class WindowAggProjectionSerialisationTest {
         assertThat(actualWindowAggProjection, is(expectedWindowAggProjection));
     }
 
+    @Test
+    public void test_window_agg_projection_serialization_with_sorted_input() throws IOException {
+        FunctionImplementation sumFunctionImpl = getSumFunction();
+
+        WindowDefinition partitionByOneWindowDef =
+            new WindowDefinition(singletonList(Literal.of(1L)), null, null);
+        WindowFunction windowFunction = new WindowFunction(
+            sumFunctionImpl.signature(),
+            singletonList(Literal.of(2L)),
+            sumFunctionImpl.boundSignature().returnType(),
+            null,
+            partitionByOneWindowDef,
+            null);
+        var windowAggProjection = new WindowAggProjection(
+            partitionByOneWindowDef,
+            List.of(windowFunction),
+            List.of(Literal.of(42L)),
+            true);
+
+        var output = new BytesStreamOutput();
+        windowAggProjection.writeTo(output);
+        var actualWindowAggProjection = new WindowAggProjection(output.bytes().streamInput());
+        assertThat(actualWindowAggProjection.isInputSorted(), is(true));
+        assertThat(actualWindowAggProjection, is(windowAggProjection));
+
+        output = new BytesStreamOutput();
+        output.setVersion(Version.V_5_4_0);
+        windowAggProjection.writeTo(output);
+        var input = output.bytes().streamInput();
+        input.setVersion(Version.V_5_4_0);
+        assertThat(new WindowAggProjection(input).isInputSorted(), is(false));
+    }
+
     @Test
     public void test_window_agg_projection_serialization_with_filter_before_4_1_0()
         throws IOException {
@@ -0,0 +1,182 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import static io.crate.testing.Asserts.assertThat;
+import static io.crate.testing.TestingHelpers.createNodeContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.RowCollectExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Literal;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.functions.Signature;
+import io.crate.types.DataTypes;
+
+public class GroupingCollectorTest extends ESTestCase {
+
+    private AggregationFunction<?, ?> sumAggregation;
+    private RamAccounting ramAccounting;
+
+    @Before
+    public void setupFunctions() {
+        sumAggregation = (AggregationFunction<?, ?>) createNodeContext().functions().getQualified(
+            Signature.aggregate(
+                SumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            List.of(DataTypes.LONG),
+            DataTypes.LONG
+        );
+        ramAccounting = new ConcurrentRamAccounting(bytes -> {}, bytes -> {}, "test", 0);
+    }
+
+    private GroupingCollector.Groups<Object> collect(GroupingCollector<Object> collector, List<Row> rows) {
+        var groups = collector.supplier().get();
+        var accumulator = collector.accumulator();
+        for (Row row : rows) {
+            accumulator.accept(groups, row);
+        }
+        return groups;
+    }
+
+    private static Map<Object, Object> toMap(Iterable<Row> result) {
+        Map<Object, Object> sumByKey = new HashMap<>();
+        for (Row row : result) {
+            Object previous = sumByKey.put(row.get(0), row.get(1));
+            assertThat(previous).as("key " + row.get(0) + " must be emitted once").isNull();
+        }
+        return sumByKey;
+    }
+
+    private GroupingCollector<Object> singleKeySumCollector(long spillThreshold) {
+        RowCollectExpression keyInput = new RowCollectExpression(0);
+        RowCollectExpression valueInput = new RowCollectExpression(1);
+        return GroupingCollector.singleKey(
+            new CollectExpression[] { keyInput, valueInput },
+            AggregateMode.ITER_FINAL,
+            new AggregationFunction[] { sumAggregation },
+            new Input[][] { new Input[] { valueInput } },
+            new Input[] { Literal.BOOLEAN_TRUE },
+            ramAccounting,
+            new OnHeapMemoryManager(bytes -> {}),
+            Version.CURRENT,
+            keyInput,
+            DataTypes.LONG,
+            Version.CURRENT,
+            spillThreshold
+        );
+    }
+
+    private static List<Row> rows(int numKeys, int rowsPerKey) {
+        List<Row> rows = new ArrayList<>(numKeys * rowsPerKey);
+        for (int i = 0; i < rowsPerKey; i++) {
+            for (long key = 0; key < numKeys; key++) {
+                rows.add(new RowN(key, key));
+            }
+        }
+        rows.add(new RowN(null, 5L));
+        return rows;
+    }
+
+    @Test
+    public void test_groups_are_kept_in_memory_without_spilling() throws Exception {
+        var collector = singleKeySumCollector(GroupingCollector.NO_SPILLING);
+        var groups = collect(collector, rows(500, 3));
+
+        assertThat(groups.numSpills()).isEqualTo(0);
+        Map<Object, Object> sumByKey = toMap(collector.finisher().apply(groups));
+        assertThat(sumByKey).hasSize(501);
+        assertThat(sumByKey.get(42L)).isEqualTo(126L);
+        assertThat(sumByKey.get(null)).isEqualTo(5L);
+    }
+
+    @Test
+    public void test_groups_are_spilled_and_merged_if_threshold_is_exceeded() throws Exception {
+        var collector = singleKeySumCollector(4096);
+        var groups = collect(collector, rows(500, 3));
+
+        assertThat(groups.numSpills()).isGreaterThan(1);
+        assertThat(ramAccounting.totalBytes()).isLessThanOrEqualTo(4096L);
+
+        Map<Object, Object> sumByKey = toMap(collector.finisher().apply(groups));
+        assertThat(sumByKey).hasSize(501);
+        for (long key = 0; key < 500; key++) {
+            assertThat(sumByKey.get(key)).isEqualTo(key * 3);
+        }
+        assertThat(sumByKey.get(null)).isEqualTo(5L);
+        assertThat(ramAccounting.totalBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_many_keys_groups_are_spilled_and_merged() throws Exception {
+        RowCollectExpression key1 = new RowCollectExpression(0);
+        RowCollectExpression key2 = new RowCollectExpression(1);
+        RowCollectExpression valueInput = new RowCollectExpression(2);
+        GroupingCollector<List<Object>> collector = GroupingCollector.manyKeys(
+            new CollectExpression[] { key1, key2, valueInput },
+            AggregateMode.ITER_FINAL,
+            new AggregationFunction[] { sumAggregation },
+            new Input[][] { new Input[] { valueInput } },
+            new Input[] { Literal.BOOLEAN_TRUE },
+            ramAccounting,
+            new OnHeapMemoryManager(bytes -> {}),
+            Version.CURRENT,
+            List.of(key1, key2),
+            List.of(DataTypes.STRING, DataTypes.LONG),
+            Version.CURRENT,
+            2048
+        );
+        GroupingCollector.Groups<List<Object>> groups = collector.supplier().get();
+        var accumulator = collector.accumulator();
+        for (int i = 0; i < 4; i++) {
+            for (long x = 0; x < 200; x++) {
+                accumulator.accept(groups, new RowN("k" + (x % 10), x, 1L));
+            }
+        }
+        assertThat(groups.numSpills()).isGreaterThan(0);
+
+        Map<Object, Object> countByKey = new HashMap<>();
+        for (Row row : collector.finisher().apply(groups)) {
+            countByKey.put(List.of(row.get(0), row.get(1)), row.get(2));
+        }
+        assertThat(countByKey).hasSize(200);
+        assertThat(countByKey.get(List.of("k3", 13L))).isEqualTo(4L);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import static io.crate.testing.Asserts.assertThat;
+import static io.crate.testing.TestingHelpers.createNodeContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.common.collections.Lists2;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.aggregation.impl.MaximumAggregation;
+import io.crate.execution.engine.aggregation.impl.MinimumAggregation;
+import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.aggregation.impl.average.AverageAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.RowCollectExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Literal;
+import io.crate.memory.OffHeapMemoryManager;
+import io.crate.memory.OffHeapMemoryPool;
+import io.crate.metadata.Functions;
+import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.TypeSignature;
+
+public class LongKeyedGroupingCollectorTest extends ESTestCase {
+
+    private AggregationFunction<?, ?>[] aggregations;
+    private RamAccounting ramAccounting;
+    private OffHeapMemoryManager memoryManager;
+
+    private static AggregationFunction<?, ?> getAggregation(Functions functions,
+                                                            String name,
+                                                            List<DataType<?>> argTypes,
+                                                            DataType<?> returnType) {
+        var signature = Signature.aggregate(
+            name,
+            Lists2.concat(Lists2.map(argTypes, DataType::getTypeSignature), returnType.getTypeSignature())
+                .toArray(new TypeSignature[0])
+        );
+        return getAggregation(functions, signature, argTypes, returnType);
+    }
+
+    private static AggregationFunction<?, ?> getAggregation(Functions functions,
+                                                            Signature signature,
+                                                            List<DataType<?>> argTypes,
+                                                            DataType<?> returnType) {
+        return (AggregationFunction<?, ?>) functions.getQualified(signature, argTypes, returnType);
+    }
+
+    @Before
+    public void setupAggregations() {
+        Functions functions = createNodeContext().functions();
+        aggregations = new AggregationFunction[] {
+            getAggregation(functions, CountAggregation.COUNT_STAR_SIGNATURE, List.of(), DataTypes.LONG),
+            getAggregation(functions, CountAggregation.SIGNATURE, List.of(DataTypes.LONG), DataTypes.LONG),
+            getAggregation(functions, SumAggregation.NAME, List.of(DataTypes.LONG), DataTypes.LONG),
+            getAggregation(functions, MinimumAggregation.NAME, List.of(DataTypes.LONG), DataTypes.LONG),
+            getAggregation(functions, MaximumAggregation.NAME, List.of(DataTypes.LONG), DataTypes.LONG),
+            getAggregation(functions, MaximumAggregation.NAME, List.of(DataTypes.DOUBLE), DataTypes.DOUBLE),
+            getAggregation(functions, AverageAggregation.NAME, List.of(DataTypes.LONG), DataTypes.DOUBLE),
+        };
+        ramAccounting = new ConcurrentRamAccounting(bytes -> {}, bytes -> {}, "test", 0);
+        memoryManager = new OffHeapMemoryManager(new OffHeapMemoryPool(), bytes -> {});
+    }
+
+    @After
+    public void closeMemoryManager() {
+        memoryManager.close();
+    }
+
+    private Collector<Row, ?, Iterable<Row>> createCollector(boolean fixedWidth) {
+        RowCollectExpression keyInput = new RowCollectExpression(0);
+        RowCollectExpression longInput = new RowCollectExpression(1);
+        RowCollectExpression doubleInput = new RowCollectExpression(2);
+        Input[][] inputs = new Input[][] {
+            new Input[0],
+            new Input[] { longInput },
+            new Input[] { longInput },
+            new Input[] { longInput },
+            new Input[] { longInput },
+            new Input[] { doubleInput },
+            new Input[] { longInput },
+        };
+        Input[] filters = new Input[aggregations.length];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = Literal.BOOLEAN_TRUE;
+        }
+        CollectExpression[] expressions = new CollectExpression[] { keyInput, longInput, doubleInput };
+        if (fixedWidth) {
+            var aggregators = LongKeyedGroupingCollector.getFixedWidthAggregators(
+                AggregateMode.ITER_FINAL,
+                DataTypes.INTEGER,
+                aggregations
+            );
+            assertThat(aggregators).isNotNull();
+            return new LongKeyedGroupingCollector(
+                expressions,
+                AggregateMode.ITER_FINAL,
+                aggregations,
+                aggregators,
+                inputs,
+                filters,
+                ramAccounting,
+                memoryManager,
+                keyInput,
+                DataTypes.INTEGER
+            );
+        }
+        return GroupingCollector.singleKey(
+            expressions,
+            AggregateMode.ITER_FINAL,
+            aggregations,
+            inputs,
+            filters,
+            ramAccounting,
+            memoryManager,
+            Version.CURRENT,
+            keyInput,
+            DataTypes.INTEGER,
+            Version.CURRENT,
+            GroupingCollector.NO_SPILLING
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> Map<Object, List<Object>> collect(Collector<Row, S, Iterable<Row>> collector, List<Row> rows) {
+        S state = collector.supplier().get();
+        for (Row row : rows) {
+            collector.accumulator().accept(state, row);
+        }
+        Map<Object, List<Object>> resultByKey = new HashMap<>();
+        for (Row row : collector.finisher().apply(state)) {
+            Object[] cells = row.materialize();
+            List<Object> previous = resultByKey.put(cells[0], Arrays.asList(cells).subList(1, cells.length));
+            assertThat(previous).as("key " + cells[0] + " must be emitted once").isNull();
+        }
+        return resultByKey;
+    }
+
+    @Test
+    public void test_results_match_grouping_collector() throws Exception {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            Integer key = i % 7 == 0 ? null : i % 5_000;
+            Long value = i % 3 == 0 ? null : (long) i;
+            rows.add(new RowN(key, value, i * 0.5d));
+        }
+        // Key without any non-null value
+        rows.add(new RowN(-1, null, null));
+
+        Map<Object, List<Object>> expected = collect(createCollector(false), rows);
+        Map<Object, List<Object>> actual = collect(createCollector(true), rows);
+
+        assertThat(actual).hasSize(5_002);
+        assertThat(actual.get(-1)).containsExactly(1L, 0L, null, null, null, null, null);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void test_fixed_width_states_are_not_used_if_unsupported() throws Exception {
+        assertThat(LongKeyedGroupingCollector.getFixedWidthAggregators(
+            AggregateMode.ITER_PARTIAL, DataTypes.LONG, aggregations)).isNotNull();
+        assertThat(LongKeyedGroupingCollector.getFixedWidthAggregators(
+            AggregateMode.PARTIAL_FINAL, DataTypes.LONG, aggregations)).isNull();
+        assertThat(LongKeyedGroupingCollector.getFixedWidthAggregators(
+            AggregateMode.ITER_FINAL, DataTypes.STRING, aggregations)).isNull();
+
+        Functions functions = createNodeContext().functions();
+        var doubleSum = getAggregation(functions, SumAggregation.NAME, List.of(DataTypes.DOUBLE), DataTypes.DOUBLE);
+        assertThat(LongKeyedGroupingCollector.getFixedWidthAggregators(
+            AggregateMode.ITER_FINAL, DataTypes.LONG, new AggregationFunction[] { doubleSum })).isNull();
+    }
+}
@@ -25,22 +25,48 @@ import static io.crate.testing.TestingHelpers.createNodeContext;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.elasticsearch.Version;
 import org.junit.Before;
 import org.junit.Test;
 
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.TableRelation;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.ColumnarDocValueAggregator;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
 import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.aggregation.impl.MaximumAggregation;
+import io.crate.execution.engine.aggregation.impl.MinimumAggregation;
 import io.crate.execution.engine.aggregation.impl.SumAggregation;
 import io.crate.execution.engine.aggregation.impl.templates.SortedNumericDocValueAggregator;
+import io.crate.execution.engine.collect.collectors.LeafRangePruner;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.symbol.Aggregation;
 import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.Literal;
+import io.crate.memory.MemoryManager;
 import io.crate.metadata.Functions;
 import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
@@ -197,6 +223,196 @@ public class DocValuesAggregatesTest extends CrateDummyClusterServiceUnitTest {
             );
     }
 
+    @Test
+    public void test_max_aggregation_without_query_skips_segments_which_cannot_contain_a_greater_value() throws Exception {
+        try (DirectoryReader reader = createSegmentsWithDescendingValues()) {
+            var aggregator = loadCountingAggregator(longMaxAggregation());
+            Row row = getRow(reader, new MatchAllDocsQuery(), aggregator);
+
+            assertThat(row.get(0)).isEqualTo(29L);
+            assertThat(aggregator.loadedSegments).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void test_segments_outside_of_range_filter_are_skipped() throws Exception {
+        try (DirectoryReader reader = createSegmentsWithDescendingValues()) {
+            var aggregator = loadCountingAggregator(longSumAggregation());
+            Row row = getRow(reader, LongPoint.newRangeQuery("x", 5, 8), aggregator);
+
+            assertThat(row.get(0)).isEqualTo(5L + 6L + 7L + 8L);
+            assertThat(aggregator.loadedSegments).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void test_columnar_aggregators_consume_batches_of_the_documents() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer())
+            .setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter writer = new IndexWriter(new ByteBuffersDirectory(), config)) {
+            long expectedSum = 0;
+            for (long i = 0; i < 2500; i++) {
+                Document doc = new Document();
+                if (i % 7 != 0) {
+                    doc.add(new LongPoint("x", i));
+                    doc.add(new SortedNumericDocValuesField("x", i));
+                    expectedSum += i < 2499 ? i : 0;
+                }
+                writer.addDocument(doc);
+                if (i == 1300) {
+                    writer.commit();
+                }
+            }
+            // Multi-valued and deleted documents are ignored
+            Document multiValued = new Document();
+            for (long value : new long[] { 10_000, -10_000 }) {
+                multiValued.add(new LongPoint("x", value));
+                multiValued.add(new SortedNumericDocValuesField("x", value));
+            }
+            writer.addDocument(multiValued);
+            writer.deleteDocuments(LongPoint.newExactQuery("x", 2499));
+
+            var aggregators = DocValuesAggregates.createAggregators(
+                functions,
+                mock(LuceneReferenceResolver.class),
+                List.of(longSumAggregation(), longMaxAggregation(), longMinAggregation()),
+                List.of(e.asSymbol("tbl.x")),
+                table
+            );
+            assertThat(aggregators).allSatisfy(a -> assertThat(a).isInstanceOf(ColumnarDocValueAggregator.class));
+            // Not columnar, reads the doc values per document
+            var rowWiseMax = loadCountingAggregator(longMaxAggregation());
+
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertThat(reader.leaves()).hasSize(2);
+                IndexSearcher searcher = new IndexSearcher(reader);
+                Weight weight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES, 1f);
+                Row row = DocValuesAggregates.getRow(
+                    RamAccounting.NO_ACCOUNTING,
+                    mock(MemoryManager.class),
+                    Version.CURRENT,
+                    new AtomicReference<>(),
+                    weight,
+                    null,
+                    reader.leaves(),
+                    List.of(aggregators.get(0), aggregators.get(1), aggregators.get(2), rowWiseMax)
+                );
+                assertThat(row.materialize()).containsExactly(expectedSum, 2498L, 1L, 2498L);
+            }
+        }
+    }
+
+    /**
+     * Creates 3 segments with the values [20, 29], [10, 19] and [0, 9] for column x
+     */
+    private static DirectoryReader createSegmentsWithDescendingValues() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer())
+            .setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter writer = new IndexWriter(new ByteBuffersDirectory(), config)) {
+            for (long segment = 2; segment >= 0; segment--) {
+                for (long i = 0; i < 10; i++) {
+                    long value = segment * 10 + i;
+                    Document doc = new Document();
+                    doc.add(new LongPoint("x", value));
+                    doc.add(new SortedNumericDocValuesField("x", value));
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+            DirectoryReader reader = DirectoryReader.open(writer);
+            assertThat(reader.leaves()).hasSize(3);
+            return reader;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private LoadCountingAggregator<Object> loadCountingAggregator(Aggregation aggregation) {
+        var aggregators = DocValuesAggregates.createAggregators(
+            functions,
+            mock(LuceneReferenceResolver.class),
+            List.of(aggregation),
+            List.of(e.asSymbol("tbl.x")),
+            table
+        );
+        assertThat(aggregators).hasSize(1);
+        return new LoadCountingAggregator<>(aggregators.get(0));
+    }
+
+    private static Row getRow(DirectoryReader reader, Query query, DocValueAggregator<?> aggregator) throws IOException {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        return DocValuesAggregates.getRow(
+            RamAccounting.NO_ACCOUNTING,
+            mock(MemoryManager.class),
+            Version.CURRENT,
+            new AtomicReference<>(),
+            weight,
+            LeafRangePruner.of(query),
+            reader.leaves(),
+            List.of(aggregator)
+        );
+    }
+
+    private static class LoadCountingAggregator<T> implements DocValueAggregator<T> {
+
+        private final DocValueAggregator<T> delegate;
+        private int loadedSegments = 0;
+
+        LoadCountingAggregator(DocValueAggregator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public T initialState(RamAccounting ramAccounting, MemoryManager memoryManager, Version minNodeVersion) {
+            return delegate.initialState(ramAccounting, memoryManager, minNodeVersion);
+        }
+
+        @Override
+        public void loadDocValues(LeafReaderContext leafReaderContext) throws IOException {
+            loadedSegments++;
+            delegate.loadDocValues(leafReaderContext);
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, int doc, T state) throws IOException {
+            delegate.apply(ramAccounting, doc, state);
+        }
+
+        @Override
+        public boolean canSkip(LeafReaderContext leafReaderContext, T state) throws IOException {
+            return delegate.canSkip(leafReaderContext, state);
+        }
+
+        @Override
+        public Object partialResult(RamAccounting ramAccounting, T state) {
+            return delegate.partialResult(ramAccounting, state);
+        }
+    }
+
+    private static Aggregation longMaxAggregation() {
+        return new Aggregation(
+            Signature.aggregate(
+                MaximumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            DataTypes.LONG,
+            List.of(new InputColumn(0, DataTypes.LONG))
+        );
+    }
+
+    private static Aggregation longMinAggregation() {
+        return new Aggregation(
+            Signature.aggregate(
+                MinimumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            DataTypes.LONG,
+            List.of(new InputColumn(0, DataTypes.LONG))
+        );
+    }
+
     private static Aggregation countAggregation(int inputCol) {
         return new Aggregation(
             CountAggregation.SIGNATURE,
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LeafRangePrunerTest {
+
+    private DirectoryReader reader;
+
+    @Before
+    public void createSegments() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer())
+            .setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config)) {
+            // 3 segments with the values [0, 9], [10, 19] and [20, 29]
+            for (long segment = 0; segment < 3; segment++) {
+                for (long i = 0; i < 10; i++) {
+                    long value = segment * 10 + i;
+                    Document doc = new Document();
+                    doc.add(new LongPoint("x", value));
+                    doc.add(new SortedNumericDocValuesField("x", value));
+                    iw.addDocument(doc);
+                }
+                iw.commit();
+            }
+            reader = DirectoryReader.open(iw);
+        }
+        assertThat(reader.leaves()).hasSize(3);
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+    }
+
+    private long[] matchingSegments(Query query) throws Exception {
+        LeafRangePruner pruner = LeafRangePruner.of(query);
+        assertThat(pruner).isNotNull();
+        List<LeafReaderContext> leaves = reader.leaves();
+        return leaves.stream()
+            .filter(leaf -> {
+                try {
+                    return pruner.canMatch(leaf.reader());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            })
+            .mapToLong(leaf -> leaf.ord)
+            .toArray();
+    }
+
+    @Test
+    public void test_segments_outside_of_range_are_pruned() throws Exception {
+        assertThat(matchingSegments(LongPoint.newRangeQuery("x", 12, 15))).containsExactly(1);
+        assertThat(matchingSegments(LongPoint.newRangeQuery("x", 9, 10))).containsExactly(0, 1);
+        assertThat(matchingSegments(LongPoint.newRangeQuery("x", 30, 40))).isEmpty();
+    }
+
+    @Test
+    public void test_required_ranges_of_boolean_query_are_used() throws Exception {
+        Query range = new IndexOrDocValuesQuery(
+            LongPoint.newRangeQuery("x", 25, Long.MAX_VALUE),
+            SortedNumericDocValuesField.newSlowRangeQuery("x", 25, Long.MAX_VALUE)
+        );
+        Query query = new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+            .add(range, BooleanClause.Occur.FILTER)
+            .build();
+        assertThat(matchingSegments(query)).containsExactly(2);
+    }
+
+    @Test
+    public void test_segments_without_values_for_the_field_are_pruned() throws Exception {
+        assertThat(matchingSegments(IntPoint.newRangeQuery("y", 0, 10))).isEmpty();
+    }
+
+    @Test
+    public void test_no_pruner_without_required_ranges() throws Exception {
+        Query optionalRange = new BooleanQuery.Builder()
+            .add(LongPoint.newRangeQuery("x", 12, 15), BooleanClause.Occur.SHOULD)
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.SHOULD)
+            .build();
+        assertThat(LeafRangePruner.of(optionalRange)).isNull();
+        assertThat(LeafRangePruner.of(new MatchAllDocsQuery())).isNull();
+    }
+}
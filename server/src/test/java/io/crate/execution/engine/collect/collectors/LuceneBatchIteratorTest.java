@@ -21,7 +21,10 @@
 
 package io.crate.execution.engine.collect.collectors;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -32,12 +35,14 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.junit.Before;
 import org.junit.Test;
 
 import io.crate.data.testing.BatchIteratorTester;
+import io.crate.data.testing.TestingRowConsumer;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LongColumnReference;
 
@@ -80,4 +85,42 @@ public class LuceneBatchIteratorTest {
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void test_slices_of_the_leaves_can_be_iterated_independently() throws Exception {
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (long i = 0; i < 20; i++) {
+            Document doc = new Document();
+            doc.add(new NumericDocValuesField("x", i));
+            iw.addDocument(doc);
+            if (i % 5 == 4) {
+                // Creates a new segment
+                iw.commit();
+            }
+        }
+        IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(iw));
+        LeafSlice[] slices = IndexSearcher.slices(searcher.getTopReaderContext().leaves(), 5, 1);
+        assertThat(slices).hasSize(4);
+
+        List<Object[]> result = new ArrayList<>();
+        for (LeafSlice slice : slices) {
+            List<LongColumnReference> sliceColumnRefs = List.of(new LongColumnReference("x"));
+            var it = new LuceneBatchIterator(
+                searcher,
+                Arrays.asList(slice.leaves),
+                new MatchAllDocsQuery(),
+                null,
+                false,
+                new CollectorContext(),
+                sliceColumnRefs,
+                sliceColumnRefs
+            );
+            TestingRowConsumer consumer = new TestingRowConsumer();
+            consumer.accept(it, null);
+            List<Object[]> rows = consumer.getResult();
+            assertThat(rows).hasSize(5);
+            result.addAll(rows);
+        }
+        assertThat(result).containsExactlyInAnyOrderElementsOf(expectedResult);
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.count;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PointTreeCounterTest {
+
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+
+    @Before
+    public void createSegments() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer())
+            .setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config)) {
+            // 3 segments with 5000 values each, big enough to have several leaves in the points tree
+            for (long segment = 0; segment < 3; segment++) {
+                for (long i = 0; i < 5000; i++) {
+                    long value = segment * 5000 + i;
+                    Document doc = new Document();
+                    doc.add(new StringField("id", Long.toString(value), Field.Store.NO));
+                    doc.add(new LongPoint("x", value));
+                    doc.add(new SortedNumericDocValuesField("x", value));
+                    if (segment == 2) {
+                        // multi-valued documents can't be counted using the points tree
+                        doc.add(new LongPoint("x", value + 1));
+                        doc.add(new SortedNumericDocValuesField("x", value + 1));
+                    }
+                    iw.addDocument(doc);
+                }
+                iw.commit();
+            }
+            // deletes within the first segment
+            for (long i = 100; i < 200; i++) {
+                iw.deleteDocuments(new Term("id", Long.toString(i)));
+            }
+            reader = DirectoryReader.open(iw);
+        }
+        assertThat(reader.leaves()).hasSize(3);
+        searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+    }
+
+    private static Query range(long lower, long upper) {
+        return new IndexOrDocValuesQuery(
+            LongPoint.newRangeQuery("x", lower, upper),
+            SortedNumericDocValuesField.newSlowRangeQuery("x", lower, upper)
+        );
+    }
+
+    private static Query and(Query... queries) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (Query query : queries) {
+            builder.add(query, BooleanClause.Occur.MUST);
+        }
+        return builder.build();
+    }
+
+    private void assertCount(Query query) throws Exception {
+        assertThat(PointTreeCounter.count(searcher, query)).isEqualTo(searcher.count(query));
+    }
+
+    @Test
+    public void test_count_matches_count_by_iterating_over_matches() throws Exception {
+        assertCount(new MatchAllDocsQuery());
+        assertCount(range(0, 20_000));
+        assertCount(range(50, 150));
+        assertCount(range(150, 7_777));
+        assertCount(range(4_321, 12_345));
+        assertCount(range(20_000, 30_000));
+        assertCount(and(range(150, Long.MAX_VALUE), range(Long.MIN_VALUE, 9_999)));
+        assertCount(and(range(150, 9_999), range(5_000, Long.MAX_VALUE), new MatchAllDocsQuery()));
+        assertCount(and(range(150, 9_999), new TermQuery(new Term("id", "200"))));
+        assertCount(and(range(1_000, 2_000), range(3_000, 4_000)));
+    }
+
+    @Test
+    public void test_required_ranges_on_the_same_field_are_merged() throws Exception {
+        PointRangeQuery merged = PointTreeCounter.requiredRange(
+            and(range(10, Long.MAX_VALUE), range(Long.MIN_VALUE, 20), new MatchAllDocsQuery()));
+        assertThat(merged).isNotNull();
+        PointRangeQuery expected = (PointRangeQuery) LongPoint.newRangeQuery("x", 10, 20);
+        assertThat(merged.getLowerPoint()).isEqualTo(expected.getLowerPoint());
+        assertThat(merged.getUpperPoint()).isEqualTo(expected.getUpperPoint());
+    }
+
+    @Test
+    public void test_no_range_for_other_queries() throws Exception {
+        assertThat(PointTreeCounter.requiredRange(new MatchAllDocsQuery())).isNull();
+        assertThat(PointTreeCounter.requiredRange(and(range(10, 20), new TermQuery(new Term("id", "1"))))).isNull();
+        assertThat(PointTreeCounter.requiredRange(and(range(10, 20), LongPoint.newRangeQuery("y", 10, 20)))).isNull();
+        Query optionalRange = new BooleanQuery.Builder()
+            .add(range(10, 20), BooleanClause.Occur.SHOULD)
+            .add(range(30, 40), BooleanClause.Occur.SHOULD)
+            .build();
+        assertThat(PointTreeCounter.requiredRange(optionalRange)).isNull();
+    }
+}
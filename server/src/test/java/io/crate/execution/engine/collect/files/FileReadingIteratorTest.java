@@ -38,11 +38,17 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.ESTestCase;
@@ -53,8 +59,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
+import io.crate.data.breaker.RamAccounting;
 import io.crate.data.testing.BatchIteratorTester;
+import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
 import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
 
 public class FileReadingIteratorTest extends ESTestCase {
@@ -266,4 +276,157 @@ public class FileReadingIteratorTest extends ESTestCase {
                 assertThat(fi.currentElement().line()).isEqualTo("4");
             });
     }
+
+    @Test
+    public void test_chunked_reading_returns_same_lines_and_line_numbers_as_sequential_reading() throws Exception {
+        Path tempFile = createTempFile("tempfile", ".json");
+        String longLine = "x".repeat(70_000);
+        String content = "{\"id\": 1}\n"
+            + "\n"
+            + "{\"id\": 2, \"name\": \"Ford\"}\r\n"
+            + longLine + "\n"
+            + "{\"id\": 3, \"name\": \"Zaphod\"}\n"
+            + "{\"id\": 4, \"name\": \"Marvin\"}\r"
+            + "\r"
+            + "{\"id\": 5, \"name\": \"Trillian\"}\r\n"
+            + "x".repeat(1500) + "\r"
+            + "{\"id\": 6, \"name\": \"Slartibartfast\"}";
+        Files.writeString(tempFile, content);
+        List<String> fileUris = List.of(tempFile.toUri().toString());
+
+        Supplier<FileReadingIterator> sequential = () -> new FileReadingIterator(
+            fileUris,
+            null,
+            Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            Settings.EMPTY,
+            THREAD_POOL.scheduler()
+        );
+        Supplier<FileReadingIterator> chunked = () -> new FileReadingIterator(
+            fileUris,
+            null,
+            Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            Settings.EMPTY,
+            THREAD_POOL.scheduler(),
+            THREAD_POOL.generic(),
+            4,
+            InputFormat.JSON,
+            List.of(),
+            RamAccounting.NO_ACCOUNTING,
+            1024
+        );
+
+        List<String> expectedResult = collect(
+            sequential.get().map(cursor -> cursor.lineNumber() + ":" + cursor.line()));
+        assertThat(expectedResult).hasSize(8);
+
+        var tester = new BatchIteratorTester<>(
+            () -> chunked.get().map(cursor -> cursor.lineNumber() + ":" + cursor.line()));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_chunked_reading_does_not_stop_at_0xff_bytes() throws Exception {
+        Path tempFile = createTempFile("tempfile", ".json");
+        byte[] line = "{\"id\": 1, \"name\": \"x\"}\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[line.length * 100];
+        for (int i = 0; i < 100; i++) {
+            System.arraycopy(line, 0, content, i * line.length, line.length);
+        }
+        // Not valid UTF-8, decoded as replacement character like by the sequential reader
+        content[line.length * 50 + 19] = (byte) 0xFF;
+        Files.write(tempFile, content);
+        List<String> fileUris = List.of(tempFile.toUri().toString());
+
+        List<String> expectedResult = collect(
+            new FileReadingIterator(
+                fileUris,
+                null,
+                Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+                false,
+                1,
+                0,
+                Settings.EMPTY,
+                THREAD_POOL.scheduler()
+            ).map(cursor -> cursor.lineNumber() + ":" + cursor.line()));
+        assertThat(expectedResult).hasSize(100);
+        assertThat(expectedResult.get(50)).isEqualTo("51:{\"id\": 1, \"name\": \"\uFFFD\"}");
+
+        List<String> result = collect(
+            new FileReadingIterator(
+                fileUris,
+                null,
+                Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+                false,
+                1,
+                0,
+                Settings.EMPTY,
+                THREAD_POOL.scheduler(),
+                THREAD_POOL.generic(),
+                4,
+                InputFormat.JSON,
+                List.of(),
+                RamAccounting.NO_ACCOUNTING,
+                256
+            ).map(cursor -> cursor.lineNumber() + ":" + cursor.line()));
+        assertThat(result).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void test_chunked_reading_parses_lines_and_accounts_the_chunks() throws Exception {
+        Path tempFile = createTempFile("tempfile", ".json");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("{\"id\": ").append(i).append("}\n");
+        }
+        Files.writeString(tempFile, content);
+        AtomicLong usedBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> {}, "test", 0);
+        FileReadingIterator it = new FileReadingIterator(
+            List.of(tempFile.toUri().toString()),
+            null,
+            Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            Settings.EMPTY,
+            THREAD_POOL.scheduler(),
+            THREAD_POOL.generic(),
+            4,
+            InputFormat.JSON,
+            List.of(),
+            ramAccounting,
+            256
+        );
+        it.parseLinesWith(uri -> () -> line -> new LineParser.ParsedLine(
+            line.toUpperCase(Locale.ENGLISH).getBytes(StandardCharsets.UTF_8),
+            new LinkedHashMap<>(Map.of("id", line.length()))
+        ));
+
+        List<String> parsedLines = collect(
+            it.map(cursor -> {
+                assertThat(usedBytes.get()).isGreaterThan(0L);
+                return cursor.lineNumber() + ":" + new String(cursor.parsedLine().source(), StandardCharsets.UTF_8);
+            }));
+
+        assertThat(parsedLines).hasSize(200);
+        assertThat(parsedLines.get(0)).isEqualTo("1:{\"ID\": 0}");
+        assertThat(parsedLines.get(199)).isEqualTo("200:{\"ID\": 199}");
+        assertThat(usedBytes.get()).isEqualTo(0L);
+    }
+
+    private static <T> List<T> collect(BatchIterator<T> it) throws Exception {
+        Collector<T, ?, List<T>> collector = Collectors.toList();
+        return collect(it, collector);
+    }
+
+    private static <T, A> List<T> collect(BatchIterator<T> it, Collector<T, A, List<T>> collector) throws Exception {
+        return BatchIterators.collect(it, collector.supplier().get(), collector, new CompletableFuture<>())
+            .get(5, TimeUnit.SECONDS);
+    }
 }
@@ -24,6 +24,7 @@ package io.crate.execution.engine.collect.files;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -193,4 +194,60 @@ public class LineProcessorTest {
         assertThat(lineProcessor.currentElement().get(1)).isEqualTo("Number of values exceeds number of keys in csv file at line 2");
         assertThat(lineProcessor.currentElement().get(2)).isNull();
     }
+
+    @Test
+    public void test_line_parsers_convert_lines_like_the_line_processor() throws Exception {
+        URI uri = new URI("file:///dummy.csv");
+        BatchIterator<LineCursor> source = InMemoryBatchIterator.of(
+            List.of(
+                new LineCursor(uri, 1, "x,y", null),
+                new LineCursor(uri, 2, "10,20", null)
+            ),
+            null,
+            false
+        );
+        Context<LineCollectorExpression<?>> ctxForRefs = inputFactory.ctxForRefs(
+            CoordinatorTxnCtx.systemTransactionContext(),
+            FileLineReferenceResolver::getImplementation
+        );
+        ctxForRefs.add(List.of(TestingHelpers.createReference(DocSysColumns.RAW, DataTypes.STRING)));
+        LineProcessor lineProcessor = new LineProcessor(
+            source,
+            ctxForRefs.topLevelInputs(),
+            ctxForRefs.expressions(),
+            InputFormat.CSV,
+            new CopyFromParserProperties(true, true, ',', 0),
+            List.of()
+        );
+
+        // The header hasn't been read yet
+        assertThat(lineProcessor.lineParsers(uri)).isNull();
+
+        assertThat(lineProcessor.moveNext()).isTrue();
+        LineParser lineParser = lineProcessor.lineParsers(uri).get();
+        LineParser.ParsedLine parsedLine = lineParser.parse("10,20");
+        assertThat(new String(parsedLine.source(), StandardCharsets.UTF_8))
+            .isEqualTo(lineProcessor.currentElement().get(0));
+        assertThat(parsedLine.values()).containsExactly(Map.entry("x", "10"), Map.entry("y", "20"));
+        assertThat(lineParser.parse("1,2,3,4")).isNull();
+    }
+
+    @Test
+    public void test_json_line_parsers_parse_the_values_of_the_lines() throws Exception {
+        URI uri = new URI("file:///dummy.json");
+        LineProcessor lineProcessor = new LineProcessor(
+            InMemoryBatchIterator.empty(null),
+            List.of(),
+            List.of(),
+            InputFormat.JSON,
+            new CopyFromParserProperties(true, false, ',', 0),
+            List.of()
+        );
+
+        LineParser lineParser = lineProcessor.lineParsers(uri).get();
+        LineParser.ParsedLine parsedLine = lineParser.parse("{\"y\": 20, \"x\": 10}");
+        assertThat(new String(parsedLine.source(), StandardCharsets.UTF_8)).isEqualTo("{\"y\": 20, \"x\": 10}");
+        assertThat(parsedLine.values()).containsExactly(Map.entry("y", 20), Map.entry("x", 10));
+        assertThat(lineParser.parse("{\"x\": ")).isNull();
+    }
 }
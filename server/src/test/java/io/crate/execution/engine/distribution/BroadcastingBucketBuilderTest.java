@@ -23,10 +23,13 @@ package io.crate.execution.engine.distribution;
 
 import static org.junit.Assert.assertThat;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
 import io.crate.Streamer;
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.data.Bucket;
 import io.crate.data.Row1;
 import io.crate.data.breaker.RamAccounting;
@@ -46,4 +49,43 @@ public class BroadcastingBucketBuilderTest {
         assertThat(rows, Matchers.sameInstance(buckets[1]));
         assertThat(rows, Matchers.sameInstance(buckets[2]));
     }
+
+    @Test
+    public void test_built_page_is_released_on_reset_and_next_page_is_accounted() throws Exception {
+        AtomicLong usedBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> {}, "test", 0);
+        BroadcastingBucketBuilder builder = new BroadcastingBucketBuilder(
+            new Streamer[]{DataTypes.STRING.streamer()}, 2, true, ramAccounting);
+        for (int i = 0; i < 10; i++) {
+            builder.add(new Row1("foo" + (i % 3)));
+        }
+        long firstPageBytes = usedBytes.get();
+        assertThat(firstPageBytes, Matchers.greaterThan(0L));
+        assertThat(builder.ramBytesUsed(), Matchers.is(firstPageBytes));
+
+        builder.build(new StreamBucket[2]);
+        assertThat(usedBytes.get(), Matchers.is(0L));
+        assertThat(builder.ramBytesUsed(), Matchers.is(0L));
+
+        for (int i = 0; i < 10; i++) {
+            builder.add(new Row1("foo" + (i % 3)));
+        }
+        assertThat(usedBytes.get(), Matchers.is(firstPageBytes));
+    }
+
+    @Test
+    public void test_accounted_bytes_do_not_shrink_if_dictionary_column_falls_back_to_generic_encoding() throws Exception {
+        AtomicLong usedBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> {}, "test", 0);
+        BroadcastingBucketBuilder builder = new BroadcastingBucketBuilder(
+            new Streamer[]{DataTypes.STRING.streamer()}, 1, true, ramAccounting);
+        long prevBytes = 0;
+        for (int i = 0; i < ColumnarPage.MAX_DICTIONARY_SIZE + 10; i++) {
+            builder.add(new Row1("value-" + i));
+            assertThat(usedBytes.get(), Matchers.greaterThanOrEqualTo(prevBytes));
+            prevBytes = usedBytes.get();
+        }
+        builder.build(new StreamBucket[1]);
+        assertThat(usedBytes.get(), Matchers.is(0L));
+    }
 }
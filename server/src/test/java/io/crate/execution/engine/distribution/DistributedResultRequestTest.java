@@ -29,15 +29,20 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
+import org.hamcrest.Matcher;
 import org.junit.Test;
 
 import io.crate.Streamer;
+import io.crate.data.Row;
 import io.crate.data.RowN;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.types.DataTypes;
@@ -55,7 +60,7 @@ public class DistributedResultRequestTest extends ESTestCase {
         builder.add(new RowN(new Object[] {"cd"}));
         DistributedResultRequest r1 =
             DistributedResultRequest.of(
-                "dummyNodeId", uuid, 1, (byte) 3, 1, builder.build(), false
+                "dummyNodeId", uuid, 1, (byte) 3, 1, 2, builder.build(), false
             ).innerRequest();
 
         BytesStreamOutput out = new BytesStreamOutput();
@@ -66,10 +71,81 @@ public class DistributedResultRequestTest extends ESTestCase {
         assertEquals(r1.readRows(streamers).size(), r2.readRows(streamers).size());
         assertThat(r1.isLast(), is(r2.isLast()));
         assertThat(r1.executionPhaseInputId(), is(r2.executionPhaseInputId()));
+        assertThat(r2.pageIdx(), is(2));
 
         assertThat(r2.readRows(streamers), contains(isRow("ab"), isNullRow(), isRow("cd")));
     }
 
+    @Test
+    public void test_columnar_bucket_streaming() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] {
+            DataTypes.STRING.streamer(),
+            DataTypes.LONG.streamer(),
+            DataTypes.INTEGER.streamer(),
+            DataTypes.DOUBLE.streamer(),
+            DataTypes.FLOAT.streamer(),
+            DataTypes.BOOLEAN.streamer()
+        };
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, true, RamAccounting.NO_ACCOUNTING);
+        builder.add(new RowN("AT", 1L, 10, 1.5, 2.5f, true));
+        builder.add(new RowN(null, null, null, null, null, null));
+        builder.add(new RowN("AT", -3L, -30, 3.5, 4.5f, false));
+        builder.add(new RowN("DE", Long.MAX_VALUE, Integer.MIN_VALUE, 5.5, 6.5f, true));
+        StreamBucket bucket = builder.build();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        StreamBucket received = new StreamBucket(in, streamers);
+
+        assertThat(received, contains(
+            isRow("AT", 1L, 10, 1.5, 2.5f, true),
+            isRow(null, null, null, null, null, null),
+            isRow("AT", -3L, -30, 3.5, 4.5f, false),
+            isRow("DE", Long.MAX_VALUE, Integer.MIN_VALUE, 5.5, 6.5f, true)
+        ));
+    }
+
+    @Test
+    public void test_columnar_page_falls_back_to_generic_encoding_for_high_cardinality_strings() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.STRING.streamer() };
+        ColumnarPage.Writer writer = new ColumnarPage.Writer(streamers);
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, true, RamAccounting.NO_ACCOUNTING);
+        // every 100th value is null, so there must be enough rows to exceed the dictionary size with the others
+        int numRows = ColumnarPage.MAX_DICTIONARY_SIZE + 100;
+        List<Matcher<? super Row>> expectedRows = new ArrayList<>();
+        for (int i = 0; i < numRows; i++) {
+            String value = i % 100 == 0 ? null : "value-" + i;
+            writer.add(new RowN(value));
+            builder.add(new RowN(value));
+            expectedRows.add(isRow(value));
+        }
+        assertThat(writer.bytes().get(0), is(ColumnarPage.GENERIC));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+        StreamBucket received = new StreamBucket(out.bytes().streamInput(), streamers);
+        assertThat(received, contains(expectedRows));
+    }
+
+    @Test
+    public void test_columnar_bucket_is_streamed_row_wise_to_older_nodes() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.STRING.streamer(), DataTypes.LONG.streamer() };
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, true, RamAccounting.NO_ACCOUNTING);
+        builder.add(new RowN("a", 1L));
+        builder.add(new RowN(null, null));
+        StreamBucket bucket = builder.build();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_4_0);
+        bucket.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_4_0);
+        StreamBucket received = new StreamBucket(in, streamers);
+
+        assertThat(received, contains(isRow("a", 1L), isRow(null, null)));
+    }
+
     @Test
     public void testStreamingOfFailure() throws Exception {
         UUID uuid = UUID.randomUUID();
@@ -21,6 +21,7 @@
 
 package io.crate.execution.engine.distribution;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,9 +30,11 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
@@ -57,6 +60,7 @@ import io.crate.data.testing.FailingBatchIterator;
 import io.crate.data.testing.TestingBatchIterators;
 import io.crate.data.testing.TestingRowConsumer;
 import io.crate.execution.engine.distribution.merge.PassThroughPagingIterator;
+import io.crate.execution.engine.join.HashBloomFilter;
 import io.crate.execution.jobs.CumulativePageBucketReceiver;
 import io.crate.execution.jobs.DistResultRXTask;
 import io.crate.execution.jobs.PageBucketReceiver;
@@ -165,6 +169,94 @@ public class DistributingConsumerTest extends ESTestCase {
         collectingConsumer.getResult();
     }
 
+    @Test
+    public void test_sends_pages_until_the_downstream_has_no_credit_left() throws Exception {
+        Streamer<?>[] streamers = { DataTypes.INTEGER.streamer() };
+        List<DistributedResultRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<DistributedResultResponse>> responses = Collections.synchronizedList(new ArrayList<>());
+        DistributingConsumer distributingConsumer = new DistributingConsumer(
+            executorService,
+            UUID.randomUUID(),
+            new ModuloBucketBuilder(streamers, 1, 0, RamAccounting.NO_ACCOUNTING),
+            1,
+            (byte) 0,
+            0,
+            Collections.singletonList("n1"),
+            req -> {
+                CompletableFuture<DistributedResultResponse> response = new CompletableFuture<>();
+                requests.add(req.innerRequest());
+                responses.add(response);
+                return response;
+            },
+            2, // pageSize
+            3  // maxInFlightPages
+        );
+
+        // 10 rows with pageSize=2 result in 5 full pages and an empty last page
+        distributingConsumer.accept(TestingBatchIterators.range(0, 10), null);
+        assertThat(requests.size(), is(3));
+
+        for (int i = 0; i < 6; i++) {
+            int pageIdx = i;
+            assertBusy(() -> assertThat(responses.size(), greaterThan(pageIdx)));
+            assertThat(requests.get(pageIdx).pageIdx(), is(pageIdx));
+            responses.get(pageIdx).complete(new DistributedResultResponse(pageIdx < 5));
+        }
+        distributingConsumer.completionFuture().get(5, TimeUnit.SECONDS);
+        assertThat(requests.size(), is(6));
+        assertThat(requests.get(5).isLast(), is(true));
+    }
+
+    @Test
+    public void test_rows_rejected_by_the_row_filter_of_the_downstream_are_not_sent() throws Exception {
+        Streamer<?>[] streamers = { DataTypes.INTEGER.streamer() };
+        List<DistributedResultRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<DistributedResultResponse>> responses = Collections.synchronizedList(new ArrayList<>());
+        DistributingConsumer distributingConsumer = new DistributingConsumer(
+            executorService,
+            UUID.randomUUID(),
+            new ModuloBucketBuilder(streamers, 1, 0, RamAccounting.NO_ACCOUNTING),
+            1,
+            (byte) 0,
+            0,
+            Collections.singletonList("n1"),
+            req -> {
+                CompletableFuture<DistributedResultResponse> response = new CompletableFuture<>();
+                requests.add(req.innerRequest());
+                responses.add(response);
+                return response;
+            },
+            2, // pageSize
+            1  // maxInFlightPages
+        );
+        HashBloomFilter evenNumbers = new HashBloomFilter(5);
+        for (int i = 0; i < 10; i += 2) {
+            evenNumbers.add(Integer.hashCode(i));
+        }
+        UpstreamRowFilter rowFilter = new UpstreamRowFilter(new int[] { 0 }, evenNumbers);
+
+        distributingConsumer.accept(TestingBatchIterators.range(0, 10), null);
+        for (int i = 0; ; i++) {
+            int pageIdx = i;
+            assertBusy(() -> assertThat(responses.size(), greaterThan(pageIdx)));
+            if (requests.get(pageIdx).isLast()) {
+                responses.get(pageIdx).complete(new DistributedResultResponse(false));
+                break;
+            }
+            responses.get(pageIdx).complete(new DistributedResultResponse(true, pageIdx == 0 ? rowFilter : null));
+        }
+        distributingConsumer.completionFuture().get(5, TimeUnit.SECONDS);
+
+        List<Object> sentValues = new ArrayList<>();
+        for (DistributedResultRequest request : requests) {
+            for (Row row : request.readRows(streamers)) {
+                sentValues.add(row.get(0));
+            }
+        }
+        // The first page is sent before the filter is received
+        assertThat(sentValues, Matchers.contains(0, 1, 2, 4, 6, 8));
+    }
+
     private DistributingConsumer createDistributingConsumer(Streamer<?>[] streamers, TransportDistributedResultAction distributedResultAction) {
         return new DistributingConsumer(
             executorService,
@@ -179,7 +271,8 @@ public class DistributingConsumerTest extends ESTestCase {
                 distributedResultAction.doExecute(req, listener);
                 return listener;
             },
-            2 // pageSize
+            2, // pageSize
+            DistributingConsumer.MAX_IN_FLIGHT_PAGES
         );
     }
 
@@ -214,6 +307,7 @@ public class DistributingConsumerTest extends ESTestCase {
             if (throwable == null) {
                 bucketReceiver.setBucket(
                     resultRequest.bucketIdx(),
+                    resultRequest.pageIdx(),
                     resultRequest.readRows(streamers),
                     resultRequest.isLast(),
                     needMore -> listener.onResponse(new DistributedResultResponse(needMore)));
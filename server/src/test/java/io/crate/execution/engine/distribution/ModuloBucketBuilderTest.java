@@ -30,7 +30,9 @@ import org.junit.Test;
 import io.crate.Streamer;
 import io.crate.data.Bucket;
 import io.crate.data.Row1;
+import io.crate.data.RowN;
 import io.crate.data.breaker.RamAccounting;
+import io.crate.planner.distribution.SkewHandling;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
 
@@ -57,4 +59,73 @@ public class ModuloBucketBuilderTest extends ESTestCase {
         assertThat(rowsD2.size(), is(2));
         assertThat(TestingHelpers.printedTable(rowsD2), is("1\n3\n"));
     }
+
+    @Test
+    public void test_rows_with_same_composite_key_end_up_in_same_bucket() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] {
+            DataTypes.INTEGER.streamer(), DataTypes.STRING.streamer(), DataTypes.INTEGER.streamer() };
+        ModuloBucketBuilder builder = new ModuloBucketBuilder(
+            streamers, 3, new int[] { 0, 1 }, SkewHandling.NONE, new int[0], false, RamAccounting.NO_ACCOUNTING);
+
+        int numKeys = 50;
+        for (int i = 0; i < numKeys; i++) {
+            builder.add(new RowN(i, "a", 1));
+            builder.add(new RowN(i, "a", 2));
+        }
+        StreamBucket[] buckets = new StreamBucket[3];
+        builder.build(buckets);
+
+        int numRows = 0;
+        for (StreamBucket bucket : buckets) {
+            // both rows of a key are in the same bucket
+            assertThat(bucket.size() % 2, is(0));
+            assertThat(bucket.size() > 0, is(true));
+            numRows += bucket.size();
+        }
+        assertThat(numRows, is(numKeys * 2));
+    }
+
+    @Test
+    public void test_skewed_keys_are_split_across_all_buckets() throws Exception {
+        int[] skewedKeyHashes = new int[] { ModuloBucketBuilder.hash(1) };
+        ModuloBucketBuilder builder = new ModuloBucketBuilder(
+            new Streamer[] { DataTypes.INTEGER.streamer() },
+            2,
+            new int[] { 0 },
+            SkewHandling.SPLIT,
+            skewedKeyHashes,
+            false,
+            RamAccounting.NO_ACCOUNTING
+        );
+        for (int i = 0; i < 4; i++) {
+            builder.add(new Row1(1));
+        }
+        StreamBucket[] buckets = new StreamBucket[2];
+        builder.build(buckets);
+
+        assertThat(buckets[0].size(), is(2));
+        assertThat(buckets[1].size(), is(2));
+    }
+
+    @Test
+    public void test_skewed_keys_are_replicated_to_all_buckets() throws Exception {
+        int[] skewedKeyHashes = new int[] { ModuloBucketBuilder.hash(1) };
+        ModuloBucketBuilder builder = new ModuloBucketBuilder(
+            new Streamer[] { DataTypes.INTEGER.streamer() },
+            2,
+            new int[] { 0 },
+            SkewHandling.REPLICATE,
+            skewedKeyHashes,
+            false,
+            RamAccounting.NO_ACCOUNTING
+        );
+        builder.add(new Row1(1));
+        builder.add(new Row1(2));
+        StreamBucket[] buckets = new StreamBucket[2];
+        builder.build(buckets);
+
+        assertThat(buckets[0].size() + buckets[1].size(), is(3));
+        assertThat(TestingHelpers.printedTable(buckets[0]).contains("1\n"), is(true));
+        assertThat(TestingHelpers.printedTable(buckets[1]).contains("1\n"), is(true));
+    }
 }
@@ -22,11 +22,14 @@
 package io.crate.execution.engine.export;
 
 import static io.crate.data.SentinelRow.SENTINEL;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 
+import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -44,11 +47,16 @@ import org.junit.rules.TemporaryFolder;
 
 import io.crate.data.BatchIterator;
 import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.breaker.RamAccounting;
 import io.crate.data.testing.RowGenerator;
 import io.crate.data.testing.TestingRowConsumer;
 import io.crate.exceptions.UnhandledServerException;
 import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.execution.engine.collect.RowCollectExpression;
+import io.crate.execution.engine.collect.files.LocalFsFileInput;
+import io.crate.parquet.ParquetReader;
 import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
 
 public class FileWriterProjectorTest extends ESTestCase {
 
@@ -67,9 +75,9 @@ public class FileWriterProjectorTest extends ESTestCase {
         Path file = createTempFile("out", "json");
 
         FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, file.toUri().toString(),
-            null, null, Set.of(), new HashMap<>(),
+            null, null, List.of(), Set.of(), new HashMap<>(),
             null, WriterProjection.OutputFormat.JSON_OBJECT,
-            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY);
+            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY, RamAccounting.NO_ACCOUNTING);
 
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
 
@@ -80,6 +88,26 @@ public class FileWriterProjectorTest extends ESTestCase {
                      "input line 04", TestingHelpers.readFile(file.toAbsolutePath().toString()));
     }
 
+    @Test
+    public void test_write_gzip_compressed_parquet_file() throws Exception {
+        Path file = createTempFile("out", "parquet");
+        RowCollectExpression input = new RowCollectExpression(0);
+
+        FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, file.toUri().toString(),
+            WriterProjection.CompressionType.GZIP, List.of(input), List.of(DataTypes.STRING), Set.of(input), new HashMap<>(),
+            List.of("line"), WriterProjection.OutputFormat.PARQUET,
+            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY, RamAccounting.NO_ACCOUNTING);
+
+        new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
+
+        URI uri = file.toUri();
+        ParquetReader reader = new ParquetReader(new LocalFsFileInput(uri), uri, List.of(), RamAccounting.NO_ACCOUNTING);
+        for (int i = 0; i < 5; i++) {
+            assertThat(reader.next()).containsExactly(Map.entry("line", String.format(Locale.ENGLISH, "input line %02d", i)));
+        }
+        assertThat(reader.next()).isNull();
+    }
+
     @Test
     public void testDirectoryAsFile() throws Exception {
         expectedException.expect(UnhandledServerException.class);
@@ -89,9 +117,9 @@ public class FileWriterProjectorTest extends ESTestCase {
 
         FileWriterProjector fileWriterProjector = new FileWriterProjector(
             executorService, directory.toUri().toString(),
-            null, null, Set.of(), new HashMap<>(),
+            null, null, List.of(), Set.of(), new HashMap<>(),
             null, WriterProjection.OutputFormat.JSON_OBJECT,
-            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY);
+            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY, RamAccounting.NO_ACCOUNTING);
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
     }
 
@@ -103,9 +131,9 @@ public class FileWriterProjectorTest extends ESTestCase {
         String uri = Paths.get(folder.newFile().toURI()).resolve("out.json").toUri().toString();
 
         FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, uri,
-            null, null, Set.of(), new HashMap<>(),
+            null, null, List.of(), Set.of(), new HashMap<>(),
             null, WriterProjection.OutputFormat.JSON_OBJECT,
-            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY);
+            Map.of(LocalFsFileOutputFactory.NAME, new LocalFsFileOutputFactory()), Settings.EMPTY, RamAccounting.NO_ACCOUNTING);
 
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
     }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.indexing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.dml.delete.ShardDeleteRequest;
+
+public class AdaptiveShardRequestSizeLimiterTest extends ESTestCase {
+
+    @Test
+    public void test_flushes_once_a_single_shard_request_exceeds_the_limit() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        ShardedRequests<ShardDeleteRequest, ShardDeleteRequest.Item> shardedRequests = new ShardedRequests<>(
+            shardId -> new ShardDeleteRequest(shardId, jobId),
+            RamAccounting.NO_ACCOUNTING
+        );
+        ShardLocation shard1 = new ShardLocation(new ShardId("t", "_na_", 0), "n1");
+        ShardLocation shard2 = new ShardLocation(new ShardId("t", "_na_", 1), "n1");
+        ShardDeleteRequest.Item item = new ShardDeleteRequest.Item("id1");
+        shardedRequests.add(item, shard1, RowSourceInfo.EMPTY_INSTANCE);
+        shardedRequests.add(new ShardDeleteRequest.Item("id2"), shard2, RowSourceInfo.EMPTY_INSTANCE);
+        shardedRequests.add(new ShardDeleteRequest.Item("id3"), shard1, RowSourceInfo.EMPTY_INSTANCE);
+
+        assertThat(shardedRequests.largestShardRequestBytes()).isEqualTo(2 * item.ramBytesUsed());
+
+        AdaptiveShardRequestSizeLimiter limiter = new AdaptiveShardRequestSizeLimiter();
+        assertThat(limiter.test(shardedRequests)).isFalse();
+    }
+
+    @Test
+    public void test_limit_shrinks_for_slow_shards_and_grows_for_fast_shards() throws Exception {
+        AdaptiveShardRequestSizeLimiter limiter = new AdaptiveShardRequestSizeLimiter();
+        long initialLimit = limiter.requestBytesLimit();
+        assertThat(initialLimit).isEqualTo(AdaptiveShardRequestSizeLimiter.INITIAL_REQUEST_BYTES);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onResponse(initialLimit, TimeUnit.SECONDS.toNanos(30));
+        }
+        assertThat(limiter.requestBytesLimit()).isEqualTo(AdaptiveShardRequestSizeLimiter.MIN_REQUEST_BYTES);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onResponse(initialLimit, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertThat(limiter.requestBytesLimit()).isBetween(
+            AdaptiveShardRequestSizeLimiter.MAX_REQUEST_BYTES - 1024,
+            AdaptiveShardRequestSizeLimiter.MAX_REQUEST_BYTES
+        );
+    }
+
+    @Test
+    public void test_limit_converges_towards_target_request_duration() throws Exception {
+        AdaptiveShardRequestSizeLimiter limiter = new AdaptiveShardRequestSizeLimiter();
+        long bytes = AdaptiveShardRequestSizeLimiter.INITIAL_REQUEST_BYTES;
+        // processing the initial request size takes twice as long as the target duration
+        long duration = 2 * AdaptiveShardRequestSizeLimiter.TARGET_REQUEST_DURATION_NS;
+        for (int i = 0; i < 100; i++) {
+            limiter.onResponse(bytes, duration);
+        }
+        assertThat(limiter.requestBytesLimit()).isBetween(bytes / 2 - 1024, bytes / 2 + 1024);
+    }
+}
@@ -23,8 +23,10 @@ package io.crate.execution.engine.indexing;
 
 import static org.junit.Assert.assertThat;
 
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -57,7 +59,7 @@ public class BatchIteratorBackpressureExecutorTest extends ESTestCase {
     @After
     public void shutdownExecutor() throws Exception {
         executor.shutdown();
-        scheduler.shutdown();
+        scheduler.shutdownNow();
         executor.awaitTermination(10, TimeUnit.SECONDS);
         scheduler.awaitTermination(10, TimeUnit.SECONDS);
     }
@@ -93,4 +95,74 @@ public class BatchIteratorBackpressureExecutorTest extends ESTestCase {
 
         assertThat(numPauses.get(), Matchers.is(1));
     }
+
+    @Test
+    public void test_paused_consumption_resumes_once_an_in_flight_execution_completes() throws Exception {
+        BatchIterator<Integer> it = InMemoryBatchIterator.of(() -> IntStream.range(0, 5).iterator(), -1, true);
+        AtomicInteger numRows = new AtomicInteger(0);
+        AtomicInteger numPauses = new AtomicInteger(0);
+        CompletableFuture<Integer> firstExecution = new CompletableFuture<>();
+        Predicate<Integer> shouldPause = i -> {
+            if (i == 2 && numPauses.get() == 0) {
+                numPauses.incrementAndGet();
+                scheduler.schedule(() -> firstExecution.complete(numRows.incrementAndGet()), 100, TimeUnit.MILLISECONDS);
+                return true;
+            }
+            return false;
+        };
+        BatchIteratorBackpressureExecutor<Integer, Integer> executor = new BatchIteratorBackpressureExecutor<>(
+            UUID.randomUUID(),
+            scheduler,
+            this.executor,
+            it,
+            i -> i == 0 ? firstExecution : CompletableFuture.supplyAsync(numRows::incrementAndGet, this.executor),
+            (a, b) -> a + b,
+            0,
+            shouldPause,
+            null,
+            null,
+            // A delay way beyond the timeout below; the completion of the first execution must resume the consumption
+            ignored -> TimeUnit.MINUTES.toMillis(10)
+        );
+        CompletableFuture<Integer> result = executor.consumeIteratorAndExecute();
+        result.get(10, TimeUnit.SECONDS);
+
+        assertThat(numPauses.get(), Matchers.is(1));
+        assertThat(numRows.get(), Matchers.is(5));
+    }
+
+    @Test
+    public void test_completing_execution_does_not_resume_consumption_while_pause_condition_holds() throws Exception {
+        BatchIterator<Integer> it = InMemoryBatchIterator.of(() -> IntStream.range(0, 5).iterator(), -1, true);
+        Set<Integer> executedItems = ConcurrentHashMap.newKeySet();
+        CompletableFuture<Integer> firstExecution = new CompletableFuture<>();
+        // Item 2 is always throttled, only the scheduled resume may execute it
+        Predicate<Integer> shouldPause = i -> i == 2;
+        BatchIteratorBackpressureExecutor<Integer, Integer> executor = new BatchIteratorBackpressureExecutor<>(
+            UUID.randomUUID(),
+            scheduler,
+            // Resumes run synchronously, they would execute item 2 right away within firstExecution.complete
+            Runnable::run,
+            it,
+            i -> {
+                executedItems.add(i);
+                return i == 0 ? firstExecution : CompletableFuture.completedFuture(1);
+            },
+            (a, b) -> a + b,
+            0,
+            shouldPause,
+            null,
+            null,
+            ignored -> 500L
+        );
+        CompletableFuture<Integer> result = executor.consumeIteratorAndExecute();
+        assertThat(executedItems, Matchers.containsInAnyOrder(0, 1));
+
+        firstExecution.complete(1);
+        assertThat(executedItems, Matchers.containsInAnyOrder(0, 1));
+        assertThat(result.isDone(), Matchers.is(false));
+
+        assertThat(result.get(10, TimeUnit.SECONDS), Matchers.is(5));
+        assertThat(executedItems, Matchers.containsInAnyOrder(0, 1, 2, 3, 4));
+    }
 }
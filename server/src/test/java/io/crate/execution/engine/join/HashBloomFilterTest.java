@@ -0,0 +1,84 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.join;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+public class HashBloomFilterTest extends ESTestCase {
+
+    @Test
+    public void test_added_hashes_are_always_contained() throws Exception {
+        HashBloomFilter filter = new HashBloomFilter(1000);
+        int[] hashes = new int[1000];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = randomInt();
+            filter.add(hashes[i]);
+        }
+        for (int hash : hashes) {
+            assertThat(filter.mightContain(hash)).isTrue();
+        }
+    }
+
+    @Test
+    public void test_most_hashes_which_were_not_added_are_filtered() throws Exception {
+        HashBloomFilter filter = new HashBloomFilter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.add(i);
+        }
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(500);
+    }
+
+    @Test
+    public void test_filter_size_is_bounded() throws Exception {
+        assertThat(new HashBloomFilter(0).sizeInBytes()).isEqualTo(512L);
+        assertThat(new HashBloomFilter(Long.MAX_VALUE).sizeInBytes()).isEqualTo(2L * 1024 * 1024);
+    }
+
+    @Test
+    public void test_streaming_retains_the_added_hashes() throws Exception {
+        HashBloomFilter filter = new HashBloomFilter(100);
+        for (int i = 0; i < 100; i++) {
+            filter.add(i);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        filter.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        HashBloomFilter streamed = new HashBloomFilter(in);
+
+        assertThat(streamed.sizeInBytes()).isEqualTo(filter.sizeInBytes());
+        for (int i = 0; i < 11000; i++) {
+            assertThat(streamed.mightContain(i)).isEqualTo(filter.mightContain(i));
+        }
+    }
+}
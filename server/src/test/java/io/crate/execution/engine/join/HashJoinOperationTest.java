@@ -0,0 +1,125 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.join;
+
+import static io.crate.testing.TestingHelpers.createNodeContext;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.data.testing.BatchSimulatingIterator;
+import io.crate.data.testing.TestingBatchIterators;
+import io.crate.data.testing.TestingRowConsumer;
+import io.crate.expression.InputFactory;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+public class HashJoinOperationTest extends ESTestCase {
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> join(BatchIterator<Row> left,
+                                       BatchIterator<Row> right,
+                                       long numberOfRowsForLeft,
+                                       RowAccounting<Object[]> leftRowAccounting,
+                                       RowAccounting<Object[]> rightRowAccounting) throws Exception {
+        List<DataType<?>> types = List.of(DataTypes.INTEGER);
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        HashJoinOperation operation = new HashJoinOperation(
+            1,
+            1,
+            consumer,
+            row -> Objects.equals(row.get(0), row.get(1)),
+            List.of(new InputColumn(0, DataTypes.INTEGER)),
+            List.of(new InputColumn(0, DataTypes.INTEGER)),
+            leftRowAccounting,
+            rightRowAccounting,
+            RamAccounting.NO_ACCOUNTING,
+            CoordinatorTxnCtx.systemTransactionContext(),
+            new InputFactory(createNodeContext()),
+            new NoopCircuitBreaker("test"),
+            16,
+            numberOfRowsForLeft,
+            types,
+            types
+        );
+        operation.leftConsumer().accept(left, null);
+        operation.rightConsumer().accept(right, null);
+        return consumer.getResult();
+    }
+
+    @Test
+    public void test_right_side_is_used_as_build_side_if_much_smaller_than_estimated_left_side() throws Exception {
+        RowAccounting<Object[]> leftRowAccounting = mock(RowAccounting.class);
+        RowAccounting<Object[]> rightRowAccounting = mock(RowAccounting.class);
+        List<Object[]> result = join(
+            new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 1000), 100, 10, null),
+            TestingBatchIterators.ofValues(Arrays.asList(7, 3, 5)),
+            1000,
+            leftRowAccounting,
+            rightRowAccounting
+        );
+        assertThat(result).containsExactly(
+            new Object[] { 3, 3 },
+            new Object[] { 5, 5 },
+            new Object[] { 7, 7 }
+        );
+        verify(leftRowAccounting, never()).accountForAndMaybeBreak(any());
+        verify(rightRowAccounting, times(3)).accountForAndMaybeBreak(any());
+    }
+
+    @Test
+    public void test_left_side_remains_build_side_if_right_side_is_not_smaller() throws Exception {
+        RowAccounting<Object[]> leftRowAccounting = mock(RowAccounting.class);
+        RowAccounting<Object[]> rightRowAccounting = mock(RowAccounting.class);
+        List<Object[]> result = join(
+            TestingBatchIterators.ofValues(Arrays.asList(3, 5)),
+            TestingBatchIterators.range(0, 10),
+            2,
+            leftRowAccounting,
+            rightRowAccounting
+        );
+        assertThat(result).containsExactlyInAnyOrder(
+            new Object[] { 3, 3 },
+            new Object[] { 5, 5 }
+        );
+        verify(leftRowAccounting, times(2)).accountForAndMaybeBreak(any());
+        verify(rightRowAccounting, never()).accountForAndMaybeBreak(any());
+    }
+}
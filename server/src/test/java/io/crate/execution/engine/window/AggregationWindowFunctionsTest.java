@@ -332,4 +332,49 @@ public class AggregationWindowFunctionsTest extends AbstractWindowFunctionTest {
             rows
         );
     }
+
+    @Test
+    public void test_max_and_min_over_sliding_rows_frame() throws Throwable {
+        Object[][] rows = new Object[][] {
+            $(3, 1L),
+            $(1, 2L),
+            $(4, 3L),
+            $(1, 4L),
+            $(5, 5L),
+            $(9, 6L),
+            $(2, 7L),
+            $(6, 8L),
+        };
+        assertEvaluate(
+            "max(x) over (order by y rows between 2 preceding and current row)",
+            new Object[] { 3, 3, 4, 4, 5, 9, 9, 9 },
+            List.of(new ColumnIdent("x"), new ColumnIdent("y")),
+            rows
+        );
+        assertEvaluate(
+            "min(x) over (order by y rows between 2 preceding and current row)",
+            new Object[] { 3, 1, 1, 1, 1, 1, 2, 2 },
+            List.of(new ColumnIdent("x"), new ColumnIdent("y")),
+            rows
+        );
+    }
+
+    @Test
+    public void test_min_over_sliding_rows_frame_including_partitions() throws Throwable {
+        Object[][] rows = new Object[][] {
+            $("A", 3, 1L),
+            $("A", 6, 2L),
+            $("B", 5, 5L),
+            $("A", 4, 3L),
+            $("B", 8, 6L),
+            $("A", 2, 4L),
+            $("B", 7, 7L),
+        };
+        assertEvaluate(
+            "min(x) over (partition by z order by y rows between 1 preceding and 1 following)",
+            new Object[] { 3, 3, 2, 2, 5, 5, 7 },
+            List.of(new ColumnIdent("z"), new ColumnIdent("x"), new ColumnIdent("y")),
+            rows
+        );
+    }
 }
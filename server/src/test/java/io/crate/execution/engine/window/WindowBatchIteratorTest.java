@@ -115,6 +115,28 @@ public class WindowBatchIteratorTest {
         tester.verifyResultAndEdgeCaseBehaviour(expectedRowNumberResult);
     }
 
+    @Test
+    public void test_window_batch_iterator_with_sorted_input_computes_one_partition_at_a_time() throws Exception {
+        // partition by IC0 / 3
+        Comparator<Object[]> cmpPartitionBy = Comparator.comparingInt(cells -> (int) cells[0] / 3);
+        List<Object[]> expectedResult = IntStream.range(0, 10)
+            .mapToObj(l -> new Object[]{l, l % 3 + 1}).collect(toList());
+        var tester = BatchIteratorTester.forRows(
+            () -> WindowFunctionBatchIterator.ofSortedInput(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 4, 2, null),
+                new IgnoreRowAccounting(),
+                getComputeFrameStart(null, FrameBound.Type.UNBOUNDED_PRECEDING),
+                getComputeFrameEnd(null, FrameBound.Type.CURRENT_ROW),
+                cmpPartitionBy,
+                1,
+                Collections.singletonList(rowNumberWindowFunction()),
+                Collections.emptyList(),
+                new Boolean[]{null},
+                new Input[0])
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
     @Test
     public void testFrameBoundsEmptyWindow() throws Exception {
         var rows = IntStream.range(0, 10).mapToObj(i -> new Object[]{i, null}).collect(toList());
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.Streamer;
+import io.crate.data.ArrayBucket;
+import io.crate.data.Bucket;
+import io.crate.data.CollectionBucket;
+import io.crate.data.testing.TestingRowConsumer;
+import io.crate.execution.engine.distribution.DistributedResultRequest;
+import io.crate.execution.engine.distribution.merge.PagingIterator;
+import io.crate.execution.engine.distribution.merge.PassThroughPagingIterator;
+import io.crate.testing.TestingHelpers;
+
+public class SequencedPageBucketReceiverTest extends ESTestCase {
+
+    private static PageBucketReceiver receiver(TestingRowConsumer consumer, boolean sorted, int numBuckets) {
+        return new SequencedPageBucketReceiver(new CumulativePageBucketReceiver(
+            "n1",
+            1,
+            Runnable::run,
+            new Streamer[1],
+            consumer,
+            sorted
+                ? PagingIterator.createSorted(Comparator.comparingInt(r -> (int) r.get(0)), false)
+                : PassThroughPagingIterator.oneShot(),
+            numBuckets
+        ));
+    }
+
+    @Test
+    public void test_pages_arriving_out_of_order_are_processed_in_order() throws Exception {
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        PageBucketReceiver receiver = receiver(consumer, true, 2);
+
+        List<Boolean> responses = new ArrayList<>();
+        receiver.setBucket(0, 2, new ArrayBucket(new Object[][] {{3}}), true, responses::add);
+        receiver.setBucket(0, 1, new ArrayBucket(new Object[][] {{2}, {2}}), false, responses::add);
+        assertThat(responses).isEmpty();
+
+        receiver.setBucket(1, 0, new ArrayBucket(new Object[][] {{4}}), true, responses::add);
+        receiver.setBucket(0, 0, new ArrayBucket(new Object[][] {{1}, {1}}), false, responses::add);
+
+        List<Object[]> result = consumer.getResult();
+        assertThat(TestingHelpers.printedTable(new CollectionBucket(result))).isEqualTo(
+            "1\n" +
+            "1\n" +
+            "2\n" +
+            "2\n" +
+            "3\n" +
+            "4\n");
+        assertThat(responses).containsExactlyInAnyOrder(true, true, false, false);
+    }
+
+    @Test
+    public void test_buffered_pages_are_released_on_kill() throws Exception {
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        PageBucketReceiver receiver = receiver(consumer, false, 2);
+
+        List<Boolean> responses = new ArrayList<>();
+        receiver.setBucket(0, 1, Bucket.EMPTY, false, responses::add);
+        receiver.setBucket(0, 2, Bucket.EMPTY, true, responses::add);
+        assertThat(responses).isEmpty();
+
+        receiver.kill(new InterruptedException("killed"));
+        assertThat(responses).containsExactly(false, false);
+
+        receiver.setBucket(0, 0, Bucket.EMPTY, false, responses::add);
+        assertThat(responses).containsExactly(false, false, false);
+    }
+
+    @Test
+    public void test_unsequenced_pages_are_passed_through() throws Exception {
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        PageBucketReceiver receiver = receiver(consumer, false, 1);
+
+        List<Boolean> responses = new ArrayList<>();
+        receiver.setBucket(0, DistributedResultRequest.UNSEQUENCED, new ArrayBucket(new Object[][] {{1}}), true, responses::add);
+
+        assertThat(consumer.getResult()).hasSize(1);
+        assertThat(responses).containsExactly(false);
+    }
+}
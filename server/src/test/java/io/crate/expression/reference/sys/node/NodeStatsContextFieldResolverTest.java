@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.UnknownHostException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -49,6 +50,7 @@ import org.junit.Test;
 
 import io.crate.execution.engine.collect.NestableCollectExpression;
 import io.crate.metadata.ColumnIdent;
+import io.crate.memory.OffHeapMemoryStats;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.monitor.ExtendedNodeInfo;
@@ -81,7 +83,8 @@ public class NodeStatsContextFieldResolverTest {
             () -> new ConnectionStats(2L, 4L),
             () -> postgresAddress,
             () -> 12L,
-            () -> 1L
+            () -> 1L,
+            () -> new OffHeapMemoryStats(2048L, 8192L, 5L)
         );
     }
 
@@ -128,6 +131,42 @@ public class NodeStatsContextFieldResolverTest {
         assertThat(total.value(), is(4L));
     }
 
+    @Test
+    public void test_off_heap_memory_stats_can_be_retrieved() {
+        NodeStatsContext statsContext = resolver.forTopColumnIdents(List.of(SysNodesTableInfo.Columns.OFF_HEAP));
+        RowCollectExpressionFactory<NodeStatsContext> expressionFactory =
+            SysNodesTableInfo.create().expressions().get(SysNodesTableInfo.Columns.OFF_HEAP);
+        NestableCollectExpression<NodeStatsContext, ?> expression = expressionFactory.create();
+
+        NestableCollectExpression used = (NestableCollectExpression) expression.getChild("used");
+        used.setNextRow(statsContext);
+        assertThat(used.value(), is(2048L));
+
+        NestableCollectExpression reserved = (NestableCollectExpression) expression.getChild("reserved");
+        reserved.setNextRow(statsContext);
+        assertThat(reserved.value(), is(8192L));
+
+        NestableCollectExpression allocations = (NestableCollectExpression) expression.getChild("allocations");
+        allocations.setNextRow(statsContext);
+        assertThat(allocations.value(), is(5L));
+    }
+
+    @Test
+    public void test_off_heap_memory_stats_are_null_if_node_does_not_provide_them() {
+        // Nodes before 5.5.0 don't send off-heap stats
+        NodeStatsContext statsContext = new NodeStatsContext("id", "name");
+        RowCollectExpressionFactory<NodeStatsContext> expressionFactory =
+            SysNodesTableInfo.create().expressions().get(SysNodesTableInfo.Columns.OFF_HEAP);
+        NestableCollectExpression<NodeStatsContext, ?> expression = expressionFactory.create();
+
+        expression.setNextRow(statsContext);
+        assertThat(expression.value(), is(nullValue()));
+
+        NestableCollectExpression used = (NestableCollectExpression) expression.getChild("used");
+        used.setNextRow(statsContext);
+        assertThat(used.value(), is(nullValue()));
+    }
+
     @Test
     public void testNumberOfTransportConnectionsCanBeRetrieved() {
         // tests the resolver and the expression
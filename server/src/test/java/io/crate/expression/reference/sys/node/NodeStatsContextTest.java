@@ -48,6 +48,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import io.crate.monitor.ExtendedNodeInfo;
+import io.crate.memory.OffHeapMemoryStats;
 
 public class NodeStatsContextTest extends ESTestCase {
 
@@ -87,6 +88,7 @@ public class NodeStatsContextTest extends ESTestCase {
         ctx1.extendedOsStats(extendedNodeInfo.osStats());
         ctx1.threadPools(threadPool.stats());
         ctx1.clusterStateVersion(10L);
+        ctx1.offHeapStats(new OffHeapMemoryStats(1024L, 4096L, 3L));
 
         ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
         StreamOutput out = new OutputStreamStreamOutput(outBuffer);
@@ -113,6 +115,9 @@ public class NodeStatsContextTest extends ESTestCase {
         assertThat(ctx1.extendedOsStats().uptime(), is(ctx2.extendedOsStats().uptime()));
         assertThat(ctx1.threadPools().iterator().next().getActive(), is(ctx2.threadPools().iterator().next().getActive()));
         assertThat(ctx1.clusterStateVersion(), is(ctx2.clusterStateVersion()));
+        assertThat(ctx2.offHeapStats().used(), is(1024L));
+        assertThat(ctx2.offHeapStats().reserved(), is(4096L));
+        assertThat(ctx2.offHeapStats().allocations(), is(3L));
     }
 
     @Test
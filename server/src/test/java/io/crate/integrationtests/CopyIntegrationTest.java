@@ -100,6 +100,22 @@ public class CopyIntegrationTest extends SQLHttpIntegrationTest {
         assertThat(response.rows()[0][0]).isEqualTo("Don't pa\u00f1ic.");
     }
 
+    @Test
+    public void test_copy_from_parquet_file() {
+        execute("create table quotes (id int primary key, " +
+                "quote string index using fulltext) with (number_of_replicas = 0)");
+
+        execute("copy quotes from ?", new Object[] {copyFilePath + "test_copy_from.parquet"});
+        assertThat(response).hasRowCount(3L);
+        refresh();
+
+        execute("select id, quote from quotes order by id");
+        assertThat(response).hasRows(
+            "1| Don't pa\u00f1ic.",
+            "2| Would it save you a lot of time if I just gave up and went mad now?",
+            "3| Time is an illusion. Lunchtime doubly so.");
+    }
+
     @Test
     public void testCopyFromFileWithCSVOption() {
         execute("create table quotes (id int primary key, " +
@@ -438,6 +454,35 @@ public class CopyIntegrationTest extends SQLHttpIntegrationTest {
         }
     }
 
+    @Test
+    public void test_copy_to_parquet_and_copy_from_the_written_files() throws Exception {
+        execute("create table t (id int, name text, ts timestamp with time zone, tags array(text), " +
+                "o object as (x int)) clustered into 2 shards with (number_of_replicas = 0)");
+        execute("insert into t (id, name, ts, tags, o) values " +
+                "(1, 'Arthur', '2023-01-02T10:00:00.123Z', ['a', 'b'], {x=10}), " +
+                "(2, null, null, [], null), " +
+                "(3, 'Trillian', 0, null, {x=null})");
+        refresh();
+
+        String uriTemplate = Paths.get(folder.getRoot().toURI()).toUri().toString();
+        execute("copy t to directory ? with (format = 'parquet', compression = 'gzip')", new Object[]{uriTemplate});
+        assertThat(response).hasRowCount(3L);
+        for (String file : folder.getRoot().list()) {
+            assertThat(file).startsWith("t_").endsWith(".parquet");
+        }
+
+        execute("create table t2 (id int, name text, ts timestamp with time zone, tags array(text), " +
+                "o object as (x int)) with (number_of_replicas = 0)");
+        execute("copy t2 from ? with (wait_for_completion = true)", new Object[]{uriTemplate + "*.parquet"});
+        assertThat(response).hasRowCount(3L);
+        refresh();
+        execute("select id, name, ts, tags, o from t2 order by id");
+        assertThat(response).hasRows(
+            "1| Arthur| 1672653600123| [a, b]| {x=10}",
+            "2| NULL| NULL| []| NULL",
+            "3| Trillian| 0| NULL| {x=NULL}");
+    }
+
     @Test
     public void testCopyToWithCompression() throws Exception {
         execute("create table singleshard (name string) clustered into 1 shards with (number_of_replicas = 0)");
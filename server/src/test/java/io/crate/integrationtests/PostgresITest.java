@@ -27,6 +27,8 @@ import static io.crate.protocols.postgres.PostgresNetty.PSQL_PORT_SETTING;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.sql.Array;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
@@ -54,7 +56,10 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
+import org.postgresql.PGConnection;
 import org.postgresql.PGProperty;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.geometric.PGpoint;
 import org.postgresql.jdbc.PreferQueryMode;
 import org.postgresql.util.PGobject;
@@ -1210,6 +1215,38 @@ public class PostgresITest extends IntegTestCase {
         }
     }
 
+    @Test
+    public void test_copy_from_stdin_and_to_stdout() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().executeUpdate("create table tbl (id int, name text) with (number_of_replicas = 0)");
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+
+            long numImported = copyManager.copyIn(
+                "COPY tbl FROM STDIN",
+                new StringReader("{\"id\": 1, \"name\": \"Arthur\"}\n{\"id\": 2, \"name\": \"Trillian\"}\n"));
+            assertThat(numImported).isEqualTo(2L);
+            numImported = copyManager.copyIn(
+                "COPY tbl FROM STDIN WITH (format = 'csv')",
+                new StringReader("id,name\n3,Marvin\n"));
+            assertThat(numImported).isEqualTo(1L);
+            conn.createStatement().execute("refresh table tbl");
+
+            StringWriter out = new StringWriter();
+            long numExported = copyManager.copyOut("COPY tbl (id, name) TO STDOUT WITH (format = 'json_object')", out);
+            assertThat(numExported).isEqualTo(3L);
+            assertThat(out.toString().lines().sorted()).containsExactly(
+                "{\"id\":1,\"name\":\"Arthur\"}",
+                "{\"id\":2,\"name\":\"Trillian\"}",
+                "{\"id\":3,\"name\":\"Marvin\"}"
+            );
+
+            // The connection remains usable after the client aborted a COPY
+            CopyIn copyIn = copyManager.copyIn("COPY tbl FROM STDIN");
+            copyIn.cancelCopy();
+            assertSelectNameFromSysClusterWorks(conn);
+        }
+    }
+
     private long getNumQueriesFromJobsLogs() {
         long result = 0;
         Iterable<JobsLogs> jobLogs = cluster().getInstances(JobsLogs.class);
@@ -33,6 +33,7 @@ import org.junit.Test;
 
 import io.crate.metadata.RelationName;
 import io.crate.statistics.TableStats;
+import io.crate.statistics.TableStatsService;
 
 
 @IntegTestCase.ClusterScope(supportsDedicatedMasters = false, numDataNodes = 2, numClientNodes = 0)
@@ -62,4 +63,15 @@ public class TableStatsServiceIntegrationTest extends IntegTestCase {
             // to run this test.
         }, 5, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void test_num_docs_change_check_ignores_tables_without_stats() throws Exception {
+        execute("create table t2 (a int) with (number_of_replicas = 0)");
+        execute("create blob table b1 with (number_of_replicas = 0)");
+        ensureYellow();
+
+        execute(TableStatsService.NUM_DOCS_STMT);
+        assertThat(response.rowCount(), is(1L));
+        assertThat(response.rows()[0][1], is("t2"));
+    }
 }
@@ -24,6 +24,8 @@ package io.crate.memory;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.junit.Test;
 
 import io.netty.buffer.ByteBuf;
@@ -32,10 +34,30 @@ public class OffHeapMemoryManagerTest {
 
     @Test
     public void test_allocated_buffers_are_released_on_close() {
-        var memoryManager = new OffHeapMemoryManager();
+        var memoryManager = new OffHeapMemoryManager(new OffHeapMemoryPool(), bytes -> {});
         ByteBuf buf1 = memoryManager.allocate(20);
         buf1.retain();
         memoryManager.close();
         assertThat("ref count must reach 0 now", buf1.release(), is(true));
     }
+
+    @Test
+    public void test_allocations_are_accounted_and_returned_to_the_pool_on_close() {
+        var pool = new OffHeapMemoryPool();
+        var accountedBytes = new AtomicLong();
+        var memoryManager = new OffHeapMemoryManager(pool, accountedBytes::addAndGet);
+        memoryManager.allocate(1024);
+        memoryManager.allocate(2048);
+
+        assertThat(accountedBytes.get(), is(3072L));
+        OffHeapMemoryStats stats = pool.stats();
+        assertThat(stats.used(), is(3072L));
+        assertThat(stats.allocations(), is(2L));
+        assertThat(stats.reserved() >= 3072L, is(true));
+
+        memoryManager.close();
+        stats = pool.stats();
+        assertThat(stats.used(), is(0L));
+        assertThat("pooled memory is kept for re-use", stats.reserved() >= 3072L, is(true));
+    }
 }
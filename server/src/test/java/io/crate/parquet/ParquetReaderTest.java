@@ -0,0 +1,194 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.collect.files.LocalFsFileInput;
+
+public class ParquetReaderTest extends ESTestCase {
+
+    private static List<Map<String, Object>> readAll(URI uri, Collection<String> columns) throws IOException {
+        ParquetReader reader = new ParquetReader(new LocalFsFileInput(uri), uri, columns, RamAccounting.NO_ACCOUNTING);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        LinkedHashMap<String, Object> row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private URI types() throws Exception {
+        return getClass().getResource("/essetup/data/parquet/types.parquet").toURI();
+    }
+
+    @Test
+    public void test_reads_all_rows_of_all_row_groups_with_converted_values() throws Exception {
+        // The file contains two row groups, the first one uses SNAPPY and v1 data pages,
+        // the second one GZIP and v2 data pages.
+        List<Map<String, Object>> rows = readAll(types(), List.of());
+        assertThat(rows).hasSize(4);
+
+        Map<String, Object> first = rows.get(0);
+        assertThat(first.keySet()).containsExactly("id", "name", "ts", "day", "price", "tags", "o", "empty", "flag");
+        assertThat(first.get("id")).isEqualTo(1);
+        assertThat(first.get("name")).isEqualTo("Arthur");
+        // TIMESTAMP(MICROS) is truncated to milliseconds
+        assertThat(first.get("ts")).isEqualTo(1600000000123L);
+        // DATE is converted to milliseconds since epoch
+        assertThat(first.get("day")).isEqualTo(19000 * 86_400_000L);
+        assertThat(first.get("price")).isEqualTo(new BigDecimal("12.34"));
+        assertThat(first.get("tags")).isEqualTo(List.of("a", "b"));
+        assertThat(first.get("o")).isEqualTo(Map.of("x", 10L, "flag", true));
+        assertThat(first.get("empty")).isNull();
+        assertThat(first.get("flag")).isEqualTo(true);
+
+        Map<String, Object> second = rows.get(1);
+        assertThat(second.get("name")).isNull();
+        assertThat(second.get("tags")).isEqualTo(List.of());
+        assertThat(second.get("o")).isNull();
+        assertThat(second.get("flag")).isEqualTo(false);
+
+        Map<String, Object> third = rows.get(2);
+        assertThat(third.get("ts")).isEqualTo(-1L);
+        assertThat(third.get("price")).isEqualTo(new BigDecimal("-0.05"));
+        assertThat(third.get("tags")).isNull();
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("x", null);
+        o.put("flag", false);
+        assertThat(third.get("o")).isEqualTo(o);
+
+        Map<String, Object> fourth = rows.get(3);
+        assertThat(fourth.get("name")).isEqualTo("Arthur");
+        assertThat(fourth.get("tags")).isEqualTo(Arrays.asList("c", null));
+    }
+
+    @Test
+    public void test_reads_only_selected_columns() throws Exception {
+        List<Map<String, Object>> rows = readAll(types(), List.of("id", "o", "unknown"));
+        assertThat(rows).hasSize(4);
+        assertThat(rows.get(0)).containsOnlyKeys("id", "o");
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("x", -7L);
+        o.put("flag", null);
+        assertThat(rows.get(3).get("o")).isEqualTo(o);
+    }
+
+    @Test
+    public void test_column_chunks_of_the_current_row_group_are_accounted() throws Exception {
+        URI uri = types();
+        AtomicLong usedBytes = new AtomicLong();
+        AtomicLong peakBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(
+            bytes -> peakBytes.accumulateAndGet(usedBytes.addAndGet(bytes), Math::max),
+            bytes -> {},
+            "test",
+            0
+        );
+        ParquetReader reader = new ParquetReader(new LocalFsFileInput(uri), uri, List.of(), ramAccounting);
+        assertThat(usedBytes.get()).isEqualTo(0L);
+
+        // The file contains two row groups with two rows each
+        List<Long> bytesPerRow = new ArrayList<>();
+        while (reader.next() != null) {
+            bytesPerRow.add(usedBytes.get());
+        }
+        assertThat(bytesPerRow).hasSize(4);
+        assertThat(bytesPerRow.get(0)).isGreaterThan(0L).isEqualTo(bytesPerRow.get(1));
+        // The chunks of the first row group are released when the second one is opened
+        assertThat(bytesPerRow.get(2)).isGreaterThan(0L).isEqualTo(bytesPerRow.get(3));
+        assertThat(peakBytes.get()).isEqualTo(Math.max(bytesPerRow.get(0), bytesPerRow.get(2)));
+        assertThat(ramAccounting.totalBytes()).isEqualTo(bytesPerRow.get(3));
+
+        reader.close();
+        assertThat(usedBytes.get()).isEqualTo(0L);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    public void test_reading_fails_if_the_column_chunks_exceed_the_memory_limit() throws Exception {
+        URI uri = types();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(bytes -> {}, bytes -> {}, "test", 16);
+        ParquetReader reader = new ParquetReader(new LocalFsFileInput(uri), uri, List.of(), ramAccounting);
+        assertThatThrownBy(reader::next)
+            .isExactlyInstanceOf(CircuitBreakingException.class);
+        reader.close();
+        assertThat(ramAccounting.totalBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_reading_a_file_which_is_not_a_parquet_file_fails() throws Exception {
+        Path file = createTempFile("data", ".parquet");
+        Files.writeString(file, "{\"id\": 1}\n{\"id\": 2}\n");
+        URI uri = file.toUri();
+        assertThatThrownBy(() -> readAll(uri, List.of()))
+            .isExactlyInstanceOf(IOException.class)
+            .hasMessageContaining("is not a Parquet file");
+    }
+
+    @Test
+    public void test_reading_from_an_input_without_range_reads_fails() throws Exception {
+        URI uri = types();
+        LocalFsFileInput input = new LocalFsFileInput(uri) {
+
+            @Override
+            public long size(URI uri) {
+                return -1;
+            }
+        };
+        assertThatThrownBy(() -> new ParquetReader(input, uri, List.of(), RamAccounting.NO_ACCOUNTING))
+            .isExactlyInstanceOf(IOException.class)
+            .hasMessageContaining("Parquet files can only be read from inputs which support range reads");
+    }
+
+    @Test
+    public void test_reads_file_with_dictionary_encoded_snappy_compressed_strings() throws Exception {
+        URI uri = Paths.get(getClass().getResource("/essetup/data/copy/test_copy_from.parquet").toURI()).toUri();
+        List<Map<String, Object>> rows = readAll(uri, List.of());
+        assertThat(rows).containsExactly(
+            Map.of("id", 1, "quote", "Don't pa\u00f1ic."),
+            Map.of("id", 2, "quote", "Would it save you a lot of time if I just gave up and went mad now?"),
+            Map.of("id", 3, "quote", "Time is an illusion. Lunchtime doubly so.")
+        );
+    }
+}
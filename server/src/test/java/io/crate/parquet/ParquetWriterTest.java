@@ -0,0 +1,206 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.data.Input;
+import io.crate.data.breaker.BlockBasedRamAccounting;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.collect.files.LocalFsFileInput;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+public class ParquetWriterTest extends ESTestCase {
+
+    private static void write(Path file,
+                              List<String> names,
+                              List<DataType<?>> types,
+                              boolean gzip,
+                              long rowGroupSize,
+                              RamAccounting ramAccounting,
+                              List<Object[]> rows) throws IOException {
+        Object[] current = new Object[names.size()];
+        List<Input<?>> inputs = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            int idx = i;
+            inputs.add(() -> current[idx]);
+        }
+        try (ParquetWriter writer = new ParquetWriter(Files.newOutputStream(file), names, types, gzip, rowGroupSize, ramAccounting)) {
+            for (Object[] row : rows) {
+                System.arraycopy(row, 0, current, 0, row.length);
+                writer.write(inputs);
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> readAll(Path file) throws IOException {
+        URI uri = file.toUri();
+        ParquetReader reader = new ParquetReader(new LocalFsFileInput(uri), uri, List.of(), RamAccounting.NO_ACCOUNTING);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        LinkedHashMap<String, Object> row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    public void test_written_values_can_be_read_back() throws Exception {
+        Path file = createTempFile("out", ".parquet");
+        List<String> names = List.of("id", "flag", "name", "ts", "day", "score", "tags", "o", "tiny");
+        List<DataType<?>> types = List.of(
+            DataTypes.INTEGER,
+            DataTypes.BOOLEAN,
+            DataTypes.STRING,
+            DataTypes.TIMESTAMPZ,
+            DataTypes.DATE,
+            DataTypes.DOUBLE,
+            new ArrayType<>(DataTypes.LONG),
+            DataTypes.UNTYPED_OBJECT,
+            DataTypes.SHORT
+        );
+        List<Object[]> rows = List.of(
+            new Object[] { 1, true, "Arthur", 1600000000123L, 19000 * 86_400_000L, 1.5, List.of(1L, 2L), Map.of("x", 10), (short) 3 },
+            new Object[] { 2, false, null, -1L, null, null, List.of(), null, null },
+            new Object[] { null, null, "Arthur", null, 0L, -0.25, Arrays.asList(3L, null), Map.of("x", List.of("a")), (short) -3 }
+        );
+        write(file, names, types, false, 1024 * 1024, RamAccounting.NO_ACCOUNTING, rows);
+
+        List<Map<String, Object>> result = readAll(file);
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0)).containsExactly(
+            Map.entry("id", 1),
+            Map.entry("flag", true),
+            Map.entry("name", "Arthur"),
+            Map.entry("ts", 1600000000123L),
+            Map.entry("day", 19000 * 86_400_000L),
+            Map.entry("score", 1.5),
+            Map.entry("tags", List.of(1L, 2L)),
+            Map.entry("o", Map.of("x", 10)),
+            Map.entry("tiny", 3)
+        );
+        Map<String, Object> second = result.get(1);
+        assertThat(second.get("name")).isNull();
+        assertThat(second.get("ts")).isEqualTo(-1L);
+        assertThat(second.get("tags")).isEqualTo(List.of());
+        assertThat(second.get("o")).isNull();
+        Map<String, Object> third = result.get(2);
+        assertThat(third.get("id")).isNull();
+        assertThat(third.get("flag")).isNull();
+        assertThat(third.get("tags")).isEqualTo(Arrays.asList(3L, null));
+        assertThat(third.get("o")).isEqualTo(Map.of("x", List.of("a")));
+        assertThat(third.get("tiny")).isEqualTo(-3);
+    }
+
+    @Test
+    public void test_writes_multiple_row_groups_and_falls_back_to_plain_encoding() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        int numRows = 60_000;
+        for (int i = 0; i < numRows; i++) {
+            // The first half uses only a few distinct values, the second half
+            // exceeds the maximum dictionary size of a column chunk
+            String value = i < numRows / 2 ? "value-" + (i % 10) : "unique-value-" + i + "-" + "x".repeat(i % 64);
+            rows.add(new Object[] { (long) i, value });
+        }
+        for (long rowGroupSize : new long[] { 64 * 1024, 16 * 1024 * 1024 }) {
+            Path file = createTempFile("out", ".parquet");
+            write(file, List.of("id", "value"), List.of(DataTypes.LONG, DataTypes.STRING), true, rowGroupSize, RamAccounting.NO_ACCOUNTING, rows);
+
+            List<Map<String, Object>> result = readAll(file);
+            assertThat(result).hasSize(numRows);
+            for (int i = 0; i < numRows; i++) {
+                assertThat(result.get(i)).containsExactly(Map.entry("id", rows.get(i)[0]), Map.entry("value", rows.get(i)[1]));
+            }
+        }
+    }
+
+    @Test
+    public void test_file_without_rows_is_a_valid_parquet_file() throws Exception {
+        Path file = createTempFile("out", ".parquet");
+        write(file, List.of("id"), List.of(DataTypes.INTEGER), false, 1024, RamAccounting.NO_ACCOUNTING, List.of());
+        assertThat(readAll(file)).isEmpty();
+    }
+
+    @Test
+    public void test_row_group_is_written_early_if_the_circuit_breaker_trips() throws Exception {
+        long limit = 256 * 1024;
+        AtomicLong usedBytes = new AtomicLong();
+        AtomicLong trips = new AtomicLong();
+        RamAccounting ramAccounting = new BlockBasedRamAccounting(
+            bytes -> {
+                if (usedBytes.get() + bytes > limit) {
+                    trips.incrementAndGet();
+                    throw new CircuitBreakingException("Too much memory");
+                }
+                usedBytes.addAndGet(bytes);
+            },
+            1024
+        );
+        List<Object[]> rows = new ArrayList<>();
+        int numRows = 20_000;
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new Object[] { (long) i, "value-" + i });
+        }
+        Path file = createTempFile("out", ".parquet");
+        write(file, List.of("id", "value"), List.of(DataTypes.LONG, DataTypes.STRING), false, 64 * 1024 * 1024, ramAccounting, rows);
+        assertThat(trips.get()).isGreaterThan(0L);
+        assertThat(ramAccounting.totalBytes()).isEqualTo(0L);
+
+        List<Map<String, Object>> result = readAll(file);
+        assertThat(result).hasSize(numRows);
+        for (int i = 0; i < numRows; i++) {
+            assertThat(result.get(i)).containsExactly(Map.entry("id", rows.get(i)[0]), Map.entry("value", rows.get(i)[1]));
+        }
+    }
+
+    @Test
+    public void test_circuit_breaker_exception_is_raised_if_a_single_row_exceeds_the_limit() throws Exception {
+        RamAccounting ramAccounting = new BlockBasedRamAccounting(
+            bytes -> {
+                throw new CircuitBreakingException("Too much memory");
+            },
+            1024
+        );
+        Path file = createTempFile("out", ".parquet");
+        List<Object[]> rows = List.<Object[]>of(new Object[] { "x".repeat(4096) });
+        assertThatThrownBy(() -> write(file, List.of("value"), List.of(DataTypes.STRING), false, 1024, ramAccounting, rows))
+            .isExactlyInstanceOf(CircuitBreakingException.class);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.parquet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+public class ThriftCompactProtocolTest extends ESTestCase {
+
+    @Test
+    public void test_write_and_read_struct() throws Exception {
+        ThriftStruct nested = new ThriftStruct();
+        nested.set(1, 42L);
+        ThriftStruct struct = new ThriftStruct();
+        struct.set(1, 10);
+        struct.set(2, "foo");
+        struct.set(20, List.of(nested));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThriftCompactProtocol.writeStruct(struct, out);
+
+        ThriftStruct read = ThriftCompactProtocol.readStruct(ByteBuffer.wrap(out.toByteArray()));
+        assertThat(read.getInt(1, -1)).isEqualTo(10);
+        assertThat(read.getString(2)).isEqualTo("foo");
+        List<ThriftStruct> list = read.getList(20);
+        assertThat(list).hasSize(1);
+        assertThat(list.get(0).getLong(1, -1L)).isEqualTo(42L);
+    }
+
+    @Test
+    public void test_binary_length_exceeding_the_buffer_fails() throws Exception {
+        // field 1 of type binary with a length of Integer.MAX_VALUE but without any data
+        byte[] bytes = new byte[] { 0x18, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+        assertThatThrownBy(() -> ThriftCompactProtocol.readStruct(ByteBuffer.wrap(bytes)))
+            .isExactlyInstanceOf(IOException.class)
+            .hasMessage("Invalid Parquet metadata: length 2147483647 exceeds the remaining 0 bytes");
+    }
+
+    @Test
+    public void test_list_size_exceeding_the_buffer_fails() throws Exception {
+        // field 1 of type list with i32 elements and a size of 1000 but without any elements
+        byte[] bytes = new byte[] { 0x19, (byte) 0xF5, (byte) 0xE8, 0x07 };
+        assertThatThrownBy(() -> ThriftCompactProtocol.readStruct(ByteBuffer.wrap(bytes)))
+            .isExactlyInstanceOf(IOException.class)
+            .hasMessage("Invalid Parquet metadata: length 1000 exceeds the remaining 0 bytes");
+    }
+}
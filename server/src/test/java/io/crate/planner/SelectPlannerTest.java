@@ -981,6 +981,23 @@ public class SelectPlannerTest extends CrateDummyClusterServiceUnitTest {
         assertThat(collect.nodeIds()).hasSize(2);
     }
 
+    @Test
+    public void test_window_function_with_partition_by_requests_sorted_input_from_collect() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService, 2, RandomizedTest.getRandom(), List.of())
+            .addTable(TableDefinitions.USER_TABLE_DEFINITION)
+            .build();
+
+        Merge localMerge = e.plan("select sum(ints) OVER (partition by name order by id) from users");
+        Merge distMerge = (Merge) localMerge.subPlan();
+        assertThat(distMerge.mergePhase().orderByPositions()).isNotNull();
+        assertThat(distMerge.mergePhase().projections().get(0)).isExactlyInstanceOf(WindowAggProjection.class);
+        WindowAggProjection windowAggProjection = (WindowAggProjection) distMerge.mergePhase().projections().get(0);
+        assertThat(windowAggProjection.isInputSorted()).isTrue();
+
+        Collect collect = (Collect) distMerge.subPlan();
+        assertThat(((RoutedCollectPhase) collect.collectPhase()).orderBy()).isNotNull();
+    }
+
     @Test
     public void testSeqNoAndPrimaryTermFilteringRequirePrimaryKey() throws Exception {
         SQLExecutor e = SQLExecutor.builder(clusterService, 2, RandomizedTest.getRandom(), List.of())
@@ -24,6 +24,7 @@ package io.crate.planner.distribution;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
@@ -56,4 +57,48 @@ public class DistributionInfoTest extends ESTestCase {
 
         assertThat(streamed, equalTo(distributionInfo));
     }
+
+    @Test
+    public void test_streaming_composite_key_with_skew_handling() throws Exception {
+        DistributionInfo distributionInfo = new DistributionInfo(
+            DistributionType.MODULO,
+            new int[] { 2, 0 },
+            SkewHandling.SPLIT,
+            new int[] { -20, 3, 42 }
+        );
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        distributionInfo.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        DistributionInfo streamed = new DistributionInfo(in);
+
+        assertThat(streamed, equalTo(distributionInfo));
+    }
+
+    @Test
+    public void test_streaming_single_column_to_node_before_5_5_0() throws Exception {
+        DistributionInfo distributionInfo = new DistributionInfo(DistributionType.MODULO, 3);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_4_0);
+        distributionInfo.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_4_0);
+        DistributionInfo streamed = new DistributionInfo(in);
+
+        assertThat(streamed, equalTo(distributionInfo));
+    }
+
+    @Test
+    public void test_modulo_falls_back_to_first_column_if_nodes_before_5_5_0_are_present() throws Exception {
+        int[] columns = new int[] { 1, 2 };
+        assertThat(
+            DistributionInfo.modulo(columns, Version.V_5_4_0),
+            equalTo(new DistributionInfo(DistributionType.MODULO, 1)));
+        assertThat(
+            DistributionInfo.modulo(columns, Version.V_5_5_0).distributeByColumns(),
+            equalTo(columns));
+    }
 }
@@ -72,6 +72,7 @@ public class ResetSettingsPlanTest extends ESTestCase {
             .put("stats.jobs_log_persistent_filter", (String) null)
             .put("stats.operations_log_size", (String) null)
             .put("stats.operations_log_expiration", (String) null)
+            .put("stats.service.change_check_interval", (String) null)
             .put("stats.service.interval", (String) null)
             .put("stats.service.max_bytes_per_sec", (String) null)
             .build();
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.optimizer.rule;
+
+import static io.crate.testing.Asserts.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.JoinPlan;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.optimizer.costs.PlanStats;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.sql.tree.JoinType;
+import io.crate.statistics.ColumnStats;
+import io.crate.statistics.MostCommonValues;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.types.DataTypes;
+
+public class ReorderJoinsByCostTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private Collect a;
+    private Collect b;
+    private Collect c;
+    private DocTableInfo aDoc;
+    private DocTableInfo bDoc;
+    private DocTableInfo cDoc;
+    private TableStats tableStats;
+
+    @Before
+    public void prepare() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table a (x int)")
+            .addTable("create table b (y int)")
+            .addTable("create table c (z int)")
+            .build();
+
+        aDoc = e.resolveTableInfo("a");
+        bDoc = e.resolveTableInfo("b");
+        cDoc = e.resolveTableInfo("c");
+
+        a = new Collect(new DocTableRelation(aDoc), List.of(e.asSymbol("x")), WhereClause.MATCH_ALL);
+        b = new Collect(new DocTableRelation(bDoc), List.of(e.asSymbol("y")), WhereClause.MATCH_ALL);
+        c = new Collect(new DocTableRelation(cDoc), List.of(e.asSymbol("z")), WhereClause.MATCH_ALL);
+
+        tableStats = new TableStats();
+        tableStats.updateTableStats(Map.of(
+            aDoc.ident(), stats("x", 1000),
+            bDoc.ident(), stats("y", 1000),
+            cDoc.ident(), stats("z", 10)
+        ));
+    }
+
+    private static Stats stats(String column, long numDocs) {
+        Map<ColumnIdent, ColumnStats<?>> columnStats = Map.of(
+            new ColumnIdent(column),
+            new ColumnStats<>(
+                0,
+                DataTypes.INTEGER.fixedSize(),
+                numDocs,
+                DataTypes.INTEGER,
+                MostCommonValues.EMPTY,
+                List.of()
+            )
+        );
+        return new Stats(numDocs, numDocs * DataTypes.INTEGER.fixedSize(), columnStats);
+    }
+
+    private LogicalPlan apply(JoinPlan join, TableStats tableStats) {
+        var rule = new ReorderJoinsByCost();
+        var match = rule.pattern().accept(join, Captures.empty());
+        assertThat(match.isPresent()).isTrue();
+        return rule.apply(
+            match.value(),
+            match.captures(),
+            new PlanStats(e.nodeCtx, CoordinatorTxnCtx.systemTransactionContext(), tableStats),
+            CoordinatorTxnCtx.systemTransactionContext(),
+            e.nodeCtx,
+            Function.identity()
+        );
+    }
+
+    @Test
+    public void test_join_with_the_smallest_intermediate_result_is_executed_first() throws Exception {
+        // a ⋈ b produces 1000 rows, b ⋈ c only 10 rows
+        var firstJoin = new JoinPlan(a, b, JoinType.INNER, e.asSymbol("a.x = b.y"));
+        var join = new JoinPlan(firstJoin, c, JoinType.INNER, e.asSymbol("b.y = c.z"));
+
+        var result = apply(join, tableStats);
+        assertThat(result).hasOperators(
+            "Eval[x, y, z]",
+            "  └ Join[INNER | (x = y)]",
+            "    ├ Join[INNER | (y = z)]",
+            "    │  ├ Collect[doc.c | [z] | true]",
+            "    │  └ Collect[doc.b | [y] | true]",
+            "    └ Collect[doc.a | [x] | true]"
+        );
+
+        // The re-ordered plan is already the cheapest
+        assertThat(apply((JoinPlan) result.sources().get(0), tableStats)).isNull();
+    }
+
+    @Test
+    public void test_join_order_is_kept_without_table_stats() throws Exception {
+        var firstJoin = new JoinPlan(a, b, JoinType.INNER, e.asSymbol("a.x = b.y"));
+        var join = new JoinPlan(firstJoin, c, JoinType.INNER, e.asSymbol("b.y = c.z"));
+
+        assertThat(apply(join, new TableStats())).isNull();
+    }
+
+    @Test
+    public void test_join_order_is_kept_for_non_equi_join_conditions_and_outer_joins() throws Exception {
+        var firstJoin = new JoinPlan(a, b, JoinType.INNER, e.asSymbol("a.x = b.y"));
+        var join = new JoinPlan(firstJoin, c, JoinType.INNER, e.asSymbol("b.y = c.z and a.x > c.z"));
+        assertThat(apply(join, tableStats)).isNull();
+
+        join = new JoinPlan(firstJoin, c, JoinType.LEFT, e.asSymbol("b.y = c.z"));
+        assertThat(apply(join, tableStats)).isNull();
+    }
+}
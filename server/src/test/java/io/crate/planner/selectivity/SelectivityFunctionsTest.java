@@ -23,6 +23,7 @@ package io.crate.planner.selectivity;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -212,4 +213,41 @@ public class SelectivityFunctionsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(estimate(stats, expressions.asSymbol("x >= 5"))).isEqualTo(9);
         assertThat(estimate(stats, expressions.asSymbol("x > null"))).isEqualTo(0);
     }
+
+    @Test
+    public void test_range_operators_use_histogram() throws Exception {
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        ColumnStats<Integer> xStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, numbers.size());
+        assertThat(xStats.mostCommonValues().isEmpty()).isTrue();
+        assertThat(xStats.histogram()).isNotEmpty();
+        Stats stats = new Stats(numbers.size(), DataTypes.INTEGER.fixedSize(), Map.of(new ColumnIdent("x"), xStats));
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+
+        assertThat(estimate(stats, expressions.asSymbol("x < 5000"))).isCloseTo(5000L, within(100L));
+        assertThat(estimate(stats, expressions.asSymbol("x >= 15000"))).isCloseTo(5000L, within(100L));
+        assertThat(estimate(stats, expressions.asSymbol("x > 0"))).isEqualTo(20_000L);
+        assertThat(estimate(stats, expressions.asSymbol("x > 30000"))).isEqualTo(0L);
+        assertThat(estimate(stats, expressions.asSymbol("x < ?"), new Row1(10_000)))
+            .isCloseTo(10_000L, within(100L));
+    }
+
+    @Test
+    public void test_lower_and_upper_bound_on_same_column_are_combined_to_range() throws Exception {
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        ColumnStats<Integer> xStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, numbers.size());
+        Stats stats = new Stats(numbers.size(), DataTypes.INTEGER.fixedSize(), Map.of(new ColumnIdent("x"), xStats));
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+
+        assertThat(estimate(stats, expressions.asSymbol("x > 5000 AND x < 6000"))).isCloseTo(1000L, within(100L));
+        assertThat(estimate(stats, expressions.asSymbol("x between 5000 AND 6000"))).isCloseTo(1000L, within(100L));
+        assertThat(estimate(stats, expressions.asSymbol("x > 5000 AND x > 10000 AND x < 11000")))
+            .isCloseTo(1000L, within(100L));
+        // Without stats the range uses a small default selectivity instead of MAGIC_SEL * MAGIC_SEL
+        Stats noColumnStats = new Stats(numbers.size(), DataTypes.INTEGER.fixedSize(), Map.of());
+        assertThat(estimate(noColumnStats, expressions.asSymbol("x > 5000 AND x < 6000"))).isEqualTo(100L);
+    }
 }
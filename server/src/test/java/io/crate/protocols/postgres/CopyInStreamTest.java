@@ -0,0 +1,91 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import io.crate.exceptions.JobKilledException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class CopyInStreamTest {
+
+    private static ByteBuf data(String data) {
+        return Unpooled.copiedBuffer(data, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void test_reads_the_data_of_all_messages_until_copy_done() throws Exception {
+        CopyInStream stream = new CopyInStream(new EmbeddedChannel());
+        stream.add(data("{\"x\": 1}\n{\"x\""));
+        stream.add(data(": 2}\n"));
+        stream.finish();
+
+        assertThat(new String(stream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"x\": 1}\n{\"x\": 2}\n");
+        assertThat(stream.read()).isEqualTo(-1);
+    }
+
+    @Test
+    public void test_copy_fail_is_raised_to_the_reader_and_releases_buffered_data() throws Exception {
+        CopyInStream stream = new CopyInStream(new EmbeddedChannel());
+        ByteBuf buffer = data("{\"x\": 1}\n");
+        stream.add(buffer);
+        stream.fail(JobKilledException.of("COPY FROM STDIN failed: aborted by user"));
+
+        assertThat(buffer.refCnt()).isEqualTo(0);
+        assertThatThrownBy(stream::read)
+            .isExactlyInstanceOf(JobKilledException.class)
+            .hasMessage("Job killed. COPY FROM STDIN failed: aborted by user");
+    }
+
+    @Test
+    public void test_data_added_after_close_is_released() throws Exception {
+        CopyInStream stream = new CopyInStream(new EmbeddedChannel());
+        stream.close();
+        ByteBuf buffer = data("{\"x\": 1}\n");
+        stream.add(buffer);
+        assertThat(buffer.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_reading_from_the_channel_is_paused_while_too_much_data_is_buffered() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        CopyInStream stream = new CopyInStream(channel);
+        stream.add(Unpooled.wrappedBuffer(new byte[CopyInStream.MAX_BUFFERED_BYTES]));
+        assertThat(channel.config().isAutoRead()).isTrue();
+
+        stream.add(data("\n"));
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        byte[] bytes = new byte[CopyInStream.MAX_BUFFERED_BYTES / 2 + 1];
+        assertThat(stream.read(bytes)).isEqualTo(bytes.length);
+        assertThat(channel.config().isAutoRead()).isTrue();
+        stream.close();
+    }
+}
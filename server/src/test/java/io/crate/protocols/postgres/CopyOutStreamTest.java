@@ -0,0 +1,62 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class CopyOutStreamTest {
+
+    @Test
+    public void test_writes_are_sent_as_copy_data_followed_by_copy_done() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        CopyOutStream stream = new CopyOutStream(new DelayableWriteChannel(channel));
+        stream.write("{\"x\": 1}\n".getBytes(StandardCharsets.UTF_8));
+        stream.write(new byte[CopyOutStream.FLUSH_THRESHOLD_BYTES]);
+        stream.close();
+
+        ByteBuf copyData = channel.readOutbound();
+        assertThat((char) copyData.readByte()).isEqualTo('d');
+        assertThat(copyData.readInt()).isEqualTo(4 + CopyOutStream.FLUSH_THRESHOLD_BYTES);
+        assertThat(copyData.readCharSequence(9, StandardCharsets.UTF_8).toString()).isEqualTo("{\"x\": 1}\n");
+        copyData.release();
+
+        // The remaining bytes exceeding the threshold are sent in a second message
+        copyData = channel.readOutbound();
+        assertThat((char) copyData.readByte()).isEqualTo('d');
+        assertThat(copyData.readInt()).isEqualTo(4 + 9);
+        copyData.release();
+
+        ByteBuf copyDone = channel.readOutbound();
+        assertThat((char) copyDone.readByte()).isEqualTo('c');
+        assertThat(copyDone.readInt()).isEqualTo(4);
+        copyDone.release();
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+}
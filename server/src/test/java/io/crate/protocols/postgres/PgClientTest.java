@@ -56,6 +56,8 @@ import io.crate.action.sql.Session;
 import io.crate.action.sql.Sessions;
 import io.crate.auth.AlwaysOKAuthentication;
 import io.crate.auth.Authentication;
+import io.crate.execution.engine.collect.files.StdinFileInputFactory;
+import io.crate.execution.engine.export.StdoutFileOutputFactory;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
 import io.crate.netty.NettyBootstrap;
 import io.crate.protocols.ssl.SslContextProvider;
@@ -137,7 +139,9 @@ public class PgClientTest extends CrateDummyClusterServiceUnitTest {
             nettyBootstrap,
             serverTransport,
             pageCacheRecycler,
-            sslContextProvider
+            sslContextProvider,
+            new StdinFileInputFactory(),
+            new StdoutFileOutputFactory()
         );
         toClose.add(postgresNetty);
         postgresNetty.start();
@@ -21,11 +21,15 @@
 
 package io.crate.protocols.postgres;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.Test;
 import org.mockito.Answers;
@@ -35,6 +39,8 @@ import io.crate.data.Row1;
 import io.crate.protocols.postgres.DelayableWriteChannel.DelayedWrites;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 
 public class ResultSetReceiverTest {
@@ -42,6 +48,7 @@ public class ResultSetReceiverTest {
     @Test
     public void testChannelIsPeriodicallyFlushedToAvoidConsumingTooMuchMemory() {
         Channel channel = mock(Channel.class, Answers.RETURNS_DEEP_STUBS);
+        when(channel.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
         DelayableWriteChannel delayableWriteChannel = new DelayableWriteChannel(channel);
         DelayedWrites delayWrites = delayableWriteChannel.delayWrites();
         ResultSetReceiver resultSetReceiver = new ResultSetReceiver(
@@ -54,9 +61,44 @@ public class ResultSetReceiverTest {
             null
         );
         Row1 row1 = new Row1(1);
-        for (int i = 0; i < 1500; i++) {
+        // Each DataRow message takes 12 bytes, the rows are written in chunks of FLUSH_THRESHOLD_BYTES
+        int rowsPerChunk = ResultSetReceiver.FLUSH_THRESHOLD_BYTES / 12 + 1;
+        for (int i = 0; i < rowsPerChunk + 500; i++) {
             resultSetReceiver.setNextRow(row1);
         }
+        verify(channel, times(1)).write(any(ByteBuf.class));
         verify(channel, times(1)).flush();
     }
+
+    @Test
+    public void test_wait_until_ready_completes_once_channel_becomes_writable() {
+        Channel channel = mock(Channel.class, Answers.RETURNS_DEEP_STUBS);
+        when(channel.isActive()).thenReturn(true);
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.isWritable()).thenReturn(true);
+        DelayableWriteChannel delayableWriteChannel = new DelayableWriteChannel(channel);
+        ResultSetReceiver resultSetReceiver = new ResultSetReceiver(
+            "select * from t",
+            delayableWriteChannel,
+            delayableWriteChannel.delayWrites(),
+            TransactionState.IDLE,
+            AccessControl.DISABLED,
+            Collections.singletonList(PGTypes.get(DataTypes.INTEGER)),
+            null
+        );
+        assertThat(resultSetReceiver.waitUntilReady()).isNull();
+
+        when(channel.isWritable()).thenReturn(false);
+        CompletableFuture<?> ready = resultSetReceiver.waitUntilReady();
+        assertThat(ready).isNotNull();
+        assertThat(ready).isNotDone();
+        verify(channel, times(1)).flush();
+
+        delayableWriteChannel.writabilityChanged();
+        assertThat(ready).isNotDone();
+
+        when(channel.isWritable()).thenReturn(true);
+        delayableWriteChannel.writabilityChanged();
+        assertThat(ready).isDone();
+    }
 }
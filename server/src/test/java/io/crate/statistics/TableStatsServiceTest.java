@@ -46,7 +46,8 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             Settings.builder().put(TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING.getKey(), 0).build(),
             THREAD_POOL,
             clusterService,
-            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS));
+            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS),
+            new TableStats());
 
         Assert.assertThat(statsService.refreshInterval,
                           Matchers.is(TimeValue.timeValueMinutes(0)));
@@ -57,7 +58,8 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             Settings.EMPTY,
             THREAD_POOL,
             clusterService,
-            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS));
+            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS),
+            new TableStats());
 
         Assert.assertThat(statsService.refreshInterval,
                           Matchers.is(TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING.getDefault(Settings.EMPTY)));
@@ -99,7 +101,8 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             Settings.EMPTY,
             THREAD_POOL,
             clusterService,
-            sqlOperations
+            sqlOperations,
+            new TableStats()
         );
         statsService.run();
 
@@ -119,10 +122,56 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             Settings.EMPTY,
             THREAD_POOL,
             clusterService,
-            sqlOperations
+            sqlOperations,
+            new TableStats()
         );
 
         statsService.run();
         Mockito.verify(session, Mockito.times(0)).sync();
     }
+
+    @Test
+    public void test_stats_are_outdated_if_number_of_docs_changed_significantly() {
+        Assert.assertThat(TableStatsService.isOutdated(-1, 10), Matchers.is(false));
+        Assert.assertThat(TableStatsService.isOutdated(-1, 100), Matchers.is(true));
+        Assert.assertThat(TableStatsService.isOutdated(1000, 1100), Matchers.is(false));
+        Assert.assertThat(TableStatsService.isOutdated(1000, 1200), Matchers.is(true));
+        Assert.assertThat(TableStatsService.isOutdated(1000, 800), Matchers.is(true));
+        Assert.assertThat(TableStatsService.isOutdated(1_000_000, 1_050_000), Matchers.is(false));
+    }
+
+    @Test
+    public void test_change_check_settings_changes() {
+        TableStatsService statsService = new TableStatsService(
+            Settings.builder().put(TableStatsService.STATS_SERVICE_CHANGE_CHECK_INTERVAL_SETTING.getKey(), 0).build(),
+            THREAD_POOL,
+            clusterService,
+            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS),
+            new TableStats());
+        Assert.assertThat(statsService.scheduledChangeCheck, Matchers.is(Matchers.nullValue()));
+
+        ClusterSettings clusterSettings = clusterService.getClusterSettings();
+        clusterSettings.applySettings(Settings.builder()
+            .put(TableStatsService.STATS_SERVICE_CHANGE_CHECK_INTERVAL_SETTING.getKey(), "1m").build());
+        Assert.assertThat(statsService.changeCheckInterval, Matchers.is(TimeValue.timeValueMinutes(1)));
+        Assert.assertThat(statsService.scheduledChangeCheck, Matchers.is(IsNull.notNullValue()));
+    }
+
+    @Test
+    public void test_change_check_queries_number_of_docs() {
+        Sessions sqlOperations = Mockito.mock(Sessions.class);
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(sqlOperations.newSystemSession()).thenReturn(session);
+
+        TableStatsService statsService = new TableStatsService(
+            Settings.EMPTY,
+            THREAD_POOL,
+            clusterService,
+            sqlOperations,
+            new TableStats()
+        );
+        statsService.checkForChanges();
+
+        Mockito.verify(session, Mockito.times(1)).quickExec(ArgumentMatchers.eq(TableStatsService.NUM_DOCS_STMT), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
 }
@@ -21,11 +21,13 @@ package org.elasticsearch.transport;
 
 import org.assertj.core.api.Assertions;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.EOFException;
@@ -37,7 +39,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithoutCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, false);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, null);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -64,7 +66,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, Compression.Scheme.DEFLATE);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -91,7 +93,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testCompressionWithCallingMaterializeFails() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, Compression.Scheme.DEFLATE);
 
         byte[] expectedBytes = randomBytes(between(1, 30));
         stream.write(expectedBytes);
@@ -106,6 +108,32 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
         stream.close();
     }
 
+    public void testStreamWithLZ4Compression() throws IOException {
+        BytesStream bStream = new ZeroOutOnCloseStream();
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, Compression.Scheme.LZ4);
+
+        byte[] expectedBytes = randomBytes(randomInt(3 * Compression.LZ4_BLOCK_SIZE));
+        stream.write(expectedBytes);
+
+        BytesReference bytesRef = stream.materializeBytes();
+        stream.close();
+
+        assertThat(Compression.isLZ4(bytesRef)).isTrue();
+
+        try (Lz4TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE)) {
+            assertThat(decompressor.decompress(bytesRef)).isEqualTo(bytesRef.length());
+            BytesStreamOutput decompressed = new BytesStreamOutput();
+            ReleasableBytesReference page;
+            while ((page = decompressor.pollDecompressedPage()) != null) {
+                page.writeTo(decompressed);
+                page.close();
+            }
+            assertThat(BytesReference.toBytes(decompressed.bytes())).isEqualTo(expectedBytes);
+        }
+
+        bStream.close();
+    }
+
     private static byte[] randomBytes(int length) {
         byte[] bytes = new byte[length];
         for (int i = 0; i < bytes.length; ++i) {
@@ -398,7 +398,8 @@ public class TcpTransportTests extends ESTestCase {
                 Version.CURRENT,
                 new StatsTracker(),
                 testThreadPool,
-                BigArrays.NON_RECYCLING_INSTANCE
+                BigArrays.NON_RECYCLING_INSTANCE,
+                Compression.Scheme.LZ4
             );
             TcpTransport.handleException(logger, channel, exception, lifecycle, outputHandler);
 
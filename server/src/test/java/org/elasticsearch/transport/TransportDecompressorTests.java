@@ -52,7 +52,7 @@ public class TransportDecompressorTests extends ESTestCase {
 
             BytesReference bytes = output.bytes();
 
-            TransportDecompressor decompressor = new TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            DeflateTransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
             int bytesConsumed = decompressor.decompress(bytes);
             assertEquals(bytes.length(), bytesConsumed);
             assertTrue(decompressor.isEOS());
@@ -74,7 +74,7 @@ public class TransportDecompressorTests extends ESTestCase {
 
             BytesReference bytes = output.bytes();
 
-            TransportDecompressor decompressor = new TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            DeflateTransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
             int bytesConsumed = decompressor.decompress(bytes);
             assertEquals(bytes.length(), bytesConsumed);
             assertTrue(decompressor.isEOS());
@@ -103,7 +103,7 @@ public class TransportDecompressorTests extends ESTestCase {
 
             BytesReference bytes = output.bytes();
 
-            TransportDecompressor decompressor = new TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            DeflateTransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
 
             int split1 = (int) (bytes.length() * 0.3);
             int split2 = (int) (bytes.length() * 0.65);
@@ -135,4 +135,76 @@ public class TransportDecompressorTests extends ESTestCase {
         }
     }
 
+    public void testLZ4MultiPageCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = new OutputStreamStreamOutput(new Lz4BlockOutputStream(Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < 10000; ++i) {
+                    lz4Stream.writeInt(i / 16);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            assertTrue(bytes.length() < 4 * 10000);
+
+            TransportDecompressor decompressor = TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE, bytes);
+            assertTrue(decompressor instanceof Lz4TransportDecompressor);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            ReleasableBytesReference reference1 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference2 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference3 = decompressor.pollDecompressedPage();
+            assertNull(decompressor.pollDecompressedPage());
+            BytesReference composite = CompositeBytesReference.of(reference1, reference2, reference3);
+            assertEquals(4 * 10000, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i / 16, streamInput.readInt());
+            }
+            Releasables.close(reference1, reference2, reference3);
+        }
+    }
+
+    public void testLZ4IncrementalMultiPageCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = new OutputStreamStreamOutput(new Lz4BlockOutputStream(Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < 10000; ++i) {
+                    lz4Stream.writeInt(i / 16);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            BytesStreamOutput decompressed = new BytesStreamOutput();
+            int offset = 0;
+            while (offset < bytes.length()) {
+                int length = Math.min(bytes.length() - offset, offset == 0 ? Compression.LZ4_HEADER.length : between(1, 1000));
+                BytesReference inbound = bytes.slice(offset, length);
+                assertEquals(length, decompressor.decompress(inbound));
+                offset += length;
+                ReleasableBytesReference page;
+                while ((page = decompressor.pollDecompressedPage()) != null) {
+                    page.writeTo(decompressed);
+                    page.close();
+                }
+            }
+            assertEquals(4 * 10000, decompressed.size());
+            StreamInput streamInput = decompressed.bytes().streamInput();
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i / 16, streamInput.readInt());
+            }
+            decompressor.close();
+        }
+    }
+
+    public void testGetDecompressorWaitsForHeader() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (OutputStream lz4Stream = new Lz4BlockOutputStream(Streams.flushOnCloseStream(output))) {
+                lz4Stream.write(randomByte());
+            }
+            BytesReference bytes = output.bytes();
+            assertNull(TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE, bytes.slice(0, 3)));
+            assertTrue(TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE, bytes) instanceof Lz4TransportDecompressor);
+        }
+    }
 }
@@ -357,7 +357,9 @@ public abstract class AggregationTestCase extends ESTestCase {
             mock(DocTableInfo.class),
             new LuceneQueryBuilder(nodeCtx),
             collectPhase,
-            collectTask
+            collectTask,
+            threadPool.executor(ThreadPool.Names.SEARCH),
+            () -> 2
         );
         List<Row> result;
         if (batchIterator != null) {